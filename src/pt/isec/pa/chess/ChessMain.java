@@ -1,11 +1,17 @@
 package pt.isec.pa.chess;
 
 import javafx.application.Application;
+import pt.isec.pa.chess.uci.UciEngine;
 import pt.isec.pa.chess.ui.MainFx;
 
 public class ChessMain {
     public static void main(String[] args) {
+        // --uci: motor sem interface gráfica, para GUIs e gestores de torneios
+        if (args.length > 0 && args[0].equals("--uci")) {
+            UciEngine.main(args);
+            return;
+        }
         Application.launch(MainFx.class, args);
     }
 
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package pt.isec.pa.chess.model;
 
+import pt.isec.pa.chess.model.clock.ChessClock;
 import pt.isec.pa.chess.model.data.*;
 import pt.isec.pa.chess.model.data.pieces.King;
 import pt.isec.pa.chess.model.data.pieces.Pawn;
@@ -41,8 +42,9 @@ public class ChessGame implements Serializable, IOriginator {
      * - CHECKMATE: The game has ended with a checkmate.
      * - STALEMATE: The game has ended in a stalemate.
      * - INSMATERIAL: The game has ended due to insufficient material to continue.
+     * - TIMEOUT: The game has ended because a player ran out of time.
      */
-    public enum acontecimentoMovimento {NORMAL, FALHIDO, PROMOTION, CHECKMATE, STALEMATE, INSMATERIAL}
+    public enum acontecimentoMovimento {NORMAL, FALHIDO, PROMOTION, CHECKMATE, STALEMATE, INSMATERIAL, TIMEOUT}
 
     /**
      * Serial version UID for serialization compatibility.
@@ -96,6 +98,17 @@ public class ChessGame implements Serializable, IOriginator {
      */
     boolean checkmate = false;
 
+    /**
+     * Indicates whether the debug messages on the console are suppressed (e.g. in simulations).
+     * Not saved: a game read from a file prints them again.
+     */
+    private transient boolean quiet = false;
+
+    /**
+     * The chess clock of the game, or null if it is not timed. Saved with the game.
+     */
+    private ChessClock clock;
+
     /**
      * Constructs a ChessGame with specified player names.
      *
@@ -118,6 +131,28 @@ public class ChessGame implements Serializable, IOriginator {
         this("Jogador Brancas", "Jogador Pretas");
     }
 
+    /**
+     * Suppresses or restores the debug messages that moves print on the console.
+     *
+     * @param quiet true to suppress them
+     */
+    public void setQuiet(boolean quiet) {
+        this.quiet = quiet;
+        b.setQuiet(quiet);
+    }
+
+    public boolean isQuiet() {
+        return quiet;
+    }
+
+    public ChessClock getClock() {
+        return clock;
+    }
+
+    public void setClock(ChessClock clock) {
+        this.clock = clock;
+    }
+
     /**
      * Gets possible moves for a piece at the specified position.
      *
@@ -221,7 +256,7 @@ public class ChessGame implements Serializable, IOriginator {
         stateBeforeMove.removePiece(linha, coluna);
         stateBeforeMove.putPiece(p,novaLinha, novaColuna);
         p.setPosicao(novaLinha, novaColuna, true);
-        System.out.println(stateBeforeMove.isCheck(!currentPlayer));
+        if (!quiet) System.out.println(stateBeforeMove.isCheck(!currentPlayer));
         kingUnderAttack = stateBeforeMove.isUnderThreat(currentPlayer,k.getLine(),k.getColumn()); // verifica se ainda está a se atacado
         p.setPosicao(linha, coluna, true);
         return kingUnderAttack;
@@ -274,7 +309,9 @@ public class ChessGame implements Serializable, IOriginator {
         Piece selected = b.getPiece(line, col), target = b.getPiece(newLine, newCol);
         Piece targetEnPessant;
         if (selected != null && target != null) {
-            System.out.println(castle(currentPlayer, selected, target) ? "Tentativa de castle" : "Tentativa falhida de castle");
+            // o roque é feito aqui, mesmo sem mensagens
+            boolean castled = castle(currentPlayer, selected, target);
+            if (!quiet) System.out.println(castled ? "Tentativa de castle" : "Tentativa falhida de castle");
         }
         if ((selected = makeMove(line, col, newLine, newCol, currentPlayer)) == null) {
             return acontecimentoMovimento.FALHIDO;// o movimento falhou
@@ -328,9 +365,9 @@ public class ChessGame implements Serializable, IOriginator {
 
         }
         setJoagdorAtual(!currentPlayer);
-        System.out.println(determineGameState(!currentPlayer));
+        if (!quiet) System.out.println(determineGameState(!currentPlayer));
         if (isPromotion(!currentPlayer, newLine, newCol, selected)) {
-            System.out.println("Promoção de peão!");
+            if (!quiet) System.out.println("Promoção de peão!");
             return acontecimentoMovimento.PROMOTION; // Movimento válido e terminou o jogo
         }
         return determineGameState(!currentPlayer);
@@ -573,6 +610,16 @@ public class ChessGame implements Serializable, IOriginator {
         return p;
     }
 
+    /**
+     * Gets the board of the game.
+     * Used by the components that read the position directly (opening book, engine).
+     *
+     * @return The game board
+     */
+    public Board getBoard() {
+        return b;
+    }
+
     /**
      * Gets the current board status as a string.
      *
@@ -972,8 +1019,10 @@ public class ChessGame implements Serializable, IOriginator {
      */
     @Override
     public IMemento save() {
-        System.out.println("Saving game state...");
-        System.out.println(printBoardGame());
+        if (!quiet) {
+            System.out.println("Saving game state...");
+            System.out.println(printBoardGame());
+        }
 
         ChessGameState state = new ChessGameState(
                 this.b.deepCopy(),
@@ -982,7 +1031,7 @@ public class ChessGame implements Serializable, IOriginator {
                 this.blackPlayerNome,
                 this.draw
         );
-        return new Memento(state);
+        return new Memento(state, quiet);
     }
 
     /**
@@ -994,6 +1043,7 @@ public class ChessGame implements Serializable, IOriginator {
     public void restore(IMemento memento) {
         ChessGameState state = (ChessGameState) memento.getSnapshot();
         this.b = state.board.deepCopy(); // Usa deepCopy novamente para garantir independência
+        b.setQuiet(quiet);
         this.currentPlayer = state.currentPlayer;
         this.whitePlayerNome = state.whitePlayerNome;
         this.blackPlayerNome = state.blackPlayerNome;
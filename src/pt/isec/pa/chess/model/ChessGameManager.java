@@ -1,13 +1,37 @@
 package pt.isec.pa.chess.model;
 
 
+import pt.isec.pa.chess.model.book.PolyglotBook;
+import pt.isec.pa.chess.model.book.PolyglotKey;
+import pt.isec.pa.chess.model.clock.ChessClock;
+import pt.isec.pa.chess.model.clock.TimeControl;
+import pt.isec.pa.chess.model.clock.TimerWheel;
+import pt.isec.pa.chess.model.data.Board;
 import pt.isec.pa.chess.model.data.ChessGameSerialization;
+import pt.isec.pa.chess.model.data.MoveJournal;
+import pt.isec.pa.chess.model.engine.AnalysisService;
+import pt.isec.pa.chess.model.engine.Move;
+import pt.isec.pa.chess.model.engine.ParallelSearch;
+import pt.isec.pa.chess.model.engine.Position;
+import pt.isec.pa.chess.model.engine.SearchLimits;
+import pt.isec.pa.chess.model.engine.SearchResult;
+import pt.isec.pa.chess.model.engine.SearchScheduler;
+import pt.isec.pa.chess.model.engine.TranspositionTable;
 import pt.isec.pa.chess.model.memento.CareTaker;
+import pt.isec.pa.chess.model.memento.Memento;
+import pt.isec.pa.chess.model.tablebase.TablebaseProber;
 
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.io.*;
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 /**
  * The ChessGameManager class manages the chess game, including game state, player turns,
@@ -20,8 +44,11 @@ import java.util.ArrayList;
  *   <li>Piece movements and validations</li>
  *   <li>Undo/redo functionality</li>
  *   <li>Game saving and loading</li>
+ *   <li>Crash recovery through the move journal</li>
+ *   <li>Chess clocks, driven by a timer wheel shared by every game</li>
  *   <li>Language and sound settings</li>
  *   <li>Event notifications to observers</li>
+ *   <li>Immutable snapshots for readers on other threads</li>
  * </ul>
  *
  * @see ChessGame
@@ -51,7 +78,8 @@ public class ChessGameManager {
      */
     private boolean promotionState = false;
     /**
-     * Property name constant for board changes.
+     * Property name constant for board changes (new value: the {@link GameChange} of the operation).
+     * Fired at most once per operation; {@link #addChangeListener} gives the same change-set by category.
      */
     public static final String PROP_BOARD = "board";
     /**
@@ -59,13 +87,29 @@ public class ChessGameManager {
      */
     public static final String PROP_PROMOTION = "promotion";
     /**
-     * Property name constant for current player changes.
+     * Property name constant for current player changes (new value: the player to move).
      */
     public static final String PROP_CURRENT_PLAYER = "currentPlayer";
     /**
-     * Property name constant for game over events.
+     * Property name constant for game over events (new value: the {@link GameChange} of the operation).
      */
     public static final String PROP_GAME_OVER = "gameOver";
+    /**
+     * Property name constant for each iteration of a background search (new value: SearchResult).
+     * Fired from the search thread.
+     */
+    public static final String PROP_ENGINE_INFO = "engineInfo";
+    /**
+     * Property name constant for the end of a background search (new value: SearchResult).
+     * Fired from the search thread; the move is played with {@link #playEngineResult}.
+     */
+    public static final String PROP_ENGINE_RESULT = "engineResult";
+    /**
+     * Property name constant for the learning mode hints (new value: List of int[] with
+     * [row, column, new row, new column, score in centipawns], best move first).
+     * Fired on the analysis thread as each depth is completed.
+     */
+    public static final String PROP_ANALYSIS = "analysis";
     /**
      * Property name constant for learning mode changes.
      */
@@ -74,22 +118,104 @@ public class ChessGameManager {
      * Indicates whether sounds are allowed in the game and their language.
      */
     private boolean AllowSounds, English;
+    /**
+     * Suppresses the debug messages printed on the console, also for the games that replace this one.
+     */
+    private boolean quiet;
     /**
      * CareTaker instance for managing game state history.
      */
-    private final CareTaker careTaker;
+    private CareTaker careTaker;
+    /**
+     * Write-ahead journal of the accepted moves, or null if journaling is disabled.
+     */
+    private MoveJournal journal;
+    /**
+     * Polyglot opening book, or null if no book is loaded.
+     */
+    private PolyglotBook openingBook;
+    private TablebaseProber tablebases;
+    /**
+     * Engine, created on first use so that games that never use it (e.g. the sessions of a server)
+     * do not pay for its table and threads.
+     */
+    private SearchScheduler scheduler;
+    /**
+     * Last move played by the engine, whose principal variation gives the reply to ponder on.
+     */
+    private SearchResult lastEngineResult;
+    /**
+     * Key of the position being pondered (after the expected reply).
+     */
+    private long ponderKey;
+    /**
+     * Multi-PV analysis shown as hints in learning mode.
+     */
+    private AnalysisService analysis;
+    /**
+     * Legal moves, check, king squares and outcome of the positions seen, by position key.
+     * The legal moves of the player to move are computed in the background after every move.
+     */
+    private final PositionCache positionCache = new PositionCache();
+    /**
+     * Computes the legal moves of every game in the background. Shared by all the managers, so that
+     * one that is never closed (a window, a test) leaves nothing behind; its virtual threads only
+     * live while a computation runs.
+     */
+    private static final Executor LEGAL_MOVES_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+    private volatile boolean closed;
+    /**
+     * Listeners of the change-sets, with the categories each one subscribed to.
+     */
+    private final List<ChangeSubscription> changeListeners = new CopyOnWriteArrayList<>();
+    /**
+     * Depth of the operations in progress. Operations may call each other (e.g. a move that ends the
+     * game); only the outermost one compares the game with the last snapshot and delivers the change-set.
+     */
+    private int changeDepth;
+    // o jogo foi substituído (novo, aberto, importado): todas as casas contam como alteradas
+    private boolean gameReplaced;
+    private ChessGame.acontecimentoMovimento ending;
+    /**
+     * Last published state of the game, read without locks by other threads (spectators, analysis).
+     */
+    private volatile GameSnapshot snapshot;
+    /**
+     * Runs the flag of the clock on the thread that owns the game; null until one is given, and
+     * without it a saved clock is not resumed.
+     */
+    private Executor clockExecutor;
+
+    private record ChangeSubscription(Set<GameChange.Category> categories, Consumer<GameChange> listener) {}
 
     /**
-     * Constructs a new ChessGameManager with default settings.
+     * Constructs a new ChessGameManager with default settings and a log of its own.
      */
     public ChessGameManager() {
+        this(new ModelLog());
+    }
+
+    /**
+     * Constructs a new ChessGameManager that writes to the given log, e.g. one created by a server session.
+     * @param logs Log of this game
+     */
+    public ChessGameManager(ModelLog logs) {
         chessGame = new ChessGame();
         this.careTaker = new CareTaker(chessGame);
         pcs = new PropertyChangeSupport(this);
-        logs = ModelLog.getInstance();
+        this.logs = logs;
         logs.addLog("Novo jogo iniciado");
         AllowSounds = false;
         English = true;
+        // qualquer mudança no tabuleiro (lance, undo, redo, abrir, promoção) atualiza os lances e as sugestões
+        addChangeListener(change -> {
+            precomputeLegalMoves();
+            refreshAnalysis();
+        }, GameChange.Category.BOARD, GameChange.Category.PLAYER, GameChange.Category.PROMOTION);
+        // o relógio muda de vez com o jogador e para no fim do jogo
+        addChangeListener(this::updateClock, GameChange.Category.PLAYER, GameChange.Category.STATUS);
+        snapshot = takeSnapshot(0, readPieces(), ChessGame.acontecimentoMovimento.NORMAL, Position.of(chessGame));
+        precomputeLegalMoves();
     }
 
     /**
@@ -98,6 +224,16 @@ public class ChessGameManager {
      */
     public boolean usingEnglish() {return English;}
 
+    /**
+     * Suppresses or restores the debug messages that the game prints on the console, e.g. for the
+     * games hosted by a server. Applies to the current game and to the games that replace it.
+     * @param quiet true to suppress them
+     */
+    public void setQuiet(boolean quiet) {
+        this.quiet = quiet;
+        chessGame.setQuiet(quiet);
+    }
+
     /**
      * Toggles the application language between English and another language.
      */
@@ -141,20 +277,121 @@ public class ChessGameManager {
         pcs.addPropertyChangeListener(propertyName, listener);
     }
 
+    /**
+     * Subscribes to the changes of the game. The listener is called once per operation (move, undo,
+     * redo, new game, ...), on the thread that made it, if the operation touched one of the categories.
+     * @param listener The listener to add
+     * @param categories The categories of interest; none means all
+     */
+    public void addChangeListener(Consumer<GameChange> listener, GameChange.Category... categories) {
+        Set<GameChange.Category> set = categories.length == 0 ? EnumSet.allOf(GameChange.Category.class)
+                : EnumSet.of(categories[0], categories);
+        changeListeners.add(new ChangeSubscription(set, listener));
+    }
+
+    public void removeChangeListener(Consumer<GameChange> listener) {
+        changeListeners.removeIf(s -> s.listener() == listener);
+    }
+
+    /**
+     * Starts an operation that changes the game. Must be paired with {@link #endChange()} in a finally block.
+     */
+    private void beginChange() {
+        if (changeDepth++ > 0) return;
+        gameReplaced = false;
+        ending = null;
+    }
+
+    /**
+     * Ends an operation and, if it was the outermost one and changed something, publishes a new
+     * snapshot, delivers the change-set to the subscribers and fires the property events of the
+     * categories it touched, once each.
+     */
+    private void endChange() {
+        if (--changeDepth > 0) return;
+        GameSnapshot before = snapshot;
+        char[] pieces = readPieces();
+        long squares = gameReplaced ? -1L : 0;
+        for (int i = 0; i < 64 && !gameReplaced; i++)
+            if (pieces[i] != before.getPiece(i >> 3, i & 7))
+                squares |= 1L << i;
+        boolean player = chessGame.getCurrentPlayer();
+        boolean promotionBefore = before.getStatus() == ChessGame.acontecimentoMovimento.PROMOTION;
+        Set<GameChange.Category> categories = EnumSet.noneOf(GameChange.Category.class);
+        if (squares != 0) categories.add(GameChange.Category.BOARD);
+        if (player != before.getCurrentPlayer()) categories.add(GameChange.Category.PLAYER);
+        if (promotionState != promotionBefore) categories.add(GameChange.Category.PROMOTION);
+        // sem alterações no tabuleiro o estado mantém-se (ex.: abrir um ficheiro que falha)
+        ChessGame.acontecimentoMovimento novo = promotionState ? ChessGame.acontecimentoMovimento.PROMOTION
+                : ending != null ? ending
+                : categories.isEmpty() ? before.getStatus() : ChessGame.acontecimentoMovimento.NORMAL;
+        if (novo != before.getStatus()) categories.add(GameChange.Category.STATUS);
+        Position position = Position.of(chessGame);
+        // um roque ou en passant perdido sem outras alterações também muda a posição
+        if (categories.isEmpty() && position.key() == before.getKey()) return;
+
+        GameSnapshot after = takeSnapshot(before.getVersion() + 1, pieces, novo, position);
+        snapshot = after;
+        if (categories.isEmpty()) return;
+        GameChange change = new GameChange(categories, squares, player, novo, after);
+        if (change.has(GameChange.Category.BOARD) || change.has(GameChange.Category.PROMOTION))
+            pcs.firePropertyChange(PROP_BOARD, null, change);
+        if (change.has(GameChange.Category.PLAYER))
+            pcs.firePropertyChange(PROP_CURRENT_PLAYER, null, player);
+        if (change.has(GameChange.Category.STATUS) && ending != null)
+            pcs.firePropertyChange(PROP_GAME_OVER, null, change);
+        for (ChangeSubscription s : changeListeners)
+            for (GameChange.Category c : categories)
+                if (s.categories().contains(c)) {
+                    s.listener().accept(change);
+                    break;
+                }
+    }
+
+    private char[] readPieces() {
+        char[] pieces = new char[64];
+        for (int i = 0; i < 64; i++)
+            pieces[i] = chessGame.getSimboloPecaLocalizada(i >> 3, i & 7);
+        return pieces;
+    }
+
+    private GameSnapshot takeSnapshot(long version, char[] pieces, ChessGame.acontecimentoMovimento status,
+                                      Position position) {
+        return new GameSnapshot(version, pieces, chessGame.getCurrentPlayer(), status,
+                chessGame.getWhitePlayerName(), chessGame.getBlackPlayerName(), position);
+    }
+
+    /**
+     * Gets the state of the game published by the last operation that changed it.
+     * Safe to call from any thread, without locks, while the game goes on.
+     * @return An immutable snapshot of the game
+     */
+    public GameSnapshot getSnapshot() {
+        return snapshot;
+    }
+
     /**
      * Starts a new game with the specified players.
      * @param jogador1 Name of the white player
      * @param jogador2 Name of the black player
      */
     public void novoGame(String jogador1, String jogador2) {
-        chessGame = new ChessGame(jogador1, jogador2);
-        careTaker.reset();
-        logs.clearLogs();
-        logs.addLog("Novo jogo iniciado com " + jogador1 + " e " + jogador2);
-        AllowSounds = false;
-        learningMode = false;
-        pcs.firePropertyChange(PROP_BOARD, null, null);
-        pcs.firePropertyChange(PROP_CURRENT_PLAYER, null, chessGame.getCurrentPlayer());
+        stopEngineSearch();
+        stopClock();
+        beginChange();
+        try {
+            chessGame = new ChessGame(jogador1, jogador2);
+            chessGame.setQuiet(quiet);
+            careTaker.reset();
+            logs.clearLogs();
+            logs.addLog("Novo jogo iniciado com " + jogador1 + " e " + jogador2);
+            AllowSounds = false;
+            learningMode = false;
+            gameReplaced = true;
+            checkpointJournal();
+        } finally {
+            endChange();
+        }
     }
 
     /**
@@ -182,10 +419,12 @@ public class ChessGameManager {
         this.learningMode = learningMode;
         logs.addLog("Modo de aprendizagem " + (learningMode ? "ativado" : "desativado"));
         pcs.firePropertyChange("learningMode", !learningMode, learningMode);
+        refreshAnalysis();
     }
 
     /**
      * Moves a piece from one position to another.
+     * Castling is played by moving the king onto its rook.
      * @param line Current row of the piece
      * @param col Current column of the piece
      * @param newLine Destination row
@@ -193,30 +432,68 @@ public class ChessGameManager {
      * @return true if the move was successful
      */
     public boolean movePiece(int line, int col, int newLine, int newCol){
+        beginChange();
+        try{
+            return doMovePiece(line, col, newLine, newCol);
+        }finally {
+            endChange();
+        }
+    }
+
+    /**
+     * Moves a piece and completes the move in the same operation: a pawn that reaches the last rank
+     * is promoted at once. Used for moves that arrive whole, such as the ones received from the network.
+     *
+     * @param promotion Piece a promoting pawn becomes (0-3: Q,R,B,N)
+     * @return true if the move was played
+     */
+    public boolean movePiece(int line, int col, int newLine, int newCol, int promotion){
+        beginChange();
+        try{
+            boolean player = getCurrentPlayer();
+            if(!doMovePiece(line, col, newLine, newCol)) return false;
+            if(promotionState){
+                changePawnPromotion(player, promotion);
+                changePromotionState();
+            }
+            return true;
+        }finally {
+            endChange();
+        }
+    }
+
+    private boolean doMovePiece(int line, int col, int newLine, int newCol){
+        ChessClock clock = chessGame.getClock();
+        // sem tempo não há lance; se a roda ainda não deu pela queda, dá-se aqui
+        if(clock != null && clock.checkFlag()) return false;
+
             String capturada = chessGame.getSimboloPecaLocalizada(newLine, newCol) != ' ' ?
                 String.valueOf(chessGame.getSimboloPecaLocalizada(newLine, newCol)) :
                 null;
 
         careTaker.save(chessGame.save());
 
+        boolean player = chessGame.getCurrentPlayer();
         ChessGame.acontecimentoMovimento resultado = chessGame.movePiece(line, col, newLine, newCol);
 
         if(resultado == ChessGame.acontecimentoMovimento.NORMAL){
             //notifyEstadoJogoMudado();
-            char Oldcol = chessGame.coordTabuleiroColuna(col);
-            int Oldlinha = chessGame.coordTabuleiroLinha(line);
-            char newColChar = chessGame.coordTabuleiroColuna(newCol);
-            int newLinha = chessGame.coordTabuleiroLinha(newLine);
-            logs.addLog("Jogador " + (!chessGame.getCurrentPlayer() ? "Branco" : "Preto") + " moveu " + chessGame.getPieceSimbolo(newLine, newCol) + " de (" + Oldcol + Oldlinha + ") para (" + newColChar + newLinha + ")");
-            pcs.firePropertyChange(PROP_BOARD, null, null);
-            pcs.firePropertyChange(PROP_CURRENT_PLAYER, null, chessGame.getCurrentPlayer());
+            logs.addMove(!chessGame.getCurrentPlayer(), chessGame.getPieceSimbolo(newLine, newCol).charAt(0), line, col, newLine, newCol);
+            journalMove(line, col, newLine, newCol);
         }
         else if(resultado == ChessGame.acontecimentoMovimento.PROMOTION){
-            logs.addLog("Jogador " + (!chessGame.getCurrentPlayer() ? "Branco" : "Preto") + " Promoveu " + chessGame.getPieceSimbolo(newLine, newCol) + " para ");
+            logs.addPromotion(!chessGame.getCurrentPlayer(), chessGame.getPieceSimbolo(newLine, newCol).charAt(0), line, col, newLine, newCol);
+            journalMove(line, col, newLine, newCol);
             changePromotionState();
-        }else if(resultado == ChessGame.acontecimentoMovimento.FALHIDO)
-            return false;
+        }else if(resultado == ChessGame.acontecimentoMovimento.FALHIDO){
+            // o roque é feito pelo ChessGame mas indica FALHIDO; confirma-se pela mudança de jogador
+            if(chessGame.getCurrentPlayer() == player) return false;
+            logs.addCastle(player, line, col, newLine, newCol);
+            journalMove(line, col, newLine, newCol);
+            handleGameEnd(chessGame.determineGameState(player));
+        }
         else {
+            journalMove(line, col, newLine, newCol);
             handleGameEnd(resultado);
         }
         return true;
@@ -225,15 +502,20 @@ public class ChessGameManager {
     public void handleGameEnd(ChessGame.acontecimentoMovimento ending){
         if(ending == ChessGame.acontecimentoMovimento.CHECKMATE){
             logs.addLog("Fim de Jogo! Jogador " + (chessGame.getCurrentPlayer() ? "Preto" : "Branco") + " venceu!");
-            pcs.firePropertyChange(PROP_GAME_OVER, null, null);
         } else if (ending == ChessGame.acontecimentoMovimento.STALEMATE) {
             logs.addLog("Fim de Jogo! Empate por Stalemate!");
-            pcs.firePropertyChange(PROP_GAME_OVER, null, null);
         } else if (ending == ChessGame.acontecimentoMovimento.INSMATERIAL) {
             logs.addLog("Fim de Jogo! Empate por Insuficiência de Material!");
-            pcs.firePropertyChange(PROP_GAME_OVER, null, null);
+        } else if (ending == ChessGame.acontecimentoMovimento.TIMEOUT) {
+            ChessClock clock = chessGame.getClock();
+            boolean semTempo = clock != null ? clock.getFlaggedPlayer() : chessGame.getCurrentPlayer();
+            logs.addLog("Fim de Jogo! Tempo esgotado, Jogador " + (semTempo ? "Preto" : "Branco") + " venceu!");
         }
         else return;
+        // PROP_GAME_OVER é disparado no fim da operação, com o resto das alterações
+        beginChange();
+        this.ending = ending;
+        endChange();
     }
 
     /**
@@ -241,10 +523,23 @@ public class ChessGameManager {
      * This method toggles the current player and notifies observers of the change.
      */
     public void changeCurrentPlayer(){
-        chessGame.changeCurrentPlayer();
+        beginChange();
+        try{
+            chessGame.changeCurrentPlayer();
+        }finally {
+            endChange();
+        }
         pcs.firePropertyChange("O jogador atual mudou de " + (chessGame.getCurrentPlayer() ? "Brancas" : "Pretas") + " para " + (chessGame.getCurrentPlayer() ? "Pretas" : "Brancas") + " para " + (chessGame.getCurrentPlayer() ? "Brancas" : "Pretas"), null, null);
     }
 
+    /**
+     * Gets the log of this game.
+     * @return The log, to read its events or listen for new ones
+     */
+    public ModelLog getLog() {
+        return logs;
+    }
+
     /**
      * Gets the current player.
      * @return true for white player, false for black
@@ -258,7 +553,10 @@ public class ChessGameManager {
      * @return true if the game has ended
      */
     public boolean isGameOver() {
-        return chessGame.isGameOver();
+        ChessClock clock = chessGame.getClock();
+        if (clock != null && clock.isFlagged()) return true;
+        return cachedPosition().getOutcome(() -> chessGame.determineGameState(!chessGame.getCurrentPlayer()))
+                != ChessGame.acontecimentoMovimento.NORMAL;
     }
 
     public String getBoardStatus() {
@@ -275,10 +573,15 @@ public class ChessGameManager {
      * Toggles the promotion state.
      */
     public void changePromotionState(){
-        promotionState = !promotionState;
-        ChessGame.acontecimentoMovimento res = chessGame.determineGameState(getCurrentPlayer());
-        if(res != ChessGame.acontecimentoMovimento.NORMAL && !promotionState){
-            handleGameEnd(res);
+        beginChange();
+        try{
+            promotionState = !promotionState;
+            ChessGame.acontecimentoMovimento res = chessGame.determineGameState(getCurrentPlayer());
+            if(res != ChessGame.acontecimentoMovimento.NORMAL && !promotionState){
+                handleGameEnd(res);
+            }
+        }finally {
+            endChange();
         }
     }
 
@@ -289,7 +592,18 @@ public class ChessGameManager {
      * @param piece         The piece type to promote to (0-3: Q,R,B,N)
      */
     public void changePawnPromotion(boolean currentPlayer, int piece){
-        chessGame.changePawnPromotion(currentPlayer, piece);
+        beginChange();
+        try{
+            if(chessGame.changePawnPromotion(currentPlayer, piece) && journal != null){
+                try{
+                    journal.appendPromotion(currentPlayer, piece);
+                }catch (IOException e){
+                    journalFailed(e);
+                }
+            }
+        }finally {
+            endChange();
+        }
     }
 
     public String printBoardGame() {
@@ -302,12 +616,61 @@ public class ChessGameManager {
 
     /**
      * Gets possible moves for a piece as coordinates.
+     * The moves of the player to move are looked up in the table computed after the last move.
      * @param line Row of the piece
      * @param column Column of the piece
      * @return ArrayList of move coordinates
      */
     public ArrayList<int[]> getMovesOfPiece(int line, int column){
-        return chessGame.getMovesOfPiece(line, column);
+        if(!isCurrentPlayerPiece(line, column))
+            return chessGame.getMovesOfPiece(line, column);
+        // se ainda não foi calculada calcula-se já, é rápido
+        return cachedPosition()
+                .getLegalMoves(() -> LegalMoveTable.of(chessGame.getBoard(), chessGame.getCurrentPlayer()))
+                .getMoves(line, column);
+    }
+
+    /**
+     * Starts computing the legal moves of the player to move in the background.
+     * The board is copied here, so that the game is never accessed by another thread; the copy keeps
+     * the state of the pieces (moved, en passant) that their moves depend on.
+     */
+    private void precomputeLegalMoves(){
+        if(closed) return;
+        PositionCache.Entry entry = cachedPosition();
+        if(entry.hasLegalMoves()) return;
+        Memento board = new Memento(chessGame.getBoard(), true);
+        boolean white = chessGame.getCurrentPlayer();
+        LEGAL_MOVES_EXECUTOR.execute(() -> {
+            Board copy = (Board) board.getSnapshot();
+            copy.setQuiet(true);
+            entry.setLegalMoves(LegalMoveTable.of(copy, white));
+        });
+    }
+
+    /**
+     * Gets the cache entry of the current position, keyed by the last snapshot. In the middle of an
+     * operation the snapshot is behind the game, so the values are computed without being cached
+     * rather than building the position only to find its key.
+     */
+    private PositionCache.Entry cachedPosition(){
+        return changeDepth == 0 ? positionCache.get(snapshot.getKey()) : positionCache.detached();
+    }
+
+    /**
+     * Gets the number of values about positions that were found in the cache.
+     * @return Number of cache hits
+     */
+    public long getPositionCacheHits(){
+        return positionCache.getHits();
+    }
+
+    /**
+     * Gets the number of values about positions that had to be computed.
+     * @return Number of cache misses
+     */
+    public long getPositionCacheMisses(){
+        return positionCache.getMisses();
     }
 
     /**
@@ -333,23 +696,30 @@ public class ChessGameManager {
      * @param fich File path to save to
      */
     public void openJogo(String fich){
+        beginChange();
         try{
             careTaker.reset();
             ChessGame jogoCarregado = ChessGameSerialization.desserialize(fich);
             if(jogoCarregado == null){
                 return;
             }
+            stopEngineSearch();
+            stopClock();
             this.chessGame = jogoCarregado;
+            chessGame.setQuiet(quiet);
+            gameReplaced = true;
+            checkpointJournal();
 
             logs.clearLogs();
-            pcs.firePropertyChange(PROP_BOARD, null, null);
-            pcs.firePropertyChange(PROP_CURRENT_PLAYER, null, chessGame.getCurrentPlayer());
 
             chessGame.setJoagdorAtual(jogoCarregado.getCurrentPlayer());
             logs.addLog("Jogo aberto com sucesso");
+            resumeClock();
 
         }catch (Exception e){
             logs.addLog("Erro ao abrir o jogo: " + e.getMessage());
+        }finally {
+            endChange();
         }
     }
 
@@ -386,6 +756,7 @@ public class ChessGameManager {
      * @param nome2 Name for black player
      */
     public void importGame(String fich, String nome1, String nome2){
+        beginChange();
         try{
             careTaker.reset();
             File f = new File(fich);
@@ -406,12 +777,14 @@ public class ChessGameManager {
 
             logs.clearLogs();
             boolean res = chessGame.importGame(jogoImportado.toString(), nome1, nome2);
-            pcs.firePropertyChange(PROP_BOARD, null, null);
-            pcs.firePropertyChange(PROP_CURRENT_PLAYER, null, chessGame.getCurrentPlayer());
+            gameReplaced = true;
+            checkpointJournal();
             logs.addLog("Jogo importado com sucesso");
 
         } catch (Exception e) {
             logs.addLog("Erro ao importar o jogo: " + e.getMessage());
+        } finally {
+            endChange();
         }
     }
 
@@ -429,7 +802,7 @@ public class ChessGameManager {
      * @return true if the king is in check
      */
     public boolean KingInCheck(boolean color) {
-        return chessGame.KingIsInCheck(color);
+        return cachedPosition().isInCheck(color, () -> chessGame.KingIsInCheck(color));
     }
 
     /**
@@ -474,7 +847,7 @@ public class ChessGameManager {
      * @return An array containing the row and column of the king
      */
     public int[] getKingPosition(boolean color) {
-        return chessGame.getKingPos(color);
+        return cachedPosition().getKingPosition(color, () -> chessGame.getKingPos(color));
     }
 
     /**
@@ -485,11 +858,16 @@ public class ChessGameManager {
      * @return true if the piece was created successfully
      */
     public boolean createPieceAt(char simbolo, int linha, int coluna) {
-        if (chessGame.createPieceAt(simbolo, linha, coluna) != null) {
-            pcs.firePropertyChange(PROP_BOARD, null, null);
-            return true;
+        beginChange();
+        try {
+            if (chessGame.createPieceAt(simbolo, linha, coluna) != null) {
+                checkpointJournal();
+                return true;
+            }
+            return false;
+        } finally {
+            endChange();
         }
-        return false;
     }
 
     /**
@@ -497,7 +875,13 @@ public class ChessGameManager {
      * @param cor true for white, false for black
      */
     public void setJogadorAtual(boolean cor){
-        chessGame.setJoagdorAtual(cor);
+        beginChange();
+        try{
+            chessGame.setJoagdorAtual(cor);
+            checkpointJournal();
+        }finally {
+            endChange();
+        }
     }
 
     /**
@@ -506,15 +890,30 @@ public class ChessGameManager {
      */
     public void undo(){
         if(!canUndo()) return;
+        stopEngineSearch();
 
         //careTaker.save(chessGame.save());
-        System.out.println("UNDO - Estado anterior:");
-        System.out.println(chessGame.printBoardGame());
-        careTaker.undo();
-        System.out.println("UNDO - Estado após undo:");
-        System.out.println(chessGame.printBoardGame());
-        pcs.firePropertyChange(PROP_BOARD, null, chessGame.getBoardStatus());
-        pcs.firePropertyChange(PROP_CURRENT_PLAYER, null, chessGame.getCurrentPlayer());
+        beginChange();
+        try{
+            if(!quiet){
+                System.out.println("UNDO - Estado anterior:");
+                System.out.println(chessGame.printBoardGame());
+            }
+            careTaker.undo();
+            if(journal != null){
+                try{
+                    journal.appendUndo();
+                }catch (IOException e){
+                    journalFailed(e);
+                }
+            }
+            if(!quiet){
+                System.out.println("UNDO - Estado após undo:");
+                System.out.println(chessGame.printBoardGame());
+            }
+        }finally {
+            endChange();
+        }
     }
 
     /**
@@ -525,13 +924,27 @@ public class ChessGameManager {
         if (!canRedo()) return;
 
         //careTaker.save(chessGame.save()); // Salva estado atual antes do redo
-        System.out.println("REDO - Estado anterior:");
-        System.out.println(chessGame.printBoardGame());
-        careTaker.redo();
-        System.out.println("REDO - Estado após undo:");
-        System.out.println(chessGame.printBoardGame());
-        pcs.firePropertyChange(PROP_BOARD, null, chessGame.getBoardStatus());
-        pcs.firePropertyChange(PROP_CURRENT_PLAYER, null, chessGame.getCurrentPlayer());
+        beginChange();
+        try{
+            if(!quiet){
+                System.out.println("REDO - Estado anterior:");
+                System.out.println(chessGame.printBoardGame());
+            }
+            careTaker.redo();
+            if(journal != null){
+                try{
+                    journal.appendRedo();
+                }catch (IOException e){
+                    journalFailed(e);
+                }
+            }
+            if(!quiet){
+                System.out.println("REDO - Estado após undo:");
+                System.out.println(chessGame.printBoardGame());
+            }
+        }finally {
+            endChange();
+        }
     }
 
     /**
@@ -582,4 +995,491 @@ public class ChessGameManager {
         return chessGame.isCheckmate();
     }
 
+    //Relógio
+    /**
+     * Starts a chess clock on the current game, with the time of the player to move running. The
+     * clock switches at every change of player, stops at the end of the game, is saved with the game
+     * and resumes when it is opened by a manager with a clock executor; a new game has no clock. When a player runs out of time the game
+     * ends through {@link #handleGameEnd} with TIMEOUT, run by the given executor.
+     *
+     * @param control  Time control of the game
+     * @param executor Runs the end of the game on the thread that owns it (Platform::runLater in a
+     *                 window, the session on a server)
+     */
+    public void startClock(TimeControl control, Executor executor){
+        stopClock();
+        clockExecutor = executor;
+        chessGame.setClock(new ChessClock(control));
+        logs.addLog("Relógio iniciado: " + control);
+        resumeClock();
+    }
+
+    /**
+     * Sets the executor that runs the end of the game when a player runs out of time, and resumes the
+     * clock of the game if it was left stopped for the lack of one. Games opened or recovered with a
+     * clock only resume it once an executor is set.
+     *
+     * @param executor Runs the end of the game on the thread that owns it (Platform::runLater in a
+     *                 window, the session on a server)
+     */
+    public void setClockExecutor(Executor executor){
+        clockExecutor = executor;
+        ChessClock clock = chessGame.getClock();
+        if(clock != null && !clock.isRunning()) resumeClock();
+    }
+
+    /**
+     * Stops the clock of the game, if it has one, keeping the time left.
+     */
+    public void stopClock(){
+        ChessClock clock = chessGame.getClock();
+        if(clock != null) clock.stop();
+    }
+
+    /**
+     * Gets the clock of the game.
+     * @return The clock, or null if the game is not timed
+     */
+    public ChessClock getClock(){
+        return chessGame.getClock();
+    }
+
+    private void resumeClock(){
+        ChessClock clock = chessGame.getClock();
+        if(clock == null || isGameOver()) return;
+        Executor executor = clockExecutor;
+        // sem executor a queda correria na thread do TimerWheel, fora do dono do jogo
+        if(executor == null){
+            logs.addLog("Relógio parado: não há executor para o fim do tempo");
+            return;
+        }
+        clock.start(getCurrentPlayer(), TimerWheel.shared(), () -> executor.execute(() -> clockFlagged(clock)));
+    }
+
+    private void clockFlagged(ChessClock clock){
+        // um novo jogo pode ter substituído o relógio antes de a queda chegar aqui
+        if(clock != chessGame.getClock() || snapshot.getStatus() == ChessGame.acontecimentoMovimento.TIMEOUT) return;
+        handleGameEnd(ChessGame.acontecimentoMovimento.TIMEOUT);
+    }
+
+    private void updateClock(GameChange change){
+        ChessClock clock = chessGame.getClock();
+        if(clock == null) return;
+        ChessGame.acontecimentoMovimento status = change.getStatus();
+        if(status == ChessGame.acontecimentoMovimento.CHECKMATE || status == ChessGame.acontecimentoMovimento.STALEMATE
+                || status == ChessGame.acontecimentoMovimento.INSMATERIAL)
+            clock.stop();
+        else if(change.has(GameChange.Category.PLAYER))
+            clock.switchTo(change.getCurrentPlayer());
+    }
+
+    //Fecho
+    /**
+     * Releases what the game holds besides memory: the timeout of the clock, the journal file and the
+     * threads of the engine and of the analysis; no more legal moves are computed in the background.
+     * The manager must not be used afterwards.
+     */
+    public void close(){
+        stopClock();
+        disableJournal();
+        synchronized (this){
+            if(scheduler != null){
+                scheduler.shutdown();
+                scheduler.getSearch().shutdown();
+            }
+            if(analysis != null) analysis.shutdown();
+        }
+        closed = true;
+    }
+
+    //Journal
+
+    /**
+     * Enables the move journal for this game.
+     * If the snapshot and journal files already exist (for instance after a crash), the game is first
+     * recovered by loading the snapshot and replaying the journal; otherwise a snapshot of the current
+     * game is written. From then on every accepted move is appended to the journal.
+     *
+     * @param fich Path of the snapshot file; the journal is stored next to it
+     * @param mode When the journal is forced to the disk
+     * @return true if a previous game was recovered
+     */
+    public boolean enableJournal(String fich, MoveJournal.SyncMode mode){
+        disableJournal();
+        try{
+            MoveJournal novo = new MoveJournal(fich, mode);
+            ChessGame recuperado = novo.readSnapshot();
+            if(recuperado == null){
+                novo.checkpoint(chessGame);
+                journal = novo;
+                return false;
+            }
+            short[] registos = novo.readRecords();
+            // a reposição de todos os registos é entregue como uma só alteração
+            stopClock();
+            beginChange();
+            try{
+                chessGame = recuperado;
+                chessGame.setQuiet(quiet);
+                careTaker = new CareTaker(chessGame);
+                promotionState = false;
+                gameReplaced = true;
+                logs.clearLogs();
+                replayJournal(registos);
+                journal = novo;
+                logs.addLog("Jogo recuperado do journal (" + registos.length + " registos)");
+                resumeClock();
+            }finally {
+                endChange();
+            }
+            return true;
+        }catch (Exception e){
+            logs.addLog("Erro ao ativar o journal: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Disables the move journal, forcing any pending records to the disk.
+     * The files are kept, so the game can still be recovered later.
+     */
+    public void disableJournal(){
+        if(journal == null) return;
+        try{
+            journal.close();
+        }catch (IOException e){
+            logs.addLog("Erro ao fechar o journal: " + e.getMessage());
+        }
+        journal = null;
+    }
+
+    /**
+     * Checks if the move journal is enabled.
+     * @return true if every accepted move is being journaled
+     */
+    public boolean isJournalEnabled(){
+        return journal != null;
+    }
+
+    /**
+     * Writes a new snapshot of the game and empties the journal.
+     * Called whenever the game is replaced as a whole (new game, open, import).
+     */
+    public void checkpointJournal(){
+        if(journal == null) return;
+        try{
+            journal.checkpoint(chessGame);
+        }catch (Exception e){
+            journalFailed(e);
+        }
+    }
+
+    private void replayJournal(short[] registos){
+        for(short r : registos){
+            switch (MoveJournal.kind(r)){
+                case MoveJournal.KIND_MOVE -> movePiece(MoveJournal.fromLine(r), MoveJournal.fromColumn(r),
+                        MoveJournal.toLine(r), MoveJournal.toColumn(r));
+                case MoveJournal.KIND_PROMOTION -> {
+                    changePawnPromotion(MoveJournal.promotionPlayer(r), MoveJournal.promotionPiece(r));
+                    if(promotionState)
+                        changePromotionState();
+                }
+                case MoveJournal.KIND_UNDO -> undo();
+                case MoveJournal.KIND_REDO -> redo();
+            }
+        }
+    }
+
+    private void journalMove(int line, int col, int newLine, int newCol){
+        if(journal == null) return;
+        try{
+            journal.appendMove(line, col, newLine, newCol);
+        }catch (IOException e){
+            journalFailed(e);
+        }
+    }
+
+    private void journalFailed(Exception e){
+        logs.addLog("Erro no journal, journal desativado: " + e.getMessage());
+        disableJournal();
+    }
+
+    //Opening book
+
+    /**
+     * Loads a Polyglot opening book, replacing the previous one.
+     * @param fich Path of the ".bin" book
+     * @return true if the book was loaded
+     */
+    public boolean loadOpeningBook(String fich){
+        try{
+            PolyglotBook novo = new PolyglotBook(fich);
+            if(openingBook != null)
+                openingBook.close();
+            openingBook = novo;
+            logs.addLog("Livro de aberturas carregado (" + novo.size() + " entradas)");
+            return true;
+        }catch (IOException e){
+            logs.addLog("Erro ao carregar o livro de aberturas: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Gets a move from the opening book for the current position, chosen by weight.
+     * @return An array with [row, column, new row, new column, promotion], where the promotion is the piece
+     * for {@link #movePiece(int, int, int, int, int)} (0-3: Q,R,B,N; 0 if the move is not a promotion),
+     * or null if the position is not in the book
+     */
+    public int[] getBookMove(){
+        if(openingBook == null) return null;
+        short move = openingBook.pickMove(PolyglotKey.of(chessGame));
+        if(move == 0) return null;
+        // Polyglot: 1 cavalo, 2 bispo, 3 torre, 4 dama
+        int promotion = PolyglotBook.promotion(move);
+        return new int[]{PolyglotBook.fromLine(move), PolyglotBook.fromColumn(move),
+                PolyglotBook.toLine(move), PolyglotBook.toColumn(move), promotion == 0 ? 0 : 4 - promotion};
+    }
+
+    //Tablebases
+
+    /**
+     * Uses the endgame tablebases of a directory (the files are only mapped when probed).
+     * @param dir Directory with the ".dtm" files
+     */
+    public void loadTablebases(String dir){
+        tablebases = new TablebaseProber(dir);
+        logs.addLog("Tablebases em " + dir);
+    }
+
+    /**
+     * Gets the value of the current position in the tablebases.
+     * @return The value, seen from the player to move (see {@link pt.isec.pa.chess.model.tablebase.Tablebase}),
+     * or {@link TablebaseProber#NOT_FOUND}
+     */
+    public int getTablebaseValue(){
+        if(tablebases == null) return TablebaseProber.NOT_FOUND;
+        return tablebases.probe(chessGame);
+    }
+
+    /**
+     * Gets the best move of the current position according to the tablebases.
+     * @return An array with [row, column, new row, new column], or null if the position is not in the tablebases
+     */
+    public int[] getTablebaseMove(){
+        if(tablebases == null) return null;
+        int move = tablebases.bestMove(Position.of(chessGame));
+        if(move == Move.NONE) return null;
+        return toBoardMove(move);
+    }
+
+    //Motor de jogo
+
+    /**
+     * Searches the current position with the engine.
+     * The call blocks until one of the limits is reached.
+     * @param limits Depth, node and time limits of the search
+     * @return The result of the search (best move, score, depth and nodes per second)
+     */
+    public SearchResult analyse(SearchLimits limits){
+        SearchResult result = engine().getSearch().search(Position.of(chessGame), limits);
+        logs.addLog("Motor: ", result);
+        return result;
+    }
+
+    /**
+     * Sets the size of the engine's transposition table.
+     * @param megabytes Size in megabytes
+     */
+    public void setHashSize(int megabytes){
+        TranspositionTable tt = engine().getSearch().getTranspositionTable();
+        tt.resize(megabytes);
+        logs.addLog("Tabela de transposição com " + tt.getSizeMegabytes() + " MB");
+    }
+
+    /**
+     * Sets the number of threads used by the engine.
+     * @param threads Number of threads (1 for a single-threaded search)
+     */
+    public void setEngineThreads(int threads){
+        ParallelSearch search = engine().getSearch();
+        search.setThreads(threads);
+        logs.addLog("Motor com " + search.getThreads() + " threads");
+    }
+
+    /**
+     * Asks the engine for a move in the current position.
+     * @param timeMillis Time available for the search
+     * @return An array with [row, column, new row, new column], or null if there are no legal moves
+     */
+    public int[] getEngineMove(long timeMillis){
+        SearchResult result = analyse(SearchLimits.time(timeMillis));
+        if(result.getBestMove() == Move.NONE) return null;
+        return toBoardMove(result.getBestMove());
+    }
+
+    /**
+     * Lets the engine play a move for the current player, promotions included.
+     * @param timeMillis Time available for the search
+     * @return true if a move was played
+     */
+    public boolean playEngineMove(long timeMillis){
+        if(isGameOver() || promotionState) return false;
+        SearchResult result = analyse(SearchLimits.time(timeMillis));
+        lastEngineResult = result;
+        return playMove(result.getBestMove());
+    }
+
+    /**
+     * Starts searching the current position in the background, with the time taken from the clock of
+     * the player to move. Returns at once; the result is announced with {@link #PROP_ENGINE_RESULT}.
+     * If the engine was pondering on the move just played, the ponder search goes on instead.
+     * @param remainingMillis Time left on the clock of the player to move
+     * @param incrementMillis Increment per move
+     */
+    public void startEngineSearch(long remainingMillis, long incrementMillis){
+        if(isGameOver() || promotionState) return;
+        Position position = Position.of(chessGame);
+        if(isEnginePondering() && position.key() == ponderKey && scheduler.ponderHit()){
+            logs.addLog("Motor: lance esperado, a pesquisa continua");
+            return;
+        }
+        engine().start(position, SearchLimits.forClock(remainingMillis, incrementMillis, 0),
+                this::fireEngineInfo, this::fireEngineResult);
+    }
+
+    /**
+     * Starts thinking on the opponent's time, on the reply expected by the last engine move.
+     * @param remainingMillis Time that will be left on the engine's clock
+     * @param incrementMillis Increment per move
+     * @return false if there is no expected reply
+     */
+    public boolean startPondering(long remainingMillis, long incrementMillis){
+        if(lastEngineResult == null || isGameOver() || promotionState) return false;
+        int[] pv = lastEngineResult.getPv();
+        if(pv.length < 2) return false;
+        Position position = Position.of(chessGame);
+        if(!position.isPseudoLegal(pv[1]) || !position.makeLegalMove(pv[1])) return false;
+        ponderKey = position.key();
+        engine().ponder(position, SearchLimits.forClock(remainingMillis, incrementMillis, 0),
+                this::fireEngineInfo, this::fireEngineResult);
+        return true;
+    }
+
+    /**
+     * Cancels the background search, if any. Returns at once and its result is never announced.
+     */
+    public void stopEngineSearch(){
+        if(scheduler != null) scheduler.cancel();
+    }
+
+    /**
+     * Checks if the engine is thinking on the opponent's time.
+     * @return true while pondering
+     */
+    public boolean isEnginePondering(){
+        return scheduler != null && scheduler.isPondering();
+    }
+
+    /**
+     * Plays the move of a background search, if it is still legal in the current position.
+     * Must be called on the thread that plays the user's moves (e.g. with Platform.runLater).
+     * @param result Result announced with {@link #PROP_ENGINE_RESULT}
+     * @return true if the move was played
+     */
+    public boolean playEngineResult(SearchResult result){
+        if(result == null || isGameOver() || promotionState) return false;
+        Position position = Position.of(chessGame);
+        int move = result.getBestMove();
+        if(!position.isPseudoLegal(move) || !position.isLegal(move)) return false;
+        logs.addLog("Motor: ", result);
+        lastEngineResult = result;
+        return playMove(move);
+    }
+
+    private void fireEngineInfo(SearchResult info){
+        pcs.firePropertyChange(PROP_ENGINE_INFO, null, info);
+    }
+
+    private void fireEngineResult(SearchResult result){
+        pcs.firePropertyChange(PROP_ENGINE_RESULT, null, result);
+    }
+
+    /**
+     * Sets the number of moves suggested in learning mode.
+     * @param lines Number of moves, best first
+     */
+    public void setAnalysisLines(int lines){
+        analysis().setLines(lines);
+        refreshAnalysis();
+    }
+
+    /**
+     * Shows the hints known for the current position at once and starts refining them in the
+     * background, or clears them when learning mode is off.
+     */
+    private void refreshAnalysis(){
+        if(!learningMode || isGameOver() || promotionState){
+            if(analysis != null) analysis.cancel();
+            pcs.firePropertyChange(PROP_ANALYSIS, null, List.of());
+            return;
+        }
+        fireAnalysis(analysis().analyse(Position.of(chessGame), this::fireAnalysis));
+    }
+
+    private void fireAnalysis(List<SearchResult> lines){
+        List<int[]> hints = new ArrayList<>(lines.size());
+        for(SearchResult line : lines){
+            int[] m = toBoardMove(line.getBestMove());
+            hints.add(new int[]{m[0], m[1], m[2], m[3], line.getScore()});
+        }
+        pcs.firePropertyChange(PROP_ANALYSIS, null, hints);
+    }
+
+    private synchronized SearchScheduler engine(){
+        if(scheduler == null)
+            scheduler = new SearchScheduler(new ParallelSearch(Runtime.getRuntime().availableProcessors()));
+        return scheduler;
+    }
+
+    private synchronized AnalysisService analysis(){
+        if(analysis == null) analysis = new AnalysisService();
+        return analysis;
+    }
+
+    /**
+     * Plays a move of the engine on the game, through the same path as the user's moves.
+     */
+    private boolean playMove(int move){
+        if(move == Move.NONE) return false;
+        beginChange();
+        try{
+            return doPlayMove(move);
+        }finally {
+            endChange();
+        }
+    }
+
+    private boolean doPlayMove(int move){
+        int[] m = toBoardMove(move);
+        // o roque também passa por movePiece, que o regista no log e no journal
+        if(!movePiece(m[0], m[1], m[2], m[3])) return false;
+        if(promotionState && Move.promotion(move) != 0){
+            changePawnPromotion(!getCurrentPlayer(), Position.QUEEN - Move.promotion(move)); // Q,R,B,N -> 0..3
+            changePromotionState();
+        }
+        return true;
+    }
+
+    /**
+     * Converts an engine move to board coordinates. Castling is given as the king moving to its rook,
+     * which is how the game expects it.
+     */
+    private static int[] toBoardMove(int move){
+        int from = Move.from(move), to = Move.to(move);
+        if(Move.flag(move) == Move.CASTLE)
+            to = to > from ? to + 1 : to - 2;
+        return new int[]{Position.line(from), Position.column(from), Position.line(to), Position.column(to)};
+    }
+
 }
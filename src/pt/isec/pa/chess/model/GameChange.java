@@ -0,0 +1,92 @@
+package pt.isec.pa.chess.model;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Everything one operation of a {@link ChessGameManager} changed (a move, undo, redo, opening a
+ * game, ...), delivered once at the end of the operation.
+ */
+public final class GameChange {
+    /**
+     * What a change touches; listeners subscribe to the categories they draw or send.
+     */
+    public enum Category {
+        /** Pieces were added, removed or moved. */
+        BOARD,
+        /** The side to move changed. */
+        PLAYER,
+        /** A promotion started or ended. */
+        PROMOTION,
+        /** The status of the game changed (e.g. it ended). */
+        STATUS
+    }
+
+    private final Set<Category> categories;
+    private final long squares;
+    private final boolean currentPlayer;
+    private final ChessGame.acontecimentoMovimento status;
+    private final GameSnapshot snapshot;
+
+    GameChange(Set<Category> categories, long squares, boolean currentPlayer, ChessGame.acontecimentoMovimento status,
+               GameSnapshot snapshot) {
+        this.categories = Collections.unmodifiableSet(EnumSet.copyOf(categories));
+        this.squares = squares;
+        this.currentPlayer = currentPlayer;
+        this.status = status;
+        this.snapshot = snapshot;
+    }
+
+    public Set<Category> getCategories() {
+        return categories;
+    }
+
+    public boolean has(Category category) {
+        return categories.contains(category);
+    }
+
+    /**
+     * Gets the changed squares, one bit per square: bit row * 8 + column (row 0 is the 8th rank).
+     */
+    public long getChangedSquares() {
+        return squares;
+    }
+
+    public boolean isChanged(int line, int col) {
+        return (squares >>> (line * 8 + col) & 1) != 0;
+    }
+
+    public int getChangedCount() {
+        return Long.bitCount(squares);
+    }
+
+    /**
+     * Gets the side to move after the operation.
+     * @return true for white, false for black
+     */
+    public boolean getCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    /**
+     * Gets the status after the operation: NORMAL, PROMOTION while a promotion is being chosen,
+     * or how the game ended.
+     */
+    public ChessGame.acontecimentoMovimento getStatus() {
+        return status;
+    }
+
+    /**
+     * Gets the state of the game after the operation.
+     */
+    public GameSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public String toString() {
+        return categories + " casas=" + getChangedCount() + " jogador=" + (currentPlayer ? "Brancas" : "Pretas")
+                + " estado=" + status;
+    }
+}
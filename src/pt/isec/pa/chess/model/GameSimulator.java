@@ -0,0 +1,140 @@
+package pt.isec.pa.chess.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plays moves on a {@link ChessGame} for simulations, without the overhead of
+ * {@link ChessGameManager}: no console messages, no log, no events and no undo history.
+ *
+ * <p>Moves are given in board coordinates (row 0 is the 8th rank). For the batch methods each
+ * move is packed in an int by {@link #encode}. A simulator is not thread-safe; simulations run in
+ * parallel with one simulator per thread.
+ */
+public final class GameSimulator {
+    /**
+     * Promotion pieces, as expected by {@link ChessGame#changePawnPromotion}.
+     */
+    public static final int QUEEN = 0, ROOK = 1, BISHOP = 2, KNIGHT = 3;
+
+    private final ChessGame game;
+
+    /**
+     * Creates a simulator on a new game from the initial position.
+     */
+    public GameSimulator() {
+        this(new ChessGame());
+    }
+
+    /**
+     * Creates a simulator that plays on an existing game, which stops printing messages.
+     */
+    public GameSimulator(ChessGame game) {
+        this.game = game;
+        game.setQuiet(true);
+    }
+
+    public ChessGame getGame() {
+        return game;
+    }
+
+    /**
+     * Plays a move, promoting to a queen.
+     *
+     * @return the outcome: NORMAL, FALHIDO if the move is not legal, or how the game ended
+     */
+    public ChessGame.acontecimentoMovimento move(int line, int col, int newLine, int newCol) {
+        return move(line, col, newLine, newCol, QUEEN);
+    }
+
+    /**
+     * Plays a move. Castling is given as the king moving to its rook, as in the game.
+     *
+     * @param promotion Piece a pawn that reaches the last rank is promoted to ({@link #QUEEN} to {@link #KNIGHT})
+     * @return the outcome: NORMAL, FALHIDO if the move is not legal, or how the game ended
+     */
+    public ChessGame.acontecimentoMovimento move(int line, int col, int newLine, int newCol, int promotion) {
+        boolean player = game.getCurrentPlayer();
+        ChessGame.acontecimentoMovimento result = game.movePiece(line, col, newLine, newCol);
+        if (result == ChessGame.acontecimentoMovimento.PROMOTION) {
+            game.changePawnPromotion(player, promotion);
+            return game.determineGameState(player);
+        }
+        // o roque é feito mas o jogo indica FALHIDO; confirma-se pela mudança de jogador
+        if (result == ChessGame.acontecimentoMovimento.FALHIDO && game.getCurrentPlayer() != player)
+            return game.determineGameState(player);
+        return result;
+    }
+
+    /**
+     * Plays a sequence of moves, stopping at the first one that is not legal or that ends the game.
+     *
+     * @param moves Moves packed with {@link #encode}
+     * @return the number of moves played and the outcome of the last one
+     */
+    public Result play(int[] moves) {
+        ChessGame.acontecimentoMovimento result = ChessGame.acontecimentoMovimento.NORMAL;
+        int played = 0;
+        for (int m : moves) {
+            result = move(fromLine(m), fromColumn(m), toLine(m), toColumn(m), promotion(m));
+            if (result == ChessGame.acontecimentoMovimento.FALHIDO) break;
+            played++;
+            if (result != ChessGame.acontecimentoMovimento.NORMAL) break;
+        }
+        return new Result(played, result, game);
+    }
+
+    /**
+     * Plays a sequence of moves on a new game from the initial position.
+     */
+    public static Result simulate(int[] moves) {
+        return new GameSimulator().play(moves);
+    }
+
+    /**
+     * Plays many sequences, each on a new game, in parallel.
+     *
+     * @return the results, in the order of the sequences
+     */
+    public static List<Result> simulateAll(List<int[]> games) {
+        return new ArrayList<>(games.parallelStream().map(GameSimulator::simulate).toList());
+    }
+
+    /**
+     * Result of a sequence of moves.
+     *
+     * @param played  Number of moves played
+     * @param outcome Outcome of the last move tried: NORMAL, FALHIDO if it was not legal, or how the game ended
+     * @param game    The game after the moves played
+     */
+    public record Result(int played, ChessGame.acontecimentoMovimento outcome, ChessGame game) {}
+
+    //Codificação dos lances: origem (6 bits), destino (6 bits), promoção (2 bits)
+    public static int encode(int line, int col, int newLine, int newCol, int promotion) {
+        return (line * 8 + col) | (newLine * 8 + newCol) << 6 | promotion << 12;
+    }
+
+    public static int encode(int line, int col, int newLine, int newCol) {
+        return encode(line, col, newLine, newCol, QUEEN);
+    }
+
+    public static int fromLine(int move) {
+        return (move >> 3) & 7;
+    }
+
+    public static int fromColumn(int move) {
+        return move & 7;
+    }
+
+    public static int toLine(int move) {
+        return (move >> 9) & 7;
+    }
+
+    public static int toColumn(int move) {
+        return (move >> 6) & 7;
+    }
+
+    public static int promotion(int move) {
+        return (move >> 12) & 3;
+    }
+}
@@ -0,0 +1,95 @@
+package pt.isec.pa.chess.model;
+
+import pt.isec.pa.chess.model.engine.Position;
+
+/**
+ * Immutable copy of a game, published by {@link ChessGameManager} at the end of every operation
+ * that changes it. Any number of threads (spectators, analysis) can read it without locks while
+ * the game goes on; a newer version is a different object, so a snapshot is never half-updated.
+ */
+public final class GameSnapshot {
+    private final long version;
+    // símbolos das peças por linha * 8 + coluna (linha 0 é a 8.ª fila), ' ' nas casas vazias
+    private final char[] pieces;
+    private final boolean currentPlayer;
+    private final ChessGame.acontecimentoMovimento status;
+    private final String whitePlayer, blackPlayer;
+    private final Position position;
+
+    GameSnapshot(long version, char[] pieces, boolean currentPlayer, ChessGame.acontecimentoMovimento status,
+                 String whitePlayer, String blackPlayer, Position position) {
+        this.version = version;
+        this.pieces = pieces;
+        this.currentPlayer = currentPlayer;
+        this.status = status;
+        this.whitePlayer = whitePlayer;
+        this.blackPlayer = blackPlayer;
+        this.position = position;
+    }
+
+    /**
+     * Gets the number of the snapshot; each one published by a game has a higher number than the last.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the symbol of the piece at a square (uppercase for white), or ' ' if it is empty.
+     */
+    public char getPiece(int line, int col) {
+        return pieces[line * 8 + col];
+    }
+
+    /**
+     * Gets a copy of the symbols of the 64 squares, indexed by row * 8 + column.
+     */
+    public char[] getPieces() {
+        return pieces.clone();
+    }
+
+    /**
+     * @return true if white is to move
+     */
+    public boolean getCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    /**
+     * Gets the status: NORMAL, PROMOTION while a promotion is being chosen, or how the game ended.
+     */
+    public ChessGame.acontecimentoMovimento getStatus() {
+        return status;
+    }
+
+    public String getWhitePlayer() {
+        return whitePlayer;
+    }
+
+    public String getBlackPlayer() {
+        return blackPlayer;
+    }
+
+    /**
+     * Gets the Zobrist key of the position.
+     */
+    public long getKey() {
+        return position.key();
+    }
+
+    /**
+     * Gets a copy of the position, which the caller may change (e.g. to search it).
+     */
+    public Position getPosition() {
+        return position.copy();
+    }
+
+    public String toFen() {
+        return position.toFen();
+    }
+
+    @Override
+    public String toString() {
+        return "#" + version + " " + toFen() + " " + status;
+    }
+}
@@ -0,0 +1,63 @@
+package pt.isec.pa.chess.model;
+
+import pt.isec.pa.chess.model.data.Board;
+import pt.isec.pa.chess.model.data.pieces.Piece;
+
+import java.util.ArrayList;
+
+/**
+ * The moves of the side to move in one position, by origin square, in the board coordinates of the
+ * game (row 0 is the 8th rank). Built once with the moves given by the pieces of the game, the same
+ * ones {@link ChessGame#getMovesOfPiece(int, int)} returns, so selecting a piece only looks up its
+ * square.
+ *
+ * <p>Instances are immutable.
+ */
+final class LegalMoveTable {
+    // destinos por casa de origem, como linha * 8 + coluna
+    private final byte[][] targets = new byte[64][];
+
+    private static final byte[] NONE = new byte[0];
+
+    private LegalMoveTable() {}
+
+    /**
+     * Computes the table of the pieces of one color. The pieces try their moves on the board and put
+     * it back, so the board must not be used by another thread meanwhile.
+     *
+     * @param board board of the game, or a copy of it
+     * @param white color of the side to move
+     */
+    static LegalMoveTable of(Board board, boolean white) {
+        LegalMoveTable table = new LegalMoveTable();
+        for (int line = 0; line < 8; line++) {
+            for (int column = 0; column < 8; column++) {
+                Piece p = board.getPiece(line, column);
+                if (p == null || p.getColor() != white) {
+                    table.targets[line * 8 + column] = NONE;
+                    continue;
+                }
+                ArrayList<int[]> moves = board.getMovesOfPiece(line, column);
+                byte[] t = new byte[moves.size()];
+                for (int i = 0; i < t.length; i++)
+                    t[i] = (byte) (moves.get(i)[0] * 8 + moves.get(i)[1]);
+                table.targets[line * 8 + column] = t;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Gets the moves of the piece on a square.
+     *
+     * @return a new list of [row, column] destinations, empty if the piece cannot move or the square
+     * does not hold a piece of the side to move
+     */
+    ArrayList<int[]> getMoves(int line, int column) {
+        byte[] t = targets[line * 8 + column];
+        ArrayList<int[]> moves = new ArrayList<>(t.length);
+        for (byte to : t)
+            moves.add(new int[]{to >> 3, to & 7});
+        return moves;
+    }
+}
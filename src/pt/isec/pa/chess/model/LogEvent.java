@@ -0,0 +1,94 @@
+package pt.isec.pa.chess.model;
+
+/**
+ * One event of a {@link ModelLog}: what happened, to which squares and pieces, and when.
+ * The text shown to the user is only built by {@link #toString()}, when a viewer reads the event.
+ */
+public final class LogEvent {
+    /**
+     * Kind of event.
+     */
+    public enum Type {
+        /** Free text, optionally followed by a detail (e.g. the result of a search). */
+        MESSAGE,
+        /** A piece moved from one square to another. */
+        MOVE,
+        /** A pawn reached the last rank and is waiting for the promotion piece. */
+        PROMOTION,
+        /** A player castled. */
+        CASTLE
+    }
+
+    private final Type type;
+    private final long timestamp;
+    private final boolean white;
+    private final char piece;
+    private final int from, to;
+    private final String text;
+    private final Object detail;
+
+    LogEvent(Type type, long timestamp, boolean white, char piece, int from, int to, String text, Object detail) {
+        this.type = type;
+        this.timestamp = timestamp;
+        this.white = white;
+        this.piece = piece;
+        this.from = from;
+        this.to = to;
+        this.text = text;
+        this.detail = detail;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets the time of the event, in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Checks if the event belongs to the white player (moves, promotions and castling).
+     */
+    public boolean isWhite() {
+        return white;
+    }
+
+    /**
+     * Gets the symbol of the piece (uppercase for white), or a space.
+     */
+    public char getPiece() {
+        return piece;
+    }
+
+    /**
+     * Gets the origin square as row * 8 + column (row 0 is the 8th rank), or -1.
+     */
+    public int getFrom() {
+        return from;
+    }
+
+    /**
+     * Gets the destination square as row * 8 + column (row 0 is the 8th rank), or -1.
+     */
+    public int getTo() {
+        return to;
+    }
+
+    @Override
+    public String toString() {
+        String player = white ? "Branco" : "Preto";
+        return switch (type) {
+            case MESSAGE -> detail == null ? text : text + detail;
+            case MOVE -> "Jogador " + player + " moveu " + piece + " de (" + square(from) + ") para (" + square(to) + ")";
+            case PROMOTION -> "Jogador " + player + " Promoveu " + piece + " para ";
+            case CASTLE -> "Jogador " + player + " fez roque";
+        };
+    }
+
+    private static String square(int sq) {
+        return "" + (char) ('a' + (sq & 7)) + (8 - (sq >> 3));
+    }
+}
@@ -5,27 +5,47 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * The ModelLog class provides a singleton logging mechanism for the chess game,
- * with support for property change notifications to observers.
+ * The ModelLog class keeps the log of one chess game, with support for property change
+ * notifications to observers. Each {@link ChessGameManager} has its own log.
  *
  * <p>Features include:
  * <ul>
- *   <li>Singleton instance access</li>
- *   <li>Log message storage</li>
+ *   <li>Structured events ({@link LogEvent}): type, squares, piece and timestamp</li>
+ *   <li>Bounded memory: a ring buffer keeps only the last {@link #getCapacity()} events</li>
+ *   <li>Texts built only when the events are read</li>
  *   <li>Duplicate message prevention</li>
  *   <li>Observer notification</li>
  * </ul>
+ *
+ * <p>Events are written by one thread at a time (the thread that plays the game) and may be read by
+ * any number of threads without locks: a reader copies the events and then drops those the writer
+ * overwrote meanwhile.
  */
 
 public class ModelLog {
     /**
-     * The singleton instance of ModelLog.
+     * Default number of events kept.
+     */
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    // campos de data: tipo (bits 0-1), brancas (bit 2), peça (bits 3-10), origem + 1 (bits 11-17), destino + 1 (bits 18-24)
+    private static final LogEvent.Type[] TYPES = LogEvent.Type.values();
+
+    private final int capacity;
+    private final int mask;
+    private final long[] times;
+    private final int[] data;
+    private final String[] texts;
+    private final Object[] details;
+
+    /**
+     * Number of events ever written; the event n is in the slot n & mask.
      */
-    private static ModelLog modelLog;
+    private volatile long written;
     /**
-     * A list to store log messages.
+     * Number of events written when the log was last cleared.
      */
-    private final List<String> logs = new ArrayList<>();
+    private volatile long clearedAt;
 
     /**
      * PropertyChangeSupport instance to manage property change listeners.
@@ -38,22 +58,29 @@ public class ModelLog {
     private String lastLog = null;
 
     /**
-     * Private constructor to enforce singleton pattern.
+     * Creates a log that keeps the last {@link #DEFAULT_CAPACITY} events.
      */
-    private ModelLog() {
-        pcs = new PropertyChangeSupport(this);
+    public ModelLog() {
+        this(DEFAULT_CAPACITY);
     }
 
     /**
-     * Returns the singleton instance of ModelLog.
+     * Creates a log that keeps the last events.
      *
-     * @return the singleton instance of ModelLog
+     * @param capacity the number of events kept
      */
-    public static synchronized ModelLog getInstance() {
-        if (modelLog == null) {
-            modelLog = new ModelLog();
-        }
-        return modelLog;
+    public ModelLog(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacidade inválida: " + capacity);
+        this.capacity = capacity;
+        // uma posição a mais para a que o escritor estiver a escrever enquanto alguém lê
+        int size = Integer.highestOneBit(capacity) << 1;
+        mask = size - 1;
+        times = new long[size];
+        data = new int[size];
+        texts = new String[size];
+        details = new Object[size];
+        pcs = new PropertyChangeSupport(this);
     }
 
     /**
@@ -74,6 +101,13 @@ public class ModelLog {
         pcs.removePropertyChangeListener(listener);
     }
 
+    /**
+     * Gets the number of events kept; older events are discarded.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
     /**
      * Adds a log message to the ModelLog.
      * If the log message is the same as the last one, it will not be added again.
@@ -85,26 +119,108 @@ public class ModelLog {
             return;
         }
         lastLog = log;
+        write(LogEvent.Type.MESSAGE, false, ' ', -1, -1, log, null);
+    }
 
-        logs.add(log);
-        pcs.firePropertyChange("log", null, log);
+    /**
+     * Adds a log message followed by a detail, which is only converted to text when the log is read.
+     *
+     * @param log the start of the message
+     * @param detail the rest of the message (e.g. the result of a search)
+     */
+    public void addLog(String log, Object detail) {
+        lastLog = null;
+        write(LogEvent.Type.MESSAGE, false, ' ', -1, -1, log, detail);
     }
 
     /**
-     * Returns a copy of the list of log messages.
+     * Logs a move. Squares are given in board coordinates (row 0 is the 8th rank).
+     *
+     * @param white true if the white player moved
+     * @param piece the symbol of the piece moved
+     */
+    public void addMove(boolean white, char piece, int line, int col, int newLine, int newCol) {
+        lastLog = null;
+        write(LogEvent.Type.MOVE, white, piece, line * 8 + col, newLine * 8 + newCol, null, null);
+    }
+
+    /**
+     * Logs a pawn reaching the last rank.
+     *
+     * @param white true if the pawn is white
+     * @param piece the symbol of the pawn
+     */
+    public void addPromotion(boolean white, char piece, int line, int col, int newLine, int newCol) {
+        lastLog = null;
+        write(LogEvent.Type.PROMOTION, white, piece, line * 8 + col, newLine * 8 + newCol, null, null);
+    }
+
+    /**
+     * Logs a castling move.
+     *
+     * @param white true if the white player castled
+     */
+    public void addCastle(boolean white, int line, int col, int newLine, int newCol) {
+        lastLog = null;
+        write(LogEvent.Type.CASTLE, white, white ? 'K' : 'k', line * 8 + col, newLine * 8 + newCol, null, null);
+    }
+
+    private void write(LogEvent.Type type, boolean white, char piece, int from, int to, String text, Object detail) {
+        long n = written;
+        int slot = (int) (n & mask);
+        times[slot] = System.currentTimeMillis();
+        data[slot] = type.ordinal() | (white ? 4 : 0) | ((piece & 0xFF) << 3) | ((from + 1) << 11) | ((to + 1) << 18);
+        texts[slot] = text;
+        details[slot] = detail;
+        // a escrita volátil publica o evento aos leitores
+        written = n + 1;
+        if (pcs.hasListeners("log"))
+            pcs.firePropertyChange("log", null, event(slot));
+    }
+
+    /**
+     * Returns the events kept, oldest first.
+     *
+     * @return a list of events
+     */
+    public List<LogEvent> getEvents() {
+        long end = written;
+        long start = Math.max(clearedAt, end - capacity);
+        List<LogEvent> events = new ArrayList<>((int) (end - start));
+        for (long n = start; n < end; n++)
+            events.add(event((int) (n & mask)));
+        // descarta os eventos que o escritor pode ter reescrito durante a cópia
+        long first = written - mask;
+        if (first > start)
+            events.subList(0, (int) Math.min(events.size(), first - start)).clear();
+        return events;
+    }
+
+    /**
+     * Returns the text of the events kept, oldest first.
      *
      * @return a list of log messages
      */
     public List<String> getLogs() {
-        return new ArrayList<>(logs);
+        List<String> logs = new ArrayList<>();
+        for (LogEvent event : getEvents())
+            logs.add(event.toString());
+        return logs;
     }
 
     /**
      * Clears the log messages and notifies observers.
      */
     public void clearLogs() {
-        logs.clear();
+        clearedAt = written;
+        lastLog = null;
         pcs.firePropertyChange("LimparLogs", null, null);
     }
 
+    private LogEvent event(int slot) {
+        int d = data[slot];
+        return new LogEvent(TYPES[d & 3], times[slot], (d & 4) != 0, (char) ((d >> 3) & 0xFF),
+                ((d >> 11) & 0x7F) - 1, ((d >> 18) & 0x7F) - 1, texts[slot], details[slot]);
+    }
+
 }
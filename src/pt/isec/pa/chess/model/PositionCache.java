@@ -0,0 +1,146 @@
+package pt.isec.pa.chess.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Cache of what is computed about a position (legal moves, check, king squares and outcome), keyed
+ * by the Zobrist key of the position. Making, undoing or redoing a move, importing or restoring a
+ * game all change the key, so the cache never has to be invalidated; the least recently used
+ * positions are evicted when it is full.
+ *
+ * <p>Each value is computed by the game the first time it is asked for a position (the legal moves
+ * may also be set beforehand by a background task), so a value found in the cache is the one the game
+ * would give. The counters tell how many values were found in the cache and how many had to be computed.
+ */
+final class PositionCache {
+    static final int DEFAULT_CAPACITY = 1024;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final Map<Long, Entry> entries;
+
+    PositionCache(int capacity) {
+        entries = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    PositionCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Gets the entry of a position, creating an empty one if needed.
+     */
+    Entry get(long key) {
+        synchronized (entries) {
+            return entries.computeIfAbsent(key, k -> new Entry());
+        }
+    }
+
+    /**
+     * Gets an entry that is not kept, for a position that has not been published yet; its values are
+     * computed and counted as misses like any other, but never found again.
+     */
+    Entry detached() {
+        return new Entry();
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    void resetStatistics() {
+        hits.reset();
+        misses.reset();
+    }
+
+    /**
+     * The values known for one position. Only the legal moves may be set by another thread.
+     */
+    final class Entry {
+        private volatile LegalMoveTable legalMoves;
+        private ChessGame.acontecimentoMovimento outcome;
+        // índice 0 para as brancas, 1 para as pretas
+        private final Boolean[] inCheck = new Boolean[2];
+        private final int[][] kingPosition = new int[2][];
+        private final boolean[] kingKnown = new boolean[2];
+
+        private Entry() {}
+
+        LegalMoveTable getLegalMoves(Supplier<LegalMoveTable> compute) {
+            LegalMoveTable table = legalMoves;
+            if (table != null) {
+                hits.increment();
+                return table;
+            }
+            misses.increment();
+            return legalMoves = compute.get();
+        }
+
+        boolean hasLegalMoves() {
+            return legalMoves != null;
+        }
+
+        void setLegalMoves(LegalMoveTable table) {
+            legalMoves = table;
+        }
+
+        ChessGame.acontecimentoMovimento getOutcome(Supplier<ChessGame.acontecimentoMovimento> compute) {
+            if (outcome != null) {
+                hits.increment();
+                return outcome;
+            }
+            misses.increment();
+            return outcome = compute.get();
+        }
+
+        boolean isInCheck(boolean color, BooleanSupplier compute) {
+            int i = color ? 0 : 1;
+            if (inCheck[i] != null) {
+                hits.increment();
+                return inCheck[i];
+            }
+            misses.increment();
+            return inCheck[i] = compute.getAsBoolean();
+        }
+
+        /**
+         * @return a copy of the king's [row, column], or null if there is no king of that color
+         */
+        int[] getKingPosition(boolean color, Supplier<int[]> compute) {
+            int i = color ? 0 : 1;
+            if (kingKnown[i]) {
+                hits.increment();
+            } else {
+                misses.increment();
+                kingPosition[i] = compute.get();
+                kingKnown[i] = true;
+            }
+            return kingPosition[i] == null ? null : kingPosition[i].clone();
+        }
+    }
+}
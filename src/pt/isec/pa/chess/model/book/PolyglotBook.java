@@ -0,0 +1,184 @@
+package pt.isec.pa.chess.model.book;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Reader for opening books in the Polyglot ".bin" format.
+ *
+ * <p>The book is a sequence of 16-byte big-endian entries (key, move, weight, learn) sorted by key.
+ * The file is memory-mapped and searched in place, so a probe does a binary search over the
+ * mapping and never allocates.
+ *
+ * <p>Moves are returned in the Polyglot encoding (to file, to row, from file, from row and
+ * promotion piece, 3 bits each) and can be converted to board coordinates with
+ * {@link #fromLine}, {@link #fromColumn}, {@link #toLine}, {@link #toColumn} and {@link #promotion}.
+ * Castling is encoded as the king moving onto its own rook, which is also how castling is
+ * selected on the board.
+ */
+public class PolyglotBook implements Closeable {
+    private static final int ENTRY_SIZE = 16;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer book;
+    private final int entries;
+
+    /**
+     * Opens and maps a Polyglot book.
+     *
+     * @param fich Path of the ".bin" file
+     * @throws IOException if the file cannot be mapped or is not a valid book
+     */
+    public PolyglotBook(String fich) throws IOException {
+        channel = FileChannel.open(Path.of(fich), StandardOpenOption.READ);
+        long size = channel.size();
+        if (size % ENTRY_SIZE != 0 || size > Integer.MAX_VALUE) {
+            channel.close();
+            throw new IOException("Livro Polyglot inválido: " + fich);
+        }
+        book = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        book.order(ByteOrder.BIG_ENDIAN);
+        entries = (int) (size / ENTRY_SIZE);
+    }
+
+    /**
+     * Gets the number of entries in the book.
+     * @return number of entries
+     */
+    public int size() {
+        return entries;
+    }
+
+    /**
+     * Finds the first entry of a position.
+     *
+     * @param key Polyglot key of the position
+     * @return index of the first entry with that key, or -1 if the position is not in the book
+     */
+    public int find(long key) {
+        int lo = 0, hi = entries;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (Long.compareUnsigned(keyAt(mid), key) < 0)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo < entries && keyAt(lo) == key ? lo : -1;
+    }
+
+    /**
+     * Counts the book moves of a position.
+     *
+     * @param key Polyglot key of the position
+     * @return number of moves
+     */
+    public int count(long key) {
+        int first = find(key);
+        if (first < 0) return 0;
+        int i = first;
+        while (i < entries && keyAt(i) == key) i++;
+        return i - first;
+    }
+
+    public long keyAt(int index) {
+        return book.getLong(index * ENTRY_SIZE);
+    }
+
+    public short moveAt(int index) {
+        return book.getShort(index * ENTRY_SIZE + 8);
+    }
+
+    public int weightAt(int index) {
+        return book.getShort(index * ENTRY_SIZE + 10) & 0xFFFF;
+    }
+
+    /**
+     * Gets the book move with the highest weight.
+     *
+     * @param key Polyglot key of the position
+     * @return the move in Polyglot encoding, or 0 if the position is not in the book
+     */
+    public short bestMove(long key) {
+        int first = find(key);
+        if (first < 0) return 0;
+        short best = 0;
+        int bestWeight = -1;
+        for (int i = first; i < entries && keyAt(i) == key; i++) {
+            if (weightAt(i) > bestWeight) {
+                bestWeight = weightAt(i);
+                best = moveAt(i);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Chooses a book move at random, with probability proportional to its weight.
+     *
+     * @param key Polyglot key of the position
+     * @return the move in Polyglot encoding, or 0 if the position is not in the book
+     */
+    public short pickMove(long key) {
+        return pickMove(key, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Chooses a book move with probability proportional to its weight, using the given random value.
+     *
+     * @param key    Polyglot key of the position
+     * @param random Any random long
+     * @return the move in Polyglot encoding, or 0 if the position is not in the book
+     */
+    public short pickMove(long key, long random) {
+        int first = find(key);
+        if (first < 0) return 0;
+        long total = 0;
+        int last = first;
+        for (; last < entries && keyAt(last) == key; last++) {
+            total += weightAt(last);
+        }
+        if (total == 0) return moveAt(first);
+        long target = Long.remainderUnsigned(random, total);
+        for (int i = first; i < last; i++) {
+            target -= weightAt(i);
+            if (target < 0) return moveAt(i);
+        }
+        return moveAt(last - 1);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    //Descodificação dos movimentos Polyglot para as coordenadas do tabuleiro (linha 0 = 8ª fila)
+    public static int toColumn(short move) {
+        return move & 7;
+    }
+
+    public static int toLine(short move) {
+        return 7 - ((move >>> 3) & 7);
+    }
+
+    public static int fromColumn(short move) {
+        return (move >>> 6) & 7;
+    }
+
+    public static int fromLine(short move) {
+        return 7 - ((move >>> 9) & 7);
+    }
+
+    /**
+     * Gets the promotion piece of a move: 0 none, 1 knight, 2 bishop, 3 rook, 4 queen.
+     */
+    public static int promotion(short move) {
+        return (move >>> 12) & 7;
+    }
+}
@@ -0,0 +1,221 @@
+package pt.isec.pa.chess.model.clock;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Chess clock of one game: the time left to each player and whose time is running.
+ *
+ * <p>While it runs, the clock keeps one timeout on a {@link TimerWheel} at the moment the player to
+ * move would run out of time; each move cancels it and schedules the next, so the clock costs no
+ * thread of its own. When the time runs out the clock flags and calls the flag handler, on the
+ * thread of the wheel. A clock can be saved with its game: it is written with the time left at that
+ * moment and comes back stopped, to be resumed with {@link #start}.
+ */
+public class ChessClock implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final TimeControl control;
+    // tempo restante de cada jogador no início da vez (ou no último acerto), em nanossegundos
+    private long whiteNanos, blackNanos;
+    // atraso ainda por gastar na vez atual
+    private long delayNanos;
+    private boolean turn = true;
+    private boolean flagged, flaggedPlayer;
+    // a correr só depois de start; um relógio lido de um ficheiro vem parado
+    private transient boolean running;
+    private transient long turnStart;
+    private transient TimerWheel wheel;
+    private transient Runnable onFlag;
+    private transient TimerWheel.Timeout timeout;
+    // número do último timeout agendado; um timeout antigo que dispare é ignorado
+    private transient long generation;
+
+    public ChessClock(TimeControl control) {
+        this.control = control;
+        whiteNanos = blackNanos = control.initialMillis() * 1_000_000;
+        delayNanos = control.delayMillis() * 1_000_000;
+    }
+
+    public TimeControl getControl() {
+        return control;
+    }
+
+    /**
+     * Starts or resumes the clock with the time of a player running.
+     *
+     * @param player The player to move (true for white)
+     * @param wheel  Wheel that times the flag
+     * @param onFlag Called, on the thread of the wheel, when the time of a player runs out
+     */
+    public synchronized void start(boolean player, TimerWheel wheel, Runnable onFlag) {
+        if (flagged) return;
+        if (running) settle(System.nanoTime());
+        if (player != turn) delayNanos = control.delayMillis() * 1_000_000;
+        this.wheel = wheel;
+        this.onFlag = onFlag;
+        turn = player;
+        running = true;
+        turnStart = System.nanoTime();
+        schedule();
+    }
+
+    /**
+     * Ends the turn of the player to move and starts the time of the other: the one who moved gets
+     * the increment, and the next one the delay.
+     *
+     * @param player The player to move now (true for white); if it is already their turn nothing changes
+     * @return false if the clock has flagged, including when the time ran out before the move
+     */
+    public boolean switchTo(boolean player) {
+        Runnable flag;
+        synchronized (this) {
+            if (flagged) return false;
+            if (!running || player == turn) return true;
+            settle(System.nanoTime());
+            if (remaining() <= 0) {
+                flag = flag();
+            } else {
+                if (turn) whiteNanos += control.incrementMillis() * 1_000_000;
+                else blackNanos += control.incrementMillis() * 1_000_000;
+                turn = player;
+                delayNanos = control.delayMillis() * 1_000_000;
+                schedule();
+                return true;
+            }
+        }
+        flag.run();
+        return false;
+    }
+
+    /**
+     * Checks whether the time of the player to move has run out, flagging the clock if the wheel
+     * has not done it yet.
+     *
+     * @return true if the clock has flagged
+     */
+    public boolean checkFlag() {
+        Runnable flag;
+        synchronized (this) {
+            if (flagged || !running) return flagged;
+            settle(System.nanoTime());
+            if (remaining() > 0) return false;
+            flag = flag();
+        }
+        flag.run();
+        return true;
+    }
+
+    /**
+     * Stops the clock, keeping the time left (at the end of the game, for instance).
+     */
+    public synchronized void stop() {
+        if (!running) return;
+        settle(System.nanoTime());
+        running = false;
+        if (timeout != null) timeout.cancel();
+        timeout = null;
+    }
+
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    public synchronized boolean isFlagged() {
+        return flagged;
+    }
+
+    /**
+     * Gets the player who ran out of time (true for white); only meaningful if the clock has flagged.
+     */
+    public synchronized boolean getFlaggedPlayer() {
+        return flaggedPlayer;
+    }
+
+    /**
+     * Gets the player whose time runs (true for white).
+     */
+    public synchronized boolean getTurn() {
+        return turn;
+    }
+
+    /**
+     * Gets the time left to a player, at this moment.
+     */
+    public synchronized long getRemainingMillis(boolean player) {
+        long nanos = player ? whiteNanos : blackNanos;
+        if (running && player == turn)
+            nanos -= Math.max(0, System.nanoTime() - turnStart - delayNanos);
+        return Math.max(0, nanos / 1_000_000);
+    }
+
+    /**
+     * Takes the time elapsed since the start of the turn, first from the delay and then from the
+     * player to move.
+     */
+    private void settle(long now) {
+        long elapsed = now - turnStart;
+        turnStart = now;
+        long fromDelay = Math.min(elapsed, delayNanos);
+        delayNanos -= fromDelay;
+        if (turn) whiteNanos -= elapsed - fromDelay;
+        else blackNanos -= elapsed - fromDelay;
+    }
+
+    private long remaining() {
+        return turn ? whiteNanos : blackNanos;
+    }
+
+    /**
+     * Schedules the timeout at the moment the player to move runs out of time.
+     */
+    private void schedule() {
+        if (timeout != null) timeout.cancel();
+        long nanos = remaining() + delayNanos;
+        // arredondado para cima: o relógio nunca cai antes do tempo
+        long millis = (Math.max(0, nanos) + 999_999) / 1_000_000;
+        long scheduled = ++generation;
+        timeout = wheel.schedule(millis, () -> expired(scheduled));
+    }
+
+    private void expired(long scheduled) {
+        Runnable flag;
+        synchronized (this) {
+            if (scheduled != generation || !running || flagged) return;
+            settle(System.nanoTime());
+            if (remaining() > 0) {
+                // a roda pode adiantar-se menos de um milissegundo
+                schedule();
+                return;
+            }
+            flag = flag();
+        }
+        flag.run();
+    }
+
+    /**
+     * Marks the player to move as out of time and stops the clock.
+     *
+     * @return the flag handler, to call outside the lock
+     */
+    private Runnable flag() {
+        if (turn) whiteNanos = 0;
+        else blackNanos = 0;
+        flagged = true;
+        flaggedPlayer = turn;
+        running = false;
+        if (timeout != null) timeout.cancel();
+        timeout = null;
+        return onFlag != null ? onFlag : () -> {};
+    }
+
+    @Serial
+    private synchronized void writeObject(ObjectOutputStream out) throws IOException {
+        // guarda o tempo restante deste momento
+        if (running) settle(System.nanoTime());
+        out.defaultWriteObject();
+    }
+}
@@ -0,0 +1,39 @@
+package pt.isec.pa.chess.model.clock;
+
+import java.io.Serializable;
+
+/**
+ * Time control of a game: the time each player starts with and what each move gives back.
+ *
+ * @param initialMillis   Time of each player at the start
+ * @param incrementMillis Time added to a player after each of their moves (Fischer increment)
+ * @param delayMillis     Time at the start of each move before the clock starts running (simple delay)
+ */
+public record TimeControl(long initialMillis, long incrementMillis, long delayMillis) implements Serializable {
+    public TimeControl {
+        if (initialMillis <= 0 || incrementMillis < 0 || delayMillis < 0)
+            throw new IllegalArgumentException("Controlo de tempo inválido");
+    }
+
+    /**
+     * Time control with an increment per move, such as 5+3 (five minutes, three seconds per move).
+     */
+    public static TimeControl increment(long initialMillis, long incrementMillis) {
+        return new TimeControl(initialMillis, incrementMillis, 0);
+    }
+
+    /**
+     * Time control with a delay per move: the clock of a player only runs after the delay.
+     */
+    public static TimeControl delay(long initialMillis, long delayMillis) {
+        return new TimeControl(initialMillis, 0, delayMillis);
+    }
+
+    @Override
+    public String toString() {
+        // minutos+segundos, como 5+3; o atraso no fim, como 5+0 d2
+        String initial = initialMillis % 60_000 == 0 ? String.valueOf(initialMillis / 60_000) : initialMillis / 1000 + "s";
+        String base = initial + "+" + incrementMillis / 1000;
+        return delayMillis > 0 ? base + " d" + delayMillis / 1000 : base;
+    }
+}
@@ -0,0 +1,219 @@
+package pt.isec.pa.chess.model.clock;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hierarchical timing wheel with a resolution of one millisecond, run by a single thread.
+ *
+ * <p>Four wheels of 256 slots cover 1 ms, 256 ms, 65.5 s and 4.7 h per slot. A timeout is placed in
+ * the finest wheel that reaches its deadline and moves down a wheel each time the coarser one turns,
+ * so scheduling and cancelling take constant time however many timeouts are waiting; this is what
+ * lets one thread drive the clocks of every game. The tasks run on the thread of the wheel, so they
+ * must be short and hand any real work to another thread.
+ */
+public final class TimerWheel {
+    private static final int BITS = 8;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    // prazos mais distantes ficam na última roda e voltam a ser colocados quando ela roda
+    private static final long MAX_DELAY = (1L << (BITS * LEVELS)) - 1;
+
+    private static final class Holder {
+        private static final TimerWheel SHARED = new TimerWheel("chess-clock");
+    }
+
+    private final Timeout[][] wheels = new Timeout[LEVELS][SLOTS];
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final long start = System.nanoTime();
+    private final Thread thread;
+    // só a thread da roda
+    private long tick;
+    private volatile boolean stopped;
+
+    /**
+     * Creates a wheel with a thread of its own.
+     *
+     * @param name Name of the thread
+     */
+    public TimerWheel(String name) {
+        thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Gets the wheel shared by the clocks of every game.
+     */
+    public static TimerWheel shared() {
+        return Holder.SHARED;
+    }
+
+    /**
+     * Schedules a task.
+     *
+     * @param delayMillis Time until the task runs; it runs on the first tick at or after it
+     * @return the timeout, to cancel it
+     */
+    public Timeout schedule(long delayMillis, Runnable task) {
+        Timeout timeout = new Timeout(task, now() + Math.max(0, delayMillis));
+        boolean idle = pending.getAndIncrement() == 0;
+        added.add(timeout);
+        // a thread dorme sem prazo quando não há nada agendado
+        if (idle) LockSupport.unpark(thread);
+        return timeout;
+    }
+
+    /**
+     * Gets the number of timeouts waiting.
+     */
+    public int size() {
+        return Math.max(0, pending.get());
+    }
+
+    /**
+     * Stops the thread; the timeouts waiting never run.
+     */
+    public void stop() {
+        stopped = true;
+        LockSupport.unpark(thread);
+    }
+
+    private long now() {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private void run() {
+        while (!stopped) {
+            Timeout timeout;
+            while ((timeout = added.poll()) != null)
+                if (timeout.state.get() == Timeout.WAITING) insert(timeout);
+            while ((timeout = cancelled.poll()) != null)
+                unlink(timeout);
+
+            if (pending.get() <= 0) {
+                LockSupport.park(this);
+                // sem timeouts as rodas estão vazias: salta-se o tempo parado de uma vez
+                tick = Math.max(tick, now());
+                continue;
+            }
+            long now = now();
+            while (tick <= now)
+                advance();
+            LockSupport.parkNanos(this, Math.max(1, start + (tick * 1_000_000) - System.nanoTime()));
+        }
+    }
+
+    /**
+     * Runs the timeouts of the current tick, after moving down those of the coarser wheels that
+     * turned, and goes to the next tick.
+     */
+    private void advance() {
+        int index = (int) (tick & MASK);
+        if (index == 0) {
+            for (int level = 1; level < LEVELS; level++) {
+                int slot = (int) ((tick >>> (BITS * level)) & MASK);
+                Timeout t = wheels[level][slot];
+                wheels[level][slot] = null;
+                while (t != null) {
+                    Timeout next = t.next;
+                    t.prev = t.next = null;
+                    t.level = -1;
+                    insert(t);
+                    t = next;
+                }
+                if (slot != 0) break;
+            }
+        }
+        Timeout t = wheels[0][index];
+        wheels[0][index] = null;
+        while (t != null) {
+            Timeout next = t.next;
+            t.prev = t.next = null;
+            t.level = -1;
+            if (t.state.compareAndSet(Timeout.WAITING, Timeout.EXPIRED)) {
+                pending.decrementAndGet();
+                try {
+                    t.task.run();
+                } catch (RuntimeException e) {
+                    System.err.println("Erro numa tarefa do relógio: " + e.getMessage());
+                }
+            }
+            t = next;
+        }
+        tick++;
+    }
+
+    private void insert(Timeout timeout) {
+        long delta = Math.min(timeout.deadline - tick, MAX_DELAY);
+        long deadline = tick + delta;
+        int level = 0;
+        if (delta < 0) deadline = tick;
+        else
+            while (level < LEVELS - 1 && delta >= 1L << (BITS * (level + 1)))
+                level++;
+        int slot = (int) ((deadline >>> (BITS * level)) & MASK);
+        timeout.level = level;
+        timeout.slot = slot;
+        timeout.next = wheels[level][slot];
+        if (timeout.next != null) timeout.next.prev = timeout;
+        wheels[level][slot] = timeout;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.level < 0) return;
+        if (timeout.prev != null) timeout.prev.next = timeout.next;
+        else wheels[timeout.level][timeout.slot] = timeout.next;
+        if (timeout.next != null) timeout.next.prev = timeout.prev;
+        timeout.prev = timeout.next = null;
+        timeout.level = -1;
+    }
+
+    /**
+     * A task scheduled on a {@link TimerWheel}.
+     */
+    public final class Timeout {
+        private static final int WAITING = 0, CANCELLED = 1, EXPIRED = 2;
+
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        // posição nas rodas, só usada pela thread da roda; nível -1 fora delas
+        private Timeout prev, next;
+        private int level = -1, slot;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the task, if it has not run yet.
+         *
+         * @return false if it had already run or been cancelled
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(WAITING, CANCELLED)) return false;
+            pending.decrementAndGet();
+            cancelled.add(this);
+            return true;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        /**
+         * Gets the time left until the task runs, or 0 if it is due.
+         */
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Math.max(0, deadline - now()), TimeUnit.MILLISECONDS);
+        }
+    }
+}
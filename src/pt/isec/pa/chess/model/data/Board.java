@@ -14,6 +14,8 @@ public class Board implements Serializable {
     public enum type {KING, QUEEN, ROOK, BISHOP, KNIGHT, PAWN}
     private final int SIZE = 8;
     Piece[][] board = new Piece[SIZE][SIZE];
+    // sem mensagens de depuração na consola (ver ChessGame.setQuiet)
+    private transient boolean quiet;
 
 
     public Board(){
@@ -57,6 +59,14 @@ public class Board implements Serializable {
     }
 
 
+    public void setQuiet(boolean quiet){
+        this.quiet = quiet;
+    }
+
+    public boolean isQuiet(){
+        return quiet;
+    }
+
     public Piece getPiece(int line, int column){ //Retorna a peça na posição line, column
         if(line < 0 || line >= SIZE || column < 0 || column >= SIZE)
             return null;
@@ -113,7 +123,7 @@ public class Board implements Serializable {
         int newColumnRook = rook.getColumn();
         newColumnKing += rook.getColumn() == 0?-2:2;
         newColumnRook += rook.getColumn() == 0?3:-2;
-        System.out.println(newColumnKing + " " + newColumnRook);
+        if(!quiet) System.out.println(newColumnKing + " " + newColumnRook);
 
         removePiece(king.getLine(), king.getColumn());
         board[king.getLine()][newColumnKing] = king;
@@ -22,4 +22,23 @@ public class ChessGameSerialization {
             throw new RuntimeException(e);
         }
     }
+
+    //Versões em memória, usadas pelo journal para calcular o checksum do snapshot
+    public static byte[] serializeToBytes(ChessGame game){
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try(ObjectOutputStream oos = new ObjectOutputStream(baos)){
+            oos.writeObject(game);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return baos.toByteArray();
+    }
+
+    public static ChessGame desserialize(byte[] bytes){
+        try(ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))){
+            return (ChessGame) ois.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+    }
 }
@@ -0,0 +1,303 @@
+package pt.isec.pa.chess.model.data;
+
+import pt.isec.pa.chess.model.ChessGame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead journal of the moves accepted by a game.
+ *
+ * <p>The journal works together with a snapshot file written by {@link ChessGameSerialization}.
+ * A checkpoint writes the snapshot and resets the journal; every accepted action after that is
+ * appended as a single 2-byte record. After a crash the game is rebuilt by loading the snapshot
+ * and replaying the records.
+ *
+ * <p>The journal header stores the CRC32 of the snapshot it belongs to, so a crash in the middle
+ * of a checkpoint never replays old records onto a newer snapshot.
+ *
+ * <p>Records are handed to the operating system as soon as they are appended, which is enough to
+ * survive a crash of the process. How often they are forced to the disk depends on {@link SyncMode}.
+ */
+public class MoveJournal implements Closeable {
+
+    /**
+     * How often the journal is forced to stable storage.
+     * - NONE: never; the records survive a crash of the process but not of the machine.
+     * - GROUP: the pending records are forced together by a shared timer (group commit).
+     * - EVERY_MOVE: every record is forced before {@link #append} returns.
+     */
+    public enum SyncMode {NONE, GROUP, EVERY_MOVE}
+
+    /**
+     * Record kinds, stored in the two upper bits of each record.
+     */
+    public static final int KIND_MOVE = 0;
+    public static final int KIND_PROMOTION = 1;
+    public static final int KIND_UNDO = 2;
+    public static final int KIND_REDO = 3;
+
+    /**
+     * Interval between group commits in {@link SyncMode#GROUP}.
+     */
+    public static final long GROUP_COMMIT_MS = 50;
+
+    private static final int MAGIC = 0x50414A31; // "PAJ1"
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_SIZE = 2;
+
+    /**
+     * Single timer thread shared by every journal, so that leaving the journal on for many games
+     * does not cost one thread per game.
+     */
+    private static final ScheduledExecutorService GROUP_COMMIT = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "move-journal-sync");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Path snapshotFile;
+    private final Path journalFile;
+    private final SyncMode mode;
+    private final FileChannel channel;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    private ScheduledFuture<?> syncTask;
+
+    /**
+     * Opens (or creates) the journal that belongs to a snapshot file.
+     * The journal itself is stored next to the snapshot with the extension ".journal".
+     *
+     * @param fich Path of the snapshot file
+     * @param mode Sync policy
+     * @throws IOException if the journal file cannot be opened
+     */
+    public MoveJournal(String fich, SyncMode mode) throws IOException {
+        this.snapshotFile = Path.of(fich);
+        this.journalFile = Path.of(fich + ".journal");
+        this.mode = mode;
+        this.channel = FileChannel.open(journalFile,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (mode == SyncMode.GROUP) {
+            syncTask = GROUP_COMMIT.scheduleWithFixedDelay(this::syncQuietly,
+                    GROUP_COMMIT_MS, GROUP_COMMIT_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public SyncMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Reads the last snapshot.
+     *
+     * @return the game stored in the snapshot or null if there is no snapshot yet
+     */
+    public ChessGame readSnapshot() throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return null;
+        }
+        return ChessGameSerialization.desserialize(Files.readAllBytes(snapshotFile));
+    }
+
+    /**
+     * Reads the records written since the last checkpoint and positions the journal so that new
+     * records are appended after them. A torn record at the end of the file is discarded. A journal
+     * that is missing, too short or does not belong to the snapshot (a crash during a checkpoint)
+     * is started again with a header for the current snapshot.
+     *
+     * @return the records to replay, empty if the journal does not belong to the current snapshot
+     * @throws NoSuchFileException if there is no snapshot
+     */
+    public synchronized short[] readRecords() throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            throw new NoSuchFileException(snapshotFile.toString());
+        }
+        int snapshotCrc = crc(Files.readAllBytes(snapshotFile));
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (size >= HEADER_SIZE) {
+            channel.read(header, 0);
+            header.flip();
+        }
+        if (size < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != snapshotCrc) {
+            // journal antigo, o snapshot já contém estas jogadas
+            writeHeader(snapshotCrc);
+            return new short[0];
+        }
+
+        int count = (int) ((size - HEADER_SIZE) / RECORD_SIZE);
+        ByteBuffer body = ByteBuffer.allocate(count * RECORD_SIZE);
+        while (body.hasRemaining() && channel.read(body, HEADER_SIZE + body.position()) > 0);
+        body.flip();
+        short[] records = new short[count];
+        for (int i = 0; i < count; i++) {
+            records[i] = body.getShort();
+        }
+        long end = HEADER_SIZE + (long) count * RECORD_SIZE;
+        channel.truncate(end);
+        channel.position(end);
+        return records;
+    }
+
+    /**
+     * Writes a new snapshot of the game and starts an empty journal for it.
+     * The snapshot is written to a temporary file and then moved over the old one.
+     *
+     * @param game The game to store
+     */
+    public synchronized void checkpoint(ChessGame game) throws IOException {
+        byte[] bytes = ChessGameSerialization.serializeToBytes(game);
+        Path tmp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        if (mode == SyncMode.NONE) {
+            Files.write(tmp, bytes);
+        } else {
+            try (FileChannel fc = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer bb = ByteBuffer.wrap(bytes);
+                while (bb.hasRemaining()) fc.write(bb);
+                fc.force(true);
+            }
+        }
+        Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        writeHeader(crc(bytes));
+    }
+
+    /**
+     * Empties the journal and writes the header of the snapshot with the given CRC.
+     */
+    private void writeHeader(int snapshotCrc) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(snapshotCrc).flip();
+        channel.truncate(0);
+        while (header.hasRemaining()) channel.write(header, header.position());
+        channel.position(HEADER_SIZE);
+        if (mode != SyncMode.NONE) {
+            channel.force(false);
+        }
+        dirty.set(false);
+    }
+
+    /**
+     * Appends a raw record to the journal.
+     *
+     * @param rec The encoded record
+     */
+    public synchronized void append(short rec) throws IOException {
+        record.clear();
+        record.putShort(rec).flip();
+        while (record.hasRemaining()) channel.write(record);
+        if (mode == SyncMode.EVERY_MOVE) {
+            channel.force(false);
+        } else if (mode == SyncMode.GROUP) {
+            dirty.set(true);
+        }
+    }
+
+    public void appendMove(int line, int col, int newLine, int newCol) throws IOException {
+        append(encodeMove(line, col, newLine, newCol));
+    }
+
+    public void appendPromotion(boolean currentPlayer, int piece) throws IOException {
+        append((short) (KIND_PROMOTION << 14 | (currentPlayer ? 1 << 3 : 0) | (piece & 7)));
+    }
+
+    public void appendUndo() throws IOException {
+        append((short) (KIND_UNDO << 14));
+    }
+
+    public void appendRedo() throws IOException {
+        append((short) (KIND_REDO << 14));
+    }
+
+    /**
+     * Forces the pending records to the disk, if there are any.
+     */
+    public void sync() throws IOException {
+        if (dirty.getAndSet(false)) {
+            channel.force(false);
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (IOException ignored) {
+            // o próximo ciclo volta a tentar
+            dirty.set(true);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (syncTask != null) {
+            syncTask.cancel(false);
+        }
+        if (channel.isOpen()) {
+            if (mode != SyncMode.NONE) {
+                sync();
+            }
+            channel.close();
+        }
+    }
+
+    /**
+     * Deletes the snapshot and the journal files.
+     */
+    public void delete() throws IOException {
+        close();
+        Files.deleteIfExists(journalFile);
+        Files.deleteIfExists(snapshotFile);
+    }
+
+    //Codificação dos registos
+    public static short encodeMove(int line, int col, int newLine, int newCol) {
+        return (short) (KIND_MOVE << 14 | (line * 8 + col) << 6 | (newLine * 8 + newCol));
+    }
+
+    public static int kind(short rec) {
+        return (rec >>> 14) & 3;
+    }
+
+    public static int fromLine(short rec) {
+        return (rec >>> 9) & 7;
+    }
+
+    public static int fromColumn(short rec) {
+        return (rec >>> 6) & 7;
+    }
+
+    public static int toLine(short rec) {
+        return (rec >>> 3) & 7;
+    }
+
+    public static int toColumn(short rec) {
+        return rec & 7;
+    }
+
+    public static boolean promotionPlayer(short rec) {
+        return (rec & (1 << 3)) != 0;
+    }
+
+    public static int promotionPiece(short rec) {
+        return rec & 7;
+    }
+
+    private static int crc(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+}
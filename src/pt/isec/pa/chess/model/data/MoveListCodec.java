@@ -0,0 +1,205 @@
+package pt.isec.pa.chess.model.data;
+
+import pt.isec.pa.chess.model.engine.Move;
+import pt.isec.pa.chess.model.engine.Position;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Compact encoding of move sequences for the game archive.
+ *
+ * <p>Each ply is stored as the index of the move in the sorted list of legal moves of the position,
+ * written as a varint: one byte for the first 128 moves, two bytes otherwise. A game is the number
+ * of plies (varint) followed by the plies, and a batch of games is the number of games followed by
+ * the games, all starting from the same position. Move indexes of random games are almost always
+ * below 128, so a ply takes one byte, against five or more in PGN.
+ *
+ * <p>Decoding needs the move generator of {@link Position}, since the bytes only make sense
+ * together with the position they were written from.
+ */
+public final class MoveListCodec {
+    private MoveListCodec() {}
+
+    //Codificação
+    /**
+     * Encodes a game.
+     *
+     * @param start Initial position (not changed)
+     * @param moves Moves of the game, as created by {@link Position}
+     * @param count Number of moves to encode
+     * @return the encoded game
+     * @throws IllegalArgumentException if a move is not legal
+     */
+    public static byte[] encode(Position start, int[] moves, int count) {
+        Output out = new Output(count + 2);
+        encode(start.copy(), moves, count, new int[Position.MAX_MOVES], out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Encodes several games that start from the same position.
+     */
+    public static byte[] encodeGames(Position start, List<int[]> games) {
+        Output out = new Output(games.size() * 64);
+        Position p = new Position();
+        int[] buffer = new int[Position.MAX_MOVES];
+        out.writeVarint(games.size());
+        for (int[] game : games) {
+            p.copyFrom(start);
+            encode(p, game, game.length, buffer, out);
+        }
+        return out.toByteArray();
+    }
+
+    private static void encode(Position p, int[] moves, int count, int[] buffer, Output out) {
+        out.writeVarint(count);
+        for (int i = 0; i < count; i++) {
+            int n = sortedMoves(p, buffer);
+            int index = Arrays.binarySearch(buffer, 0, n, moves[i]);
+            if (index < 0)
+                throw new IllegalArgumentException("Lance ilegal na jogada " + (i + 1) + ": " + Move.toUci(moves[i]));
+            out.writeVarint(index);
+            p.makeMove(moves[i]);
+        }
+    }
+
+    //Descodificação
+    /**
+     * Decodes a game written by {@link #encode}.
+     *
+     * @param start Initial position (not changed)
+     * @param data  The encoded game
+     * @return the moves of the game
+     * @throws IllegalArgumentException if the data does not match the position
+     */
+    public static int[] decode(Position start, byte[] data) {
+        Input in = new Input(data, 0);
+        int[] moves = decode(start.copy(), in, new int[Position.MAX_MOVES]);
+        in.checkEnd();
+        return moves;
+    }
+
+    /**
+     * Decodes a batch written by {@link #encodeGames}. The games are first delimited and then
+     * decoded in parallel, each on its own copy of the start position.
+     */
+    public static List<int[]> decodeGames(Position start, byte[] data) {
+        Input in = new Input(data, 0);
+        int games = in.readCount();
+        int[] offsets = new int[games];
+        for (int i = 0; i < games; i++) {
+            offsets[i] = in.pos;
+            for (int plies = in.readCount(); plies > 0; plies--)
+                in.readVarint();
+        }
+        in.checkEnd();
+        int[][] result = new int[games][];
+        IntStream.range(0, games).parallel().forEach(i ->
+                result[i] = decode(start.copy(), new Input(data, offsets[i]), new int[Position.MAX_MOVES]));
+        return Arrays.asList(result);
+    }
+
+    /**
+     * Replays an encoded game on a position, without keeping the moves.
+     *
+     * @param p    Position where the game starts; it is left at the end of the game
+     * @param data The encoded game
+     * @return the number of plies replayed
+     */
+    public static int replay(Position p, byte[] data) {
+        Input in = new Input(data, 0);
+        int[] buffer = new int[Position.MAX_MOVES];
+        int count = in.readCount();
+        for (int i = 0; i < count; i++)
+            p.makeMove(readMove(p, in, buffer));
+        in.checkEnd();
+        return count;
+    }
+
+    private static int[] decode(Position p, Input in, int[] buffer) {
+        int[] moves = new int[in.readCount()];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = readMove(p, in, buffer);
+            p.makeMove(moves[i]);
+        }
+        return moves;
+    }
+
+    private static int readMove(Position p, Input in, int[] buffer) {
+        int index = in.readVarint();
+        int n = sortedMoves(p, buffer);
+        if (index >= n)
+            throw new IllegalArgumentException("Índice de lance inválido: " + index + " (" + n + " lances legais)");
+        return buffer[index];
+    }
+
+    private static int sortedMoves(Position p, int[] buffer) {
+        int n = p.generateLegalMoves(buffer);
+        Arrays.sort(buffer, 0, n);
+        return n;
+    }
+
+    //Buffers de bytes
+    private static final class Output {
+        private byte[] data;
+        private int size;
+
+        Output(int capacity) {
+            data = new byte[Math.max(16, capacity)];
+        }
+
+        void writeVarint(int value) {
+            if (size + 5 > data.length)
+                data = Arrays.copyOf(data, data.length * 2);
+            while ((value & ~0x7F) != 0) {
+                data[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+
+    private static final class Input {
+        private final byte[] data;
+        private int pos;
+
+        Input(byte[] data, int pos) {
+            this.data = data;
+            this.pos = pos;
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                if (pos >= data.length)
+                    throw new IllegalArgumentException("Dados truncados");
+                byte b = data[pos++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) return value;
+            }
+            throw new IllegalArgumentException("Varint inválido");
+        }
+
+        /**
+         * Reads the number of items that follow, each of them taking at least one byte, so that a
+         * corrupt count is refused before anything is allocated for it.
+         */
+        int readCount() {
+            int count = readVarint();
+            if (count < 0 || count > data.length - pos)
+                throw new IllegalArgumentException("Contagem inválida: " + count + " (" + (data.length - pos) + " bytes restantes)");
+            return count;
+        }
+
+        void checkEnd() {
+            if (pos != data.length)
+                throw new IllegalArgumentException("Dados a mais no fim: " + (data.length - pos) + " bytes");
+        }
+    }
+}
@@ -71,12 +71,12 @@ public class King extends Piece {
         Piece defenderPiece = getPieceFromMove(victim, attackerPiece.getLine(), attackerPiece.getColumn());
         if(defenderPiece != null){
             if(defenderPiece.getType() == Board.type.KING){
-                System.out.println("Log attackerCanBeEatemn1: " + defenderPiece);
+                if (!getBoard().isQuiet()) System.out.println("Log attackerCanBeEatemn1: " + defenderPiece);
                 return getBoard().kingStillUnderThreat(defenderPiece.getColor(), defenderPiece.getLine(), defenderPiece.getColumn(),
                         attackerPiece.getLine(),attackerPiece.getColumn());
             }
             else{
-                System.out.println("Log attackerCanBeEatemn2: " + defenderPiece);
+                if (!getBoard().isQuiet()) System.out.println("Log attackerCanBeEatemn2: " + defenderPiece);
                 return true;
             }
         }
@@ -86,7 +86,7 @@ public class King extends Piece {
         King victimKing = (King)getBoard().getKing(victim.getColor());
         Piece kingAttacker = getPieceFromMove(attacker, victimKing.getLine(), victimKing.getColumn());
         if (kingAttacker == null){
-            System.out.println("É null");
+            if (!getBoard().isQuiet()) System.out.println("É null");
             return true;
         }
         var moves = kingAttacker.getPossibleMoves();
@@ -95,7 +95,7 @@ public class King extends Piece {
             if(defender != null){
                 //System.out.println("no canbedefended: " + getBoard().kingStillUnderThreat(victim.getColor(), defender.getLine(), defender.getColumn(), move[0], move[1]) + " " + canDodge());
                 if(defender.canMove(move[0], move[1])){
-                    System.out.println(defender + ", " + move[0] + " " + move[1]);
+                    if (!getBoard().isQuiet()) System.out.println(defender + ", " + move[0] + " " + move[1]);
                     if(!getBoard().kingStillUnderThreat(victim.getColor(), defender.getLine(), defender.getColumn(), move[0], move[1])){
                         return true;
                     }
@@ -107,7 +107,8 @@ public class King extends Piece {
     public boolean canDodge(){
         var moves = getPossibleMoves();
         for(var move : moves){
-            System.out.println(!getBoard().kingStillUnderThreat(getColor(), getLine(), getColumn(), move[0], move[1]));
+            if (!getBoard().isQuiet())
+                System.out.println(!getBoard().kingStillUnderThreat(getColor(), getLine(), getColumn(), move[0], move[1]));
             if(!getBoard().kingStillUnderThreat(getColor(), getLine(), getColumn(), move[0], move[1])){
                 return true;
             }
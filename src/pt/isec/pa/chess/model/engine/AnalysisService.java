@@ -0,0 +1,110 @@
+package pt.isec.pa.chess.model.engine;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Background multi-PV analysis for the learning mode: the best moves of the side to move, with their
+ * scores, refined at every depth.
+ *
+ * <p>The analysis runs on its own {@link SearchScheduler}, apart from the engine that plays, and only
+ * one position is analysed at a time. The deepest lines found for each position are kept by key in
+ * a small LRU cache, so that going back to a position (e.g. with undo and redo) gives its lines at
+ * once, and the search only goes on if it had not reached the maximum depth.
+ */
+public class AnalysisService {
+    public static final int DEFAULT_LINES = 3;
+    public static final int DEFAULT_MAX_DEPTH = 14;
+    private static final int CACHE_SIZE = 512;
+    private static final int HASH_MB = 8;
+
+    private final ParallelSearch search = new ParallelSearch(1, new TranspositionTable(HASH_MB));
+    private final SearchScheduler scheduler = new SearchScheduler(search);
+    private volatile int maxDepth = DEFAULT_MAX_DEPTH;
+
+    private final Map<Long, Entry> cache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private record Entry(SearchResult result, boolean complete) {}
+
+    public AnalysisService(int lines) {
+        search.setMultiPv(lines);
+    }
+
+    public AnalysisService() {
+        this(DEFAULT_LINES);
+    }
+
+    /**
+     * Changes the number of lines. Applies to the next analysis; the cache is cleared.
+     */
+    public void setLines(int lines) {
+        scheduler.cancel();
+        search.setMultiPv(lines);
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    public void setMaxDepth(int depth) {
+        this.maxDepth = Math.clamp(depth, 1, Search.MAX_PLY - 1);
+    }
+
+    /**
+     * Starts analysing a position, cancelling the previous analysis. Returns at once.
+     *
+     * @param position Position to analyse (copied)
+     * @param onUpdate Called on the search thread with the lines of every new depth, best first
+     * @return the lines already known for the position, or an empty list
+     */
+    public List<SearchResult> analyse(Position position, Consumer<List<SearchResult>> onUpdate) {
+        long key = position.key();
+        Entry known;
+        synchronized (cache) {
+            known = cache.get(key);
+        }
+        if (known != null && known.complete()) {
+            scheduler.cancel();
+            return known.result().getLines();
+        }
+        int knownDepth = known == null ? 0 : known.result().getDepth();
+        scheduler.start(position, SearchLimits.depth(maxDepth),
+                r -> {
+                    // só se anunciam as profundidades que acrescentam ao que já se sabia
+                    if (r.getDepth() > knownDepth && store(key, r, false)) onUpdate.accept(r.getLines());
+                },
+                r -> store(key, r, true));
+        return known == null ? List.of() : known.result().getLines();
+    }
+
+    /**
+     * Stops the analysis in progress, if any.
+     */
+    public void cancel() {
+        scheduler.cancel();
+    }
+
+    public void shutdown() {
+        scheduler.shutdown();
+        search.shutdown();
+    }
+
+    /**
+     * Keeps a result unless a deeper one is known.
+     */
+    private boolean store(long key, SearchResult result, boolean complete) {
+        if (result.getBestMove() == Move.NONE) return false;
+        synchronized (cache) {
+            Entry old = cache.get(key);
+            if (old != null && old.result().getDepth() > result.getDepth()) return false;
+            cache.put(key, new Entry(result, complete || old != null && old.complete()));
+            return true;
+        }
+    }
+}
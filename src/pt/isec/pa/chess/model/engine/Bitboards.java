@@ -0,0 +1,88 @@
+package pt.isec.pa.chess.model.engine;
+
+/**
+ * Precomputed attack tables for the bitboard move generator.
+ * Bit n of a bitboard is square n (a1 = 0, b1 = 1, ..., h8 = 63).
+ */
+public final class Bitboards {
+    private Bitboards() {}
+
+    public static final long[] KNIGHT_ATTACKS = new long[64];
+    public static final long[] KING_ATTACKS = new long[64];
+    /**
+     * Squares attacked by a pawn of each colour standing on each square.
+     */
+    public static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    // Direções: N, NE, E, SE, S, SW, W, NW
+    private static final int[] DIR_LINE = {1, 1, 0, -1, -1, -1, 0, 1};
+    private static final int[] DIR_COL = {0, 1, 1, 1, 0, -1, -1, -1};
+    private static final long[][] RAYS = new long[8][64];
+    /**
+     * Squares strictly between two aligned squares, empty when they are not aligned.
+     */
+    public static final long[][] BETWEEN = new long[64][64];
+
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_8 = 0xFFL << 56;
+
+    static {
+        for (int sq = 0; sq < 64; sq++) {
+            int r = sq >>> 3, f = sq & 7;
+            KNIGHT_ATTACKS[sq] = offsets(r, f, new int[][]{{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}});
+            KING_ATTACKS[sq] = offsets(r, f, new int[][]{{1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1}});
+            PAWN_ATTACKS[Position.WHITE][sq] = offsets(r, f, new int[][]{{1, -1}, {1, 1}});
+            PAWN_ATTACKS[Position.BLACK][sq] = offsets(r, f, new int[][]{{-1, -1}, {-1, 1}});
+            for (int d = 0; d < 8; d++) {
+                long ray = 0;
+                for (int nr = r + DIR_LINE[d], nf = f + DIR_COL[d]; nr >= 0 && nr < 8 && nf >= 0 && nf < 8;
+                     nr += DIR_LINE[d], nf += DIR_COL[d]) {
+                    ray |= 1L << (nr * 8 + nf);
+                }
+                RAYS[d][sq] = ray;
+            }
+        }
+        for (int sq = 0; sq < 64; sq++)
+            for (int d = 0; d < 8; d++)
+                for (long ray = RAYS[d][sq]; ray != 0; ray &= ray - 1) {
+                    int target = Long.numberOfTrailingZeros(ray);
+                    BETWEEN[sq][target] = RAYS[d][sq] & ~RAYS[d][target] & ~(1L << target);
+                }
+    }
+
+    private static long offsets(int r, int f, int[][] deltas) {
+        long bb = 0;
+        for (int[] d : deltas) {
+            int nr = r + d[0], nf = f + d[1];
+            if (nr >= 0 && nr < 8 && nf >= 0 && nf < 8)
+                bb |= 1L << (nr * 8 + nf);
+        }
+        return bb;
+    }
+
+    /**
+     * Attacks along one direction, stopping at the first occupied square (which is included).
+     */
+    private static long ray(long occupied, int sq, int dir) {
+        long attacks = RAYS[dir][sq];
+        long blockers = attacks & occupied;
+        if (blockers != 0) {
+            // N, NE, E e NW aumentam o índice da casa; as restantes diminuem
+            int first = (dir <= 2 || dir == 7) ? Long.numberOfTrailingZeros(blockers) : 63 - Long.numberOfLeadingZeros(blockers);
+            attacks ^= RAYS[dir][first];
+        }
+        return attacks;
+    }
+
+    public static long bishopAttacks(int sq, long occupied) {
+        return ray(occupied, sq, 1) | ray(occupied, sq, 3) | ray(occupied, sq, 5) | ray(occupied, sq, 7);
+    }
+
+    public static long rookAttacks(int sq, long occupied) {
+        return ray(occupied, sq, 0) | ray(occupied, sq, 2) | ray(occupied, sq, 4) | ray(occupied, sq, 6);
+    }
+
+    public static long queenAttacks(int sq, long occupied) {
+        return bishopAttacks(sq, occupied) | rookAttacks(sq, occupied);
+    }
+}
@@ -0,0 +1,260 @@
+package pt.isec.pa.chess.model.engine;
+
+/**
+ * Static evaluation of a {@link Position}. Scores are in centipawns, from the point of view of the
+ * side to move.
+ *
+ * <p>Material and piece-square values are kept incrementally by the position, separately for the
+ * middlegame and the endgame, together with the game phase; the evaluation only blends the two
+ * sums by phase, so it costs the same in every node. Mobility and pawn structure need a walk over
+ * the pieces and are only added when the score is close enough to the alpha-beta window to matter.
+ */
+public final class Evaluation {
+    private Evaluation() {}
+
+    /**
+     * Simple value of each piece type (P, N, B, R, Q, K), used to order and exchange captures.
+     */
+    public static final int[] VALUE = {100, 320, 330, 500, 900, 0};
+
+    /**
+     * Phase of each piece type; 24 is the full middlegame, 0 a pawn ending.
+     */
+    static final int[] PHASE = {0, 1, 1, 2, 4, 0};
+    private static final int MAX_PHASE = 24;
+
+    /**
+     * Material plus piece-square value of each piece code on each square, from White's point of view
+     * (negative for black pieces), indexed by {@code piece * 64 + square}.
+     */
+    static final int[] MG = new int[12 * 64], EG = new int[12 * 64];
+
+    /**
+     * Margin around the window inside which the lazy terms are computed (they rarely add more).
+     */
+    static final int LAZY_MARGIN = 200;
+
+    private static final int[] MG_VALUE = {82, 337, 365, 477, 1025, 0};
+    private static final int[] EG_VALUE = {94, 281, 297, 512, 936, 0};
+
+    // Tabelas vistas pelas brancas, da 8.ª fila para a 1.ª (como no diagrama)
+    private static final int[][] MG_PST = {
+            { // Peão
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    98, 134, 61, 95, 68, 126, 34, -11,
+                    -6, 7, 26, 31, 65, 56, 25, -20,
+                    -14, 13, 6, 21, 23, 12, 17, -23,
+                    -27, -2, -5, 12, 17, 6, 10, -25,
+                    -26, -4, -4, -10, 3, 3, 33, -12,
+                    -35, -1, -20, -23, -15, 24, 38, -22,
+                    0, 0, 0, 0, 0, 0, 0, 0},
+            { // Cavalo
+                    -167, -89, -34, -49, 61, -97, -15, -107,
+                    -73, -41, 72, 36, 23, 62, 7, -17,
+                    -47, 60, 37, 65, 84, 129, 73, 44,
+                    -9, 17, 19, 53, 37, 69, 18, 22,
+                    -13, 4, 16, 13, 28, 19, 21, -8,
+                    -23, -9, 12, 10, 19, 17, 25, -16,
+                    -29, -53, -12, -3, -1, 18, -14, -19,
+                    -105, -21, -58, -33, -17, -28, -19, -23},
+            { // Bispo
+                    -29, 4, -82, -37, -25, -42, 7, -8,
+                    -26, 16, -18, -13, 30, 59, 18, -47,
+                    -16, 37, 43, 40, 35, 50, 37, -2,
+                    -4, 5, 19, 50, 37, 37, 7, -2,
+                    -6, 13, 13, 26, 34, 12, 10, 4,
+                    0, 15, 15, 15, 14, 27, 18, 10,
+                    4, 15, 16, 0, 7, 21, 33, 1,
+                    -33, -3, -14, -21, -13, -12, -39, -21},
+            { // Torre
+                    32, 42, 32, 51, 63, 9, 31, 43,
+                    27, 32, 58, 62, 80, 67, 26, 44,
+                    -5, 19, 26, 36, 17, 45, 61, 16,
+                    -24, -11, 7, 26, 24, 35, -8, -20,
+                    -36, -26, -12, -1, 9, -7, 6, -23,
+                    -45, -25, -16, -17, 3, 0, -5, -33,
+                    -44, -16, -20, -9, -1, 11, -6, -71,
+                    -19, -13, 1, 17, 16, 7, -37, -26},
+            { // Dama
+                    -28, 0, 29, 12, 59, 44, 43, 45,
+                    -24, -39, -5, 1, -16, 57, 28, 54,
+                    -13, -17, 7, 8, 29, 56, 47, 57,
+                    -27, -27, -16, -16, -1, 17, -2, 1,
+                    -9, -26, -9, -10, -2, -4, 3, -3,
+                    -14, 2, -11, -2, -5, 2, 14, 5,
+                    -35, -8, 11, 2, 8, 15, -3, 1,
+                    -1, -18, -9, 10, -15, -25, -31, -50},
+            { // Rei
+                    -65, 23, 16, -15, -56, -34, 2, 13,
+                    29, -1, -20, -7, -8, -4, -38, -29,
+                    -9, 24, 2, -16, -20, 6, 22, -22,
+                    -17, -20, -12, -27, -30, -25, -14, -36,
+                    -49, -1, -27, -39, -46, -44, -33, -51,
+                    -14, -14, -22, -46, -44, -30, -15, -27,
+                    1, 7, -8, -64, -43, -16, 9, 8,
+                    -15, 36, 12, -54, 8, -28, 24, 14}
+    };
+
+    private static final int[][] EG_PST = {
+            { // Peão
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    178, 173, 158, 134, 147, 132, 165, 187,
+                    94, 100, 85, 67, 56, 53, 82, 84,
+                    32, 24, 13, 5, -2, 4, 17, 17,
+                    13, 9, -3, -7, -7, -8, 3, -1,
+                    4, 7, -6, 1, 0, -5, -1, -8,
+                    13, 8, 8, 10, 13, 0, 2, -7,
+                    0, 0, 0, 0, 0, 0, 0, 0},
+            { // Cavalo
+                    -58, -38, -13, -28, -31, -27, -63, -99,
+                    -25, -8, -25, -2, -9, -25, -24, -52,
+                    -24, -20, 10, 9, -1, -9, -19, -41,
+                    -17, 3, 22, 22, 22, 11, 8, -18,
+                    -18, -6, 16, 25, 16, 17, 4, -18,
+                    -23, -3, -1, 15, 10, -3, -20, -22,
+                    -42, -20, -10, -5, -2, -20, -23, -44,
+                    -29, -51, -23, -15, -22, -18, -50, -64},
+            { // Bispo
+                    -14, -21, -11, -8, -7, -9, -17, -24,
+                    -8, -4, 7, -12, -3, -13, -4, -14,
+                    2, -8, 0, -1, -2, 6, 0, 4,
+                    -3, 9, 12, 9, 14, 10, 3, 2,
+                    -6, 3, 13, 19, 7, 10, -3, -9,
+                    -12, -3, 8, 10, 13, 3, -7, -15,
+                    -14, -18, -7, -1, 4, -9, -15, -27,
+                    -23, -9, -23, -5, -9, -16, -5, -17},
+            { // Torre
+                    13, 10, 18, 15, 12, 12, 8, 5,
+                    11, 13, 13, 11, -3, 3, 8, 3,
+                    7, 7, 7, 5, 4, -3, -5, -3,
+                    4, 3, 13, 1, 2, 1, -1, 2,
+                    3, 5, 8, 4, -5, -6, -8, -11,
+                    -4, 0, -5, -1, -7, -12, -8, -16,
+                    -6, -6, 0, 2, -9, -9, -11, -3,
+                    -9, 2, 3, -1, -5, -13, 4, -20},
+            { // Dama
+                    -9, 22, 22, 27, 27, 19, 10, 20,
+                    -17, 20, 32, 41, 58, 25, 30, 0,
+                    -20, 6, 9, 49, 47, 35, 19, 9,
+                    3, 22, 24, 45, 57, 40, 57, 36,
+                    -18, 28, 19, 47, 31, 34, 39, 23,
+                    -16, -27, 15, 6, 9, 17, 10, 5,
+                    -22, -23, -30, -16, -16, -23, -36, -32,
+                    -33, -28, -22, -43, -5, -32, -20, -41},
+            { // Rei
+                    -74, -35, -18, -18, -11, 15, 4, -17,
+                    -12, 17, 14, 17, 17, 38, 23, 11,
+                    10, 17, 23, 15, 20, 45, 44, 13,
+                    -8, 22, 24, 27, 26, 33, 26, 3,
+                    -18, -4, 21, 24, 27, 23, 9, -11,
+                    -19, -3, 11, 21, 23, 16, 7, -9,
+                    -27, -11, 4, 13, 14, 4, -5, -17,
+                    -53, -34, -21, -11, -28, -14, -24, -43}
+    };
+
+    // Termos opcionais
+    private static final int[] MOBILITY = {0, 4, 5, 2, 1, 0};
+    private static final int DOUBLED_PAWN = 12, ISOLATED_PAWN = 10;
+    private static final int[] PASSED_PAWN = {0, 5, 10, 20, 35, 60, 90, 0}; // por fila avançada
+    private static final long[] ADJACENT_FILES = new long[8];
+    private static final long FILE_A = 0x0101010101010101L;
+
+    static {
+        for (int type = 0; type < 6; type++) {
+            for (int sq = 0; sq < 64; sq++) {
+                // a tabela está desenhada do lado das brancas: as pretas usam a casa espelhada
+                MG[Position.code(Position.WHITE, type) * 64 + sq] = MG_VALUE[type] + MG_PST[type][sq ^ 56];
+                EG[Position.code(Position.WHITE, type) * 64 + sq] = EG_VALUE[type] + EG_PST[type][sq ^ 56];
+                MG[Position.code(Position.BLACK, type) * 64 + sq] = -(MG_VALUE[type] + MG_PST[type][sq]);
+                EG[Position.code(Position.BLACK, type) * 64 + sq] = -(EG_VALUE[type] + EG_PST[type][sq]);
+            }
+        }
+        for (int f = 0; f < 8; f++)
+            ADJACENT_FILES[f] = (f > 0 ? FILE_A << (f - 1) : 0) | (f < 7 ? FILE_A << (f + 1) : 0);
+    }
+
+    /**
+     * Evaluates a position from the point of view of the side to move, with the incremental terms only.
+     */
+    public static int evaluate(Position p) {
+        int score = taper(p.mgScore, p.egScore, p.phase);
+        return p.sideToMove() == Position.WHITE ? score : -score;
+    }
+
+    /**
+     * Evaluates a position, adding mobility and pawn structure only when the incremental score is
+     * within {@link #LAZY_MARGIN} of the window (otherwise they could not change the outcome).
+     */
+    public static int evaluate(Position p, int alpha, int beta) {
+        int score = evaluate(p);
+        if (score + LAZY_MARGIN <= alpha || score - LAZY_MARGIN >= beta) return score;
+        int extra = positional(p);
+        return score + (p.sideToMove() == Position.WHITE ? extra : -extra);
+    }
+
+    /**
+     * Evaluates a position with every term, from the point of view of the side to move.
+     */
+    public static int evaluateFull(Position p) {
+        return evaluate(p, -Search.INFINITE, Search.INFINITE);
+    }
+
+    private static int taper(int mg, int eg, int phase) {
+        phase = Math.min(phase, MAX_PHASE); // promoções podem passar do máximo
+        return (mg * phase + eg * (MAX_PHASE - phase)) / MAX_PHASE;
+    }
+
+    //Termos calculados só quando são precisos
+    private static int positional(Position p) {
+        int mg = 0, eg = 0;
+        for (int color = Position.WHITE; color <= Position.BLACK; color++) {
+            int sign = color == Position.WHITE ? 1 : -1;
+            int mobility = mobility(p, color);
+            int pawns = pawnStructure(p, color, true);
+            mg += sign * (mobility + pawns);
+            eg += sign * (mobility + pawnStructure(p, color, false));
+        }
+        return taper(mg, eg, p.phase);
+    }
+
+    private static int mobility(Position p, int color) {
+        long own = p.colorPieces(color), occ = p.occupied();
+        int score = 0;
+        for (int type = Position.KNIGHT; type <= Position.QUEEN; type++) {
+            for (long bb = p.pieces(color, type); bb != 0; bb &= bb - 1) {
+                int sq = Long.numberOfTrailingZeros(bb);
+                long attacks = switch (type) {
+                    case Position.KNIGHT -> Bitboards.KNIGHT_ATTACKS[sq];
+                    case Position.BISHOP -> Bitboards.bishopAttacks(sq, occ);
+                    case Position.ROOK -> Bitboards.rookAttacks(sq, occ);
+                    default -> Bitboards.queenAttacks(sq, occ);
+                };
+                score += MOBILITY[type] * Long.bitCount(attacks & ~own);
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Doubled and isolated pawns, and passed pawns (worth more in the endgame).
+     */
+    private static int pawnStructure(Position p, int color, boolean middlegame) {
+        long pawns = p.pieces(color, Position.PAWN);
+        long enemy = p.pieces(color ^ 1, Position.PAWN);
+        int score = 0;
+        for (long bb = pawns; bb != 0; bb &= bb - 1) {
+            int sq = Long.numberOfTrailingZeros(bb);
+            int file = sq & 7, rank = sq >>> 3;
+            long fileMask = FILE_A << file;
+            if ((pawns & fileMask & ~(1L << sq)) != 0) score -= DOUBLED_PAWN / 2; // cada peão conta metade
+            if ((pawns & ADJACENT_FILES[file]) == 0) score -= ISOLATED_PAWN;
+            long front = color == Position.WHITE ? -1L << (8 * (rank + 1)) : (1L << (8 * rank)) - 1;
+            if (rank == 7 || rank == 0) front = 0;
+            if ((enemy & (fileMask | ADJACENT_FILES[file]) & front) == 0) {
+                int advanced = color == Position.WHITE ? rank : 7 - rank;
+                score += middlegame ? PASSED_PAWN[advanced] / 2 : PASSED_PAWN[advanced];
+            }
+        }
+        return score;
+    }
+}
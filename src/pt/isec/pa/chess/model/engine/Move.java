@@ -0,0 +1,73 @@
+package pt.isec.pa.chess.model.engine;
+
+/**
+ * Moves of the compact {@link Position}, packed in an int.
+ *
+ * <p>Layout: bits 0-5 origin square, bits 6-11 destination square, bits 12-14 promotion piece type
+ * (0 if none, otherwise {@link Position#KNIGHT} to {@link Position#QUEEN}) and bits 15-16 a flag
+ * for the special moves. Squares go from a1 = 0 to h8 = 63.
+ */
+public final class Move {
+    private Move() {}
+
+    /**
+     * Value used for "no move".
+     */
+    public static final int NONE = 0;
+
+    public static final int NORMAL = 0;
+    public static final int DOUBLE_PUSH = 1;
+    public static final int EN_PASSANT = 2;
+    public static final int CASTLE = 3;
+
+    public static int of(int from, int to) {
+        return from | to << 6;
+    }
+
+    public static int of(int from, int to, int flag) {
+        return from | to << 6 | flag << 15;
+    }
+
+    public static int promotion(int from, int to, int type) {
+        return from | to << 6 | type << 12;
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    /**
+     * Gets the promotion piece type, or 0 if the move is not a promotion.
+     */
+    public static int promotion(int move) {
+        return (move >>> 12) & 7;
+    }
+
+    public static int flag(int move) {
+        return (move >>> 15) & 3;
+    }
+
+    /**
+     * Gets the move in the coordinate notation used by UCI (e.g. "e2e4", "e7e8q").
+     * Castling is written as the king's two-square move.
+     */
+    public static String toUci(int move) {
+        if (move == NONE) return "0000";
+        StringBuilder sb = new StringBuilder(5);
+        sb.append(squareName(from(move))).append(squareName(to(move)));
+        if (promotion(move) != 0) sb.append("pnbrqk".charAt(promotion(move)));
+        return sb.toString();
+    }
+
+    public static String squareName(int sq) {
+        return "" + (char) ('a' + (sq & 7)) + (char) ('1' + (sq >>> 3));
+    }
+
+    public static int parseSquare(String s) {
+        return (s.charAt(1) - '1') * 8 + (s.charAt(0) - 'a');
+    }
+}
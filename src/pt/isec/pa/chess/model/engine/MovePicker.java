@@ -0,0 +1,178 @@
+package pt.isec.pa.chess.model.engine;
+
+/**
+ * Hands out the moves of a node in the order most likely to cause a cutoff, generating them in
+ * stages so that the work is skipped when an early move already refutes the node:
+ * <ol>
+ *     <li>the hash move, checked without generating anything;</li>
+ *     <li>captures and promotions that do not lose material, by MVV-LVA (most valuable victim,
+ *     least valuable attacker);</li>
+ *     <li>the two killer moves of the ply;</li>
+ *     <li>the remaining quiet moves, by butterfly history;</li>
+ *     <li>the captures that lose material according to {@link StaticExchange}.</li>
+ * </ol>
+ * Within a stage the best remaining move is selected when asked for, instead of sorting the list.
+ * In the quiescence search only the captures and promotions that do not lose material are given.
+ *
+ * <p>The moves are pseudo-legal; the search checks legality when making them. One picker is kept per
+ * ply, so nothing is allocated during the search.
+ */
+final class MovePicker {
+    private static final int HASH = 0, GEN_CAPTURES = 1, CAPTURES = 2, KILLER_1 = 3, KILLER_2 = 4,
+            GEN_QUIETS = 5, QUIETS = 6, BAD_CAPTURES = 7, DONE = 8;
+
+    private final int[] moves = new int[Position.MAX_MOVES];
+    private final int[] scores = new int[Position.MAX_MOVES];
+    private int count;
+    private int index;
+    private int stage;
+    private boolean quiescence;
+    private final int[] badCaptures = new int[Position.MAX_MOVES];
+    private int badCount, badIndex;
+
+    // buffer da SEE, partilhado pelos pickers da mesma pesquisa
+    private final int[] seeGain;
+
+    private Position pos;
+    private int hashMove;
+    private int killer1, killer2;
+    private int[] history;
+
+    /**
+     * @param seeGain Scratch buffer for {@link StaticExchange}, of at least
+     *                {@link StaticExchange#BUFFER_SIZE} entries; the pickers of one search can share it
+     */
+    MovePicker(int[] seeGain) {
+        this.seeGain = seeGain;
+    }
+
+    /**
+     * Prepares the picker for a new node.
+     *
+     * @param history Butterfly history of the side to move, indexed by {@code from * 64 + to}
+     */
+    void init(Position pos, int hashMove, int killer1, int killer2, int[] history) {
+        this.pos = pos;
+        this.hashMove = pos.isPseudoLegal(hashMove) ? hashMove : Move.NONE;
+        this.killer1 = killer1;
+        this.killer2 = killer2;
+        this.history = history;
+        quiescence = false;
+        badCount = badIndex = 0;
+        stage = this.hashMove != Move.NONE ? HASH : GEN_CAPTURES;
+    }
+
+    /**
+     * Prepares the picker for a node of the quiescence search.
+     */
+    void initQuiescence(Position pos) {
+        this.pos = pos;
+        hashMove = killer1 = killer2 = Move.NONE;
+        quiescence = true;
+        badCount = badIndex = 0;
+        stage = GEN_CAPTURES;
+    }
+
+    /**
+     * Gets the next move.
+     *
+     * @return the move, or {@link Move#NONE} when there are no more
+     */
+    int next() {
+        while (true) {
+            switch (stage) {
+                case HASH -> {
+                    stage = GEN_CAPTURES;
+                    return hashMove;
+                }
+                case GEN_CAPTURES -> {
+                    count = pos.generateCaptures(moves, 0);
+                    index = 0;
+                    for (int i = 0; i < count; i++)
+                        scores[i] = mvvLva(moves[i]);
+                    stage = CAPTURES;
+                }
+                case CAPTURES -> {
+                    int move = selectBest();
+                    if (move == Move.NONE) {
+                        stage = quiescence ? DONE : KILLER_1;
+                    } else if (move != hashMove) {
+                        if (!losesMaterial(move)) return move;
+                        if (!quiescence) badCaptures[badCount++] = move; // fica para o fim
+                    }
+                }
+                case KILLER_1 -> {
+                    stage = KILLER_2;
+                    if (isUsableKiller(killer1)) return killer1;
+                }
+                case KILLER_2 -> {
+                    stage = GEN_QUIETS;
+                    if (killer2 != killer1 && isUsableKiller(killer2)) return killer2;
+                }
+                case GEN_QUIETS -> {
+                    count = pos.generateQuiets(moves, 0);
+                    index = 0;
+                    for (int i = 0; i < count; i++)
+                        scores[i] = history[moves[i] & 0xFFF];
+                    stage = QUIETS;
+                }
+                case QUIETS -> {
+                    int move = selectBest();
+                    if (move == Move.NONE) stage = BAD_CAPTURES;
+                    else if (move != hashMove && move != killer1 && move != killer2) return move;
+                }
+                case BAD_CAPTURES -> {
+                    if (badIndex < badCount) return badCaptures[badIndex++];
+                    stage = DONE;
+                }
+                default -> {
+                    return Move.NONE;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if the move was a quiet move of this node (the killers come from sibling nodes).
+     */
+    private boolean isUsableKiller(int killer) {
+        return killer != Move.NONE && killer != hashMove && !pos.isCapture(killer)
+                && Move.promotion(killer) == 0 && pos.isPseudoLegal(killer);
+    }
+
+    /**
+     * Checks a capture with SEE, unless the victim is worth at least as much as the attacker.
+     */
+    private boolean losesMaterial(int move) {
+        int target = pos.pieceAt(Move.to(move));
+        int attacker = Position.typeOf(pos.pieceAt(Move.from(move)));
+        if (Move.promotion(move) == 0 && target != Position.EMPTY
+                && Evaluation.VALUE[Position.typeOf(target)] >= Evaluation.VALUE[attacker])
+            return false;
+        return StaticExchange.evaluate(pos, move, seeGain) < 0;
+    }
+
+    private int mvvLva(int move) {
+        int target = pos.pieceAt(Move.to(move));
+        int victim = target != Position.EMPTY ? Evaluation.VALUE[Position.typeOf(target)]
+                : Move.flag(move) == Move.EN_PASSANT ? Evaluation.VALUE[Position.PAWN] : 0;
+        int score = 10 * victim - Position.typeOf(pos.pieceAt(Move.from(move)));
+        if (Move.promotion(move) != 0) score += Evaluation.VALUE[Move.promotion(move)];
+        return score;
+    }
+
+    /**
+     * Moves the best remaining move of the list to the front and returns it.
+     */
+    private int selectBest() {
+        if (index >= count) return Move.NONE;
+        int best = index;
+        for (int i = index + 1; i < count; i++)
+            if (scores[i] > scores[best]) best = i;
+        int move = moves[best];
+        moves[best] = moves[index];
+        scores[best] = scores[index];
+        index++;
+        return move;
+    }
+}
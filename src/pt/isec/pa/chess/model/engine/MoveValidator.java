@@ -0,0 +1,232 @@
+package pt.isec.pa.chess.model.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Checks the legality of many (position, move) pairs at once, e.g. the premoves or the input of
+ * the players of a server, without a {@link pt.isec.pa.chess.model.ChessGame} per pair.
+ *
+ * <p>Positions travel encoded in {@link #WORDS} longs: four with a nibble per square (0 for an
+ * empty square, otherwise the piece code plus one) and one with the side to move, castling rights,
+ * en passant square and the move counters. Moves are {@link Move} ints; only the origin,
+ * destination and promotion are read, the flag of the special moves is worked out here.
+ *
+ * <p>The pairs are split in chunks of {@link #CHUNK} that run in parallel on a pool with the
+ * configured number of threads. Each thread reuses its own scratch position and does not decode a
+ * position again when the next pair has the same one, so a batch allocates only its result.
+ */
+public class MoveValidator {
+    /**
+     * Number of longs of an encoded position.
+     */
+    public static final int WORDS = 5;
+    /**
+     * Pairs per parallel chunk; a multiple of 64, so each chunk writes its own words of the bitmap.
+     */
+    public static final int CHUNK = 1024;
+
+    private final ForkJoinPool pool;
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * Result of a batch.
+     *
+     * @param legal     Bitmap with bit i (word i / 64) set if move i is legal in position i
+     * @param positions Position after each move, encoded; the position itself if the move is illegal
+     */
+    public record Result(long[] legal, long[] positions) {
+        public boolean isLegal(int i) {
+            return (legal[i >>> 6] & 1L << i) != 0;
+        }
+
+        public int legalCount() {
+            int n = 0;
+            for (long word : legal)
+                n += Long.bitCount(word);
+            return n;
+        }
+
+        /**
+         * Decodes the position after move i.
+         */
+        public Position position(int i) {
+            return decode(positions, i * WORDS);
+        }
+    }
+
+    // posição de trabalho de cada thread, com a codificação que tem carregada
+    private static final class Scratch {
+        final Position position = new Position();
+        final long[] loaded = new long[WORDS];
+        boolean valid, ready;
+    }
+
+    public MoveValidator(int threads) {
+        this.pool = new ForkJoinPool(Math.max(1, threads));
+    }
+
+    public MoveValidator() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Checks a batch of pairs: move i is played in the position at offset {@code i * WORDS}.
+     * A position that cannot be decoded (no king, pawns on the last rank, side not to move in check)
+     * makes the move illegal.
+     *
+     * @throws IllegalArgumentException if the arrays do not have the same number of pairs
+     */
+    public Result validate(long[] positions, int[] moves) {
+        if (positions.length != moves.length * WORDS)
+            throw new IllegalArgumentException("Número de posições diferente do número de lances");
+        int count = moves.length;
+        long[] legal = new long[(count + 63) >>> 6];
+        long[] after = new long[positions.length];
+        int chunks = (count + CHUNK - 1) / CHUNK;
+        if (chunks <= 1) {
+            // um lote pequeno não compensa passar pela pool
+            validate(positions, moves, 0, count, legal, after);
+        } else {
+            try {
+                pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(c ->
+                        validate(positions, moves, c * CHUNK, Math.min(count, (c + 1) * CHUNK), legal, after))).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Validação interrompida", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Erro na validação dos lances", e.getCause());
+            }
+        }
+        return new Result(legal, after);
+    }
+
+    /**
+     * Checks one move, on the scratch position of the calling thread.
+     */
+    public boolean isLegal(long[] position, int move) {
+        return check(scratch.get(), position, 0, move);
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private void validate(long[] positions, int[] moves, int start, int end, long[] legal, long[] after) {
+        Scratch s = scratch.get();
+        for (int i = start; i < end; i++) {
+            int offset = i * WORDS;
+            if (check(s, positions, offset, moves[i])) {
+                legal[i >>> 6] |= 1L << i;
+                s.position.makeMove(withFlag(s.position, moves[i]));
+                encode(s.position, after, offset);
+                s.position.unmakeMove();
+            } else {
+                System.arraycopy(positions, offset, after, offset, WORDS);
+            }
+        }
+    }
+
+    private static boolean check(Scratch s, long[] positions, int offset, int move) {
+        if (!s.ready || !Arrays.equals(s.loaded, 0, WORDS, positions, offset, offset + WORDS)) {
+            System.arraycopy(positions, offset, s.loaded, 0, WORDS);
+            s.valid = load(positions, offset, s.position);
+            s.ready = true;
+        }
+        if (!s.valid) return false;
+        int m = withFlag(s.position, move);
+        return s.position.isPseudoLegal(m) && s.position.isLegal(m);
+    }
+
+    /**
+     * Gives a move the flag of its kind (double push, en passant or castling) in a position, from
+     * its origin and destination.
+     */
+    static int withFlag(Position p, int move) {
+        int from = Move.from(move), to = Move.to(move), promo = Move.promotion(move);
+        int piece = p.pieceAt(from);
+        int flag = Move.NORMAL;
+        if (piece != Position.EMPTY) {
+            int type = Position.typeOf(piece);
+            if (type == Position.KING && Math.abs(to - from) == 2) flag = Move.CASTLE;
+            else if (type == Position.PAWN && Math.abs(to - from) == 16) flag = Move.DOUBLE_PUSH;
+            else if (type == Position.PAWN && to == p.enPassantSquare() && (to - from) % 8 != 0) flag = Move.EN_PASSANT;
+        }
+        return from | to << 6 | promo << 12 | flag << 15;
+    }
+
+    //Codificação das posições
+    /**
+     * Encodes a position (without its move history) at an offset of an array.
+     */
+    public static void encode(Position p, long[] dest, int offset) {
+        for (int w = 0; w < 4; w++) {
+            long word = 0;
+            for (int i = 0; i < 16; i++)
+                word |= (long) (p.pieceAt(w * 16 + i) + 1) << (i * 4);
+            dest[offset + w] = word;
+        }
+        dest[offset + 4] = p.sideToMove()
+                | (long) p.castlingRights() << 1
+                | (long) (p.enPassantSquare() + 1) << 5
+                | (long) Math.min(p.halfmoveClock(), 255) << 12
+                | (long) Math.min(p.fullmoveNumber(), 0xFFFF) << 20;
+    }
+
+    public static long[] encode(Position p) {
+        long[] words = new long[WORDS];
+        encode(p, words, 0);
+        return words;
+    }
+
+    /**
+     * Decodes a position encoded with {@link #encode}.
+     *
+     * @throws IllegalArgumentException if it is not a valid position
+     */
+    public static Position decode(long[] src, int offset) {
+        Position p = new Position();
+        if (!load(src, offset, p)) throw new IllegalArgumentException("Posição codificada inválida");
+        return p;
+    }
+
+    /**
+     * Loads an encoded position into a position. Castling rights without the king and rook in place,
+     * and an en passant square off the 3rd and 6th ranks, are dropped.
+     *
+     * @return false if it is not a position where moves can be checked
+     */
+    private static boolean load(long[] src, int offset, Position p) {
+        p.clear();
+        for (int sq = 0; sq < 64; sq++) {
+            int nibble = (int) (src[offset + (sq >>> 4)] >>> ((sq & 15) * 4)) & 15;
+            if (nibble == 0) continue;
+            if (nibble > 12) return false;
+            p.setPiece(nibble - 1, sq);
+        }
+        long state = src[offset + 4];
+        int side = (int) state & 1;
+        int castling = (int) (state >>> 1) & 15;
+        int ep = (int) ((state >>> 5) & 127) - 1;
+        int half = (int) (state >>> 12) & 255;
+        int full = Math.max(1, (int) (state >>> 20) & 0xFFFF);
+
+        if (Long.bitCount(p.pieces(Position.WHITE, Position.KING)) != 1
+                || Long.bitCount(p.pieces(Position.BLACK, Position.KING)) != 1) return false;
+        if (((p.pieces(Position.WHITE, Position.PAWN) | p.pieces(Position.BLACK, Position.PAWN))
+                & (Bitboards.RANK_1 | Bitboards.RANK_8)) != 0) return false;
+        // o roque precisa do rei e da torre nas casas iniciais
+        int whiteRook = Position.code(Position.WHITE, Position.ROOK), blackRook = Position.code(Position.BLACK, Position.ROOK);
+        if (p.pieceAt(4) != Position.code(Position.WHITE, Position.KING)) castling &= ~(Position.CASTLE_WK | Position.CASTLE_WQ);
+        if (p.pieceAt(60) != Position.code(Position.BLACK, Position.KING)) castling &= ~(Position.CASTLE_BK | Position.CASTLE_BQ);
+        if (p.pieceAt(7) != whiteRook) castling &= ~Position.CASTLE_WK;
+        if (p.pieceAt(0) != whiteRook) castling &= ~Position.CASTLE_WQ;
+        if (p.pieceAt(63) != blackRook) castling &= ~Position.CASTLE_BK;
+        if (p.pieceAt(56) != blackRook) castling &= ~Position.CASTLE_BQ;
+        if (ep >= 0 && ep >>> 3 != (side == Position.WHITE ? 5 : 2)) ep = -1;
+        p.setState(side, castling, ep, half, full);
+        return !p.opponentInCheck();
+    }
+}
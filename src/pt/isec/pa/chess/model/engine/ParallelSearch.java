@@ -0,0 +1,154 @@
+package pt.isec.pa.chess.model.engine;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Lazy SMP search: the main search runs on the calling thread while helper threads search the same
+ * root, sharing the transposition table. The helpers do not communicate otherwise; the entries they
+ * store change the order and the cutoffs of the other threads. Only the result of the main search
+ * is reported, with the nodes of every thread.
+ *
+ * <p>Each thread keeps its own {@link Search} and therefore its own move stack, so the threads do
+ * not allocate while searching.
+ */
+public class ParallelSearch {
+    private final TranspositionTable tt;
+    private final Search main;
+    private Search[] helpers = new Search[0];
+    private ExecutorService pool;
+
+    /**
+     * @param threads Number of threads, the calling one included
+     * @param tt      Table shared by the threads
+     */
+    public ParallelSearch(int threads, TranspositionTable tt) {
+        this.tt = tt;
+        this.main = new Search(tt);
+        setThreads(threads);
+    }
+
+    public ParallelSearch(int threads) {
+        this(threads, new TranspositionTable());
+    }
+
+    /**
+     * Changes the number of threads. Must not be called during a search.
+     */
+    public synchronized void setThreads(int threads) {
+        threads = Math.max(1, threads);
+        if (threads == helpers.length + 1) return;
+        if (pool != null) pool.shutdownNow();
+        helpers = new Search[threads - 1];
+        for (int i = 0; i < helpers.length; i++) {
+            helpers[i] = new Search(tt);
+            helpers[i].setHelperId(i + 1);
+        }
+        AtomicInteger n = new AtomicInteger();
+        pool = helpers.length == 0 ? null : Executors.newFixedThreadPool(helpers.length, r -> {
+            Thread t = new Thread(r, "search-helper-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public int getThreads() {
+        return helpers.length + 1;
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return tt;
+    }
+
+    /**
+     * Sets the number of best lines of the main search; the helpers search only the best one.
+     *
+     * @see Search#setMultiPv(int)
+     */
+    public void setMultiPv(int lines) {
+        main.setMultiPv(lines);
+    }
+
+    /**
+     * Sets the listener called at the end of every iteration of the main search.
+     */
+    public void setListener(Consumer<SearchResult> listener) {
+        main.setListener(listener == null ? null : r -> listener.accept(withTotalNodes(r)));
+    }
+
+    /**
+     * Searches a position with every thread.
+     *
+     * @param root   Position to search (not changed)
+     * @param limits Limits of the main search; the helpers run until it ends
+     * @return the result of the main search, with the nodes of all threads
+     */
+    public synchronized SearchResult search(Position root, SearchLimits limits) {
+        tt.newSearch();
+        // todos os pedidos de paragem são limpos antes de qualquer thread começar, para que um stop()
+        // feito a partir daqui chegue a todas
+        main.resetStop();
+        for (Search helper : helpers)
+            helper.resetStop();
+        Future<?>[] running = new Future<?>[helpers.length];
+        for (int i = 0; i < helpers.length; i++) {
+            Search helper = helpers[i];
+            running[i] = pool.submit(() -> helper.run(root, SearchLimits.infinite(), false));
+        }
+        SearchResult result;
+        try {
+            result = main.run(root, limits, false);
+        } finally {
+            for (Search helper : helpers)
+                helper.stop();
+            for (Future<?> f : running) {
+                try {
+                    f.get();
+                } catch (Exception ignored) {
+                    // um ajudante que falhe não invalida o resultado principal
+                }
+            }
+        }
+        return withTotalNodes(result);
+    }
+
+    /**
+     * Makes the next search ignore its time limits until {@link #ponderHit()}.
+     *
+     * @see Search#setPondering(boolean)
+     */
+    public void setPondering(boolean pondering) {
+        main.setPondering(pondering);
+    }
+
+    /**
+     * Starts counting the time of a pondering search. Can be called from any thread.
+     */
+    public void ponderHit() {
+        main.ponderHit();
+    }
+
+    /**
+     * Stops the search in progress. Can be called from any thread.
+     */
+    public void stop() {
+        main.stop();
+        for (Search helper : helpers)
+            helper.stop();
+    }
+
+    public void shutdown() {
+        if (pool != null) pool.shutdownNow();
+    }
+
+    private SearchResult withTotalNodes(SearchResult r) {
+        long nodes = main.getNodes();
+        for (Search helper : helpers)
+            nodes += helper.getNodes();
+        return new SearchResult(r.getBestMove(), r.getScore(), r.getDepth(), nodes, r.getTimeMillis(), r.getPv(),
+                r.getLines().size() > 1 ? r.getLines() : null);
+    }
+}
@@ -0,0 +1,831 @@
+package pt.isec.pa.chess.model.engine;
+
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.data.Board;
+import pt.isec.pa.chess.model.data.pieces.King;
+import pt.isec.pa.chess.model.data.pieces.Pawn;
+import pt.isec.pa.chess.model.data.pieces.Piece;
+import pt.isec.pa.chess.model.data.pieces.Rook;
+
+import java.util.Arrays;
+
+/**
+ * Compact chess position used by the engine components (search, tablebases, codecs).
+ *
+ * <p>Unlike {@link Board}, which keeps a {@link Piece} object per square and copies the board to
+ * test every move, this class keeps one bitboard per piece plus a square table, and changes the
+ * position in place with {@link #makeMove}/{@link #unmakeMove}. Nothing is allocated while moves
+ * are made, unmade or generated.
+ *
+ * <p>Squares go from a1 = 0 to h8 = 63; {@link #square(int, int)} converts from the board
+ * coordinates used by {@link ChessGame} (line 0 is the 8th rank). Pieces are coded as
+ * {@code colour * 6 + type}.
+ *
+ * <p>A position is not thread-safe; each thread works on its own copy.
+ */
+public final class Position {
+    public static final int WHITE = 0, BLACK = 1;
+    public static final int PAWN = 0, KNIGHT = 1, BISHOP = 2, ROOK = 3, QUEEN = 4, KING = 5;
+    public static final int EMPTY = -1;
+
+    public static final int CASTLE_WK = 1, CASTLE_WQ = 2, CASTLE_BK = 4, CASTLE_BQ = 8;
+
+    /**
+     * Upper bound for the number of pseudo-legal moves in a position, used to size move buffers.
+     */
+    public static final int MAX_MOVES = 256;
+
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final int[] CASTLE_MASK = new int[64];
+
+    static {
+        Arrays.fill(CASTLE_MASK, 15);
+        CASTLE_MASK[0] &= ~CASTLE_WQ;
+        CASTLE_MASK[7] &= ~CASTLE_WK;
+        CASTLE_MASK[4] &= ~(CASTLE_WK | CASTLE_WQ);
+        CASTLE_MASK[56] &= ~CASTLE_BQ;
+        CASTLE_MASK[63] &= ~CASTLE_BK;
+        CASTLE_MASK[60] &= ~(CASTLE_BK | CASTLE_BQ);
+    }
+
+    final long[] pieces = new long[12];
+    final long[] colors = new long[2];
+    long occupied;
+    final int[] board = new int[64];
+    int side;
+    int castling;
+    int epSquare = -1;
+    int halfmoveClock;
+    int fullmoveNumber = 1;
+    long key;
+    // Avaliação incremental (ver Evaluation), do ponto de vista das brancas
+    int mgScore, egScore, phase;
+
+    //Histórico para o unmake (cresce se for preciso)
+    private int ply;
+    private int[] moveHistory = new int[256];
+    private int[] capturedHistory = new int[256];
+    private int[] stateHistory = new int[256];
+    private long[] keyHistory = new long[256];
+
+    /**
+     * Creates an empty position (no pieces, White to move).
+     */
+    public Position() {
+        Arrays.fill(board, EMPTY);
+    }
+
+    /**
+     * Creates the standard starting position.
+     */
+    public static Position startPosition() {
+        return fromFen(START_FEN);
+    }
+
+    //Conversões de coordenadas
+    public static int square(int line, int column) {
+        return (7 - line) * 8 + column;
+    }
+
+    public static int line(int sq) {
+        return 7 - (sq >>> 3);
+    }
+
+    public static int column(int sq) {
+        return sq & 7;
+    }
+
+    public static int code(int color, int type) {
+        return color * 6 + type;
+    }
+
+    public static int colorOf(int code) {
+        return code >= 6 ? BLACK : WHITE;
+    }
+
+    public static int typeOf(int code) {
+        return code % 6;
+    }
+
+    //Acesso ao estado
+    public int pieceAt(int sq) {
+        return board[sq];
+    }
+
+    public long pieces(int color, int type) {
+        return pieces[code(color, type)];
+    }
+
+    public long colorPieces(int color) {
+        return colors[color];
+    }
+
+    public long occupied() {
+        return occupied;
+    }
+
+    public int sideToMove() {
+        return side;
+    }
+
+    public int castlingRights() {
+        return castling;
+    }
+
+    public int enPassantSquare() {
+        return epSquare;
+    }
+
+    public int halfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public int fullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    public long key() {
+        return key;
+    }
+
+    /**
+     * Gets the number of moves made with {@link #makeMove} that can still be unmade.
+     */
+    public int historySize() {
+        return ply;
+    }
+
+    /**
+     * Gets the key the position had a number of plies ago.
+     *
+     * @param pliesAgo 1 for the position before the last move
+     */
+    public long keyAt(int pliesAgo) {
+        return keyHistory[ply - pliesAgo];
+    }
+
+    public int kingSquare(int color) {
+        return Long.numberOfTrailingZeros(pieces[code(color, KING)]);
+    }
+
+    //Alterações elementares, que mantêm a chave e os bitboards
+    void putPiece(int piece, int sq) {
+        long bit = 1L << sq;
+        pieces[piece] |= bit;
+        colors[colorOf(piece)] |= bit;
+        occupied |= bit;
+        board[sq] = piece;
+        key ^= Zobrist.PIECES[piece * 64 + sq];
+        mgScore += Evaluation.MG[piece * 64 + sq];
+        egScore += Evaluation.EG[piece * 64 + sq];
+        phase += Evaluation.PHASE[typeOf(piece)];
+    }
+
+    void removePiece(int sq) {
+        int piece = board[sq];
+        long bit = 1L << sq;
+        pieces[piece] &= ~bit;
+        colors[colorOf(piece)] &= ~bit;
+        occupied &= ~bit;
+        board[sq] = EMPTY;
+        key ^= Zobrist.PIECES[piece * 64 + sq];
+        mgScore -= Evaluation.MG[piece * 64 + sq];
+        egScore -= Evaluation.EG[piece * 64 + sq];
+        phase -= Evaluation.PHASE[typeOf(piece)];
+    }
+
+    void movePiece(int from, int to) {
+        int piece = board[from];
+        long bits = 1L << from | 1L << to;
+        pieces[piece] ^= bits;
+        colors[colorOf(piece)] ^= bits;
+        occupied ^= bits;
+        board[from] = EMPTY;
+        board[to] = piece;
+        key ^= Zobrist.PIECES[piece * 64 + from] ^ Zobrist.PIECES[piece * 64 + to];
+        mgScore += Evaluation.MG[piece * 64 + to] - Evaluation.MG[piece * 64 + from];
+        egScore += Evaluation.EG[piece * 64 + to] - Evaluation.EG[piece * 64 + from];
+    }
+
+    /**
+     * Places a piece while setting up a position. Not meant to be used between moves.
+     */
+    public void setPiece(int piece, int sq) {
+        if (board[sq] != EMPTY) removePiece(sq);
+        if (piece != EMPTY) putPiece(piece, sq);
+    }
+
+    /**
+     * Sets the side to move, castling rights and en passant square while setting up a position.
+     * The history of moves is cleared.
+     */
+    public void setState(int side, int castling, int epSquare, int halfmoveClock, int fullmoveNumber) {
+        this.side = side;
+        this.castling = castling;
+        this.epSquare = epSquare;
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+        this.ply = 0;
+        key = computeKey();
+    }
+
+    /**
+     * Removes every piece and resets the state.
+     */
+    public void clear() {
+        Arrays.fill(pieces, 0);
+        colors[0] = colors[1] = occupied = 0;
+        Arrays.fill(board, EMPTY);
+        mgScore = egScore = phase = 0;
+        setState(WHITE, 0, -1, 0, 1);
+    }
+
+    /**
+     * Copies another position into this one, without its move history.
+     */
+    public void copyFrom(Position other) {
+        System.arraycopy(other.pieces, 0, pieces, 0, 12);
+        colors[0] = other.colors[0];
+        colors[1] = other.colors[1];
+        occupied = other.occupied;
+        System.arraycopy(other.board, 0, board, 0, 64);
+        side = other.side;
+        castling = other.castling;
+        epSquare = other.epSquare;
+        halfmoveClock = other.halfmoveClock;
+        fullmoveNumber = other.fullmoveNumber;
+        key = other.key;
+        mgScore = other.mgScore;
+        egScore = other.egScore;
+        phase = other.phase;
+        ply = 0;
+    }
+
+    public Position copy() {
+        Position p = new Position();
+        p.copyFrom(this);
+        return p;
+    }
+
+    /**
+     * Recomputes the Zobrist key from scratch.
+     */
+    public long computeKey() {
+        long k = 0;
+        for (int sq = 0; sq < 64; sq++)
+            if (board[sq] != EMPTY)
+                k ^= Zobrist.PIECES[board[sq] * 64 + sq];
+        k ^= Zobrist.CASTLING[castling];
+        if (epSquare >= 0) k ^= Zobrist.EN_PASSANT_FILE[epSquare & 7];
+        if (side == BLACK) k ^= Zobrist.SIDE;
+        return k;
+    }
+
+    //Ataques
+    /**
+     * Checks if a square is attacked by the pieces of a colour.
+     */
+    public boolean isAttacked(int sq, int byColor) {
+        long occ = occupied;
+        if ((Bitboards.PAWN_ATTACKS[byColor ^ 1][sq] & pieces[code(byColor, PAWN)]) != 0) return true;
+        if ((Bitboards.KNIGHT_ATTACKS[sq] & pieces[code(byColor, KNIGHT)]) != 0) return true;
+        if ((Bitboards.KING_ATTACKS[sq] & pieces[code(byColor, KING)]) != 0) return true;
+        long queens = pieces[code(byColor, QUEEN)];
+        if ((Bitboards.bishopAttacks(sq, occ) & (pieces[code(byColor, BISHOP)] | queens)) != 0) return true;
+        return (Bitboards.rookAttacks(sq, occ) & (pieces[code(byColor, ROOK)] | queens)) != 0;
+    }
+
+    /**
+     * Gets every piece of both colours that attacks a square, for a given occupancy.
+     */
+    public long attackersTo(int sq, long occ) {
+        return (Bitboards.PAWN_ATTACKS[BLACK][sq] & pieces[code(WHITE, PAWN)])
+                | (Bitboards.PAWN_ATTACKS[WHITE][sq] & pieces[code(BLACK, PAWN)])
+                | (Bitboards.KNIGHT_ATTACKS[sq] & (pieces[code(WHITE, KNIGHT)] | pieces[code(BLACK, KNIGHT)]))
+                | (Bitboards.KING_ATTACKS[sq] & (pieces[code(WHITE, KING)] | pieces[code(BLACK, KING)]))
+                | (Bitboards.bishopAttacks(sq, occ) & (pieces[code(WHITE, BISHOP)] | pieces[code(BLACK, BISHOP)]
+                | pieces[code(WHITE, QUEEN)] | pieces[code(BLACK, QUEEN)]))
+                | (Bitboards.rookAttacks(sq, occ) & (pieces[code(WHITE, ROOK)] | pieces[code(BLACK, ROOK)]
+                | pieces[code(WHITE, QUEEN)] | pieces[code(BLACK, QUEEN)]));
+    }
+
+    public boolean inCheck() {
+        return isAttacked(kingSquare(side), side ^ 1);
+    }
+
+    /**
+     * Checks if the side that is not to move is in check, which makes the position illegal.
+     */
+    public boolean opponentInCheck() {
+        return isAttacked(kingSquare(side ^ 1), side);
+    }
+
+    //Make / unmake
+    /**
+     * Makes a pseudo-legal move. The move can be taken back with {@link #unmakeMove()}.
+     */
+    public void makeMove(int move) {
+        int from = Move.from(move), to = Move.to(move), flag = Move.flag(move);
+        int piece = board[from];
+
+        if (ply == moveHistory.length) growHistory();
+        keyHistory[ply] = key;
+        stateHistory[ply] = castling | (epSquare + 1) << 4 | halfmoveClock << 11;
+        moveHistory[ply] = move;
+
+        key ^= Zobrist.CASTLING[castling];
+        if (epSquare >= 0) key ^= Zobrist.EN_PASSANT_FILE[epSquare & 7];
+        epSquare = -1;
+        halfmoveClock++;
+
+        int captured;
+        if (flag == Move.EN_PASSANT) {
+            int capSq = to + (side == WHITE ? -8 : 8);
+            captured = board[capSq];
+            removePiece(capSq);
+        } else {
+            captured = board[to];
+            if (captured != EMPTY) removePiece(to);
+        }
+        capturedHistory[ply++] = captured;
+        if (captured != EMPTY || typeOf(piece) == PAWN) halfmoveClock = 0;
+
+        movePiece(from, to);
+        int promo = Move.promotion(move);
+        if (promo != 0) {
+            removePiece(to);
+            putPiece(code(side, promo), to);
+        } else if (flag == Move.CASTLE) {
+            switch (to) {
+                case 6 -> movePiece(7, 5);
+                case 2 -> movePiece(0, 3);
+                case 62 -> movePiece(63, 61);
+                case 58 -> movePiece(56, 59);
+            }
+        } else if (flag == Move.DOUBLE_PUSH) {
+            int ep = (from + to) >>> 1;
+            if ((Bitboards.PAWN_ATTACKS[side][ep] & pieces[code(side ^ 1, PAWN)]) != 0) {
+                epSquare = ep;
+                key ^= Zobrist.EN_PASSANT_FILE[ep & 7];
+            }
+        }
+
+        castling &= CASTLE_MASK[from] & CASTLE_MASK[to];
+        key ^= Zobrist.CASTLING[castling];
+        if (side == BLACK) fullmoveNumber++;
+        side ^= 1;
+        key ^= Zobrist.SIDE;
+    }
+
+    /**
+     * Takes back the last move made with {@link #makeMove}.
+     */
+    public void unmakeMove() {
+        int move = moveHistory[--ply];
+        int from = Move.from(move), to = Move.to(move), flag = Move.flag(move);
+        side ^= 1;
+        if (side == BLACK) fullmoveNumber--;
+
+        if (Move.promotion(move) != 0) {
+            removePiece(to);
+            putPiece(code(side, PAWN), to);
+        } else if (flag == Move.CASTLE) {
+            switch (to) {
+                case 6 -> movePiece(5, 7);
+                case 2 -> movePiece(3, 0);
+                case 62 -> movePiece(61, 63);
+                case 58 -> movePiece(59, 56);
+            }
+        }
+        movePiece(to, from);
+
+        int captured = capturedHistory[ply];
+        if (captured != EMPTY) {
+            putPiece(captured, flag == Move.EN_PASSANT ? to + (side == WHITE ? -8 : 8) : to);
+        }
+
+        int state = stateHistory[ply];
+        castling = state & 15;
+        epSquare = ((state >>> 4) & 127) - 1;
+        halfmoveClock = state >>> 11;
+        key = keyHistory[ply];
+    }
+
+    /**
+     * Makes a pseudo-legal move only if it does not leave the own king in check.
+     *
+     * @return true if the move was legal and has been made
+     */
+    public boolean makeLegalMove(int move) {
+        makeMove(move);
+        if (opponentInCheck()) {
+            unmakeMove();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a pseudo-legal move is legal.
+     */
+    public boolean isLegal(int move) {
+        int from = Move.from(move), to = Move.to(move), flag = Move.flag(move);
+        if (flag == Move.CASTLE) return true; // as casas de passagem já foram verificadas na geração
+        if (flag == Move.EN_PASSANT) {
+            makeMove(move);
+            boolean legal = !opponentInCheck();
+            unmakeMove();
+            return legal;
+        }
+        long occ = (occupied ^ (1L << from)) | (1L << to);
+        long enemies = colors[side ^ 1] & ~(1L << to);
+        int king = kingSquare(side);
+        if (from == king) return (attackersTo(to, occ) & enemies) == 0;
+        return (attackersTo(king, occ) & enemies) == 0;
+    }
+
+    /**
+     * Gets the pieces of a colour that are pinned against their own king.
+     */
+    public long pinnedPieces(int color) {
+        int king = kingSquare(color), them = color ^ 1;
+        long queens = pieces[code(them, QUEEN)];
+        long snipers = (Bitboards.rookAttacks(king, 0) & (pieces[code(them, ROOK)] | queens))
+                | (Bitboards.bishopAttacks(king, 0) & (pieces[code(them, BISHOP)] | queens));
+        long pinned = 0;
+        while (snipers != 0) {
+            long between = Bitboards.BETWEEN[king][Long.numberOfTrailingZeros(snipers)] & occupied;
+            snipers &= snipers - 1;
+            if (between != 0 && (between & (between - 1)) == 0) pinned |= between & colors[color];
+        }
+        return pinned;
+    }
+
+    private void growHistory() {
+        int n = moveHistory.length * 2;
+        moveHistory = Arrays.copyOf(moveHistory, n);
+        capturedHistory = Arrays.copyOf(capturedHistory, n);
+        stateHistory = Arrays.copyOf(stateHistory, n);
+        keyHistory = Arrays.copyOf(keyHistory, n);
+    }
+
+    //Geração de movimentos
+    /**
+     * Generates every pseudo-legal move.
+     *
+     * @param moves Buffer for the moves
+     * @param start First free index of the buffer
+     * @return the index after the last generated move
+     */
+    public int generateMoves(int[] moves, int start) {
+        int n = generateCaptures(moves, start);
+        return generateQuiets(moves, n);
+    }
+
+    /**
+     * Generates the pseudo-legal captures and promotions (including non-capturing promotions).
+     */
+    public int generateCaptures(int[] moves, int n) {
+        int us = side, them = us ^ 1;
+        long enemies = colors[them];
+        long empty = ~occupied;
+
+        long pawns = pieces[code(us, PAWN)];
+        long promoRank = us == WHITE ? Bitboards.RANK_8 : Bitboards.RANK_1;
+        int forward = us == WHITE ? 8 : -8;
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            long targets = Bitboards.PAWN_ATTACKS[us][from] & enemies;
+            int push = from + forward;
+            if ((promoRank & (1L << push)) != 0 && (empty & (1L << push)) != 0) {
+                n = addPromotions(moves, n, from, push);
+            }
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                if ((promoRank & (1L << to)) != 0)
+                    n = addPromotions(moves, n, from, to);
+                else
+                    moves[n++] = Move.of(from, to);
+            }
+            if (epSquare >= 0 && (Bitboards.PAWN_ATTACKS[us][from] & (1L << epSquare)) != 0) {
+                moves[n++] = Move.of(from, epSquare, Move.EN_PASSANT);
+            }
+        }
+        return generatePieceMoves(moves, n, enemies);
+    }
+
+    /**
+     * Generates the pseudo-legal moves that are neither captures nor promotions (castling included).
+     */
+    public int generateQuiets(int[] moves, int n) {
+        int us = side;
+        long empty = ~occupied;
+
+        long pawns = pieces[code(us, PAWN)];
+        long promoRank = us == WHITE ? Bitboards.RANK_8 : Bitboards.RANK_1;
+        int forward = us == WHITE ? 8 : -8;
+        int startRank = us == WHITE ? 1 : 6;
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            int push = from + forward;
+            if ((empty & (1L << push)) != 0 && (promoRank & (1L << push)) == 0) {
+                moves[n++] = Move.of(from, push);
+                if ((from >>> 3) == startRank && (empty & (1L << (push + forward))) != 0)
+                    moves[n++] = Move.of(from, push + forward, Move.DOUBLE_PUSH);
+            }
+        }
+
+        n = generatePieceMoves(moves, n, empty);
+
+        if (us == WHITE) {
+            if ((castling & CASTLE_WK) != 0 && (occupied & 0x60L) == 0 && castleSafe(4, 5, 6, BLACK))
+                moves[n++] = Move.of(4, 6, Move.CASTLE);
+            if ((castling & CASTLE_WQ) != 0 && (occupied & 0x0EL) == 0 && castleSafe(4, 3, 2, BLACK))
+                moves[n++] = Move.of(4, 2, Move.CASTLE);
+        } else {
+            if ((castling & CASTLE_BK) != 0 && (occupied & (0x60L << 56)) == 0 && castleSafe(60, 61, 62, WHITE))
+                moves[n++] = Move.of(60, 62, Move.CASTLE);
+            if ((castling & CASTLE_BQ) != 0 && (occupied & (0x0EL << 56)) == 0 && castleSafe(60, 59, 58, WHITE))
+                moves[n++] = Move.of(60, 58, Move.CASTLE);
+        }
+        return n;
+    }
+
+    private boolean castleSafe(int king, int through, int dest, int enemy) {
+        return !isAttacked(king, enemy) && !isAttacked(through, enemy) && !isAttacked(dest, enemy);
+    }
+
+    private int generatePieceMoves(int[] moves, int n, long targetMask) {
+        int us = side;
+        long occ = occupied;
+        for (int type = KNIGHT; type <= KING; type++) {
+            long bb = pieces[code(us, type)];
+            while (bb != 0) {
+                int from = Long.numberOfTrailingZeros(bb);
+                bb &= bb - 1;
+                long targets = switch (type) {
+                    case KNIGHT -> Bitboards.KNIGHT_ATTACKS[from];
+                    case BISHOP -> Bitboards.bishopAttacks(from, occ);
+                    case ROOK -> Bitboards.rookAttacks(from, occ);
+                    case QUEEN -> Bitboards.queenAttacks(from, occ);
+                    default -> Bitboards.KING_ATTACKS[from];
+                } & targetMask;
+                while (targets != 0) {
+                    int to = Long.numberOfTrailingZeros(targets);
+                    targets &= targets - 1;
+                    moves[n++] = Move.of(from, to);
+                }
+            }
+        }
+        return n;
+    }
+
+    private static int addPromotions(int[] moves, int n, int from, int to) {
+        moves[n++] = Move.promotion(from, to, QUEEN);
+        moves[n++] = Move.promotion(from, to, KNIGHT);
+        moves[n++] = Move.promotion(from, to, ROOK);
+        moves[n++] = Move.promotion(from, to, BISHOP);
+        return n;
+    }
+
+    /**
+     * Checks if a move could have been generated in this position, so that a move taken from elsewhere
+     * (the transposition table, a killer of another node) can be tried without generating the others.
+     */
+    public boolean isPseudoLegal(int move) {
+        if (move == Move.NONE) return false;
+        int from = Move.from(move), to = Move.to(move), flag = Move.flag(move), promo = Move.promotion(move);
+        int piece = board[from];
+        if (piece == EMPTY || colorOf(piece) != side || (colors[side] & (1L << to)) != 0) return false;
+        int type = typeOf(piece);
+        if (flag == Move.CASTLE) {
+            if (type != KING || promo != 0) return false;
+            return switch (move & 0xFFF) {
+                case 4 | 6 << 6 -> (castling & CASTLE_WK) != 0 && (occupied & 0x60L) == 0 && castleSafe(4, 5, 6, BLACK);
+                case 4 | 2 << 6 -> (castling & CASTLE_WQ) != 0 && (occupied & 0x0EL) == 0 && castleSafe(4, 3, 2, BLACK);
+                case 60 | 62 << 6 -> (castling & CASTLE_BK) != 0 && (occupied & (0x60L << 56)) == 0 && castleSafe(60, 61, 62, WHITE);
+                case 60 | 58 << 6 -> (castling & CASTLE_BQ) != 0 && (occupied & (0x0EL << 56)) == 0 && castleSafe(60, 59, 58, WHITE);
+                default -> false;
+            };
+        }
+        if (type != PAWN) {
+            if (flag != Move.NORMAL || promo != 0) return false;
+            long targets = switch (type) {
+                case KNIGHT -> Bitboards.KNIGHT_ATTACKS[from];
+                case BISHOP -> Bitboards.bishopAttacks(from, occupied);
+                case ROOK -> Bitboards.rookAttacks(from, occupied);
+                case QUEEN -> Bitboards.queenAttacks(from, occupied);
+                default -> Bitboards.KING_ATTACKS[from];
+            };
+            return (targets & (1L << to)) != 0;
+        }
+        int forward = side == WHITE ? 8 : -8;
+        boolean lastRank = ((Bitboards.RANK_1 | Bitboards.RANK_8) & (1L << to)) != 0;
+        if (lastRank != (promo != 0) || promo > QUEEN) return false;
+        switch (flag) {
+            case Move.EN_PASSANT:
+                return to == epSquare && (Bitboards.PAWN_ATTACKS[side][from] & (1L << to)) != 0;
+            case Move.DOUBLE_PUSH:
+                return (from >>> 3) == (side == WHITE ? 1 : 6) && to == from + 2 * forward
+                        && (occupied & (1L << (from + forward) | 1L << to)) == 0;
+            default:
+                if (to == from + forward) return board[to] == EMPTY;
+                return (Bitboards.PAWN_ATTACKS[side][from] & colors[side ^ 1] & (1L << to)) != 0;
+        }
+    }
+
+    /**
+     * Generates only the legal moves.
+     *
+     * @param moves Buffer with room for {@link #MAX_MOVES} moves
+     * @return the number of legal moves
+     */
+    public int generateLegalMoves(int[] moves) {
+        int total = generateMoves(moves, 0);
+        int king = kingSquare(side);
+        // sem xeque, só os lances do rei, das peças cravadas e en passant precisam de verificação
+        long suspects = inCheck() ? ~0L : pinnedPieces(side) | 1L << king;
+        int n = 0;
+        for (int i = 0; i < total; i++) {
+            int m = moves[i];
+            if (((1L << Move.from(m)) & suspects) == 0 && Move.flag(m) != Move.EN_PASSANT || isLegal(m))
+                moves[n++] = m;
+        }
+        return n;
+    }
+
+    /**
+     * Checks if a move is a capture (en passant included).
+     */
+    public boolean isCapture(int move) {
+        return board[Move.to(move)] != EMPTY || Move.flag(move) == Move.EN_PASSANT;
+    }
+
+    /**
+     * Finds the legal move with the given origin, destination and promotion.
+     *
+     * @return the move, or {@link Move#NONE} if there is no such legal move
+     */
+    public int findMove(int from, int to, int promotion) {
+        int[] moves = new int[MAX_MOVES];
+        int n = generateLegalMoves(moves);
+        for (int i = 0; i < n; i++) {
+            int m = moves[i];
+            if (Move.from(m) == from && Move.to(m) == to && Move.promotion(m) == promotion) return m;
+        }
+        return Move.NONE;
+    }
+
+    /**
+     * Parses a move in UCI coordinate notation and checks that it is legal here.
+     *
+     * @return the move, or {@link Move#NONE} if it is not a legal move
+     */
+    public int parseUciMove(String uci) {
+        if (uci == null || uci.length() < 4) return Move.NONE;
+        int promo = uci.length() > 4 ? "pnbrqk".indexOf(Character.toLowerCase(uci.charAt(4))) : 0;
+        return findMove(Move.parseSquare(uci), Move.parseSquare(uci.substring(2)), Math.max(promo, 0));
+    }
+
+    //FEN
+    /**
+     * Creates a position from a FEN string.
+     *
+     * @throws IllegalArgumentException if the FEN cannot be parsed
+     */
+    public static Position fromFen(String fen) {
+        Position p = new Position();
+        String[] parts = fen.trim().split("\\s+");
+        if (parts.length < 2) throw new IllegalArgumentException("FEN inválido: " + fen);
+        int rank = 7, file = 0;
+        for (char c : parts[0].toCharArray()) {
+            if (c == '/') {
+                rank--;
+                file = 0;
+            } else if (Character.isDigit(c)) {
+                file += c - '0';
+            } else {
+                int type = "pnbrqk".indexOf(Character.toLowerCase(c));
+                if (type < 0 || rank < 0 || file > 7) throw new IllegalArgumentException("FEN inválido: " + fen);
+                p.putPiece(code(Character.isUpperCase(c) ? WHITE : BLACK, type), rank * 8 + file++);
+            }
+        }
+        int castling = 0;
+        if (parts.length > 2) {
+            for (char c : parts[2].toCharArray()) {
+                switch (c) {
+                    case 'K' -> castling |= CASTLE_WK;
+                    case 'Q' -> castling |= CASTLE_WQ;
+                    case 'k' -> castling |= CASTLE_BK;
+                    case 'q' -> castling |= CASTLE_BQ;
+                }
+            }
+        }
+        int ep = parts.length > 3 && !parts[3].equals("-") ? Move.parseSquare(parts[3]) : -1;
+        int half = parts.length > 4 ? Integer.parseInt(parts[4]) : 0;
+        int full = parts.length > 5 ? Integer.parseInt(parts[5]) : 1;
+        p.setState(parts[1].equals("b") ? BLACK : WHITE, castling, ep, half, full);
+        return p;
+    }
+
+    public String toFen() {
+        StringBuilder sb = new StringBuilder();
+        for (int rank = 7; rank >= 0; rank--) {
+            int empty = 0;
+            for (int file = 0; file < 8; file++) {
+                int piece = board[rank * 8 + file];
+                if (piece == EMPTY) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) sb.append(empty);
+                empty = 0;
+                char c = "pnbrqk".charAt(typeOf(piece));
+                sb.append(colorOf(piece) == WHITE ? Character.toUpperCase(c) : c);
+            }
+            if (empty > 0) sb.append(empty);
+            if (rank > 0) sb.append('/');
+        }
+        sb.append(side == WHITE ? " w " : " b ");
+        if (castling == 0) sb.append('-');
+        if ((castling & CASTLE_WK) != 0) sb.append('K');
+        if ((castling & CASTLE_WQ) != 0) sb.append('Q');
+        if ((castling & CASTLE_BK) != 0) sb.append('k');
+        if ((castling & CASTLE_BQ) != 0) sb.append('q');
+        sb.append(' ').append(epSquare >= 0 ? Move.squareName(epSquare) : "-");
+        sb.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber);
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return toFen();
+    }
+
+    //Conversão a partir do modelo
+    /**
+     * Creates the compact position of a game. The game's earlier positions are not carried over: the
+     * history is empty and the halfmove clock is zero, so a search from it does not see repetitions
+     * of positions played before it nor the fifty-move count of the game.
+     */
+    public static Position of(ChessGame game) {
+        return of(game.getBoard(), game.getCurrentPlayer());
+    }
+
+    /**
+     * Creates the compact position of a board. Castling rights come from the moved flags of the
+     * kings and rooks, and the en passant square from the pawn that has just made a double step.
+     *
+     * @param board       The board
+     * @param whiteToMove true if White is to move
+     */
+    public static Position of(Board board, boolean whiteToMove) {
+        Position p = new Position();
+        for (int line = 0; line < 8; line++) {
+            for (int col = 0; col < 8; col++) {
+                Piece piece = board.getPiece(line, col);
+                if (piece != null)
+                    p.putPiece(code(piece.getColor() ? WHITE : BLACK, typeOf(piece.getType())), square(line, col));
+            }
+        }
+        int castling = 0;
+        if (canCastle(board, true, 7)) castling |= CASTLE_WK;
+        if (canCastle(board, true, 0)) castling |= CASTLE_WQ;
+        if (canCastle(board, false, 7)) castling |= CASTLE_BK;
+        if (canCastle(board, false, 0)) castling |= CASTLE_BQ;
+
+        int ep = -1;
+        int line = whiteToMove ? 3 : 4;
+        for (int col = 0; col < 8; col++) {
+            if (board.getPiece(line, col) instanceof Pawn pawn && pawn.getColor() != whiteToMove && pawn.isEnPessant()
+                    && board.getPiece(line + (whiteToMove ? -1 : 1), col) == null) {
+                int sq = square(line + (whiteToMove ? -1 : 1), col);
+                if ((Bitboards.PAWN_ATTACKS[whiteToMove ? BLACK : WHITE][sq] & p.pieces[code(whiteToMove ? WHITE : BLACK, PAWN)]) != 0)
+                    ep = sq;
+            }
+        }
+        p.setState(whiteToMove ? WHITE : BLACK, castling, ep, 0, 1);
+        return p;
+    }
+
+    public static int typeOf(Board.type type) {
+        return switch (type) {
+            case PAWN -> PAWN;
+            case KNIGHT -> KNIGHT;
+            case BISHOP -> BISHOP;
+            case ROOK -> ROOK;
+            case QUEEN -> QUEEN;
+            case KING -> KING;
+        };
+    }
+
+    private static boolean canCastle(Board board, boolean white, int rookColumn) {
+        int line = white ? 7 : 0;
+        return board.getPiece(line, 4) instanceof King k && k.getColor() == white && !k.getMoved()
+                && board.getPiece(line, rookColumn) instanceof Rook r && r.getColor() == white && !r.getMoved();
+    }
+}
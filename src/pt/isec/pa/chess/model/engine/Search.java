@@ -0,0 +1,422 @@
+package pt.isec.pa.chess.model.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Negamax alpha-beta search with iterative deepening.
+ *
+ * <p>The search runs on its own copy of the position. Each iteration searches one ply deeper,
+ * starting with the principal variation of the previous one, and reports its result to the
+ * listener. When a limit is reached (or {@link #stop()} is called) the iteration in progress is
+ * abandoned and the result of the last complete iteration is returned. The time and node limits
+ * always let the first iteration finish; a stop does not, and then the first legal move is returned.
+ *
+ * <p>Draws by repetition and by the fifty-move rule are only seen among the moves made from the
+ * root: the root is copied without its history, and a position built with
+ * {@link Position#of(pt.isec.pa.chess.model.ChessGame)} starts with an empty history and a zero
+ * halfmove clock, so repetitions of positions played earlier in the game are not detected.
+ *
+ * <p>Positions already searched are kept in a {@link TranspositionTable}, which can be shared
+ * with other searches; its move is tried first and its score ends the node when deep enough.
+ *
+ * <p>In multi-PV mode each iteration searches the root several times, each time without the best
+ * moves already found, to give the best lines in order (e.g. to show hints to a learning player).
+ *
+ * <p>The time limit has a soft deadline, after which no new iteration is started, and a hard one,
+ * at which the iteration in progress is abandoned. While pondering the clock is ignored until
+ * {@link #ponderHit()} starts counting it.
+ *
+ * <p>An instance is not thread-safe, except for {@link #stop()} and {@link #ponderHit()}; the buffers used by each ply are
+ * allocated once, so the search itself does not allocate.
+ */
+public class Search {
+    public static final int MAX_PLY = 128;
+    public static final int MATE = 32000;
+    public static final int INFINITE = 32001;
+
+    // a cada quantos nós são verificados o relógio e o pedido de paragem (bem menos de 1 ms)
+    private static final int CHECK_INTERVAL = 256;
+    private static final int HISTORY_MAX = 1 << 20;
+    private static final int DELTA_MARGIN = 200;
+
+    private final Position pos = new Position();
+    private final int[] rootMoves = new int[Position.MAX_MOVES];
+    private final MovePicker[] pickers = new MovePicker[MAX_PLY];
+    // as trocas são avaliadas uma de cada vez, por isso todos os plies usam o mesmo buffer
+    private final int[] seeGain = new int[StaticExchange.BUFFER_SIZE];
+    // Ordenação dos lances calmos: dois killers por ply e histórico por lado, origem e destino
+    private final int[][] killers = new int[MAX_PLY][2];
+    private final int[][] history = new int[2][64 * 64];
+    private final int[][] pvTable = new int[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+    private int[] rootPv = new int[0];
+    // Multi-PV: lances da raiz já usados noutras linhas desta iteração
+    private int multiPv = 1;
+    private final int[] excluded = new int[Position.MAX_MOVES];
+    private int excludedCount;
+
+    private volatile boolean stopRequested;
+    private volatile boolean pondering;
+    private boolean aborted;
+    private boolean followPv;
+    private int rootDepth;
+    private int helperId;
+    private long nodes;
+    private long nodeLimit;
+    private volatile long deadline;
+    private volatile long softDeadline;
+    private volatile SearchLimits limits = SearchLimits.infinite();
+    private long startTime;
+
+    private Consumer<SearchResult> listener;
+    private TranspositionTable tt;
+
+    public Search(TranspositionTable tt) {
+        this.tt = tt;
+        for (int i = 0; i < MAX_PLY; i++)
+            pickers[i] = new MovePicker(seeGain);
+    }
+
+    public Search() {
+        this(new TranspositionTable());
+    }
+
+    /**
+     * Makes this search a helper of a {@link ParallelSearch}: half of the helpers skip the even
+     * depths and the other half the odd ones, so they reach the table before the main search.
+     *
+     * @param id Number of the helper, 0 for a normal search
+     */
+    void setHelperId(int id) {
+        this.helperId = id;
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return tt;
+    }
+
+    public void setTranspositionTable(TranspositionTable tt) {
+        this.tt = tt;
+    }
+
+    /**
+     * Sets the listener called at the end of every iteration (e.g. to show the analysis).
+     */
+    public void setListener(Consumer<SearchResult> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets the number of best lines searched in each iteration. Must not be called during a search.
+     *
+     * @param lines 1 for a normal search
+     * @see SearchResult#getLines()
+     */
+    public void setMultiPv(int lines) {
+        this.multiPv = Math.max(1, lines);
+    }
+
+    public int getMultiPv() {
+        return multiPv;
+    }
+
+    /**
+     * Asks the running search to stop as soon as possible. Can be called from any thread.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Makes the next search ignore its time limits until {@link #ponderHit()}, e.g. while searching
+     * the expected reply of the opponent on the opponent's time. Must be called before the search
+     * starts.
+     */
+    public void setPondering(boolean pondering) {
+        this.pondering = pondering;
+    }
+
+    public boolean isPondering() {
+        return pondering;
+    }
+
+    /**
+     * The opponent played the expected move: the time limits of the search start counting now.
+     * Can be called from any thread.
+     */
+    public void ponderHit() {
+        setDeadlines(System.currentTimeMillis(), limits);
+        pondering = false;
+    }
+
+    /**
+     * Searches a position.
+     *
+     * @param root   Position to search (not changed)
+     * @param limits Limits of the search
+     * @return the result of the deepest complete iteration
+     */
+    public SearchResult search(Position root, SearchLimits limits) {
+        stopRequested = false;
+        return run(root, limits, true);
+    }
+
+    /**
+     * Clears a previous stop request, before {@link #run}.
+     */
+    void resetStop() {
+        stopRequested = false;
+    }
+
+    /**
+     * Runs the search without clearing the stop request, which may already have been made by another
+     * thread.
+     *
+     * @param newSearch false if the age of the table was already advanced for this search
+     */
+    SearchResult run(Position root, SearchLimits limits, boolean newSearch) {
+        pos.copyFrom(root);
+        aborted = false;
+        nodes = 0;
+        nodeLimit = limits.getNodes();
+        startTime = System.currentTimeMillis();
+        this.limits = limits;
+        setDeadlines(startTime, limits);
+        rootPv = new int[0];
+        if (newSearch) tt.newSearch();
+        ageOrderingTables();
+
+        int[] legal = rootMoves;
+        int count = pos.generateLegalMoves(legal);
+        if (count == 0)
+            return new SearchResult(Move.NONE, pos.inCheck() ? -MATE : 0, 0, 0, 0, new int[0]);
+
+        SearchResult result = new SearchResult(legal[0], 0, 0, 0, 0, new int[]{legal[0]});
+        int lineCount = Math.min(multiPv, count);
+        List<SearchResult> lines = List.of();
+        for (rootDepth = 1; rootDepth <= limits.getDepth(); rootDepth++) {
+            if (helperId > 0 && rootDepth > 1 && ((rootDepth + helperId) & 1) == 0) continue;
+            List<SearchResult> iteration = new ArrayList<>(lineCount);
+            excludedCount = 0;
+            for (int line = 0; line < lineCount && !aborted; line++) {
+                // cada linha começa pela sua variante da iteração anterior
+                rootPv = line < lines.size() ? lines.get(line).getPv() : new int[0];
+                if (rootPv.length > 0 && isExcluded(rootPv[0])) rootPv = new int[0];
+                followPv = true;
+                int score = negamax(rootDepth, 0, -INFINITE, INFINITE);
+                if (aborted) break;
+                int[] pv = Arrays.copyOf(pvTable[0], pvLength[0]);
+                iteration.add(new SearchResult(pv[0], score, rootDepth, nodes, System.currentTimeMillis() - startTime, pv));
+                excluded[excludedCount++] = pv[0];
+            }
+            excludedCount = 0;
+            if (aborted) break;
+            // uma linha posterior pode ter ficado melhor do que uma anterior
+            iteration.sort(Comparator.comparingInt(SearchResult::getScore).reversed());
+            lines = iteration;
+            SearchResult best = iteration.getFirst();
+            rootPv = best.getPv();
+            result = new SearchResult(best.getBestMove(), best.getScore(), rootDepth, nodes,
+                    System.currentTimeMillis() - startTime, rootPv, lineCount > 1 ? iteration : null);
+            if (listener != null) listener.accept(result);
+            if (Math.abs(best.getScore()) >= MATE - rootDepth) break; // mate encontrado, não adianta ir mais fundo
+            // depois do prazo suave a próxima iteração já não acabaria a tempo
+            if (!pondering && System.currentTimeMillis() >= softDeadline) break;
+        }
+        return new SearchResult(result.getBestMove(), result.getScore(), result.getDepth(), nodes,
+                System.currentTimeMillis() - startTime, result.getPv(), lineCount > 1 ? result.getLines() : null);
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        pvLength[ply] = 0;
+        nodes++;
+        if ((nodes & (CHECK_INTERVAL - 1)) == 0) checkLimits();
+        if (aborted) return 0;
+        if (ply > 0) {
+            if (isDraw()) return 0;
+            // distância ao mate: não vale a pena procurar além do mate mais curto já conhecido
+            alpha = Math.max(alpha, -MATE + ply);
+            beta = Math.min(beta, MATE - ply - 1);
+            if (alpha >= beta) return alpha;
+        }
+        if (depth <= 0 || ply >= MAX_PLY - 1)
+            return quiescence(ply, alpha, beta);
+
+        long key = pos.key();
+        long entry = tt.probe(key);
+        int hashMove = Move.NONE;
+        if (entry != 0) {
+            hashMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = TranspositionTable.scoreFromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.BOUND_EXACT
+                        || bound == TranspositionTable.BOUND_LOWER && score >= beta
+                        || bound == TranspositionTable.BOUND_UPPER && score <= alpha)
+                    return score;
+            }
+        }
+
+        // enquanto se segue a variante principal anterior, o seu lance tem prioridade sobre o da tabela
+        if (followPv) {
+            int pvMove = ply < rootPv.length ? rootPv[ply] : Move.NONE;
+            followPv = pos.isPseudoLegal(pvMove);
+            if (followPv) hashMove = pvMove;
+        }
+        MovePicker picker = pickers[ply];
+        picker.init(pos, hashMove, killers[ply][0], killers[ply][1], history[pos.sideToMove()]);
+
+        int alphaOrig = alpha;
+        int bestMove = Move.NONE;
+
+        int legal = 0;
+        int best = -INFINITE;
+        for (int move = picker.next(); move != Move.NONE; move = picker.next()) {
+            if (ply == 0 && isExcluded(move)) continue;
+            if (!pos.makeLegalMove(move)) continue;
+            legal++;
+            int score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            pos.unmakeMove();
+            followPv = false;
+            if (aborted) return 0;
+
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (score >= beta) {
+                        if (!pos.isCapture(move) && Move.promotion(move) == 0) updateQuietOrdering(ply, move, depth);
+                        break;
+                    }
+                }
+            }
+        }
+        if (legal == 0)
+            return pos.inCheck() ? -MATE + ply : 0;
+
+        if (ply == 0 && excludedCount > 0) return best; // sem todos os lances o valor não é o da posição
+        int bound = best >= beta ? TranspositionTable.BOUND_LOWER
+                : best > alphaOrig ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+        tt.store(key, bound == TranspositionTable.BOUND_UPPER ? Move.NONE : bestMove,
+                TranspositionTable.scoreToTable(best, ply), depth, bound);
+        return best;
+    }
+
+    /**
+     * Searches only the captures and promotions that do not lose material, until the position is
+     * quiet, so that the evaluation is not taken in the middle of an exchange. The side to move may
+     * always stand pat with the static evaluation.
+     */
+    private int quiescence(int ply, int alpha, int beta) {
+        pvLength[ply] = 0;
+        nodes++;
+        if ((nodes & (CHECK_INTERVAL - 1)) == 0) checkLimits();
+        if (aborted) return 0;
+
+        int standPat = Evaluation.evaluate(pos, alpha, beta);
+        if (standPat >= beta || ply >= MAX_PLY - 1) return standPat;
+        if (standPat > alpha) alpha = standPat;
+
+        MovePicker picker = pickers[ply];
+        picker.initQuiescence(pos);
+        int best = standPat;
+        for (int move = picker.next(); move != Move.NONE; move = picker.next()) {
+            // delta: nem ganhando a peça a posição chega a alpha
+            if (Move.promotion(move) == 0 && standPat + capturedValue(move) + DELTA_MARGIN <= alpha) continue;
+            if (!pos.makeLegalMove(move)) continue;
+            int score = -quiescence(ply + 1, -beta, -alpha);
+            pos.unmakeMove();
+            if (aborted) return 0;
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (score >= beta) break;
+                }
+            }
+        }
+        return best;
+    }
+
+    private int capturedValue(int move) {
+        int target = pos.pieceAt(Move.to(move));
+        return target == Position.EMPTY ? Evaluation.VALUE[Position.PAWN] : Evaluation.VALUE[Position.typeOf(target)];
+    }
+
+    /**
+     * Remembers a quiet move that caused a cutoff: as a killer of the ply and in the history.
+     */
+    private void updateQuietOrdering(int ply, int move, int depth) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int[] h = history[pos.sideToMove()];
+        int i = move & 0xFFF;
+        h[i] += depth * depth;
+        if (h[i] > HISTORY_MAX) {
+            for (int j = 0; j < h.length; j++)
+                h[j] >>= 1;
+        }
+    }
+
+    /**
+     * Keeps part of the history of the previous search and forgets the killers, which belong to
+     * other positions.
+     */
+    private void ageOrderingTables() {
+        for (int[] h : history)
+            for (int i = 0; i < h.length; i++)
+                h[i] >>= 3;
+        for (int[] k : killers)
+            k[0] = k[1] = Move.NONE;
+    }
+
+    private void updatePv(int ply, int move) {
+        int[] line = pvTable[ply];
+        line[0] = move;
+        System.arraycopy(pvTable[ply + 1], 0, line, 1, pvLength[ply + 1]);
+        pvLength[ply] = pvLength[ply + 1] + 1;
+    }
+
+    private boolean isExcluded(int move) {
+        for (int i = 0; i < excludedCount; i++)
+            if (excluded[i] == move) return true;
+        return false;
+    }
+
+    /**
+     * Checks the fifty-move rule and repetitions since the last irreversible move.
+     */
+    private boolean isDraw() {
+        int half = pos.halfmoveClock();
+        if (half >= 100) return true;
+        long key = pos.key();
+        int limit = Math.min(half, pos.historySize());
+        for (int i = 4; i <= limit; i += 2)
+            if (pos.keyAt(i) == key) return true;
+        return false;
+    }
+
+    private void checkLimits() {
+        // o tempo e os nós deixam sempre completar a primeira iteração; um pedido de paragem não
+        if (stopRequested
+                || rootDepth > 1 && (nodes >= nodeLimit || !pondering && System.currentTimeMillis() >= deadline))
+            aborted = true;
+    }
+
+    private void setDeadlines(long from, SearchLimits limits) {
+        deadline = limits.getTimeMillis() == SearchLimits.NONE ? Long.MAX_VALUE : from + limits.getTimeMillis();
+        softDeadline = limits.getSoftTimeMillis() == SearchLimits.NONE ? Long.MAX_VALUE : from + limits.getSoftTimeMillis();
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+}
@@ -0,0 +1,91 @@
+package pt.isec.pa.chess.model.engine;
+
+/**
+ * Limits of a search: maximum depth, number of nodes and time.
+ * The search stops at the first limit reached, but always completes depth 1.
+ *
+ * <p>The time has two deadlines: after the soft one no new iteration is started, and at the hard
+ * one the iteration in progress is abandoned.
+ */
+public final class SearchLimits {
+    /**
+     * Value used when a limit is not set.
+     */
+    public static final long NONE = Long.MAX_VALUE;
+
+    private final int depth;
+    private final long nodes;
+    private final long timeMillis;
+    private final long softTimeMillis;
+
+    // margem para a latência entre o fim da pesquisa e o lance chegar ao relógio
+    private static final long CLOCK_OVERHEAD = 20;
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+
+    public SearchLimits(int depth, long nodes, long timeMillis, long softTimeMillis) {
+        this.depth = Math.clamp(depth, 1, Search.MAX_PLY - 1);
+        this.nodes = nodes;
+        this.timeMillis = timeMillis;
+        this.softTimeMillis = Math.min(softTimeMillis, timeMillis);
+    }
+
+    public SearchLimits(int depth, long nodes, long timeMillis) {
+        this(depth, nodes, timeMillis, timeMillis);
+    }
+
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, NONE, NONE);
+    }
+
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(Search.MAX_PLY, nodes, NONE);
+    }
+
+    public static SearchLimits time(long millis) {
+        return new SearchLimits(Search.MAX_PLY, NONE, millis);
+    }
+
+    /**
+     * Derives the deadlines of a move from the game clock.
+     *
+     * @param remainingMillis Time left on the clock of the side to move
+     * @param incrementMillis Increment per move
+     * @param movesToGo       Moves until the next time control, or 0 if unknown
+     */
+    public static SearchLimits forClock(long remainingMillis, long incrementMillis, int movesToGo) {
+        int moves = movesToGo > 0 ? movesToGo : DEFAULT_MOVES_TO_GO;
+        long available = Math.max(1, remainingMillis - CLOCK_OVERHEAD);
+        long soft = Math.min(available, available / moves + incrementMillis * 3 / 4);
+        long hard = Math.max(soft, Math.min(available / 2 + incrementMillis / 2, soft * 4));
+        return new SearchLimits(Search.MAX_PLY, NONE, hard, soft);
+    }
+
+    /**
+     * A search that only ends when it is stopped (or reaches the maximum depth).
+     */
+    public static SearchLimits infinite() {
+        return new SearchLimits(Search.MAX_PLY, NONE, NONE);
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Gets the hard time limit, or {@link #NONE}.
+     */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    /**
+     * Gets the time after which no new iteration is started, or {@link #NONE}.
+     */
+    public long getSoftTimeMillis() {
+        return softTimeMillis;
+    }
+}
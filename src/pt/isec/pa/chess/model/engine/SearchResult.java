@@ -0,0 +1,102 @@
+package pt.isec.pa.chess.model.engine;
+
+import java.util.List;
+
+/**
+ * Outcome of a search (or of one iteration of it): best move, score, depth and statistics.
+ * A multi-PV search also gives the best lines it found, each as a result of its own.
+ */
+public final class SearchResult {
+    private final int bestMove;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long timeMillis;
+    private final int[] pv;
+    private final List<SearchResult> lines;
+
+    public SearchResult(int bestMove, int score, int depth, long nodes, long timeMillis, int[] pv,
+                        List<SearchResult> lines) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.timeMillis = timeMillis;
+        this.pv = pv;
+        this.lines = lines == null ? List.of(this) : List.copyOf(lines);
+    }
+
+    public SearchResult(int bestMove, int score, int depth, long nodes, long timeMillis, int[] pv) {
+        this(bestMove, score, depth, nodes, timeMillis, pv, null);
+    }
+
+    /**
+     * @return the best move, or {@link Move#NONE} if the position has no legal moves
+     */
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * @return the score in centipawns for the side to move (see {@link Search#MATE} for mates)
+     */
+    public int getScore() {
+        return score;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    /**
+     * Gets the principal variation, starting with the best move.
+     */
+    public int[] getPv() {
+        return pv.clone();
+    }
+
+    /**
+     * Gets the best lines of a multi-PV search, best first; the first one is the best move of this
+     * result. A normal search has only this line.
+     */
+    public List<SearchResult> getLines() {
+        return lines;
+    }
+
+    public long getNodesPerSecond() {
+        return nodes * 1000 / Math.max(1, timeMillis);
+    }
+
+    public boolean isMate() {
+        return Math.abs(score) >= Search.MATE - Search.MAX_PLY;
+    }
+
+    /**
+     * Gets the number of moves to mate (negative when being mated), if the score is a mate.
+     */
+    public int getMateIn() {
+        int plies = Search.MATE - Math.abs(score);
+        return score > 0 ? (plies + 1) / 2 : -(plies / 2);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("depth ").append(depth)
+                .append(isMate() ? " score mate " + getMateIn() : " score cp " + score)
+                .append(" nodes ").append(nodes)
+                .append(" nps ").append(getNodesPerSecond())
+                .append(" time ").append(timeMillis)
+                .append(" pv");
+        for (int move : pv)
+            sb.append(' ').append(Move.toUci(move));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,164 @@
+package pt.isec.pa.chess.model.engine;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Runs the searches of a {@link ParallelSearch} in the background, on a virtual thread, so that the
+ * thread asking for a move (e.g. the JavaFX thread) never waits for the engine. The results are
+ * given to callbacks, which run on the search thread; the result callback runs while holding the
+ * scheduler's lock, so it must hand the result over (e.g. with Platform.runLater) rather than wait
+ * for a thread that may be calling the scheduler.
+ *
+ * <p>Only one search runs at a time: starting a new one cancels the previous one. A cancelled search
+ * stops within a few hundred nodes and its results are never delivered, so the caller can forget
+ * about it as soon as {@link #cancel()} returns.
+ *
+ * <p>While the opponent thinks, the engine can {@linkplain #ponder ponder} on the position after the
+ * reply it expects. If that reply is played, {@link #ponderHit()} turns the search into a normal one,
+ * with the time counting from then on; otherwise the ponder search is cancelled.
+ */
+public class SearchScheduler {
+    private final ParallelSearch search;
+    private final ExecutorService executor =
+            Executors.newSingleThreadExecutor(Thread.ofVirtual().name("engine-search-", 1).factory());
+
+    // Cada pedido tem um número; os resultados de pedidos anteriores são descartados
+    private volatile long generation;
+    private volatile long stoppedGeneration = -1;
+    private boolean pondering;
+    private SearchResult ponderResult;
+    private Consumer<SearchResult> ponderCallback;
+
+    public SearchScheduler(ParallelSearch search) {
+        this.search = search;
+    }
+
+    public ParallelSearch getSearch() {
+        return search;
+    }
+
+    /**
+     * Starts searching a position in the background, cancelling the search in progress.
+     *
+     * @param root     Position to search (copied, so it can be changed afterwards)
+     * @param limits   Limits of the search, e.g. {@link SearchLimits#forClock}
+     * @param onInfo   Called at the end of every iteration, or null
+     * @param onResult Called with the final result, unless the search is cancelled
+     */
+    public synchronized void start(Position root, SearchLimits limits,
+                                   Consumer<SearchResult> onInfo, Consumer<SearchResult> onResult) {
+        submit(root, limits, false, onInfo, onResult);
+    }
+
+    /**
+     * Starts pondering on a position, cancelling the search in progress. The limits are only applied
+     * after {@link #ponderHit()}; until then the search goes on and its result is held back.
+     *
+     * @param root   Position after the expected reply of the opponent
+     * @param limits Limits to use if the reply is played
+     */
+    public synchronized void ponder(Position root, SearchLimits limits,
+                                    Consumer<SearchResult> onInfo, Consumer<SearchResult> onResult) {
+        submit(root, limits, true, onInfo, onResult);
+    }
+
+    /**
+     * The opponent played the expected reply: the ponder search continues as a normal search.
+     *
+     * @return false if the engine was not pondering
+     */
+    public synchronized boolean ponderHit() {
+        if (!pondering) return false;
+        pondering = false;
+        search.ponderHit();
+        if (ponderResult != null) {
+            // a pesquisa já tinha acabado (mate ou profundidade máxima), entrega-se agora
+            SearchResult result = ponderResult;
+            Consumer<SearchResult> callback = ponderCallback;
+            long id = generation;
+            ponderResult = null;
+            executor.execute(() -> deliver(id, result, callback));
+        }
+        return true;
+    }
+
+    public synchronized boolean isPondering() {
+        return pondering;
+    }
+
+    /**
+     * Stops the search in progress, which still delivers the best move found so far (a ponder search
+     * included). Does not wait for it to end.
+     */
+    public synchronized void stop() {
+        stoppedGeneration = generation;
+        ponderHit();
+        search.stop();
+    }
+
+    /**
+     * Cancels the search in progress, if any. Does not wait for it to end.
+     */
+    public synchronized void cancel() {
+        generation++;
+        pondering = false;
+        ponderResult = null;
+        search.stop();
+    }
+
+    /**
+     * Cancels the search in progress and ends the search thread.
+     */
+    public void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    private void submit(Position root, SearchLimits limits, boolean ponder,
+                        Consumer<SearchResult> onInfo, Consumer<SearchResult> onResult) {
+        cancel();
+        long id = generation;
+        Position copy = root.copy();
+        pondering = ponder;
+        executor.execute(() -> run(id, copy, limits, onInfo, onResult));
+    }
+
+    private void run(long id, Position root, SearchLimits limits,
+                     Consumer<SearchResult> onInfo, Consumer<SearchResult> onResult) {
+        synchronized (this) {
+            if (id != generation) return;
+            search.setPondering(pondering);
+        }
+        // uma paragem feita antes de a pesquisa limpar o pedido de paragem é apanhada aqui
+        search.setListener(r -> {
+            if (id != generation || id == stoppedGeneration) search.stop();
+            else if (onInfo != null) onInfo.accept(r);
+        });
+        SearchResult result;
+        try {
+            result = search.search(root, limits);
+        } finally {
+            search.setPondering(false);
+            search.setListener(null);
+        }
+        synchronized (this) {
+            if (id != generation) return;
+            if (pondering) {
+                ponderResult = result;
+                ponderCallback = onResult;
+                return;
+            }
+            deliver(id, result, onResult);
+        }
+    }
+
+    /**
+     * Gives a result to its callback unless the search was cancelled. The check and the call hold the
+     * same lock as {@link #cancel()}, so once cancel returns the result can no longer arrive.
+     */
+    private synchronized void deliver(long id, SearchResult result, Consumer<SearchResult> callback) {
+        if (id == generation && callback != null) callback.accept(result);
+    }
+}
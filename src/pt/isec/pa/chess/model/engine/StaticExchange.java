@@ -0,0 +1,90 @@
+package pt.isec.pa.chess.model.engine;
+
+/**
+ * Static exchange evaluation (SEE): the material balance of the sequence of captures on the
+ * destination square of a move, with each side capturing with its least valuable piece and free to
+ * stop when continuing would lose material. Pieces behind the capturing sliders (x-rays) join the
+ * exchange as the squares in front of them are cleared.
+ */
+public final class StaticExchange {
+    private StaticExchange() {}
+
+    /**
+     * Length of the buffer of {@link #evaluate(Position, int, int[])}: more than one capture by each
+     * piece on the board.
+     */
+    public static final int BUFFER_SIZE = 40;
+
+    // O rei vale muito para que nunca seja dado numa troca
+    private static final int[] VALUE = {100, 320, 330, 500, 900, 20000};
+
+    /**
+     * Evaluates the exchange started by a move, with a buffer of its own.
+     *
+     * @return the expected material gain, in centipawns, for the side making the move
+     */
+    public static int evaluate(Position p, int move) {
+        return evaluate(p, move, new int[BUFFER_SIZE]);
+    }
+
+    /**
+     * Evaluates the exchange started by a move, keeping the gains of the captures in the given
+     * buffer, so that a search can evaluate its captures without allocating.
+     *
+     * @param gain Scratch buffer of at least {@link #BUFFER_SIZE} entries, overwritten
+     * @return the expected material gain, in centipawns, for the side making the move
+     */
+    public static int evaluate(Position p, int move, int[] gain) {
+        int flag = Move.flag(move);
+        if (flag == Move.CASTLE) return 0;
+        int from = Move.from(move), to = Move.to(move), promo = Move.promotion(move);
+
+        int target = p.board[to];
+        gain[0] = target != Position.EMPTY ? VALUE[Position.typeOf(target)] : flag == Move.EN_PASSANT ? VALUE[Position.PAWN] : 0;
+        int attacker = Position.typeOf(p.board[from]);
+        if (promo != 0) {
+            gain[0] += VALUE[promo] - VALUE[Position.PAWN];
+            attacker = promo;
+        }
+
+        long occ = p.occupied;
+        if (flag == Move.EN_PASSANT) occ ^= 1L << (to ^ 8); // o peão capturado está atrás da casa de destino
+        long diagonal = p.pieces[Position.code(Position.WHITE, Position.BISHOP)] | p.pieces[Position.code(Position.BLACK, Position.BISHOP)]
+                | p.pieces[Position.code(Position.WHITE, Position.QUEEN)] | p.pieces[Position.code(Position.BLACK, Position.QUEEN)];
+        long straight = p.pieces[Position.code(Position.WHITE, Position.ROOK)] | p.pieces[Position.code(Position.BLACK, Position.ROOK)]
+                | p.pieces[Position.code(Position.WHITE, Position.QUEEN)] | p.pieces[Position.code(Position.BLACK, Position.QUEEN)];
+        long attackers = p.attackersTo(to, occ) & occ;
+
+        long fromBit = 1L << from;
+        int side = p.side;
+        int d = 0;
+        do {
+            d++;
+            gain[d] = VALUE[attacker] - gain[d - 1]; // se o outro lado capturar a peça que acabou de jogar
+            occ ^= fromBit;
+            // as peças que estavam atrás da que capturou entram na troca
+            attackers = (attackers | Bitboards.bishopAttacks(to, occ) & diagonal | Bitboards.rookAttacks(to, occ) & straight) & occ;
+            side ^= 1;
+            fromBit = 0;
+            long mine = attackers & p.colors[side];
+            if (mine != 0) {
+                for (attacker = Position.PAWN; attacker <= Position.KING; attacker++) {
+                    fromBit = mine & p.pieces[Position.code(side, attacker)];
+                    if (fromBit != 0) break;
+                }
+                fromBit &= -fromBit;
+            }
+        } while (fromBit != 0);
+
+        while (--d > 0)
+            gain[d - 1] = -Math.max(-gain[d - 1], gain[d]);
+        return gain[0];
+    }
+
+    /**
+     * Checks if a move does not lose material in the exchange.
+     */
+    public static boolean isSafe(Position p, int move) {
+        return evaluate(p, move) >= 0;
+    }
+}
@@ -0,0 +1,207 @@
+package pt.isec.pa.chess.model.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transposition table shared by the search threads, without locks.
+ *
+ * <p>The table is a flat {@code long[]} split in buckets of two entries. Each entry takes two words:
+ * the data (move, score, depth, bound and age packed in a long) and the key XOR the data. A reader
+ * only accepts an entry when the two words XOR back to its key, so an entry torn by two threads
+ * writing at the same time is simply seen as a miss.
+ *
+ * <p>When storing, an entry of the same position is overwritten; otherwise the entry of the bucket
+ * that is worth less is replaced, where older searches and shallower depths are worth less.
+ *
+ * <p>The table may be resized while a search runs (e.g. the UCI option Hash): each probe and store
+ * reads the array once and takes the bucket from its length, so it never mixes the old and the new table.
+ */
+public class TranspositionTable {
+    public static final int DEFAULT_MB = 16;
+
+    public static final int BOUND_LOWER = 1, BOUND_UPPER = 2, BOUND_EXACT = 3;
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int BUCKET = 2;
+
+    // Disposição dos dados: lance 0-16, pontuação 17-32, profundidade 33-40, limite 41-42, idade 43-50
+    private static final int SCORE_SHIFT = 17, DEPTH_SHIFT = 33, BOUND_SHIFT = 41, AGE_SHIFT = 43;
+    private static final long MOVE_MASK = (1L << 17) - 1;
+
+    private volatile long[] table;
+    private volatile int age;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * @param megabytes Size of the table; rounded down to a power of two entries
+     */
+    public TranspositionTable(int megabytes) {
+        resize(megabytes);
+    }
+
+    public TranspositionTable() {
+        this(DEFAULT_MB);
+    }
+
+    /**
+     * Changes the size of the table, discarding its contents. A search in progress goes on with the
+     * new, empty table.
+     */
+    public void resize(int megabytes) {
+        long entries = Math.max(BUCKET, (long) Math.max(1, megabytes) * 1024 * 1024 / ENTRY_BYTES);
+        int buckets = Integer.highestOneBit((int) Math.min(entries / BUCKET, 1 << 26));
+        table = new long[buckets * BUCKET * 2];
+        resetStatistics();
+    }
+
+    /**
+     * Gets the first word of the bucket of a key in a table.
+     */
+    private static int bucket(long[] t, long key) {
+        return ((int) key & (t.length / (BUCKET * 2) - 1)) * BUCKET * 2;
+    }
+
+    public int getSizeMegabytes() {
+        return (int) ((long) table.length * Long.BYTES / (1024 * 1024));
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+        resetStatistics();
+    }
+
+    /**
+     * Starts a new search: the entries of the previous searches become candidates for replacement.
+     */
+    public void newSearch() {
+        age = (age + 1) & 0xFF;
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @return the packed data of the entry, or 0 if the position is not in the table
+     */
+    public long probe(long key) {
+        probes.increment();
+        long[] t = table;
+        int base = bucket(t, key);
+        for (int i = 0; i < BUCKET * 2; i += 2) {
+            long data = t[base + i + 1];
+            if (data != 0 && (t[base + i] ^ data) == key) {
+                hits.increment();
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Stores the result of a search.
+     *
+     * @param key   Key of the position
+     * @param move  Best move, or {@link Move#NONE}
+     * @param score Score, already adjusted with {@link #scoreToTable}
+     * @param depth Depth of the search
+     * @param bound One of {@link #BOUND_LOWER}, {@link #BOUND_UPPER} or {@link #BOUND_EXACT}
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        long[] t = table;
+        int base = bucket(t, key);
+        int currentAge = age;
+        int victim = -1, victimWorth = Integer.MAX_VALUE;
+        for (int i = 0; i < BUCKET * 2; i += 2) {
+            long data = t[base + i + 1];
+            if (data == 0 || (t[base + i] ^ data) == key) {
+                victim = i;
+                // guarda o lance anterior quando não há um novo
+                if (move == Move.NONE && data != 0) move = move(data);
+                break;
+            }
+            int worth = depth(data) - 8 * ((currentAge - age(data)) & 0xFF);
+            if (worth < victimWorth) {
+                victimWorth = worth;
+                victim = i;
+            }
+        }
+        long data = (move & MOVE_MASK)
+                | (long) (score + 32768) << SCORE_SHIFT
+                | (long) Math.clamp(depth, 0, 255) << DEPTH_SHIFT
+                | (long) bound << BOUND_SHIFT
+                | (long) currentAge << AGE_SHIFT;
+        t[base + victim] = key ^ data;
+        t[base + victim + 1] = data;
+    }
+
+    //Descodificação dos dados
+    public static int move(long data) {
+        return (int) (data & MOVE_MASK);
+    }
+
+    public static int score(long data) {
+        return (int) ((data >>> SCORE_SHIFT) & 0xFFFF) - 32768;
+    }
+
+    public static int depth(long data) {
+        return (int) ((data >>> DEPTH_SHIFT) & 0xFF);
+    }
+
+    public static int bound(long data) {
+        return (int) ((data >>> BOUND_SHIFT) & 3);
+    }
+
+    private static int age(long data) {
+        return (int) ((data >>> AGE_SHIFT) & 0xFF);
+    }
+
+    /**
+     * Converts a mate score to a distance from the current node, so it stays valid wherever the
+     * position is found again.
+     */
+    public static int scoreToTable(int score, int ply) {
+        if (score >= Search.MATE - Search.MAX_PLY) return score + ply;
+        if (score <= -Search.MATE + Search.MAX_PLY) return score - ply;
+        return score;
+    }
+
+    public static int scoreFromTable(int score, int ply) {
+        if (score >= Search.MATE - Search.MAX_PLY) return score - ply;
+        if (score <= -Search.MATE + Search.MAX_PLY) return score + ply;
+        return score;
+    }
+
+    //Estatísticas
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public double getHitRate() {
+        long p = probes.sum();
+        return p == 0 ? 0 : (double) hits.sum() / p;
+    }
+
+    /**
+     * Estimates the permill of entries used by the current search, from the first thousand entries.
+     */
+    public int getHashfull() {
+        long[] t = table;
+        int used = 0, sample = Math.min(1000, t.length / 2);
+        for (int i = 0; i < sample; i++) {
+            long data = t[i * 2 + 1];
+            if (data != 0 && age(data) == age) used++;
+        }
+        return sample == 0 ? 0 : used * 1000 / sample;
+    }
+
+    public void resetStatistics() {
+        probes.reset();
+        hits.reset();
+    }
+}
@@ -0,0 +1,36 @@
+package pt.isec.pa.chess.model.engine;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist keys used to hash the {@link Position}.
+ * The keys come from a fixed seed, so the same position has the same key in every run.
+ */
+public final class Zobrist {
+    private Zobrist() {}
+
+    /**
+     * One key per piece code (0-11) and square, indexed by {@code piece * 64 + square}.
+     */
+    public static final long[] PIECES = new long[12 * 64];
+    /**
+     * One key per combination of the four castling rights.
+     */
+    public static final long[] CASTLING = new long[16];
+    public static final long[] EN_PASSANT_FILE = new long[8];
+    public static final long SIDE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5041_4368_6573_73L);
+        for (int i = 0; i < PIECES.length; i++)
+            PIECES[i] = random.nextLong();
+        long[] rights = {random.nextLong(), random.nextLong(), random.nextLong(), random.nextLong()};
+        for (int c = 0; c < 16; c++)
+            for (int bit = 0; bit < 4; bit++)
+                if ((c & (1 << bit)) != 0)
+                    CASTLING[c] ^= rights[bit];
+        for (int i = 0; i < 8; i++)
+            EN_PASSANT_FILE[i] = random.nextLong();
+        SIDE = random.nextLong();
+    }
+}
@@ -9,13 +9,22 @@ public class Memento implements IMemento{
     byte[] snapshot;
 
     public Memento(Object obj){
+        this(obj, false);
+    }
+
+    /**
+     * Creates a memento with a serialized copy of an object.
+     * @param obj Object to keep
+     * @param quiet true to create it without the messages on the console
+     */
+    public Memento(Object obj, boolean quiet){
         try {
-            System.out.println("Criando Memento...");
+            if(!quiet) System.out.println("Criando Memento...");
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
             ObjectOutputStream oos = new ObjectOutputStream(baos);
             oos.writeObject(obj);
             snapshot = baos.toByteArray();
-            System.out.println("Memento criado com sucesso. Tamanho: " + snapshot.length + " bytes");
+            if(!quiet) System.out.println("Memento criado com sucesso. Tamanho: " + snapshot.length + " bytes");
         } catch (Exception e) {
             /*System.err.println("Erro ao criar Memento: " + e.getMessage());
             throw new RuntimeException(e);*/
@@ -0,0 +1,188 @@
+package pt.isec.pa.chess.model.tablebase;
+
+import pt.isec.pa.chess.model.engine.Bitboards;
+import pt.isec.pa.chess.model.engine.Position;
+
+/**
+ * Layout shared by the tablebase generator and prober.
+ *
+ * <p>An endgame is named by its material signature: the white pieces followed by the black ones,
+ * each side starting with its king and listed in the order Q, R, B, N, P (e.g. "KQK", "KBNK",
+ * "KPKP"). Tables only exist for the orientation where White has the stronger material; positions
+ * where Black is stronger are probed with colours swapped and the board mirrored.
+ *
+ * <p>A table holds one byte per position, indexed by the squares of the pieces in signature order
+ * and the side to move (see {@link #index}). Identical pieces are stored with ascending squares, so
+ * each position has a single index. Castling and en passant rights are not part of the tables.
+ *
+ * <p>Values are seen from the side to move: 0 is a draw, a positive value n means a mate in n moves,
+ * a negative value -n means being mated in n - 1 moves (-1 is checkmate on the board).
+ */
+public final class Tablebase {
+    private Tablebase() {}
+
+    public static final byte DRAW = 0;
+    /**
+     * Index that does not correspond to a legal position.
+     */
+    public static final byte INVALID = -128;
+    /**
+     * Largest number of pieces (kings included) supported by the index.
+     */
+    public static final int MAX_PIECES = 4;
+    public static final String EXTENSION = ".dtm";
+
+    private static final String ORDER = "KQRBNP";
+    private static final int[] VALUE = {0, 9, 5, 3, 3, 1};
+
+    //Codificação dos valores
+    public static byte win(int plies) {
+        return (byte) ((plies + 1) / 2);
+    }
+
+    public static byte loss(int plies) {
+        return (byte) (-(plies / 2) - 1);
+    }
+
+    public static boolean isWin(int value) {
+        return value > 0 && value < 127;
+    }
+
+    public static boolean isLoss(int value) {
+        return value < 0 && value != INVALID;
+    }
+
+    /**
+     * Gets the distance to mate in plies.
+     */
+    public static int plies(int value) {
+        if (isWin(value)) return 2 * value - 1;
+        if (isLoss(value)) return 2 * (-value - 1);
+        return 0;
+    }
+
+    //Assinaturas
+    /**
+     * Gets the material signature of a position, as it is on the board (not normalised).
+     */
+    public static String signature(Position p) {
+        return side(p, Position.WHITE) + side(p, Position.BLACK);
+    }
+
+    private static String side(Position p, int color) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < ORDER.length(); i++) {
+            int type = "PNBRQK".indexOf(ORDER.charAt(i));
+            sb.append(String.valueOf(ORDER.charAt(i)).repeat(Long.bitCount(p.pieces(color, type))));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Checks if the colours of a position must be swapped to match a table.
+     */
+    public static boolean needsFlip(Position p) {
+        String white = side(p, Position.WHITE), black = side(p, Position.BLACK);
+        int diff = strength(white) - strength(black);
+        if (diff != 0) return diff < 0;
+        return compareSides(white, black) < 0;
+    }
+
+    private static int strength(String side) {
+        int s = 0;
+        for (char c : side.toCharArray()) s += VALUE[ORDER.indexOf(c)];
+        return s;
+    }
+
+    private static int compareSides(String a, String b) {
+        if (a.length() != b.length()) return a.length() - b.length();
+        for (int i = 0; i < a.length(); i++) {
+            int d = ORDER.indexOf(b.charAt(i)) - ORDER.indexOf(a.charAt(i));
+            if (d != 0) return d;
+        }
+        return 0;
+    }
+
+    /**
+     * Gets the normalised signature of a position (the name of the table that holds it).
+     */
+    public static String tableName(Position p) {
+        return needsFlip(p) ? side(p, Position.BLACK) + side(p, Position.WHITE) : signature(p);
+    }
+
+    /**
+     * Gets the piece codes of the slots of a table, in index order.
+     *
+     * @throws IllegalArgumentException if the signature is not valid
+     */
+    public static int[] slots(String signature) {
+        int second = signature.indexOf('K', 1);
+        if (!signature.startsWith("K") || second < 0 || signature.length() > MAX_PIECES)
+            throw new IllegalArgumentException("Assinatura inválida: " + signature);
+        int[] slots = new int[signature.length()];
+        for (int i = 0; i < signature.length(); i++) {
+            int type = "PNBRQK".indexOf(signature.charAt(i));
+            if (type < 0) throw new IllegalArgumentException("Assinatura inválida: " + signature);
+            slots[i] = Position.code(i < second ? Position.WHITE : Position.BLACK, type);
+        }
+        return slots;
+    }
+
+    public static int size(int[] slots) {
+        return 2 << (6 * slots.length);
+    }
+
+    /**
+     * Computes the index of a position in the table with the given slots.
+     *
+     * @param p    The position
+     * @param slots Slots of the table
+     * @param flip  true to swap colours and mirror the board (see {@link #needsFlip})
+     * @return the index
+     */
+    public static int index(Position p, int[] slots, boolean flip) {
+        int idx = 0;
+        for (int i = 0; i < slots.length; ) {
+            int code = slots[i];
+            int color = Position.colorOf(code), type = Position.typeOf(code);
+            long bb = p.pieces(flip ? color ^ 1 : color, type);
+            if (flip) bb = Long.reverseBytes(bb); // espelha as filas, mantendo as casas por ordem crescente
+            while (bb != 0) {
+                idx = idx * 64 + Long.numberOfTrailingZeros(bb);
+                bb &= bb - 1;
+                i++;
+            }
+        }
+        int side = flip ? p.sideToMove() ^ 1 : p.sideToMove();
+        return idx * 2 + side;
+    }
+
+    /**
+     * Sets up the position of an index.
+     *
+     * @param p     Position to fill (its previous contents are discarded)
+     * @param slots Slots of the table
+     * @param idx   The index
+     * @return false if the index does not correspond to a legal position
+     */
+    public static boolean decode(Position p, int[] slots, int idx) {
+        p.clear();
+        int side = idx & 1;
+        idx >>>= 1;
+        int prevCode = -1, prevSq = 64;
+        for (int i = slots.length - 1; i >= 0; i--) {
+            int sq = idx & 63;
+            idx >>>= 6;
+            int code = slots[i];
+            if (p.pieceAt(sq) != Position.EMPTY) return false;
+            if (code == prevCode && sq >= prevSq) return false; // peças iguais por ordem crescente
+            if (Position.typeOf(code) == Position.PAWN && ((1L << sq) & (Bitboards.RANK_1 | Bitboards.RANK_8)) != 0)
+                return false;
+            p.setPiece(code, sq);
+            prevCode = code;
+            prevSq = sq;
+        }
+        p.setState(side, 0, -1, 0, 1);
+        return !p.opponentInCheck();
+    }
+}
@@ -0,0 +1,322 @@
+package pt.isec.pa.chess.model.tablebase;
+
+import pt.isec.pa.chess.model.engine.Bitboards;
+import pt.isec.pa.chess.model.engine.Move;
+import pt.isec.pa.chess.model.engine.Position;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Generates distance-to-mate tablebases for small endgames by retrograde analysis.
+ *
+ * <p>The positions without moves are resolved first (mates and stalemates), together with the
+ * moves that leave the table (captures and promotions), whose values come from the smaller tables
+ * that are generated beforehand. Then, one distance at a time, every position resolved at distance
+ * n is "unmoved": each predecessor of a lost position is won at n + 1, and a predecessor of a won
+ * position is lost at n + 1 once all its moves have been refuted. Positions never resolved are draws.
+ *
+ * <p>Each step runs in parallel over slices of the table, on a pool with the configured number of
+ * threads; the shared arrays are updated with atomic operations.
+ */
+public class TablebaseGenerator {
+    private static final byte UNKNOWN = 127;
+    private static final int CHUNK = 1 << 14;
+    private static final VarHandle BYTES = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    private final Path dir;
+    private final ForkJoinPool pool;
+    private final Map<String, byte[]> tables = new HashMap<>();
+
+    /**
+     * Creates a generator that writes the tables to a directory.
+     *
+     * @param dir     Directory for the ".dtm" files (also used to reuse tables already generated)
+     * @param threads Number of worker threads
+     */
+    public TablebaseGenerator(String dir, int threads) {
+        this.dir = Path.of(dir);
+        this.pool = new ForkJoinPool(Math.max(1, threads));
+    }
+
+    public TablebaseGenerator(String dir) {
+        this(dir, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Generates a table, and every smaller table it depends on, unless they already exist.
+     *
+     * @param signature Material signature, e.g. "KQK"
+     * @return the table contents
+     */
+    public byte[] generate(String signature) throws IOException {
+        byte[] table = tables.get(signature);
+        if (table != null) return table;
+        Path file = dir.resolve(signature + Tablebase.EXTENSION);
+        int[] slots = Tablebase.slots(signature);
+        if (Files.exists(file) && Files.size(file) == Tablebase.size(slots)) {
+            table = Files.readAllBytes(file);
+        } else {
+            for (String child : children(signature))
+                generate(child);
+            table = build(slots);
+            Files.createDirectories(dir);
+            Files.write(file, table);
+        }
+        tables.put(signature, table);
+        return table;
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Gets the tables reached by a capture or a promotion, already normalised.
+     */
+    private static Set<String> children(String signature) {
+        Set<String> result = new LinkedHashSet<>();
+        int second = signature.indexOf('K', 1);
+        String white = signature.substring(0, second), black = signature.substring(second);
+        addChildren(result, white, black);
+        addChildren(result, black, white);
+        result.remove(signature);
+        return result;
+    }
+
+    private static void addChildren(Set<String> result, String own, String other) {
+        for (int i = 1; i < other.length(); i++) {
+            String captured = other.substring(0, i) + other.substring(i + 1);
+            result.add(normalise(own, captured));
+            for (int j = 1; j < own.length(); j++) //promoção com captura
+                if (own.charAt(j) == 'P')
+                    for (char promo : "QRBN".toCharArray())
+                        result.add(normalise(promote(own, j, promo), captured));
+        }
+        for (int j = 1; j < own.length(); j++)
+            if (own.charAt(j) == 'P')
+                for (char promo : "QRBN".toCharArray())
+                    result.add(normalise(promote(own, j, promo), other));
+    }
+
+    private static String promote(String side, int index, char promo) {
+        String rest = side.substring(0, index) + side.substring(index + 1);
+        StringBuilder sb = new StringBuilder("K");
+        for (char c : "QRBNP".toCharArray()) {
+            long count = rest.chars().filter(x -> x == c).count() + (c == promo ? 1 : 0);
+            sb.append(String.valueOf(c).repeat((int) count));
+        }
+        return sb.toString();
+    }
+
+    private static String normalise(String a, String b) {
+        Position p = new Position();
+        int sq = 0;
+        for (char c : (a + b).toCharArray()) {
+            int color = sq < a.length() ? Position.WHITE : Position.BLACK;
+            p.setPiece(Position.code(color, "PNBRQK".indexOf(c)), 8 + sq++); //só conta o material
+        }
+        return Tablebase.tableName(p);
+    }
+
+    //Análise retrógrada
+    private byte[] build(int[] slots) throws IOException {
+        int size = Tablebase.size(slots);
+        byte[] value = new byte[size];
+        byte[] counter = new byte[size];
+        byte[] convWin = new byte[size];   // menor distância (meios-lances) de uma conversão ganhadora, 0 se não há
+        byte[] convLoss = new byte[size];  // maior distância de uma conversão perdedora
+        boolean[] canAvoid = new boolean[size];
+        AtomicInteger maxPending = new AtomicInteger();
+
+        parallel(size, (Position p, int[] moves, int idx) -> {
+            if (!Tablebase.decode(p, slots, idx)) {
+                value[idx] = Tablebase.INVALID;
+                return;
+            }
+            int n = p.generateLegalMoves(moves);
+            if (n == 0) {
+                value[idx] = p.inCheck() ? Tablebase.loss(0) : Tablebase.DRAW;
+                return;
+            }
+            int count = 0, win = Integer.MAX_VALUE, lose = 0;
+            boolean avoid = false;
+            for (int i = 0; i < n; i++) {
+                int m = moves[i];
+                if (!p.isCapture(m) && Move.promotion(m) == 0) {
+                    count++;
+                    continue;
+                }
+                p.makeMove(m);
+                int v = probeChild(p);
+                p.unmakeMove();
+                if (Tablebase.isLoss(v)) {
+                    win = Math.min(win, Tablebase.plies(v) + 1);
+                    avoid = true;
+                } else if (Tablebase.isWin(v)) {
+                    lose = Math.max(lose, Tablebase.plies(v) + 1);
+                } else {
+                    avoid = true;
+                }
+            }
+            value[idx] = UNKNOWN;
+            counter[idx] = (byte) count;
+            canAvoid[idx] = avoid;
+            if (win != Integer.MAX_VALUE) convWin[idx] = (byte) win;
+            convLoss[idx] = (byte) lose;
+            maxPending.accumulateAndGet(Math.max(win == Integer.MAX_VALUE ? 0 : win, lose), Math::max);
+        });
+
+        for (int level = 0; level < 250; level++) {
+            final int n = level;
+            AtomicInteger found = new AtomicInteger();
+            parallel(size, (Position p, int[] moves, int idx) -> {
+                if (value[idx] != UNKNOWN) return;
+                if ((convWin[idx] & 0xFF) == n && n > 0) {
+                    value[idx] = Tablebase.win(n);
+                } else if (counter[idx] == 0 && !canAvoid[idx] && (convLoss[idx] & 0xFF) == n && n > 0) {
+                    value[idx] = Tablebase.loss(n);
+                }
+            });
+            byte target = n % 2 == 0 ? Tablebase.loss(n) : Tablebase.win(n);
+            parallel(size, (Position p, int[] moves, int idx) -> {
+                if (value[idx] != target) return;
+                found.incrementAndGet();
+                Tablebase.decode(p, slots, idx);
+                unmoves(p, slots, idx, n, value, counter, convLoss, canAvoid);
+            });
+            if (found.get() == 0 && n > maxPending.get()) break;
+        }
+
+        for (int i = 0; i < size; i++)
+            if (value[i] == UNKNOWN) value[i] = Tablebase.DRAW;
+        return value;
+    }
+
+    /**
+     * Propagates a position resolved at distance n to all its predecessors.
+     */
+    private static void unmoves(Position p, int[] slots, int idx, int n, byte[] value, byte[] counter,
+                                byte[] convLoss, boolean[] canAvoid) {
+        int stm = idx & 1, mover = stm ^ 1;
+        boolean lost = (n % 2) == 0;
+        long empty = ~p.occupied();
+        long movers = p.colorPieces(mover);
+        while (movers != 0) {
+            int to = Long.numberOfTrailingZeros(movers);
+            movers &= movers - 1;
+            int piece = p.pieceAt(to);
+            long sources;
+            if (Position.typeOf(piece) == Position.PAWN) {
+                int back = mover == Position.WHITE ? -8 : 8;
+                sources = 0;
+                int from = to + back;
+                if (((1L << from) & empty & ~(Bitboards.RANK_1 | Bitboards.RANK_8)) != 0) {
+                    sources |= 1L << from;
+                    int rank = to >>> 3;
+                    if ((mover == Position.WHITE ? rank == 3 : rank == 4) && ((1L << (from + back)) & empty) != 0)
+                        sources |= 1L << (from + back);
+                }
+            } else {
+                sources = switch (Position.typeOf(piece)) {
+                    case Position.KNIGHT -> Bitboards.KNIGHT_ATTACKS[to];
+                    case Position.BISHOP -> Bitboards.bishopAttacks(to, p.occupied());
+                    case Position.ROOK -> Bitboards.rookAttacks(to, p.occupied());
+                    case Position.QUEEN -> Bitboards.queenAttacks(to, p.occupied());
+                    default -> Bitboards.KING_ATTACKS[to];
+                } & empty;
+            }
+            while (sources != 0) {
+                int from = Long.numberOfTrailingZeros(sources);
+                sources &= sources - 1;
+                p.setPiece(Position.EMPTY, to);
+                p.setPiece(piece, from);
+                // no antecessor joga o "mover", por isso o rei do outro lado não pode estar em xeque
+                if (!p.isAttacked(p.kingSquare(stm), mover)) {
+                    int prev = Tablebase.index(p, slots, false) ^ 1; // o índice usa o lado a jogar atual (stm)
+                    if (value[prev] == UNKNOWN) {
+                        if (lost) {
+                            BYTES.compareAndSet(value, prev, UNKNOWN, Tablebase.win(n + 1));
+                        } else {
+                            int left = decrement(counter, prev);
+                            if (left == 0 && !canAvoid[prev] && (convLoss[prev] & 0xFF) <= n + 1)
+                                BYTES.compareAndSet(value, prev, UNKNOWN, Tablebase.loss(n + 1));
+                        }
+                    }
+                }
+                p.setPiece(Position.EMPTY, from);
+                p.setPiece(piece, to);
+            }
+        }
+    }
+
+    private static int decrement(byte[] counter, int idx) {
+        byte old;
+        do {
+            old = (byte) BYTES.getVolatile(counter, idx);
+        } while (!BYTES.compareAndSet(counter, idx, old, (byte) (old - 1)));
+        return old - 1;
+    }
+
+    private int probeChild(Position p) {
+        boolean flip = Tablebase.needsFlip(p);
+        String name = Tablebase.tableName(p);
+        byte[] table = tables.get(name);
+        if (table == null) return Tablebase.DRAW;
+        return table[Tablebase.index(p, Tablebase.slots(name), flip)];
+    }
+
+    //Execução paralela por fatias do índice
+    private interface IndexTask {
+        void run(Position p, int[] moves, int idx);
+    }
+
+    private void parallel(int size, IndexTask task) throws IOException {
+        int chunks = (size + CHUNK - 1) / CHUNK;
+        IntConsumer slice = c -> {
+            Position p = new Position();
+            int[] moves = new int[Position.MAX_MOVES];
+            int end = Math.min(size, (c + 1) * CHUNK);
+            for (int idx = c * CHUNK; idx < end; idx++)
+                task.run(p, moves, idx);
+        };
+        try {
+            pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(slice)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Geração interrompida", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Erro na geração da tablebase", e.getCause());
+        }
+    }
+
+    /**
+     * Generates the tables given on the command line.
+     * Usage: TablebaseGenerator &lt;dir&gt; &lt;signature&gt;...
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Uso: TablebaseGenerator <diretoria> <assinatura>... (ex: KQK KRK KPK KBNK)");
+            return;
+        }
+        TablebaseGenerator generator = new TablebaseGenerator(args[0]);
+        for (int i = 1; i < args.length; i++) {
+            long start = System.currentTimeMillis();
+            generator.generate(args[i]);
+            System.out.println(args[i] + " gerada em " + (System.currentTimeMillis() - start) + " ms");
+        }
+        generator.shutdown();
+    }
+}
@@ -0,0 +1,105 @@
+package pt.isec.pa.chess.model.tablebase;
+
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.engine.Move;
+import pt.isec.pa.chess.model.engine.Position;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Looks up positions in the tablebases written by {@link TablebaseGenerator}.
+ *
+ * <p>Each table is memory-mapped the first time it is needed and then probed by material
+ * signature and square index without reading the file. The prober can be shared by several threads.
+ */
+public class TablebaseProber {
+    /**
+     * Returned when there is no table for the position.
+     */
+    public static final int NOT_FOUND = Integer.MIN_VALUE;
+
+    private final Path dir;
+    private final ConcurrentHashMap<String, Optional<MappedByteBuffer>> tables = new ConcurrentHashMap<>();
+
+    /**
+     * @param dir Directory with the ".dtm" files
+     */
+    public TablebaseProber(String dir) {
+        this.dir = Path.of(dir);
+    }
+
+    /**
+     * Probes the current position of a game.
+     *
+     * @return the value as described in {@link Tablebase}, or {@link #NOT_FOUND}
+     */
+    public int probe(ChessGame game) {
+        return probe(Position.of(game));
+    }
+
+    /**
+     * Probes a position. Positions with castling rights are never found.
+     *
+     * @return the value as described in {@link Tablebase}, or {@link #NOT_FOUND}
+     */
+    public int probe(Position p) {
+        if (Long.bitCount(p.occupied()) > Tablebase.MAX_PIECES || p.castlingRights() != 0)
+            return NOT_FOUND;
+        String name = Tablebase.tableName(p);
+        MappedByteBuffer table = table(name);
+        if (table == null) return NOT_FOUND;
+        return table.get(Tablebase.index(p, Tablebase.slots(name), Tablebase.needsFlip(p)));
+    }
+
+    /**
+     * Finds the move that keeps the best tablebase value: the fastest mate when winning,
+     * the longest resistance when losing, and a drawing move otherwise.
+     *
+     * @return the best move, or {@link Move#NONE} if the position (or a successor) is not in the tables
+     */
+    public int bestMove(Position p) {
+        int[] moves = new int[Position.MAX_MOVES];
+        int n = p.generateLegalMoves(moves);
+        int best = Move.NONE, bestScore = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            p.makeMove(moves[i]);
+            int v = probe(p);
+            p.unmakeMove();
+            if (v == NOT_FOUND) return Move.NONE;
+            int score = score(v);
+            if (score > bestScore) {
+                bestScore = score;
+                best = moves[i];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Score of a successor, from the point of view of the side that moved into it.
+     */
+    private static int score(int childValue) {
+        if (Tablebase.isLoss(childValue)) return 1000 - Tablebase.plies(childValue);
+        if (Tablebase.isWin(childValue)) return -1000 + Tablebase.plies(childValue);
+        return 0;
+    }
+
+    private MappedByteBuffer table(String name) {
+        return tables.computeIfAbsent(name, n -> {
+            Path file = dir.resolve(n + Tablebase.EXTENSION);
+            if (!Files.exists(file)) return Optional.empty();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return Optional.of(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            } catch (IOException e) {
+                return Optional.empty();
+            }
+        }).orElse(null);
+    }
+}
@@ -0,0 +1,203 @@
+package pt.isec.pa.chess.server;
+
+import pt.isec.pa.chess.model.ChessGameManager;
+import pt.isec.pa.chess.model.GameSimulator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Client of a {@link ChessServer}: keeps a local {@link ChessGameManager} in step with a game on the server.
+ *
+ * <p>The moves of the player are sent with {@link #sendMove} and are only played on the local game
+ * when the server sends them back, like the moves of the opponent, so both games always follow the
+ * server. The local game is changed through the given executor, which must run its tasks in order
+ * ({@code Platform::runLater} for a window, or {@code Runnable::run} without one). Moves refused by
+ * the server and the departure of the opponent are written to the log of the game.
+ */
+public class ChessClient implements Closeable {
+    /**
+     * Time to wait for the server to accept the player in a session.
+     */
+    public static final long JOIN_TIMEOUT_MILLIS = 10_000;
+
+    private final SocketChannel channel;
+    private final ChessGameManager game;
+    private final Executor executor;
+    private final CompletableFuture<Void> joined = new CompletableFuture<>();
+    private volatile long session;
+    private volatile boolean white;
+    private volatile boolean closed;
+
+    private ChessClient(InetSocketAddress server, ChessGameManager game, Executor executor) throws IOException {
+        this.game = game;
+        this.executor = executor;
+        channel = SocketChannel.open(server);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        Thread reader = new Thread(this::read, "chess-client");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Connects to a server and creates a session in which this client plays white.
+     */
+    public static ChessClient create(InetSocketAddress server, String white, String black,
+                                     ChessGameManager game, Executor executor) throws IOException {
+        ChessClient client = new ChessClient(server, game, executor);
+        client.send(Protocol.create(white, black));
+        client.awaitJoined();
+        return client;
+    }
+
+    /**
+     * Connects to a server and joins a session, as black. The moves already played are replayed on
+     * the local game.
+     *
+     * @throws IOException if the server cannot be reached or the session does not exist or is full
+     */
+    public static ChessClient join(InetSocketAddress server, long session,
+                                   ChessGameManager game, Executor executor) throws IOException {
+        ChessClient client = new ChessClient(server, game, executor);
+        client.send(Protocol.join(session));
+        client.awaitJoined();
+        return client;
+    }
+
+    /**
+     * Gets the id of the session, to give to the opponent.
+     */
+    public long getSessionId() {
+        return session;
+    }
+
+    public boolean isWhite() {
+        return white;
+    }
+
+    public boolean isConnected() {
+        return !closed && channel.isConnected();
+    }
+
+    /**
+     * Sends a move to the server, promoting to a queen.
+     */
+    public void sendMove(int line, int col, int newLine, int newCol) throws IOException {
+        sendMove(line, col, newLine, newCol, GameSimulator.QUEEN);
+    }
+
+    /**
+     * Sends a move to the server. It is played on the local game when the server accepts it.
+     *
+     * @param promotion Piece a promoting pawn becomes (0-3: Q,R,B,N)
+     */
+    public void sendMove(int line, int col, int newLine, int newCol, int promotion) throws IOException {
+        send(Protocol.move(GameSimulator.encode(line, col, newLine, newCol, promotion)));
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private synchronized void send(ByteBuffer frame) throws IOException {
+        while (frame.hasRemaining())
+            channel.write(frame);
+    }
+
+    private void awaitJoined() throws IOException {
+        try {
+            joined.get(JOIN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            close();
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        } catch (TimeoutException e) {
+            close();
+            throw new IOException("O servidor não respondeu", e);
+        } catch (InterruptedException e) {
+            close();
+            Thread.currentThread().interrupt();
+            throw new IOException("Ligação interrompida", e);
+        }
+    }
+
+    private void read() {
+        ByteBuffer buffer = ByteBuffer.allocate(16 * Protocol.MAX_FRAME);
+        try {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    int start = buffer.position();
+                    int length = buffer.get(start) & 0xFF;
+                    if (buffer.remaining() < 1 + length) break;
+                    buffer.position(start + 1 + length);
+                    if (length > 0) handle(buffer.slice(start + 1, length));
+                }
+                buffer.compact();
+            }
+        } catch (IOException e) {
+            // ligação fechada
+        } finally {
+            joined.completeExceptionally(new IOException("Ligação ao servidor terminada"));
+            if (!closed) {
+                closed = true;
+                executor.execute(() -> game.getLog().addLog("Ligação ao servidor terminada"));
+            }
+        }
+    }
+
+    /**
+     * Handles a frame. It is read here, before the buffer is reused; only its values go to the executor.
+     */
+    private void handle(ByteBuffer frame) {
+        switch (frame.get()) {
+            case Protocol.JOINED -> {
+                session = frame.getLong();
+                white = frame.get() == 1;
+                String whiteName = Protocol.readName(frame), blackName = Protocol.readName(frame);
+                executor.execute(() -> game.novoGame(whiteName, blackName));
+                joined.complete(null);
+            }
+            case Protocol.MOVE -> {
+                int move = Protocol.readMove(frame);
+                executor.execute(() -> {
+                    if (!game.movePiece(GameSimulator.fromLine(move), GameSimulator.fromColumn(move),
+                            GameSimulator.toLine(move), GameSimulator.toColumn(move), GameSimulator.promotion(move)))
+                        game.getLog().addLog("Lance do servidor não foi aceite pelo jogo local");
+                });
+            }
+            case Protocol.REJECTED -> executor.execute(() -> game.getLog().addLog("Lance recusado pelo servidor"));
+            case Protocol.LEFT -> executor.execute(() -> game.getLog().addLog("O adversário saiu do jogo"));
+            case Protocol.ERROR -> {
+                byte code = frame.get();
+                if (!joined.completeExceptionally(new IOException(error(code))))
+                    executor.execute(() -> game.getLog().addLog(error(code)));
+            }
+            default -> {
+                // tipo desconhecido, de uma versão mais recente do servidor
+            }
+        }
+    }
+
+    private static String error(byte code) {
+        return switch (code) {
+            case Protocol.NO_SESSION -> "Sessão inexistente";
+            case Protocol.SESSION_FULL -> "A sessão já tem dois jogadores";
+            case Protocol.NOT_IN_SESSION -> "Não está numa sessão";
+            default -> "Pedido inválido";
+        };
+    }
+}
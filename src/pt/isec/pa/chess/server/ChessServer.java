@@ -0,0 +1,393 @@
+package pt.isec.pa.chess.server;
+
+import pt.isec.pa.chess.model.GameSimulator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Multiplayer server: two players connected over TCP play a game hosted by a {@link GameSessionManager}.
+ *
+ * <p>All the connections are served by one thread with a {@link Selector}, with the frames of
+ * {@link Protocol}. The moves run on the sessions as any other command, and the moves played are sent
+ * back to both players. Spectators are sent the state of the game after every change through the
+ * {@link SpectatorBroadcast} of its session, which they share. An idle connection holds no buffers: the thread reads into one buffer of its
+ * own and a connection only keeps the bytes of an incomplete frame or the frames still to be written,
+ * so tens of thousands of idle connections cost little more than their sockets.
+ */
+public class ChessServer implements Closeable {
+    private static final int READ_BUFFER = 64 * 1024;
+    private static final int BACKLOG = 1024;
+
+    private final GameSessionManager sessions;
+    private final Map<Long, Table> tables = new ConcurrentHashMap<>();
+    // ligações com frames por escrever, entregues por outras threads
+    private final Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER);
+    private final AtomicInteger connections = new AtomicInteger();
+    private Selector selector;
+    private ServerSocketChannel server;
+    private Thread loop;
+    private int port;
+    private volatile boolean running;
+
+    public ChessServer(GameSessionManager sessions) {
+        this.sessions = sessions;
+    }
+
+    /**
+     * Starts accepting connections.
+     *
+     * @param address Address to listen on; port 0 chooses a free port (see {@link #getPort()})
+     */
+    public synchronized void start(InetSocketAddress address) throws IOException {
+        if (loop != null)
+            throw new IllegalStateException("Servidor já iniciado");
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(address, BACKLOG);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        port = ((InetSocketAddress) server.getLocalAddress()).getPort();
+        running = true;
+        loop = new Thread(this::run, "chess-server");
+        loop.setDaemon(true);
+        loop.start();
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Gets the number of clients connected.
+     */
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    public GameSessionManager getSessionManager() {
+        return sessions;
+    }
+
+    /**
+     * Closes every connection and the sessions created through this server.
+     */
+    @Override
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            thread = loop;
+            if (thread == null || !running) return;
+            running = false;
+        }
+        selector.wakeup();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select();
+                Connection pending;
+                while ((pending = pendingWrites.poll()) != null)
+                    flush(pending);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    if (key.isReadable()) read(connection);
+                    if (key.isValid() && key.isWritable()) flush(connection);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Erro no servidor: " + e.getMessage());
+        } finally {
+            for (SelectionKey key : selector.keys())
+                if (key.attachment() instanceof Connection connection)
+                    disconnect(connection);
+            for (Long id : tables.keySet())
+                sessions.closeSession(id);
+            tables.clear();
+            try {
+                server.close();
+                selector.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            connections.incrementAndGet();
+        }
+    }
+
+    private void read(Connection connection) {
+        ByteBuffer buffer = readBuffer;
+        buffer.clear();
+        if (connection.partial != null) {
+            buffer.put(connection.partial);
+            connection.partial = null;
+        }
+        try {
+            if (connection.channel.read(buffer) < 0) {
+                disconnect(connection);
+                return;
+            }
+        } catch (IOException e) {
+            disconnect(connection);
+            return;
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            int start = buffer.position();
+            int length = buffer.get(start) & 0xFF;
+            if (length == 0) {
+                // frame sem tipo: o cliente não fala este protocolo
+                disconnect(connection);
+                return;
+            }
+            if (buffer.remaining() < 1 + length) break;
+            ByteBuffer frame = buffer.slice(start + 1, length);
+            buffer.position(start + 1 + length);
+            // um espectador não tem nada a dizer; uma resposta misturava-se com as posições
+            if (connection.spectator != null) continue;
+            try {
+                handle(connection, frame);
+            } catch (RuntimeException e) {
+                connection.send(Protocol.error(Protocol.BAD_FRAME));
+            }
+        }
+        // o resto de um frame incompleto fica com a ligação até chegar o resto
+        if (buffer.hasRemaining())
+            connection.partial = ByteBuffer.allocate(buffer.remaining()).put(buffer).flip();
+    }
+
+    private void handle(Connection connection, ByteBuffer frame) {
+        switch (frame.get()) {
+            case Protocol.CREATE -> {
+                if (connection.table != null) {
+                    connection.send(Protocol.error(Protocol.BAD_FRAME));
+                    return;
+                }
+                String white = Protocol.readName(frame), black = Protocol.readName(frame);
+                GameSession session = sessions.createSession(white, black);
+                Table table = new Table(session, white, black);
+                table.white = connection;
+                tables.put(session.getId(), table);
+                connection.table = table;
+                connection.white = true;
+                connection.send(Protocol.joined(session.getId(), true, white, black));
+            }
+            case Protocol.JOIN -> {
+                Table table = connection.table == null ? tables.get(frame.getLong()) : null;
+                if (table == null) {
+                    connection.send(Protocol.error(connection.table == null ? Protocol.NO_SESSION : Protocol.BAD_FRAME));
+                    return;
+                }
+                synchronized (table) {
+                    if (table.black != null) {
+                        connection.send(Protocol.error(Protocol.SESSION_FULL));
+                        return;
+                    }
+                    table.black = connection;
+                    connection.table = table;
+                    connection.white = false;
+                    connection.send(Protocol.joined(table.session.getId(), false, table.whiteName, table.blackName));
+                    for (int i = 0; i < table.moveCount; i++)
+                        connection.send(Protocol.move(table.moves[i]));
+                }
+            }
+            case Protocol.MOVE -> {
+                int move = Protocol.readMove(frame);
+                Table table = connection.table;
+                if (table == null) {
+                    connection.send(Protocol.error(Protocol.NOT_IN_SESSION));
+                    return;
+                }
+                boolean white = connection.white;
+                table.session.submit(game -> {
+                    boolean played = game.getCurrentPlayer() == white && !game.getPromotionState() && !game.isGameOver()
+                            && game.movePiece(GameSimulator.fromLine(move), GameSimulator.fromColumn(move),
+                            GameSimulator.toLine(move), GameSimulator.toColumn(move), GameSimulator.promotion(move));
+                    // enviado dentro do comando, para os lances chegarem pela ordem em que foram jogados
+                    if (played) {
+                        sessions.countMove();
+                        table.played(move);
+                    } else
+                        connection.send(Protocol.rejected(move));
+                    return played;
+                }).whenComplete((played, e) -> {
+                    if (e != null) connection.send(Protocol.rejected(move));
+                });
+            }
+            case Protocol.WATCH -> {
+                GameSession session = connection.table == null ? sessions.getSession(frame.getLong()) : null;
+                if (session == null) {
+                    connection.send(Protocol.error(connection.table == null ? Protocol.NO_SESSION : Protocol.BAD_FRAME));
+                    return;
+                }
+                connection.broadcast = session.getBroadcast();
+                connection.spectator = connection.broadcast.subscribe(connection.channel, connection::schedule);
+            }
+            default -> connection.send(Protocol.error(Protocol.BAD_FRAME));
+        }
+    }
+
+    /**
+     * Writes the queued frames of a connection, as far as the socket takes them.
+     */
+    private void flush(Connection connection) {
+        synchronized (connection) {
+            connection.scheduled = false;
+            if (connection.closed || !connection.key.isValid()) return;
+            try {
+                ByteBuffer frame;
+                while (connection.out != null && (frame = connection.out.peek()) != null) {
+                    connection.channel.write(frame);
+                    if (frame.hasRemaining()) break;
+                    connection.out.poll();
+                }
+                boolean pending = connection.out != null && !connection.out.isEmpty();
+                if (!pending) connection.out = null;
+                // as posições só começam depois das respostas, para não se misturarem
+                if (!pending && connection.spectator != null)
+                    pending = !connection.spectator.write();
+                connection.key.interestOps(pending ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+                return;
+            } catch (IOException e) {
+                connection.out = null;
+            }
+        }
+        // fora do bloqueio da ligação: disconnect bloqueia a mesa, que bloqueia as ligações
+        disconnect(connection);
+    }
+
+    private void disconnect(Connection connection) {
+        synchronized (connection) {
+            if (connection.closed) return;
+            connection.closed = true;
+            connection.out = null;
+        }
+        connection.key.cancel();
+        try {
+            connection.channel.close();
+        } catch (IOException ignored) {
+        }
+        connections.decrementAndGet();
+        if (connection.spectator != null)
+            connection.broadcast.unsubscribe(connection.spectator);
+        Table table = connection.table;
+        if (table == null) return;
+        synchronized (table) {
+            if (table.white == connection) table.white = null;
+            if (table.black == connection) table.black = null;
+            Connection opponent = table.white != null ? table.white : table.black;
+            if (opponent != null) {
+                opponent.send(Protocol.left());
+                return;
+            }
+        }
+        // sem jogadores, a sessão termina
+        tables.remove(table.session.getId());
+        sessions.closeSession(table.session.getId());
+    }
+
+    /**
+     * A game of the server: its session, its players and the moves played, for a player who joins late.
+     */
+    private static final class Table {
+        private final GameSession session;
+        private final String whiteName, blackName;
+        private Connection white, black;
+        private short[] moves = new short[16];
+        private int moveCount;
+
+        Table(GameSession session, String whiteName, String blackName) {
+            this.session = session;
+            this.whiteName = whiteName;
+            this.blackName = blackName;
+        }
+
+        synchronized void played(int move) {
+            if (moveCount == moves.length)
+                moves = Arrays.copyOf(moves, moveCount * 2);
+            moves[moveCount++] = (short) move;
+            ByteBuffer frame = Protocol.move(move);
+            if (white != null) white.send(frame.duplicate());
+            if (black != null) black.send(frame.duplicate());
+        }
+    }
+
+    /**
+     * One client. Only the loop thread reads it; any thread can queue frames with {@link #send}.
+     */
+    private final class Connection {
+        private final SocketChannel channel;
+        private SelectionKey key;
+        private ByteBuffer partial;
+        private Table table;
+        private boolean white;
+        private SpectatorBroadcast broadcast;
+        private SpectatorBroadcast.Subscriber spectator;
+        // protegidos pela ligação
+        private ArrayDeque<ByteBuffer> out;
+        private boolean scheduled, closed;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void send(ByteBuffer frame) {
+            synchronized (this) {
+                if (closed) return;
+                if (out == null) out = new ArrayDeque<>(4);
+                out.add(frame);
+            }
+            schedule();
+        }
+
+        /**
+         * Asks the loop thread to write the pending frames of this connection.
+         */
+        void schedule() {
+            synchronized (this) {
+                if (closed || scheduled) return;
+                scheduled = true;
+            }
+            pendingWrites.add(this);
+            selector.wakeup();
+        }
+    }
+}
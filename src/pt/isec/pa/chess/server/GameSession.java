@@ -0,0 +1,99 @@
+package pt.isec.pa.chess.server;
+
+import pt.isec.pa.chess.model.ChessGameManager;
+import pt.isec.pa.chess.model.GameSnapshot;
+import pt.isec.pa.chess.model.ModelLog;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * One game hosted by a {@link GameSessionManager}: a {@link ChessGameManager} with a log of its own.
+ *
+ * <p>The game is not thread-safe, so its commands are queued and run one at a time, in the order
+ * they were submitted, each on a virtual thread of the manager. Commands of different sessions run
+ * in parallel.
+ */
+public class GameSession {
+    private final long id;
+    private final ModelLog log = new ModelLog();
+    private final ChessGameManager game = new ChessGameManager(log);
+    private final Executor executor;
+    private final long createdAt = System.currentTimeMillis();
+    // último comando da fila; o seguinte só começa quando este acabar
+    private CompletableFuture<?> tail = CompletableFuture.completedFuture(null);
+    private volatile boolean closed;
+    private SpectatorBroadcast broadcast;
+
+    GameSession(long id, Executor executor) {
+        this.id = id;
+        this.executor = executor;
+        // milhares de jogos a escrever na consola disputariam o lock do System.out
+        game.setQuiet(true);
+        // a queda do relógio entra na fila como qualquer outro comando
+        game.setClockExecutor(task -> submit(g -> {
+            task.run();
+            return null;
+        }));
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public ModelLog getLog() {
+        return log;
+    }
+
+    /**
+     * Gets the last state published by the game. Unlike {@link #submit}, it does not wait for the
+     * queued commands, so spectators can read it from any thread at any time.
+     */
+    public GameSnapshot getSnapshot() {
+        return game.getSnapshot();
+    }
+
+    /**
+     * Gets the broadcast of this game to its spectators, created on first use.
+     */
+    public synchronized SpectatorBroadcast getBroadcast() {
+        if (closed)
+            throw new IllegalStateException("Sessão terminada: " + id);
+        if (broadcast == null)
+            broadcast = new SpectatorBroadcast(game);
+        return broadcast;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Queues a command on the game. The command runs after every command submitted before it, even
+     * if those failed.
+     *
+     * @return the result of the command, completed exceptionally if it throws or the session is closed
+     */
+    public synchronized <T> CompletableFuture<T> submit(Function<ChessGameManager, T> command) {
+        if (closed)
+            return CompletableFuture.failedFuture(new IllegalStateException("Sessão terminada: " + id));
+        CompletableFuture<T> result = tail.handleAsync((r, e) -> command.apply(game), executor);
+        tail = result;
+        return result;
+    }
+
+    /**
+     * Closes the session; the commands already queued still run, and then the game releases its clock,
+     * journal and threads.
+     */
+    synchronized void close() {
+        closed = true;
+        if (broadcast != null) broadcast.close();
+        tail.whenComplete((r, e) -> game.close());
+    }
+}
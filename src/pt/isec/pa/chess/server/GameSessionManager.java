@@ -0,0 +1,140 @@
+package pt.isec.pa.chess.server;
+
+import pt.isec.pa.chess.model.ChessGameManager;
+import pt.isec.pa.chess.model.GameSimulator;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Hosts many games in one process. Each game is a {@link GameSession} with its own log; its commands
+ * run one at a time on virtual threads, while different sessions run in parallel.
+ *
+ * <p>The manager counts the sessions created and the moves played, to give their rates together
+ * with the heap in use (see {@link #getStatistics()}).
+ */
+public class GameSessionManager {
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<Long, GameSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final LongAdder sessionsCreated = new LongAdder();
+    private final LongAdder movesPlayed = new LongAdder();
+    private volatile long statisticsStart = System.nanoTime();
+
+    /**
+     * Creates a session with a new game between two players.
+     */
+    public GameSession createSession(String white, String black) {
+        GameSession session = new GameSession(nextId.getAndIncrement(), executor);
+        sessions.put(session.getId(), session);
+        sessionsCreated.increment();
+        session.submit(game -> {
+            game.novoGame(white, black);
+            return null;
+        });
+        return session;
+    }
+
+    /**
+     * Gets a session.
+     *
+     * @return the session, or null if it does not exist or was closed
+     */
+    public GameSession getSession(long id) {
+        return sessions.get(id);
+    }
+
+    public Collection<GameSession> getSessions() {
+        return Collections.unmodifiableCollection(sessions.values());
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Closes a session. The commands already queued on it still run.
+     *
+     * @return false if the session did not exist
+     */
+    public boolean closeSession(long id) {
+        GameSession session = sessions.remove(id);
+        if (session == null) return false;
+        session.close();
+        return true;
+    }
+
+    /**
+     * Runs a command on the game of a session, after the commands already queued on it.
+     */
+    public <T> CompletableFuture<T> execute(long id, Function<ChessGameManager, T> command) {
+        GameSession session = sessions.get(id);
+        if (session == null)
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Sessão inexistente: " + id));
+        return session.submit(command);
+    }
+
+    /**
+     * Plays a move on the game of a session; a pawn that reaches the last rank becomes a queen.
+     *
+     * @return true if the move was accepted
+     */
+    public CompletableFuture<Boolean> move(long id, int line, int col, int newLine, int newCol) {
+        return move(id, line, col, newLine, newCol, GameSimulator.QUEEN);
+    }
+
+    /**
+     * Plays a move on the game of a session, completing a promotion in the same command so that the
+     * game is never left waiting for the choice of the piece.
+     *
+     * @param promotion Piece a promoting pawn becomes ({@link GameSimulator#QUEEN} to {@link GameSimulator#KNIGHT})
+     * @return true if the move was accepted (castling included)
+     */
+    public CompletableFuture<Boolean> move(long id, int line, int col, int newLine, int newCol, int promotion) {
+        return execute(id, game -> {
+            boolean accepted = game.movePiece(line, col, newLine, newCol, promotion);
+            if (accepted) movesPlayed.increment();
+            return accepted;
+        });
+    }
+
+    /**
+     * Counts a move played by a command given to {@link #execute}.
+     */
+    void countMove() {
+        movesPlayed.increment();
+    }
+
+    /**
+     * Gets the statistics since the manager was created or since {@link #resetStatistics()}.
+     */
+    public SessionStatistics getStatistics() {
+        double seconds = Math.max(1e-9, (System.nanoTime() - statisticsStart) / 1e9);
+        Runtime rt = Runtime.getRuntime();
+        return new SessionStatistics(sessions.size(), sessionsCreated.sum() / seconds, movesPlayed.sum() / seconds,
+                rt.totalMemory() - rt.freeMemory());
+    }
+
+    public void resetStatistics() {
+        sessionsCreated.reset();
+        movesPlayed.reset();
+        statisticsStart = System.nanoTime();
+    }
+
+    /**
+     * Closes every session and stops accepting commands.
+     */
+    public void shutdown() {
+        for (Long id : sessions.keySet())
+            closeSession(id);
+        executor.shutdown();
+    }
+}
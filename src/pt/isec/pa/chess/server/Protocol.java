@@ -0,0 +1,162 @@
+package pt.isec.pa.chess.server;
+
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.GameSimulator;
+import pt.isec.pa.chess.model.GameSnapshot;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary protocol between {@link ChessServer} and {@link ChessClient}.
+ *
+ * <p>Every frame is one byte with the length of the rest, one byte with the type and the payload,
+ * so no frame is longer than 256 bytes. A move takes two bytes, packed as by
+ * {@link GameSimulator#encode}: origin, destination and promotion piece in board coordinates.
+ *
+ * <ul>
+ *     <li>{@link #CREATE} (client): names of the white and black players; the client plays white.</li>
+ *     <li>{@link #JOIN} (client): session id; the client plays black.</li>
+ *     <li>{@link #JOINED} (server): session id, colour (1 white, 0 black) and the names of the
+ *     players, followed by a {@link #MOVE} for each move already played.</li>
+ *     <li>{@link #MOVE}: from the client, a move it wants to play; from the server, a move played
+ *     in the session, sent to both players in the order they were played.</li>
+ *     <li>{@link #REJECTED} (server): a move of the client that was not played.</li>
+ *     <li>{@link #ERROR} (server): one of the error codes.</li>
+ *     <li>{@link #LEFT} (server): the opponent disconnected.</li>
+ *     <li>{@link #WATCH} (client): session id; the client becomes a spectator and sends nothing else.</li>
+ *     <li>{@link #POSITION} (server, to spectators): the whole state of the game, see {@link #position}.</li>
+ * </ul>
+ */
+public final class Protocol {
+    public static final byte CREATE = 1, JOIN = 2, JOINED = 3, MOVE = 4, REJECTED = 5, ERROR = 6, LEFT = 7,
+            WATCH = 8, POSITION = 9;
+
+    /**
+     * Error codes.
+     */
+    public static final byte NO_SESSION = 1, SESSION_FULL = 2, NOT_IN_SESSION = 3, BAD_FRAME = 4;
+
+    /**
+     * Maximum length of a frame, length byte included.
+     */
+    public static final int MAX_FRAME = 256;
+    private static final int MAX_NAME = 100;
+    // código de 4 bits de cada peça; as pretas têm o bit 8
+    private static final String PIECES = " PNBRQK";
+
+    private Protocol() {}
+
+    public static ByteBuffer create(String white, String black) {
+        byte[] w = name(white), b = name(black);
+        ByteBuffer frame = begin(CREATE, 2 + w.length + b.length);
+        frame.put((byte) w.length).put(w).put((byte) b.length).put(b);
+        return frame.flip();
+    }
+
+    public static ByteBuffer join(long session) {
+        return begin(JOIN, 8).putLong(session).flip();
+    }
+
+    public static ByteBuffer joined(long session, boolean white, String whiteName, String blackName) {
+        byte[] w = name(whiteName), b = name(blackName);
+        ByteBuffer frame = begin(JOINED, 9 + 2 + w.length + b.length);
+        frame.putLong(session).put((byte) (white ? 1 : 0));
+        frame.put((byte) w.length).put(w).put((byte) b.length).put(b);
+        return frame.flip();
+    }
+
+    public static ByteBuffer move(int move) {
+        return begin(MOVE, 2).putShort((short) move).flip();
+    }
+
+    public static ByteBuffer rejected(int move) {
+        return begin(REJECTED, 2).putShort((short) move).flip();
+    }
+
+    public static ByteBuffer error(byte code) {
+        return begin(ERROR, 1).put(code).flip();
+    }
+
+    public static ByteBuffer left() {
+        return begin(LEFT, 0).flip();
+    }
+
+    public static ByteBuffer watch(long session) {
+        return begin(WATCH, 8).putLong(session).flip();
+    }
+
+    /**
+     * Encodes the state of a game in 43 bytes: the version of the snapshot, one byte with the player
+     * to move and the status, and the 64 squares in four bits each.
+     */
+    public static ByteBuffer position(GameSnapshot snapshot) {
+        ByteBuffer frame = begin(POSITION, 8 + 1 + 32);
+        frame.putLong(snapshot.getVersion());
+        frame.put((byte) (snapshot.getStatus().ordinal() << 1 | (snapshot.getCurrentPlayer() ? 1 : 0)));
+        for (int i = 0; i < 64; i += 2)
+            frame.put((byte) (pieceCode(snapshot.getPiece(i >> 3, i & 7)) << 4
+                    | pieceCode(snapshot.getPiece(i >> 3, (i & 7) + 1))));
+        return frame.flip();
+    }
+
+    /**
+     * A game state read from a {@link #POSITION} frame.
+     *
+     * @param pieces Symbols of the squares by row * 8 + column, as in {@link GameSnapshot#getPieces()}
+     */
+    public record BoardState(long version, boolean currentPlayer, ChessGame.acontecimentoMovimento status,
+                             char[] pieces) {}
+
+    public static BoardState readPosition(ByteBuffer frame) {
+        long version = frame.getLong();
+        int flags = frame.get() & 0xFF;
+        char[] pieces = new char[64];
+        for (int i = 0; i < 64; i += 2) {
+            int b = frame.get() & 0xFF;
+            pieces[i] = pieceSymbol(b >> 4);
+            pieces[i + 1] = pieceSymbol(b & 15);
+        }
+        return new BoardState(version, (flags & 1) != 0, ChessGame.acontecimentoMovimento.values()[flags >> 1], pieces);
+    }
+
+    private static int pieceCode(char symbol) {
+        int code = PIECES.indexOf(Character.toUpperCase(symbol));
+        if (code < 0)
+            throw new IllegalArgumentException("Peça desconhecida: " + symbol);
+        return code == 0 || Character.isUpperCase(symbol) ? code : code | 8;
+    }
+
+    private static char pieceSymbol(int code) {
+        char symbol = PIECES.charAt(code & 7);
+        return (code & 8) != 0 ? Character.toLowerCase(symbol) : symbol;
+    }
+
+    /**
+     * Reads a name written by {@link #create} or {@link #joined}.
+     */
+    public static String readName(ByteBuffer frame) {
+        byte[] bytes = new byte[frame.get() & 0xFF];
+        frame.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a move, as given to {@link GameSimulator#fromLine} and the other decoders.
+     */
+    public static int readMove(ByteBuffer frame) {
+        return frame.getShort() & 0xFFFF;
+    }
+
+    private static ByteBuffer begin(byte type, int payload) {
+        ByteBuffer frame = ByteBuffer.allocate(2 + payload);
+        return frame.put((byte) (1 + payload)).put(type);
+    }
+
+    private static byte[] name(String name) {
+        byte[] bytes = (name == null ? "" : name).getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_NAME)
+            throw new IllegalArgumentException("Nome demasiado longo: " + name);
+        return bytes;
+    }
+}
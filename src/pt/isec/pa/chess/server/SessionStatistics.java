@@ -0,0 +1,44 @@
+package pt.isec.pa.chess.server;
+
+/**
+ * Snapshot of the statistics of a {@link GameSessionManager}.
+ */
+public final class SessionStatistics {
+    private final int activeSessions;
+    private final double sessionsPerSecond;
+    private final double movesPerSecond;
+    private final long heapUsed;
+
+    SessionStatistics(int activeSessions, double sessionsPerSecond, double movesPerSecond, long heapUsed) {
+        this.activeSessions = activeSessions;
+        this.sessionsPerSecond = sessionsPerSecond;
+        this.movesPerSecond = movesPerSecond;
+        this.heapUsed = heapUsed;
+    }
+
+    public int getActiveSessions() {
+        return activeSessions;
+    }
+
+    public double getSessionsPerSecond() {
+        return sessionsPerSecond;
+    }
+
+    public double getMovesPerSecond() {
+        return movesPerSecond;
+    }
+
+    /**
+     * Gets the heap in use by the whole process when the statistics were taken, garbage not yet
+     * collected included. It is not split by session: sessions share the heap with everything else.
+     */
+    public long getHeapUsed() {
+        return heapUsed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d sessões, %.1f sessões/s, %.1f lances/s, %d MB de heap em uso",
+                activeSessions, sessionsPerSecond, movesPerSecond, heapUsed / (1024 * 1024));
+    }
+}
@@ -0,0 +1,150 @@
+package pt.isec.pa.chess.server;
+
+import pt.isec.pa.chess.model.ChessGameManager;
+import pt.isec.pa.chess.model.GameChange;
+import pt.isec.pa.chess.model.GameSnapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Sends the state of one game to its spectators.
+ *
+ * <p>Each change of the game is encoded once, when the game publishes it, into a read-only direct
+ * buffer with a {@link Protocol#POSITION} frame; every spectator is written the same bytes, through
+ * a view of its own, so the cost per spectator is the write alone. A frame holds the whole position,
+ * so a spectator that reads slower than the game changes does not build a queue: while one frame is
+ * being written to it only the newest waits, and the ones in between are skipped.
+ */
+public class SpectatorBroadcast {
+    private final ChessGameManager game;
+    private final Consumer<GameChange> listener = change -> publish(change.getSnapshot());
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final LongAdder encoded = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    // protegidos pela difusão
+    private ByteBuffer latest;
+    private long latestVersion;
+
+    /**
+     * Starts broadcasting the changes of a game, beginning with its current state.
+     */
+    public SpectatorBroadcast(ChessGameManager game) {
+        this.game = game;
+        game.addChangeListener(listener);
+        publish(game.getSnapshot());
+    }
+
+    /**
+     * Adds a spectator, who is sent the current state first.
+     *
+     * @param channel Channel of the spectator, usually non-blocking; only the owner writes to it
+     * @param ready   Called, on the thread that changed the game, when there is a frame to write and
+     *                the subscriber was not already waiting for the channel. The owner of the
+     *                channel must then call {@link Subscriber#write()} on its own thread.
+     */
+    public synchronized Subscriber subscribe(WritableByteChannel channel, Runnable ready) {
+        Subscriber subscriber = new Subscriber(channel, ready);
+        subscribers.add(subscriber);
+        subscriber.offer(latest);
+        return subscriber;
+    }
+
+    public void unsubscribe(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Gets the number of frames encoded, one per change of the game.
+     */
+    public long getFramesEncoded() {
+        return encoded.sum();
+    }
+
+    /**
+     * Gets the number of frames that slow spectators skipped.
+     */
+    public long getFramesSkipped() {
+        return skipped.sum();
+    }
+
+    /**
+     * Stops listening to the game and drops the spectators.
+     */
+    public void close() {
+        game.removeChangeListener(listener);
+        subscribers.clear();
+    }
+
+    private synchronized void publish(GameSnapshot snapshot) {
+        // o estado inicial pode chegar depois de uma alteração já publicada
+        if (latest != null && snapshot.getVersion() <= latestVersion) return;
+        ByteBuffer frame = Protocol.position(snapshot);
+        latest = ByteBuffer.allocateDirect(frame.remaining()).put(frame).flip().asReadOnlyBuffer();
+        latestVersion = snapshot.getVersion();
+        encoded.increment();
+        for (Subscriber subscriber : subscribers)
+            subscriber.offer(latest);
+    }
+
+    /**
+     * One spectator: the frame being written to its channel and the newest one waiting.
+     */
+    public final class Subscriber {
+        private final WritableByteChannel channel;
+        private final Runnable ready;
+        // só a thread dona do canal
+        private ByteBuffer writing;
+        // protegidos pelo subscritor
+        private ByteBuffer next;
+        private boolean scheduled;
+
+        private Subscriber(WritableByteChannel channel, Runnable ready) {
+            this.channel = channel;
+            this.ready = ready;
+        }
+
+        private void offer(ByteBuffer frame) {
+            synchronized (this) {
+                if (next != null) skipped.increment();
+                next = frame;
+                if (scheduled) return;
+                scheduled = true;
+            }
+            ready.run();
+        }
+
+        /**
+         * Writes to the channel as much as it takes: the rest of the current frame, then the newest.
+         *
+         * @return true if there is nothing left to write, false if the channel is full and this must
+         * be called again when it can take more
+         */
+        public boolean write() throws IOException {
+            while (true) {
+                if (writing == null) {
+                    synchronized (this) {
+                        if (next == null) {
+                            scheduled = false;
+                            return true;
+                        }
+                        writing = next.duplicate();
+                        next = null;
+                    }
+                }
+                channel.write(writing);
+                if (writing.hasRemaining()) return false;
+                writing = null;
+            }
+        }
+    }
+}
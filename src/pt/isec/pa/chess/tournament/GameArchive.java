@@ -0,0 +1,96 @@
+package pt.isec.pa.chess.tournament;
+
+import pt.isec.pa.chess.model.data.MoveListCodec;
+import pt.isec.pa.chess.model.engine.Position;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Archive file of the games of a tournament.
+ *
+ * <p>Format: the magic number, the version, the names of the players, then three bytes per game
+ * (white player, black player, outcome) and the moves of every game encoded together with
+ * {@link MoveListCodec} from the initial position, about one byte per ply.
+ */
+public final class GameArchive {
+    private static final int MAGIC = 0x43485441; // "CHTA"
+    private static final int VERSION = 1;
+
+    /**
+     * How a game ended.
+     */
+    public enum Outcome {
+        DRAW, WHITE_WINS, BLACK_WINS
+    }
+
+    /**
+     * One game: the players (indexes in the list of names), the outcome and the moves from the
+     * initial position, opening included.
+     */
+    public record Game(int white, int black, Outcome outcome, int[] moves) {}
+
+    /**
+     * The players and games read from a file.
+     */
+    public record Contents(List<String> players, List<Game> games) {}
+
+    private GameArchive() {}
+
+    public static void write(Path file, List<String> players, List<Game> games) throws IOException {
+        if (players.size() > 255)
+            throw new IllegalArgumentException("Demasiados jogadores: " + players.size());
+        List<int[]> moves = new ArrayList<>(games.size());
+        for (Game game : games)
+            moves.add(game.moves());
+        byte[] encoded = MoveListCodec.encodeGames(Position.startPosition(), moves);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeByte(players.size());
+            for (String name : players)
+                out.writeUTF(name);
+            out.writeInt(games.size());
+            for (Game game : games) {
+                out.writeByte(game.white());
+                out.writeByte(game.black());
+                out.writeByte(game.outcome().ordinal());
+            }
+            out.writeInt(encoded.length);
+            out.write(encoded);
+        }
+    }
+
+    public static Contents read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION)
+                throw new IOException("Não é um arquivo de torneio: " + file);
+            int count = in.readUnsignedByte();
+            List<String> players = new ArrayList<>(count);
+            for (int i = 0; i < count; i++)
+                players.add(in.readUTF());
+            int[][] headers = new int[in.readInt()][];
+            for (int i = 0; i < headers.length; i++)
+                headers[i] = new int[]{in.readUnsignedByte(), in.readUnsignedByte(), in.readUnsignedByte()};
+            byte[] encoded = new byte[in.readInt()];
+            in.readFully(encoded);
+
+            List<int[]> moves = MoveListCodec.decodeGames(Position.startPosition(), encoded);
+            if (moves.size() != headers.length)
+                throw new IOException("Arquivo de torneio corrompido: " + file);
+            Outcome[] outcomes = Outcome.values();
+            List<Game> games = new ArrayList<>(headers.length);
+            for (int i = 0; i < headers.length; i++)
+                games.add(new Game(headers[i][0], headers[i][1], outcomes[headers[i][2]], moves.get(i)));
+            return new Contents(players, games);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package pt.isec.pa.chess.tournament;
+
+/**
+ * Results of the games between two players of a tournament, from the point of view of the first.
+ */
+public final class MatchResult {
+    /**
+     * Quantile of the normal distribution for the 95% error bars.
+     */
+    private static final double Z95 = 1.959964;
+
+    private final String player, opponent;
+    private final int wins, draws, losses;
+
+    MatchResult(String player, String opponent, int wins, int draws, int losses) {
+        this.player = player;
+        this.opponent = opponent;
+        this.wins = wins;
+        this.draws = draws;
+        this.losses = losses;
+    }
+
+    public String getPlayer() {
+        return player;
+    }
+
+    public String getOpponent() {
+        return opponent;
+    }
+
+    public int getWins() {
+        return wins;
+    }
+
+    public int getDraws() {
+        return draws;
+    }
+
+    public int getLosses() {
+        return losses;
+    }
+
+    public int getGames() {
+        return wins + draws + losses;
+    }
+
+    /**
+     * Gets the score of the player, from 0 (lost every game) to 1 (won every game).
+     */
+    public double getScore() {
+        int games = getGames();
+        return games == 0 ? 0.5 : (wins + draws / 2.0) / games;
+    }
+
+    /**
+     * Gets the Elo difference that gives the score of the player; infinite if one of them won every game.
+     */
+    public double getEloDifference() {
+        return elo(getScore());
+    }
+
+    /**
+     * Gets the half-width of the 95% confidence interval of the Elo difference, from the variance of
+     * the results of the games.
+     */
+    public double getEloError() {
+        int games = getGames();
+        if (games < 2) return Double.POSITIVE_INFINITY;
+        double s = getScore();
+        double variance = (wins * (1 - s) * (1 - s) + draws * (0.5 - s) * (0.5 - s) + losses * s * s) / games;
+        double margin = Z95 * Math.sqrt(variance / games);
+        return (elo(Math.min(1, s + margin)) - elo(Math.max(0, s - margin))) / 2;
+    }
+
+    private static double elo(double score) {
+        if (score <= 0) return Double.NEGATIVE_INFINITY;
+        if (score >= 1) return Double.POSITIVE_INFINITY;
+        return -400 * Math.log10(1 / score - 1);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s - %s: +%d =%d -%d (%.1f%%), Elo %+.0f ± %.0f",
+                player, opponent, wins, draws, losses, getScore() * 100, getEloDifference(), getEloError());
+    }
+}
@@ -0,0 +1,73 @@
+package pt.isec.pa.chess.tournament;
+
+import pt.isec.pa.chess.model.engine.Evaluation;
+import pt.isec.pa.chess.model.engine.Position;
+import pt.isec.pa.chess.model.engine.Search;
+import pt.isec.pa.chess.model.engine.SearchLimits;
+import pt.isec.pa.chess.model.engine.TranspositionTable;
+
+import java.util.Random;
+
+/**
+ * How a player of a {@link TournamentRunner} chooses its moves.
+ *
+ * <p>The same strategy plays many games at once, so it is called from several threads and must
+ * keep any state (e.g. a search and its table) per thread.
+ */
+@FunctionalInterface
+public interface Strategy {
+    /**
+     * Chooses the move to play.
+     *
+     * @param position The position, with at least one legal move; it must be left as it was given
+     * @param random   Random numbers of the game, to break ties
+     * @return a legal move of the position; any other move loses the game
+     */
+    int chooseMove(Position position, Random random);
+
+    /**
+     * Plays a random legal move.
+     */
+    static Strategy random() {
+        return (position, random) -> {
+            int[] moves = new int[Position.MAX_MOVES];
+            return moves[random.nextInt(position.generateLegalMoves(moves))];
+        };
+    }
+
+    /**
+     * Plays the move that leaves the best static evaluation, choosing at random between equal moves.
+     */
+    static Strategy greedy() {
+        return (position, random) -> {
+            int[] moves = new int[Position.MAX_MOVES];
+            int n = position.generateLegalMoves(moves);
+            int best = moves[0], bestScore = Integer.MIN_VALUE, ties = 0;
+            for (int i = 0; i < n; i++) {
+                position.makeMove(moves[i]);
+                // a avaliação é do ponto de vista de quem joga a seguir
+                int score = -Evaluation.evaluate(position);
+                position.unmakeMove();
+                if (score > bestScore) {
+                    best = moves[i];
+                    bestScore = score;
+                    ties = 1;
+                } else if (score == bestScore && random.nextInt(++ties) == 0) {
+                    best = moves[i];
+                }
+            }
+            return best;
+        };
+    }
+
+    /**
+     * Plays the best move of the engine. Each thread has its own search and transposition table.
+     *
+     * @param limits    Limits of each search (e.g. a depth or a number of nodes)
+     * @param megabytes Size of the table of each thread
+     */
+    static Strategy search(SearchLimits limits, int megabytes) {
+        ThreadLocal<Search> searches = ThreadLocal.withInitial(() -> new Search(new TranspositionTable(megabytes)));
+        return (position, random) -> searches.get().search(position, limits).getBestMove();
+    }
+}
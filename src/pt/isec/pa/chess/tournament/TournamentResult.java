@@ -0,0 +1,58 @@
+package pt.isec.pa.chess.tournament;
+
+import java.util.List;
+
+/**
+ * Results of a {@link TournamentRunner}: one {@link MatchResult} per pair of players, the games
+ * played and the throughput.
+ */
+public final class TournamentResult {
+    private final List<MatchResult> matches;
+    private final List<GameArchive.Game> games;
+    private final long plies;
+    private final double seconds;
+
+    TournamentResult(List<MatchResult> matches, List<GameArchive.Game> games, long plies, double seconds) {
+        this.matches = List.copyOf(matches);
+        this.games = List.copyOf(games);
+        this.plies = plies;
+        this.seconds = seconds;
+    }
+
+    public List<MatchResult> getMatches() {
+        return matches;
+    }
+
+    /**
+     * Gets the games, in the order they were scheduled.
+     */
+    public List<GameArchive.Game> getGames() {
+        return games;
+    }
+
+    public long getPlies() {
+        return plies;
+    }
+
+    public double getSeconds() {
+        return seconds;
+    }
+
+    public double getGamesPerSecond() {
+        return games.size() / Math.max(1e-9, seconds);
+    }
+
+    public double getPliesPerSecond() {
+        return plies / Math.max(1e-9, seconds);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (MatchResult match : matches)
+            sb.append(match).append('\n');
+        sb.append(String.format("%d jogos, %d lances em %.1f s (%.1f jogos/s, %.0f lances/s)",
+                games.size(), plies, seconds, getGamesPerSecond(), getPliesPerSecond()));
+        return sb.toString();
+    }
+}
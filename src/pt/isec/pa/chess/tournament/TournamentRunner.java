@@ -0,0 +1,247 @@
+package pt.isec.pa.chess.tournament;
+
+import pt.isec.pa.chess.model.engine.Position;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plays self-play tournaments between strategies, without a user interface.
+ *
+ * <p>Every pair of players meets in a number of games. Each game starts with a few random plies so
+ * that the games differ, and each opening is played twice with the colours swapped so that neither
+ * player is favoured by it. The games run in parallel on a pool of threads, each on its own
+ * {@link Position}: a game ends by checkmate or stalemate, and is drawn by the fifty-move rule,
+ * threefold repetition, insufficient material or when it reaches the maximum number of plies.
+ */
+public class TournamentRunner {
+    public static final int DEFAULT_OPENING_PLIES = 8;
+    public static final int DEFAULT_MAX_PLIES = 400;
+
+    private final int threads;
+    private final List<String> names = new ArrayList<>();
+    private final List<Strategy> strategies = new ArrayList<>();
+    private int openingPlies = DEFAULT_OPENING_PLIES;
+    private int maxPlies = DEFAULT_MAX_PLIES;
+    private long seed = System.nanoTime();
+    private Path archive;
+
+    /**
+     * @param threads Number of games played at the same time
+     */
+    public TournamentRunner(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("Número de threads inválido: " + threads);
+        this.threads = threads;
+    }
+
+    public void addPlayer(String name, Strategy strategy) {
+        names.add(name);
+        strategies.add(strategy);
+    }
+
+    /**
+     * Sets the number of random plies played before the strategies take over.
+     */
+    public void setOpeningPlies(int openingPlies) {
+        this.openingPlies = Math.max(0, openingPlies);
+    }
+
+    /**
+     * Sets the length, in plies, after which a game is adjudicated as a draw.
+     */
+    public void setMaxPlies(int maxPlies) {
+        this.maxPlies = Math.max(1, maxPlies);
+    }
+
+    /**
+     * Sets the seed of the openings and of the random numbers of each game.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Sets the file where the games are archived at the end of the tournament, or null for none.
+     */
+    public void setArchive(Path archive) {
+        this.archive = archive;
+    }
+
+    /**
+     * Plays the tournament.
+     *
+     * @param gamesPerPair Games between each pair of players, rounded up to an even number
+     * @return the results, once every game has finished
+     * @throws IOException if the games cannot be archived
+     */
+    public TournamentResult run(int gamesPerPair) throws IOException {
+        if (strategies.size() < 2)
+            throw new IllegalStateException("São precisos pelo menos dois jogadores");
+        int pairsOfGames = (gamesPerPair + 1) / 2;
+        Random random = new Random(seed);
+
+        // agenda os jogos: cada abertura é jogada duas vezes, com as cores trocadas
+        List<int[]> schedule = new ArrayList<>();
+        List<int[]> openings = new ArrayList<>();
+        for (int a = 0; a < strategies.size(); a++)
+            for (int b = a + 1; b < strategies.size(); b++)
+                for (int i = 0; i < pairsOfGames; i++) {
+                    int[] opening = randomOpening(random);
+                    schedule.add(new int[]{a, b});
+                    openings.add(opening);
+                    schedule.add(new int[]{b, a});
+                    openings.add(opening);
+                }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "tournament-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        long start = System.nanoTime();
+        List<GameArchive.Game> games = new ArrayList<>(schedule.size());
+        try {
+            List<Future<GameArchive.Game>> futures = new ArrayList<>(schedule.size());
+            for (int i = 0; i < schedule.size(); i++) {
+                int[] players = schedule.get(i);
+                int[] opening = openings.get(i);
+                long gameSeed = seed + (i + 1) * 0x9E3779B97F4A7C15L;
+                futures.add(executor.submit(() -> play(players[0], players[1], opening, gameSeed)));
+            }
+            for (Future<GameArchive.Game> future : futures)
+                games.add(future.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Torneio interrompido", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Erro num jogo do torneio", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long plies = 0;
+        for (GameArchive.Game game : games)
+            plies += game.moves().length;
+        if (archive != null)
+            GameArchive.write(archive, names, games);
+        return new TournamentResult(matches(games), games, plies, seconds);
+    }
+
+    private int[] randomOpening(Random random) {
+        int[] buffer = new int[Position.MAX_MOVES];
+        while (true) {
+            Position p = Position.startPosition();
+            int[] opening = new int[openingPlies];
+            int n = 0;
+            while (n < openingPlies) {
+                int legal = p.generateLegalMoves(buffer);
+                if (legal == 0) break;
+                opening[n] = buffer[random.nextInt(legal)];
+                p.makeMove(opening[n++]);
+            }
+            // uma abertura que acaba o jogo não serve
+            if (n == openingPlies && p.generateLegalMoves(buffer) > 0) return opening;
+        }
+    }
+
+    private GameArchive.Game play(int white, int black, int[] opening, long gameSeed) {
+        Position p = Position.startPosition();
+        int[] moves = new int[opening.length + maxPlies];
+        int n = 0;
+        for (int m : opening) {
+            p.makeMove(m);
+            moves[n++] = m;
+        }
+        Random random = new Random(gameSeed);
+        int[] buffer = new int[Position.MAX_MOVES];
+        GameArchive.Outcome outcome;
+        while (true) {
+            int legal = p.generateLegalMoves(buffer);
+            boolean whiteToMove = p.sideToMove() == Position.WHITE;
+            if (legal == 0) {
+                outcome = !p.inCheck() ? GameArchive.Outcome.DRAW
+                        : whiteToMove ? GameArchive.Outcome.BLACK_WINS : GameArchive.Outcome.WHITE_WINS;
+                break;
+            }
+            if (n - opening.length >= maxPlies || isDraw(p)) {
+                outcome = GameArchive.Outcome.DRAW;
+                break;
+            }
+            int move = strategies.get(whiteToMove ? white : black).chooseMove(p, random);
+            if (!contains(buffer, legal, move)) {
+                // um lance ilegal perde o jogo
+                outcome = whiteToMove ? GameArchive.Outcome.BLACK_WINS : GameArchive.Outcome.WHITE_WINS;
+                break;
+            }
+            p.makeMove(move);
+            moves[n++] = move;
+        }
+        return new GameArchive.Game(white, black, outcome, Arrays.copyOf(moves, n));
+    }
+
+    private static boolean contains(int[] moves, int n, int move) {
+        for (int i = 0; i < n; i++)
+            if (moves[i] == move) return true;
+        return false;
+    }
+
+    /**
+     * Checks the fifty-move rule, threefold repetition and insufficient material.
+     */
+    private static boolean isDraw(Position p) {
+        int half = p.halfmoveClock();
+        if (half >= 100) return true;
+        long key = p.key();
+        int repetitions = 0;
+        for (int i = 4, limit = Math.min(half, p.historySize()); i <= limit; i += 2)
+            if (p.keyAt(i) == key && ++repetitions == 2) return true;
+        // sem peões, torres e damas, e no máximo uma peça menor: nenhum lado pode dar mate
+        for (int color = Position.WHITE; color <= Position.BLACK; color++)
+            if ((p.pieces(color, Position.PAWN) | p.pieces(color, Position.ROOK) | p.pieces(color, Position.QUEEN)) != 0)
+                return false;
+        long minors = 0;
+        for (int color = Position.WHITE; color <= Position.BLACK; color++)
+            minors |= p.pieces(color, Position.KNIGHT) | p.pieces(color, Position.BISHOP);
+        return Long.bitCount(minors) <= 1;
+    }
+
+    private List<MatchResult> matches(List<GameArchive.Game> games) {
+        int count = names.size();
+        // [jogador][adversário] -> vitórias, empates, derrotas
+        int[][][] results = new int[count][count][3];
+        for (GameArchive.Game game : games) {
+            switch (game.outcome()) {
+                case WHITE_WINS -> {
+                    results[game.white()][game.black()][0]++;
+                    results[game.black()][game.white()][2]++;
+                }
+                case BLACK_WINS -> {
+                    results[game.black()][game.white()][0]++;
+                    results[game.white()][game.black()][2]++;
+                }
+                case DRAW -> {
+                    results[game.white()][game.black()][1]++;
+                    results[game.black()][game.white()][1]++;
+                }
+            }
+        }
+        List<MatchResult> matches = new ArrayList<>();
+        for (int a = 0; a < count; a++)
+            for (int b = a + 1; b < count; b++)
+                matches.add(new MatchResult(names.get(a), names.get(b),
+                        results[a][b][0], results[a][b][1], results[a][b][2]));
+        return matches;
+    }
+}
@@ -0,0 +1,237 @@
+package pt.isec.pa.chess.uci;
+
+import pt.isec.pa.chess.model.engine.Move;
+import pt.isec.pa.chess.model.engine.ParallelSearch;
+import pt.isec.pa.chess.model.engine.Position;
+import pt.isec.pa.chess.model.engine.SearchLimits;
+import pt.isec.pa.chess.model.engine.SearchResult;
+import pt.isec.pa.chess.model.engine.SearchScheduler;
+import pt.isec.pa.chess.model.engine.TranspositionTable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Headless front end that speaks the UCI protocol over standard input and output, so the engine can
+ * be run by tournament managers and batch tools without JavaFX.
+ *
+ * <p>The commands are read on the calling thread while the search runs in the background on a
+ * {@link SearchScheduler}, so {@code stop}, {@code ponderhit} and {@code isready} are answered at once
+ * during a search. Supported commands: {@code uci}, {@code isready}, {@code ucinewgame},
+ * {@code setoption} (Hash, Threads), {@code position}, {@code go} (wtime, btime, winc, binc,
+ * movestogo, depth, nodes, movetime, infinite, ponder), {@code stop}, {@code ponderhit} and
+ * {@code quit}.
+ *
+ * <p>When the input ends the engine waits for the search in progress (stopping it first if it has no
+ * limit), so a list of commands can be piped into it.
+ */
+public class UciEngine {
+    public static final String NAME = "PAChess";
+    public static final String AUTHOR = "Frederico Quelhas, Sebastian Gonçalves, Ivanilson Da Silva";
+
+    private static final int MAX_HASH_MB = 4096;
+    private static final int MAX_THREADS = 256;
+
+    private final BufferedReader in;
+    private final PrintStream out;
+    private final ParallelSearch search = new ParallelSearch(1, new TranspositionTable());
+    private final SearchScheduler scheduler = new SearchScheduler(search);
+
+    private Position position = Position.startPosition();
+    // Pesquisa sem limites (infinite ou ponder): só acaba com stop ou ponderhit
+    private boolean waitingForStop;
+    private volatile CompletableFuture<Void> pending = CompletableFuture.completedFuture(null);
+
+    public UciEngine(InputStream in, PrintStream out) {
+        this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.out = out;
+    }
+
+    public static void main(String[] args) {
+        new UciEngine(System.in, new PrintStream(new FileOutputStream(FileDescriptor.out), true, StandardCharsets.UTF_8)).run();
+    }
+
+    /**
+     * Reads and executes commands until {@code quit} or the end of the input.
+     */
+    public void run() {
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!execute(line.trim())) {
+                    scheduler.shutdown();
+                    search.shutdown();
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            send("info string erro de leitura: " + e.getMessage());
+        }
+        // fim da entrada: acaba a pesquisa em curso antes de sair
+        if (waitingForStop) scheduler.stop();
+        pending.join();
+        scheduler.shutdown();
+        search.shutdown();
+    }
+
+    /**
+     * Executes one command.
+     *
+     * @return false if the command was {@code quit}
+     */
+    boolean execute(String line) {
+        if (line.isEmpty()) return true;
+        String[] tokens = line.split("\\s+");
+        switch (tokens[0]) {
+            case "uci" -> {
+                send("id name " + NAME);
+                send("id author " + AUTHOR);
+                send("option name Hash type spin default " + TranspositionTable.DEFAULT_MB + " min 1 max " + MAX_HASH_MB);
+                send("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+                send("option name Ponder type check default false");
+                send("uciok");
+            }
+            case "isready" -> send("readyok");
+            case "ucinewgame" -> {
+                scheduler.cancel();
+                pending = CompletableFuture.completedFuture(null);
+                search.getTranspositionTable().clear();
+                position = Position.startPosition();
+            }
+            case "setoption" -> setOption(tokens);
+            case "position" -> setPosition(tokens);
+            case "go" -> go(tokens);
+            case "stop" -> {
+                waitingForStop = false;
+                scheduler.stop();
+            }
+            case "ponderhit" -> {
+                waitingForStop = false;
+                scheduler.ponderHit();
+            }
+            case "quit" -> {
+                scheduler.cancel();
+                return false;
+            }
+            default -> send("info string comando desconhecido: " + tokens[0]);
+        }
+        return true;
+    }
+
+    private void setOption(String[] tokens) {
+        // setoption name <nome> value <valor>
+        String name = null, value = null;
+        for (int i = 1; i < tokens.length - 1; i++) {
+            if (tokens[i].equals("name")) name = tokens[i + 1];
+            else if (tokens[i].equals("value")) value = tokens[i + 1];
+        }
+        if (name == null || value == null) return;
+        try {
+            switch (name.toLowerCase()) {
+                case "hash" -> search.getTranspositionTable().resize(Math.clamp(Integer.parseInt(value), 1, MAX_HASH_MB));
+                case "threads" -> search.setThreads(Math.clamp(Integer.parseInt(value), 1, MAX_THREADS));
+                case "ponder" -> { } // o GUI decide quando mandar go ponder
+                default -> send("info string opção desconhecida: " + name);
+            }
+        } catch (NumberFormatException e) {
+            send("info string valor inválido para " + name + ": " + value);
+        }
+    }
+
+    private void setPosition(String[] tokens) {
+        // position (startpos | fen <6 campos>) [moves <lances>]
+        int i = 1;
+        Position p;
+        try {
+            if (i < tokens.length && tokens[i].equals("startpos")) {
+                p = Position.startPosition();
+                i++;
+            } else if (i < tokens.length && tokens[i].equals("fen")) {
+                StringBuilder fen = new StringBuilder();
+                for (i++; i < tokens.length && !tokens[i].equals("moves"); i++)
+                    fen.append(tokens[i]).append(' ');
+                p = Position.fromFen(fen.toString().trim());
+            } else {
+                send("info string posição inválida");
+                return;
+            }
+        } catch (IllegalArgumentException e) {
+            send("info string FEN inválido: " + e.getMessage());
+            return;
+        }
+        if (i < tokens.length && tokens[i].equals("moves")) {
+            for (i++; i < tokens.length; i++) {
+                int move = p.parseUciMove(tokens[i]);
+                if (move == Move.NONE) {
+                    send("info string lance ilegal: " + tokens[i]);
+                    break;
+                }
+                p.makeMove(move);
+            }
+        }
+        position = p;
+    }
+
+    private void go(String[] tokens) {
+        long wtime = -1, btime = -1, winc = 0, binc = 0, movetime = SearchLimits.NONE, nodes = SearchLimits.NONE;
+        int depth = Integer.MAX_VALUE, movesToGo = 0;
+        boolean infinite = false, ponder = false;
+        try {
+            for (int i = 1; i < tokens.length; i++) {
+                switch (tokens[i]) {
+                    case "wtime" -> wtime = Long.parseLong(tokens[++i]);
+                    case "btime" -> btime = Long.parseLong(tokens[++i]);
+                    case "winc" -> winc = Long.parseLong(tokens[++i]);
+                    case "binc" -> binc = Long.parseLong(tokens[++i]);
+                    case "movestogo" -> movesToGo = Integer.parseInt(tokens[++i]);
+                    case "depth" -> depth = Integer.parseInt(tokens[++i]);
+                    case "nodes" -> nodes = Long.parseLong(tokens[++i]);
+                    case "movetime" -> movetime = Long.parseLong(tokens[++i]);
+                    case "infinite" -> infinite = true;
+                    case "ponder" -> ponder = true;
+                    default -> { } // searchmoves, mate: não suportados
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            send("info string parâmetros de go inválidos");
+            return;
+        }
+
+        boolean white = position.sideToMove() == Position.WHITE;
+        long time = white ? wtime : btime, inc = white ? winc : binc;
+        SearchLimits limits;
+        if (time >= 0 && !infinite) {
+            SearchLimits clock = SearchLimits.forClock(time, inc, movesToGo);
+            limits = new SearchLimits(depth, nodes, Math.min(clock.getTimeMillis(), movetime),
+                    Math.min(clock.getSoftTimeMillis(), movetime));
+        } else {
+            limits = new SearchLimits(depth, nodes, movetime);
+        }
+
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        pending = done;
+        waitingForStop = infinite || ponder;
+        if (waitingForStop)
+            scheduler.ponder(position, infinite ? SearchLimits.infinite() : limits, this::sendInfo, r -> sendBestMove(r, done));
+        else
+            scheduler.start(position, limits, this::sendInfo, r -> sendBestMove(r, done));
+    }
+
+    private void sendInfo(SearchResult r) {
+        send("info " + r + " hashfull " + search.getTranspositionTable().getHashfull());
+    }
+
+    private void sendBestMove(SearchResult r, CompletableFuture<Void> done) {
+        int[] pv = r.getPv();
+        send("bestmove " + Move.toUci(r.getBestMove()) + (pv.length > 1 ? " ponder " + Move.toUci(pv[1]) : ""));
+        done.complete(null);
+    }
+
+    private void send(String line) {
+        synchronized (out) {
+            out.println(line);
+            out.flush();
+        }
+    }
+}
@@ -6,11 +6,14 @@ import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.Label;
 import javafx.scene.image.Image;
 import pt.isec.pa.chess.model.ChessGameManager;
+import pt.isec.pa.chess.model.GameChange;
+import pt.isec.pa.chess.model.engine.Search;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javafx.scene.paint.Color;
 import javafx.scene.canvas.Canvas;
@@ -24,6 +27,10 @@ public class ChessBoardInterface extends Canvas {
     private int linhaSelecionada = -1;
     private final Label jogadorAtualLabel;
     ArrayList<int[]> movesOfPiece;
+    // Sugestões do modo de aprendizagem: [linha, coluna, nova linha, nova coluna, avaliação]
+    private List<int[]> hints = List.of();
+    // já há um desenho agendado, os pedidos seguintes juntam-se a ele
+    private final AtomicBoolean drawPending = new AtomicBoolean();
     private enum promotionPieces{
         QUEEN,
         ROOK,
@@ -37,13 +44,25 @@ public class ChessBoardInterface extends Canvas {
         movesOfPiece = new ArrayList<>();
         //data.addJogadorAtualListener(this::updateJogadorAtual);
 
-        data.addPropertyChangeListener(ChessGameManager.PROP_BOARD, _ -> draw());
-        data.addPropertyChangeListener(ChessGameManager.PROP_CURRENT_PLAYER,
-                evt -> updateJogadorAtual((boolean)evt.getNewValue()));
+        // um só desenho por operação, mesmo que mude o tabuleiro, o jogador e a promoção
+        data.addChangeListener(change -> {
+            if(change.has(GameChange.Category.PLAYER))
+                updateJogadorAtual(change.getCurrentPlayer());
+            requestDraw();
+        }, GameChange.Category.BOARD, GameChange.Category.PLAYER, GameChange.Category.PROMOTION);
         data.addPropertyChangeListener(ChessGameManager.PROP_PROMOTION, _ -> data.changePromotionState());
+        data.addPropertyChangeListener(ChessGameManager.PROP_ANALYSIS, evt -> {
+            @SuppressWarnings("unchecked")
+            List<int[]> novas = (List<int[]>) evt.getNewValue();
+            // a análise corre noutra thread
+            Platform.runLater(() -> {
+                hints = novas;
+                requestDraw();
+            });
+        });
 
-        widthProperty().addListener(_ -> draw());
-        heightProperty().addListener(_ -> draw());
+        widthProperty().addListener(_ -> requestDraw());
+        heightProperty().addListener(_ -> requestDraw());
 
         setOnMouseClicked(evento -> {
             if(data.isGameOver()) return;
@@ -70,7 +89,7 @@ public class ChessBoardInterface extends Canvas {
                 }
                 data.changePawnPromotion(!data.getCurrentPlayer(), coluna);
                 data.changePromotionState();
-                draw();
+                requestDraw();
             }
             else if(colunaSelecionada == -1 && linhaSelecionada == -1){
                 if(data.isCurrentPlayerPiece(linha, coluna)){
@@ -158,12 +177,25 @@ public class ChessBoardInterface extends Canvas {
                 colunaSelecionada = -1;
                 linhaSelecionada = -1;
                 movesOfPiece.clear();
-                draw();
+                requestDraw();
             }
 
         });
 
     }
+
+    /**
+     * Draws the board once on the JavaFX thread, however many times it is requested before that
+     * (e.g. a resize changes both the width and the height).
+     */
+    public void requestDraw() {
+        if(!drawPending.compareAndSet(false, true)) return;
+        Platform.runLater(() -> {
+            drawPending.set(false);
+            draw();
+        });
+    }
+
     public void draw() {
         double cumprimento = getWidth();
         double altura = getHeight();
@@ -176,6 +208,10 @@ public class ChessBoardInterface extends Canvas {
         double startX = (cumprimento - (tamanhoQuadrado * data.getBoardSize())) / 2;
         double startY = (altura - (tamanhoQuadrado * data.getBoardSize())) / 2;
 
+        // calculados uma vez por desenho e não por casa
+        int [] KingPositon = data.getKingPosition(data.getCurrentPlayer());
+        boolean reiEmXeque = KingPositon != null && data.KingInCheck(data.getCurrentPlayer());
+
         for (int i = 0; i < data.getBoardSize(); i++){
             for(int j = 0; j < data.getBoardSize(); j++){
                 if((i + j) % 2 == 0){
@@ -208,8 +244,7 @@ public class ChessBoardInterface extends Canvas {
                             gc.strokeOval(circleX, circleY, circleSize, circleSize);
                         }
                 }
-                int [] KingPositon = data.getKingPosition(data.getCurrentPlayer());
-                if(data.KingInCheck(data.getCurrentPlayer())){
+                if(reiEmXeque){
                     if(i == KingPositon[0] && j == KingPositon[1]){
                         gc.setFill(Color.RED);
                     }
@@ -228,6 +263,9 @@ public class ChessBoardInterface extends Canvas {
             }
         }
 
+        if(data.isLearningMode())
+            drawHints(gc, startX, startY, tamanhoQuadrado);
+
         // Desenhar coordenadas das colunas (letras)
         gc.setFill(Color.BLACK);
         Font font = new Font("Arial", tamanhoQuadrado * 0.4);
@@ -278,11 +316,39 @@ public class ChessBoardInterface extends Canvas {
 
     }
 
+    /**
+     * Draws the best moves found by the analysis as arrows, the best one the thickest, with the
+     * rank and the evaluation on the destination square.
+     */
+    private void drawHints(GraphicsContext gc, double startX, double startY, double tamanhoQuadrado){
+        gc.setFont(new Font("Arial", tamanhoQuadrado * 0.22));
+        for(int i = hints.size() - 1; i >= 0; i--){
+            int[] hint = hints.get(i);
+            double x1 = startX + (hint[1] + 0.5) * tamanhoQuadrado, y1 = startY + (hint[0] + 0.5) * tamanhoQuadrado;
+            double x2 = startX + (hint[3] + 0.5) * tamanhoQuadrado, y2 = startY + (hint[2] + 0.5) * tamanhoQuadrado;
+            gc.setStroke(i == 0 ? Color.rgb(255, 140, 0, 0.85) : Color.rgb(255, 165, 0, 0.5));
+            gc.setLineWidth(tamanhoQuadrado * (i == 0 ? 0.12 : 0.07));
+            gc.strokeLine(x1, y1, x2, y2);
+            gc.setFill(gc.getStroke());
+            gc.fillOval(x2 - tamanhoQuadrado * 0.08, y2 - tamanhoQuadrado * 0.08, tamanhoQuadrado * 0.16, tamanhoQuadrado * 0.16);
+
+            gc.setFill(Color.BLACK);
+            gc.fillText((i + 1) + ": " + formatScore(hint[4]),
+                    startX + hint[3] * tamanhoQuadrado + 2, startY + hint[2] * tamanhoQuadrado + tamanhoQuadrado * 0.22);
+        }
+    }
+
+    private static String formatScore(int score){
+        if(Math.abs(score) >= Search.MATE - Search.MAX_PLY){
+            int plies = Search.MATE - Math.abs(score);
+            return (score > 0 ? "M" : "-M") + (plies + 1) / 2;
+        }
+        return String.format("%+.2f", score / 100.0);
+    }
+
     private void updateJogadorAtual(boolean currentPlayer) {
-        Platform.runLater(() -> {
-            jogadorAtualLabel.setText("Jogador Atual: " + (currentPlayer ? "Brancas" : "Pretas"));
-            draw();
-        });
+        Platform.runLater(() ->
+            jogadorAtualLabel.setText("Jogador Atual: " + (currentPlayer ? "Brancas" : "Pretas")));
     }
 
     private String getImagemPeca(char simbolo) {
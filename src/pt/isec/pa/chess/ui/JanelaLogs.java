@@ -14,7 +14,7 @@ import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.stage.Stage;
 import pt.isec.pa.chess.model.ChessGameManager;
-import pt.isec.pa.chess.model.ModelLog;
+import pt.isec.pa.chess.model.GameChange;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
@@ -51,7 +51,7 @@ public class JanelaLogs extends Stage implements PropertyChangeListener {
         changeLanguage.setFont(retroFont);
 
         Button btnClear = new Button("Limpar Histórico");
-        btnClear.setOnAction(_ -> ModelLog.getInstance().clearLogs());
+        btnClear.setOnAction(_ -> data.getLog().clearLogs());
 
         // Layout para os botões e labels
         HBox infoBox = new HBox(10, jogadorAtualLabel, toggleSounds, changeLanguage);
@@ -63,8 +63,8 @@ public class JanelaLogs extends Stage implements PropertyChangeListener {
         setScene(scene);
         setTitle("Movimentos do Jogo");
 
-        ModelLog.getInstance().addPCListener(this);
-        logs.addAll(ModelLog.getInstance().getLogs());
+        data.getLog().addPCListener(this);
+        logs.addAll(data.getLog().getLogs());
     }
 
     private void registerHandlers() {
@@ -79,20 +79,22 @@ public class JanelaLogs extends Stage implements PropertyChangeListener {
         });
 
         // Atualiza os labels quando o jogador atual muda
-        data.addPropertyChangeListener(ChessGameManager.PROP_CURRENT_PLAYER, evt -> {
-            boolean isWhite = (boolean) evt.getNewValue();
+        data.addChangeListener(change -> {
+            boolean isWhite = change.getCurrentPlayer();
             javafx.application.Platform.runLater(() ->
                 jogadorAtualLabel.setText("Jogador Atual: " + (isWhite ? "Brancas" : "Pretas"))
             );
-        });
+        }, GameChange.Category.PLAYER);
     }
 
     @Override
     public void propertyChange(PropertyChangeEvent evt) {
         if ("log".equals(evt.getPropertyName())) {
-            javafx.application.Platform.runLater(() ->
-                    logs.add(evt.getNewValue().toString())
-            );
+            // o texto só é formatado aqui; a lista fica limitada como o log
+            javafx.application.Platform.runLater(() -> {
+                if (logs.size() >= data.getLog().getCapacity()) logs.remove(0);
+                logs.add(evt.getNewValue().toString());
+            });
         } else if ("LimparLogs".equals(evt.getPropertyName())) {
             javafx.application.Platform.runLater(logs::clear);
         }
@@ -1,6 +1,7 @@
 package pt.isec.pa.chess.ui;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 import pt.isec.pa.chess.model.ChessGameManager;
@@ -15,6 +16,7 @@ public class MainFx extends Application {
     @Override
     public void start(Stage primaryStage) {
         ChessGameManager gameManager = new ChessGameManager();
+        gameManager.setClockExecutor(Platform::runLater);
         RootPane rootPane = new RootPane(gameManager, primaryStage);
 
         Scene scene = new Scene(rootPane, 800, 800);
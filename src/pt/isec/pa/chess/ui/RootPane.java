@@ -15,6 +15,7 @@ import javafx.scene.text.FontWeight;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import pt.isec.pa.chess.model.ChessGameManager;
+import pt.isec.pa.chess.model.GameChange;
 
 
 import java.io.File;
@@ -148,14 +149,11 @@ public class RootPane extends BorderPane {
 
     public void registerHandlers() {
 
-        data.addPropertyChangeListener(ChessGameManager.PROP_BOARD, _ -> update());
-        data.addPropertyChangeListener(ChessGameManager.PROP_CURRENT_PLAYER, evt -> {
-            boolean isWhite = (boolean) evt.getNewValue();
-            Platform.runLater(() -> {
-                atualizarJogadorAtual(isWhite);
-                chessBoardInterface.draw();
-            });
-        });
+        // uma atualização por operação; o desenho junta-se ao pedido pelo próprio tabuleiro
+        data.addChangeListener(change -> Platform.runLater(() -> {
+            update();
+            atualizarJogadorAtual(change.getCurrentPlayer());
+        }), GameChange.Category.BOARD, GameChange.Category.PLAYER);
 
         data.addPropertyChangeListener(ChessGameManager.PROP_GAME_OVER, _ -> {
         });
@@ -332,7 +330,7 @@ public class RootPane extends BorderPane {
             changeLanguage.setText("Change sound language");
         else
             changeLanguage.setText("Mudar o idioma do som");
-        chessBoardInterface.draw();
+        chessBoardInterface.requestDraw();
         if(normal.isSelected()){
             undo.setDisable(true);
             redo.setDisable(true);
@@ -0,0 +1,122 @@
+package pt.isec.pa.chess.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameChangeTest {
+    private final ChessGameManager game = new ChessGameManager();
+    private final List<GameChange> changes = new ArrayList<>();
+
+    GameChangeTest() {
+        game.setQuiet(true);
+        game.addChangeListener(changes::add);
+    }
+
+    private static long squares(int... lineCol) {
+        long bits = 0;
+        for (int i = 0; i < lineCol.length; i += 2)
+            bits |= 1L << (lineCol[i] * 8 + lineCol[i + 1]);
+        return bits;
+    }
+
+    // devolve a única alteração entregue desde a última chamada
+    private GameChange single() {
+        assertEquals(1, changes.size(), changes.toString());
+        return changes.removeFirst();
+    }
+
+    // Test 1: Verify that moves, castling, undo and redo are each delivered as one change with their squares
+    @Test
+    void testMoves() {
+        assertTrue(game.movePiece(6, 4, 4, 4));
+        GameChange move = single();
+        assertEquals(EnumSet.of(GameChange.Category.BOARD, GameChange.Category.PLAYER), move.getCategories());
+        assertEquals(squares(6, 4, 4, 4), move.getChangedSquares());
+        assertFalse(move.getCurrentPlayer());
+        assertEquals(ChessGame.acontecimentoMovimento.NORMAL, move.getStatus());
+        assertSame(game.getSnapshot(), move.getSnapshot());
+
+        // um lance recusado não entrega nada
+        assertFalse(game.movePiece(4, 4, 2, 4));
+        assertTrue(changes.isEmpty());
+
+        int[][] moves = {{1, 4, 3, 4}, {7, 6, 5, 5}, {0, 1, 2, 2}, {7, 5, 4, 2}, {0, 5, 3, 2}};
+        for (int[] m : moves)
+            assertTrue(game.movePiece(m[0], m[1], m[2], m[3]));
+        assertEquals(5, changes.size());
+        changes.clear();
+        // roque pequeno: rei e torre mudam na mesma operação
+        assertTrue(game.movePiece(7, 4, 7, 7));
+        GameChange castle = single();
+        assertEquals(squares(7, 4, 7, 5, 7, 6, 7, 7), castle.getChangedSquares());
+        assertTrue(castle.has(GameChange.Category.PLAYER));
+
+        game.undo();
+        GameChange undo = single();
+        assertTrue(undo.has(GameChange.Category.BOARD));
+        assertTrue(undo.has(GameChange.Category.PLAYER));
+        assertTrue(undo.getCurrentPlayer());
+        game.redo();
+        assertFalse(single().getCurrentPlayer());
+    }
+
+    // Test 2: Verify the categories of a promotion, played whole or chosen afterwards, and of an import
+    @Test
+    void testPromotionAndImport(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("promocao.txt");
+        Files.writeString(file, "WHITE,Ke1,Pb7,kh8");
+        game.importGame(file.toString(), "Ana", "Rui");
+        GameChange imported = single();
+        assertEquals(64, imported.getChangedCount());
+        assertEquals(EnumSet.of(GameChange.Category.BOARD), imported.getCategories());
+
+        // o peão chega à última linha e espera pela escolha
+        assertTrue(game.movePiece(1, 1, 0, 1));
+        GameChange reached = single();
+        assertEquals(EnumSet.allOf(GameChange.Category.class), reached.getCategories());
+        assertEquals(ChessGame.acontecimentoMovimento.PROMOTION, reached.getStatus());
+        assertEquals(squares(1, 1, 0, 1), reached.getChangedSquares());
+
+        game.changePawnPromotion(true, 3);
+        GameChange chosen = single();
+        assertEquals(EnumSet.of(GameChange.Category.BOARD), chosen.getCategories());
+        assertEquals(squares(0, 1), chosen.getChangedSquares());
+        assertEquals('N', chosen.getSnapshot().getPiece(0, 1));
+        game.changePromotionState();
+        GameChange ended = single();
+        assertEquals(EnumSet.of(GameChange.Category.PROMOTION, GameChange.Category.STATUS), ended.getCategories());
+        assertEquals(ChessGame.acontecimentoMovimento.NORMAL, ended.getStatus());
+
+        // o lance completo é uma só alteração, sem passar pelo estado de promoção
+        game.importGame(file.toString(), "Ana", "Rui");
+        changes.clear();
+        assertTrue(game.movePiece(1, 1, 0, 1, 0));
+        GameChange whole = single();
+        assertEquals(EnumSet.of(GameChange.Category.BOARD, GameChange.Category.PLAYER), whole.getCategories());
+        assertEquals('Q', whole.getSnapshot().getPiece(0, 1));
+    }
+
+    // Test 3: Verify that a listener only receives the changes of the categories it subscribed to
+    @Test
+    void testCategoryFilter() {
+        List<GameChange> status = new ArrayList<>();
+        game.addChangeListener(status::add, GameChange.Category.STATUS);
+        // mate do louco
+        int[][] moves = {{6, 5, 5, 5}, {1, 4, 3, 4}, {6, 6, 4, 6}, {0, 3, 4, 7}};
+        for (int[] m : moves)
+            assertTrue(game.movePiece(m[0], m[1], m[2], m[3]));
+        assertEquals(4, changes.size());
+        assertEquals(1, status.size());
+        assertEquals(ChessGame.acontecimentoMovimento.CHECKMATE, status.getFirst().getStatus());
+        assertSame(changes.getLast(), status.getFirst());
+    }
+}
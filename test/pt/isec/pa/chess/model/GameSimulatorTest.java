@@ -0,0 +1,56 @@
+package pt.isec.pa.chess.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameSimulatorTest {
+
+    private static int[] moves(int[][] moves) {
+        int[] encoded = new int[moves.length];
+        for (int i = 0; i < moves.length; i++)
+            encoded[i] = GameSimulator.encode(moves[i][0], moves[i][1], moves[i][2], moves[i][3]);
+        return encoded;
+    }
+
+    private static final int[] SCHOLARS_MATE = moves(new int[][]{
+            {6, 4, 4, 4}, {1, 4, 3, 4}, {7, 5, 4, 2}, {1, 1, 2, 1}, {7, 3, 3, 7}, {0, 6, 2, 5}, {3, 7, 1, 5}});
+
+    // Test 1: Verify that a batch stops at checkmate
+    @Test
+    void testBatchEndsAtCheckmate() {
+        GameSimulator.Result result = GameSimulator.simulate(SCHOLARS_MATE);
+        assertEquals(7, result.played());
+        assertEquals(ChessGame.acontecimentoMovimento.CHECKMATE, result.outcome());
+        assertEquals('Q', result.game().getSimboloPecaLocalizada(1, 5));
+    }
+
+    // Test 2: Verify that a batch stops at the first illegal move
+    @Test
+    void testBatchStopsAtIllegalMove() {
+        GameSimulator.Result result = GameSimulator.simulate(moves(new int[][]{{6, 4, 4, 4}, {6, 3, 4, 3}, {1, 4, 3, 4}}));
+        assertEquals(1, result.played());
+        assertEquals(ChessGame.acontecimentoMovimento.FALHIDO, result.outcome());
+        assertFalse(result.game().getCurrentPlayer());
+    }
+
+    // Test 3: Verify that simulations print nothing and parallel batches match sequential ones
+    @Test
+    void testQuietAndParallel() {
+        PrintStream out = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(printed));
+        try {
+            List<GameSimulator.Result> results = GameSimulator.simulateAll(List.of(SCHOLARS_MATE, SCHOLARS_MATE));
+            for (GameSimulator.Result result : results)
+                assertEquals(ChessGame.acontecimentoMovimento.CHECKMATE, result.outcome());
+        } finally {
+            System.setOut(out);
+        }
+        assertEquals(0, printed.size());
+    }
+}
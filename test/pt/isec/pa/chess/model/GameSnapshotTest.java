@@ -0,0 +1,96 @@
+package pt.isec.pa.chess.model;
+
+import org.junit.jupiter.api.Test;
+import pt.isec.pa.chess.model.engine.Position;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameSnapshotTest {
+    private static final int[][] OPENING = {{6, 4, 4, 4}, {1, 4, 3, 4}, {7, 6, 5, 5}, {0, 1, 2, 2}, {7, 5, 4, 2},
+            {0, 5, 3, 2}, {7, 4, 7, 7}, {0, 6, 2, 5}};
+
+    // as casas de um snapshot lidas a partir do FEN da sua posição
+    private static char[] board(String fen) {
+        char[] pieces = new char[64];
+        Arrays.fill(pieces, ' ');
+        int sq = 0;
+        for (char c : fen.split(" ")[0].toCharArray()) {
+            if (c == '/') continue;
+            if (Character.isDigit(c)) sq += c - '0';
+            else pieces[sq++] = c;
+        }
+        return pieces;
+    }
+
+    // Test 1: Verify that every change publishes a higher version and old snapshots never change
+    @Test
+    void testVersionsAndImmutability() {
+        ChessGameManager game = new ChessGameManager();
+        game.setQuiet(true);
+        GameSnapshot first = game.getSnapshot();
+        String fen = first.toFen();
+        char[] pieces = first.getPieces();
+        long key = first.getKey();
+
+        // as cópias devolvidas podem ser alteradas sem afetar o snapshot
+        first.getPieces()[52] = 'X';
+        Position copy = first.getPosition();
+        copy.makeMove(copy.parseUciMove("e2e4"));
+        assertEquals(key, first.getKey());
+
+        long version = first.getVersion();
+        for (int[] m : OPENING) {
+            assertTrue(game.movePiece(m[0], m[1], m[2], m[3]));
+            GameSnapshot next = game.getSnapshot();
+            assertTrue(next.getVersion() > version);
+            version = next.getVersion();
+        }
+        assertFalse(game.movePiece(0, 0, 0, 0));
+        assertEquals(version, game.getSnapshot().getVersion());
+
+        assertEquals(fen, first.toFen());
+        assertArrayEquals(pieces, first.getPieces());
+        assertEquals(key, first.getKey());
+        assertTrue(first.getCurrentPlayer());
+        assertEquals(ChessGame.acontecimentoMovimento.NORMAL, first.getStatus());
+        assertEquals('P', first.getPiece(6, 4));
+        assertEquals(' ', game.getSnapshot().getPiece(6, 4));
+    }
+
+    // Test 2: Verify that a reader on another thread only sees whole snapshots, in order
+    @Test
+    void testReaderSeesWholeSnapshots() throws InterruptedException {
+        ChessGameManager game = new ChessGameManager();
+        game.setQuiet(true);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            try {
+                long last = -1;
+                while (running.get()) {
+                    GameSnapshot s = game.getSnapshot();
+                    assertTrue(s.getVersion() >= last);
+                    last = s.getVersion();
+                    assertArrayEquals(board(s.toFen()), s.getPieces());
+                    assertEquals(s.getCurrentPlayer(), s.toFen().split(" ")[1].equals("w"));
+                    assertEquals(Position.fromFen(s.toFen()).key(), s.getKey());
+                }
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            }
+        });
+        reader.start();
+        for (int round = 0; round < 200; round++) {
+            game.novoGame("Ana", "Rui");
+            for (int[] m : OPENING)
+                assertTrue(game.movePiece(m[0], m[1], m[2], m[3]));
+        }
+        running.set(false);
+        reader.join();
+        assertNull(failure.get());
+    }
+}
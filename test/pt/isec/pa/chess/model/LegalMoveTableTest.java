@@ -0,0 +1,156 @@
+package pt.isec.pa.chess.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LegalMoveTableTest {
+
+    private static ChessGameManager play(int[][] moves) {
+        ChessGameManager game = new ChessGameManager();
+        game.setQuiet(true);
+        for (int[] m : moves)
+            assertTrue(game.movePiece(m[0], m[1], m[2], m[3]));
+        return game;
+    }
+
+    private static boolean contains(ArrayList<int[]> targets, int line, int col) {
+        return targets.stream().anyMatch(t -> t[0] == line && t[1] == col);
+    }
+
+    // compara, casa a casa, os destinos mostrados com os lances que movePiece aceita
+    private static void assertTargetsMatchMoves(int[][] moves) {
+        ChessGameManager game = play(moves);
+        int checked = 0;
+        for (int line = 0; line < 8; line++)
+            for (int col = 0; col < 8; col++) {
+                if (!game.isCurrentPlayerPiece(line, col)) continue;
+                ArrayList<int[]> targets = game.getMovesOfPiece(line, col);
+                char piece = Character.toLowerCase(game.getSnapshot().getPiece(line, col));
+                for (int toLine = 0; toLine < 8; toLine++)
+                    for (int toCol = 0; toCol < 8; toCol++) {
+                        if (toLine == line && toCol == col) continue;
+                        // o roque (rei para a torre, ou torre para o rei) não é mostrado como destino
+                        char other = Character.toLowerCase(game.getSnapshot().getPiece(toLine, toCol));
+                        if (piece == 'k' && toLine == line && Math.abs(toCol - col) > 1
+                                || piece == 'r' && other == 'k' && game.isCurrentPlayerPiece(toLine, toCol)) continue;
+                        boolean accepted = play(moves).movePiece(line, col, toLine, toCol);
+                        assertEquals(contains(targets, toLine, toCol), accepted,
+                                "lance " + line + "," + col + " -> " + toLine + "," + toCol);
+                        checked++;
+                    }
+            }
+        assertTrue(checked > 0);
+    }
+
+    // Test 1: Verify the targets of every piece in the starting position
+    @Test
+    void testStartingPosition() {
+        assertTargetsMatchMoves(new int[0][]);
+    }
+
+    // Test 2: Verify that a pinned piece and the king in check only show the moves that are accepted
+    @Test
+    void testPinAndCheck() {
+        // 1.e4 e5 2.Nf3 Nc6 3.Bb5 d6 4.d4: o cavalo de c6 está cravado
+        assertTargetsMatchMoves(new int[][]{{6, 4, 4, 4}, {1, 4, 3, 4}, {7, 6, 5, 5}, {0, 1, 2, 2}, {7, 5, 3, 1}, {1, 3, 2, 3},
+                {6, 3, 4, 3}});
+        // 1.f3 e5 2.g4: as pretas têm o mate em h4 entre os destinos da dama
+        assertTargetsMatchMoves(new int[][]{{6, 5, 5, 5}, {1, 4, 3, 4}, {6, 6, 4, 6}});
+        // 1.e4 f6 2.Qh5+: as pretas estão em xeque
+        assertTargetsMatchMoves(new int[][]{{6, 4, 4, 4}, {1, 5, 2, 5}, {7, 3, 3, 7}});
+    }
+
+    // Test 3: Verify en passant and promotion targets
+    @Test
+    void testEnPassantAndPromotion() {
+        // 1.e4 a6 2.e5 d5: exd6 en passant
+        assertTargetsMatchMoves(new int[][]{{6, 4, 4, 4}, {1, 0, 2, 0}, {4, 4, 3, 4}, {1, 3, 3, 3}});
+        // 1.h4 g5 2.hxg5 Nf6 3.g6 Ne4 4.gxh7 Nc3: o peão de h7 pode promover em h8 ou g8
+        assertTargetsMatchMoves(new int[][]{{6, 7, 4, 7}, {1, 6, 3, 6}, {4, 7, 3, 6}, {0, 6, 2, 5}, {3, 6, 2, 6},
+                {2, 5, 4, 4}, {2, 6, 1, 7}, {4, 4, 5, 2}});
+    }
+
+    private static String toString(List<int[]> targets) {
+        StringBuilder sb = new StringBuilder();
+        for (int[] t : targets)
+            sb.append(t[0]).append(t[1]).append(' ');
+        return sb.toString();
+    }
+
+    // compara, para cada peça do jogador a jogar, a tabela do gestor com os lances dados pelo ChessGame
+    private static void assertSameMovesAsGame(ChessGameManager game, ChessGame reference) {
+        for (int line = 0; line < 8; line++)
+            for (int col = 0; col < 8; col++) {
+                if (!reference.isCurrentPlayerPiece(line, col)) continue;
+                assertEquals(toString(reference.getMovesOfPiece(line, col)), toString(game.getMovesOfPiece(line, col)),
+                        "peça em " + line + "," + col);
+            }
+    }
+
+    // Test 4: Verify that the table gives the moves of ChessGame along random games
+    @Test
+    void testRandomGamesMatchChessGame() {
+        Random random = new Random(20260519L);
+        for (int g = 0; g < 20; g++) {
+            ChessGameManager game = new ChessGameManager();
+            game.setQuiet(true);
+            ChessGame reference = new ChessGame();
+            reference.setQuiet(true);
+            for (int ply = 0; ply < 80; ply++) {
+                assertSameMovesAsGame(game, reference);
+                List<int[]> moves = new ArrayList<>();
+                for (int line = 0; line < 8; line++)
+                    for (int col = 0; col < 8; col++)
+                        if (reference.isCurrentPlayerPiece(line, col))
+                            for (int[] to : reference.getMovesOfPiece(line, col))
+                                moves.add(new int[]{line, col, to[0], to[1]});
+                Collections.shuffle(moves, random);
+                boolean played = false;
+                for (int[] m : moves) {
+                    boolean player = reference.getCurrentPlayer();
+                    ChessGame.acontecimentoMovimento result = reference.movePiece(m[0], m[1], m[2], m[3]);
+                    boolean accepted = game.movePiece(m[0], m[1], m[2], m[3], 0);
+                    assertEquals(result != ChessGame.acontecimentoMovimento.FALHIDO, accepted);
+                    if (!accepted) continue;
+                    if (result == ChessGame.acontecimentoMovimento.PROMOTION)
+                        reference.changePawnPromotion(player, 0);
+                    played = true;
+                    break;
+                }
+                if (!played || game.isGameOver()) break;
+            }
+        }
+    }
+
+    // Test 5: Verify positions where the moves of ChessGame and of the engine differ
+    @Test
+    void testPositionsWhereTheEngineDiffers(@TempDir Path dir) throws IOException {
+        String[] positions = {
+                // r2n4/8/b7/1pK1rk1p/1P3N1P/5P2/4B1N1/B5R1 w
+                "WHITE,ra8,nd8,ba6,pb5,Kc5,re5,kf5,ph5,Pb4,Nf4,Ph4,Pf3,Be2,Ng2,Ba1,Rg1",
+                // 3q4/r1nbkprp/1ppp3n/p4Np1/P1P1PPPb/N2p1K2/RP1B4/R7 b
+                "BLACK,qd8,ra7,nc7,bd7,ke7,pf7,rg7,ph7,pb6,pc6,pd6,nh6,pa5,Nf5,pg5,Pa4,Pc4,Pe4,Pf4,Pg4,bh4,Na3,pd3,Kf3,"
+                        + "Ra2,Pb2,Bd2,Ra1"};
+        for (String position : positions) {
+            Path file = dir.resolve("posicao.txt");
+            Files.writeString(file, position);
+            ChessGameManager game = new ChessGameManager();
+            game.setQuiet(true);
+            game.importGame(file.toString(), "Ana", "Rui");
+            ChessGame reference = new ChessGame();
+            reference.setQuiet(true);
+            assertTrue(reference.importGame(position, "Ana", "Rui"));
+            assertSameMovesAsGame(game, reference);
+        }
+    }
+}
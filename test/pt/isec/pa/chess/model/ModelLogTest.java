@@ -0,0 +1,83 @@
+package pt.isec.pa.chess.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModelLogTest {
+
+    // Test 1: Verify that only the last events are kept, oldest first
+    @Test
+    void testEviction() {
+        ModelLog log = new ModelLog(5);
+        for (int i = 0; i < 12; i++)
+            log.addLog("evento " + i);
+        assertEquals(List.of("evento 7", "evento 8", "evento 9", "evento 10", "evento 11"), log.getLogs());
+
+        log.addMove(true, 'N', 7, 6, 5, 5);
+        log.addCastle(false, 0, 4, 0, 7);
+        List<LogEvent> events = log.getEvents();
+        assertEquals(5, events.size());
+        assertEquals("evento 9", events.getFirst().toString());
+        LogEvent move = events.get(3);
+        assertEquals(LogEvent.Type.MOVE, move.getType());
+        assertEquals('N', move.getPiece());
+        assertEquals(7 * 8 + 6, move.getFrom());
+        assertEquals(5 * 8 + 5, move.getTo());
+        assertEquals("Jogador Branco moveu N de (g1) para (f3)", move.toString());
+        assertEquals(LogEvent.Type.CASTLE, events.getLast().getType());
+        assertFalse(events.getLast().isWhite());
+
+        // mensagens repetidas não entram duas vezes e limpar esquece tudo
+        log.clearLogs();
+        assertTrue(log.getEvents().isEmpty());
+        log.addLog("repetido");
+        log.addLog("repetido");
+        log.addLog("pesquisa: ", 42);
+        assertEquals(List.of("repetido", "pesquisa: 42"), log.getLogs());
+        assertThrows(IllegalArgumentException.class, () -> new ModelLog(0));
+    }
+
+    // Test 2: Verify that readers never see a torn or out-of-order event while the buffer wraps around
+    @Test
+    void testConcurrentReaders() throws InterruptedException {
+        // 15 eventos num buffer de 16: o escritor reescreve logo a posição mais antiga que se está a ler
+        ModelLog log = new ModelLog(15);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] readers = new Thread[3];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread(() -> {
+                try {
+                    while (running.get()) {
+                        List<LogEvent> events = log.getEvents();
+                        assertTrue(events.size() <= 15);
+                        long previous = -1;
+                        for (LogEvent e : events) {
+                            // o texto e o detalhe de cada evento têm o mesmo número, e os números seguem-se
+                            String[] parts = e.toString().split(":");
+                            long i = Long.parseLong(parts[1]);
+                            assertEquals("n" + i, parts[0]);
+                            assertEquals(LogEvent.Type.MESSAGE, e.getType());
+                            if (previous >= 0) assertEquals(previous + 1, i);
+                            previous = i;
+                        }
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            });
+            readers[r].start();
+        }
+        for (long i = 0; i < 300_000; i++)
+            log.addLog("n" + i + ":", i);
+        running.set(false);
+        for (Thread reader : readers)
+            reader.join();
+        assertNull(failure.get());
+    }
+}
@@ -0,0 +1,120 @@
+package pt.isec.pa.chess.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionCacheTest {
+
+    // verifica que a pergunta seguinte é calculada de novo e a repetição já vem da cache
+    private static void assertRecomputedOnce(ChessGameManager game, Runnable query) {
+        long hits = game.getPositionCacheHits(), misses = game.getPositionCacheMisses();
+        query.run();
+        assertEquals(misses + 1, game.getPositionCacheMisses());
+        assertEquals(hits, game.getPositionCacheHits());
+        query.run();
+        assertEquals(misses + 1, game.getPositionCacheMisses());
+        assertEquals(hits + 1, game.getPositionCacheHits());
+    }
+
+    // Test 1: Verify that a value is computed on the first query of a position and found on the next ones
+    @Test
+    void testHitsAndMisses() {
+        PositionCache cache = new PositionCache(2);
+        PositionCache.Entry entry = cache.get(1);
+        assertTrue(entry.isInCheck(true, () -> true));
+        assertTrue(cache.get(1).isInCheck(true, () -> false));
+        assertFalse(entry.isInCheck(false, () -> false));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+
+        // a posição menos usada sai quando a cache enche
+        cache.get(2);
+        cache.get(1);
+        cache.get(3);
+        assertEquals(2, cache.size());
+        assertSame(entry, cache.get(1));
+        assertFalse(cache.get(2).isInCheck(true, () -> false));
+        assertEquals(3, cache.getMisses());
+
+        ChessGameManager game = new ChessGameManager();
+        assertRecomputedOnce(game, () -> assertArrayEquals(new int[]{7, 4}, game.getKingPosition(true)));
+    }
+
+    // Test 2: Verify that moves, undo, redo and imports lead to the values of the new position
+    @Test
+    void testInvalidation(@TempDir Path dir) throws IOException {
+        ChessGameManager game = new ChessGameManager();
+        game.setQuiet(true);
+        assertRecomputedOnce(game, () -> assertFalse(game.KingInCheck(true)));
+
+        int[][] moves = {{6, 5, 5, 5}, {1, 4, 3, 4}, {6, 6, 4, 6}, {0, 3, 4, 7}};
+        for (int[] m : moves)
+            assertTrue(game.movePiece(m[0], m[1], m[2], m[3]));
+        assertRecomputedOnce(game, () -> assertTrue(game.KingInCheck(true)));
+
+        game.undo();
+        assertRecomputedOnce(game, () -> assertFalse(game.KingInCheck(true)));
+        game.redo();
+        // o redo chega a uma posição nova, que também é calculada uma só vez
+        assertRecomputedOnce(game, () -> game.KingInCheck(true));
+
+        Path file = dir.resolve("posicao.txt");
+        Files.writeString(file, "WHITE,Ka1,Pb7,kh8");
+        game.importGame(file.toString(), "Ana", "Rui");
+        assertRecomputedOnce(game, () -> assertArrayEquals(new int[]{7, 0}, game.getKingPosition(true)));
+        assertRecomputedOnce(game, () -> assertArrayEquals(new int[]{0, 7}, game.getKingPosition(false)));
+    }
+
+    private static String toString(ArrayList<int[]> targets) {
+        StringBuilder sb = new StringBuilder();
+        for (int[] t : targets)
+            sb.append(t[0]).append(t[1]).append(' ');
+        return sb.toString();
+    }
+
+    // Test 3: Verify that the cached legal moves, computed or found, are the ones ChessGame gives
+    @Test
+    void testLegalMovesMatchChessGame() {
+        ChessGame reference = new ChessGame();
+        reference.setQuiet(true);
+        int[][] moves = {{6, 4, 4, 4}, {1, 3, 3, 3}, {4, 4, 3, 4}, {1, 5, 3, 5}};
+        for (int[] m : moves)
+            reference.movePiece(m[0], m[1], m[2], m[3]);
+        // 1.e4 d5 2.e5 f5: exf6 en passant está entre os lances do peão de e5
+        assertTrue(toString(reference.getMovesOfPiece(3, 4)).contains("25 "));
+
+        PositionCache cache = new PositionCache(4);
+        for (int i = 0; i < 2; i++) {
+            LegalMoveTable table = cache.get(7).getLegalMoves(
+                    () -> LegalMoveTable.of(reference.getBoard(), reference.getCurrentPlayer()));
+            for (int line = 0; line < 8; line++)
+                for (int col = 0; col < 8; col++)
+                    if (reference.isCurrentPlayerPiece(line, col))
+                        assertEquals(toString(reference.getMovesOfPiece(line, col)), toString(table.getMoves(line, col)));
+        }
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+
+        // 1.Nf3 Nf6 2.Ng1 Ng8 volta à posição inicial, cuja tabela já está na cache
+        ChessGameManager game = new ChessGameManager();
+        game.setQuiet(true);
+        ChessGame start = new ChessGame();
+        start.setQuiet(true);
+        String before = toString(game.getMovesOfPiece(7, 6));
+        for (int[] m : new int[][]{{7, 6, 5, 5}, {0, 6, 2, 5}, {5, 5, 7, 6}, {2, 5, 0, 6}})
+            assertTrue(game.movePiece(m[0], m[1], m[2], m[3]));
+        long hits = game.getPositionCacheHits();
+        for (int line = 6; line < 8; line++)
+            for (int col = 0; col < 8; col++)
+                assertEquals(toString(start.getMovesOfPiece(line, col)), toString(game.getMovesOfPiece(line, col)));
+        assertEquals(hits + 16, game.getPositionCacheHits());
+        assertEquals(before, toString(game.getMovesOfPiece(7, 6)));
+    }
+}
@@ -0,0 +1,82 @@
+package pt.isec.pa.chess.model.book;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.ChessGameManager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PolyglotKeyTest {
+
+    private static Path writeBook(Path dir, long key, short... moves) throws IOException {
+        ByteBuffer book = ByteBuffer.allocate(16 * moves.length);
+        for (short move : moves)
+            book.putLong(key).putShort(move).putShort((short) 1).putInt(0);
+        Path file = dir.resolve("livro.bin");
+        Files.write(file, book.array());
+        return file;
+    }
+
+    // Test 1: Verify the keys against the reference values published with the Polyglot format
+    @Test
+    void testReferenceKeys() {
+        ChessGame game = new ChessGame();
+        game.setQuiet(true);
+        assertEquals(0x463b96181691fc9cL, PolyglotKey.of(game));
+        game.movePiece(6, 4, 4, 4); // e2e4
+        assertEquals(0x823c9b50fd114196L, PolyglotKey.of(game));
+        game.movePiece(1, 3, 3, 3); // d7d5
+        assertEquals(0x0756b94461c50fb0L, PolyglotKey.of(game));
+        game.movePiece(4, 4, 3, 4); // e4e5
+        assertEquals(0x662fafb965db29d4L, PolyglotKey.of(game));
+        game.movePiece(1, 5, 3, 5); // f7f5, com en passant possível
+        assertEquals(0x22a48b5a8e47ff78L, PolyglotKey.of(game));
+        game.movePiece(7, 4, 6, 4); // e1e2, as brancas perdem o roque
+        assertEquals(0x652a607ca3f242c1L, PolyglotKey.of(game));
+        game.movePiece(0, 4, 1, 5); // e8f7
+        assertEquals(0x00fdd303c946bdd9L, PolyglotKey.of(game));
+
+        game = new ChessGame();
+        game.setQuiet(true);
+        int[][] moves = {{6, 0, 4, 0}, {1, 1, 3, 1}, {6, 7, 4, 7}, {3, 1, 4, 1}, {6, 2, 4, 2}}; // a4 b5 h4 b4 c4
+        for (int[] m : moves)
+            game.movePiece(m[0], m[1], m[2], m[3]);
+        assertEquals(0x3c8123ea7b067637L, PolyglotKey.of(game));
+        game.movePiece(4, 1, 5, 2); // b4c3 en passant
+        game.movePiece(7, 0, 5, 0); // a1a3
+        assertEquals(0x5c3f9b829b279560L, PolyglotKey.of(game));
+    }
+
+    // Test 2: Verify that a book that cannot be read is refused instead of failing later
+    @Test
+    void testUnreadableBookFailsCleanly(@TempDir Path dir) {
+        ChessGameManager game = new ChessGameManager();
+        assertFalse(game.loadOpeningBook(dir.resolve("inexistente.bin").toString()));
+        assertTrue(game.getLog().getLogs().stream().anyMatch(l -> l.contains("livro de aberturas")));
+        assertNull(game.getBookMove());
+    }
+
+    // Test 3: Verify that book moves are decoded to board coordinates with their promotion
+    @Test
+    void testBookMoveDecoding(@TempDir Path dir) throws IOException {
+        // e7e8q: coluna de destino, linha de destino, coluna de origem, linha de origem, promoção
+        short promotion = (short) (4 | 7 << 3 | 4 << 6 | 6 << 9 | 4 << 12);
+        try (PolyglotBook book = new PolyglotBook(writeBook(dir, 0x1234L, promotion).toString())) {
+            assertEquals(1, book.count(0x1234L));
+            short move = book.pickMove(0x1234L);
+            assertEquals(promotion, move);
+            assertEquals(1, PolyglotBook.fromLine(move));
+            assertEquals(4, PolyglotBook.fromColumn(move));
+            assertEquals(0, PolyglotBook.toLine(move));
+            assertEquals(4, PolyglotBook.toColumn(move));
+            assertEquals(4, PolyglotBook.promotion(move));
+            assertEquals(0, book.pickMove(0x4321L));
+        }
+    }
+}
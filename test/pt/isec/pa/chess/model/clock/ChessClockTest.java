@@ -0,0 +1,103 @@
+package pt.isec.pa.chess.model.clock;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.ChessGameManager;
+
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChessClockTest {
+
+    // Test 1: Verify that the player who moved gets the increment and the delay is not counted
+    @Test
+    void testIncrementAndDelay() throws InterruptedException {
+        TimerWheel wheel = new TimerWheel("test-clock");
+        ChessClock increment = new ChessClock(TimeControl.increment(10_000, 2_000));
+        increment.start(true, wheel, () -> {});
+        Thread.sleep(50);
+        assertTrue(increment.switchTo(false));
+        long white = increment.getRemainingMillis(true);
+        assertTrue(white > 11_800 && white < 11_960, "brancas: " + white);
+        assertEquals(10_000, increment.getRemainingMillis(false), 20);
+
+        ChessClock delay = new ChessClock(TimeControl.delay(10_000, 500));
+        delay.start(true, wheel, () -> {});
+        Thread.sleep(100);
+        assertEquals(10_000, delay.getRemainingMillis(true));
+        wheel.stop();
+    }
+
+    // Test 2: Verify that the flag ends the game through the manager and no move is played afterwards
+    @Test
+    void testFlagEndsGame() throws InterruptedException {
+        ChessGameManager game = new ChessGameManager();
+        CountDownLatch ended = new CountDownLatch(1);
+        game.addPropertyChangeListener(ChessGameManager.PROP_GAME_OVER, e -> ended.countDown());
+        game.startClock(TimeControl.increment(100, 0), Runnable::run);
+
+        assertTrue(ended.await(2, TimeUnit.SECONDS));
+        assertTrue(game.getClock().isFlagged());
+        assertTrue(game.getClock().getFlaggedPlayer());
+        assertEquals(ChessGame.acontecimentoMovimento.TIMEOUT, game.getSnapshot().getStatus());
+        assertTrue(game.isGameOver());
+        assertFalse(game.movePiece(6, 4, 4, 4));
+        assertTrue(game.getLog().getLogs().stream().anyMatch(l -> l.contains("Tempo esgotado")));
+    }
+
+    // Test 3: Verify that the clock is saved with the game and resumes when it is opened
+    @Test
+    void testClockIsSaved(@TempDir Path dir) throws InterruptedException {
+        String file = dir.resolve("jogo.dat").toString();
+        ChessGameManager game = new ChessGameManager();
+        game.startClock(TimeControl.increment(60_000, 0), Runnable::run);
+        assertTrue(game.movePiece(6, 4, 4, 4));
+        Thread.sleep(100);
+        assertTrue(game.saveJogo(file));
+        game.stopClock();
+        long white = game.getClock().getRemainingMillis(true), black = game.getClock().getRemainingMillis(false);
+
+        // sem executor o relógio aberto fica parado até haver um
+        ChessGameManager opened = new ChessGameManager();
+        opened.openJogo(file);
+        ChessClock clock = opened.getClock();
+        assertNotNull(clock);
+        assertFalse(clock.isRunning());
+        assertEquals(white, clock.getRemainingMillis(true));
+        assertEquals(black, clock.getRemainingMillis(false), 50);
+        opened.setClockExecutor(Runnable::run);
+        assertTrue(clock.isRunning());
+        assertFalse(clock.getTurn());
+        assertEquals(black, clock.getRemainingMillis(false), 50);
+        assertEquals(white, clock.getRemainingMillis(true));
+        opened.stopClock();
+    }
+
+    // Test 4: Verify that one wheel flags 100 000 clocks on time
+    @Test
+    void testManyClocks() throws InterruptedException {
+        TimerWheel wheel = new TimerWheel("test-clock");
+        int count = 100_000;
+        CountDownLatch flags = new CountDownLatch(count);
+        AtomicLong worstLateness = new AtomicLong();
+        for (int i = 0; i < count; i++) {
+            long millis = 200 + i % 300;
+            ChessClock clock = new ChessClock(TimeControl.increment(millis, 0));
+            long due = System.nanoTime() + millis * 1_000_000;
+            clock.start(true, wheel, () -> {
+                worstLateness.accumulateAndGet(System.nanoTime() - due, Math::max);
+                flags.countDown();
+            });
+        }
+        assertTrue(flags.await(10, TimeUnit.SECONDS));
+        assertTrue(worstLateness.get() < TimeUnit.MILLISECONDS.toNanos(50),
+                "atraso: " + worstLateness.get() / 1_000_000 + " ms");
+        assertEquals(0, wheel.size());
+        wheel.stop();
+    }
+}
@@ -0,0 +1,152 @@
+package pt.isec.pa.chess.model.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pt.isec.pa.chess.model.ChessGameManager;
+import pt.isec.pa.chess.model.LogEvent;
+import pt.isec.pa.chess.model.engine.Move;
+import pt.isec.pa.chess.model.engine.SearchResult;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveJournalTest {
+
+    private static void play(ChessGameManager game, int... squares) {
+        for (int i = 0; i < squares.length; i += 4)
+            assertTrue(game.movePiece(squares[i], squares[i + 1], squares[i + 2], squares[i + 3]));
+    }
+
+    private static ChessGameManager recover(String file) {
+        ChessGameManager game = new ChessGameManager();
+        assertTrue(game.enableJournal(file, MoveJournal.SyncMode.NONE));
+        return game;
+    }
+
+    private static String fen(ChessGameManager game) {
+        return game.getSnapshot().toFen();
+    }
+
+    // Test 1: Verify that moves played after a missing journal is recreated are recovered
+    @Test
+    void testMissingJournal(@TempDir Path dir) throws IOException {
+        String file = dir.resolve("jogo.dat").toString();
+        ChessGameManager game = new ChessGameManager();
+        assertFalse(game.enableJournal(file, MoveJournal.SyncMode.NONE));
+        String start = fen(game);
+        play(game, 6, 4, 4, 4);
+        game.disableJournal();
+        Files.delete(Path.of(file + ".journal"));
+
+        ChessGameManager recovered = recover(file);
+        assertEquals(start, fen(recovered));
+        play(recovered, 6, 3, 4, 3, 1, 3, 3, 3);
+        recovered.disableJournal();
+        assertEquals(fen(recovered), fen(recover(file)));
+    }
+
+    // Test 2: Verify that a journal with the header of an older snapshot is started again
+    @Test
+    void testStaleHeader(@TempDir Path dir) throws IOException {
+        String file = dir.resolve("jogo.dat").toString();
+        ChessGameManager game = new ChessGameManager();
+        game.enableJournal(file, MoveJournal.SyncMode.NONE);
+        String start = fen(game);
+        play(game, 6, 4, 4, 4, 1, 4, 3, 4);
+        game.disableJournal();
+        // CRC de outro snapshot, como depois de uma falha a meio de um checkpoint
+        try (var channel = Files.newByteChannel(Path.of(file + ".journal"), StandardOpenOption.WRITE)) {
+            channel.position(4);
+            channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3, 4}));
+        }
+
+        ChessGameManager recovered = recover(file);
+        assertEquals(start, fen(recovered));
+        play(recovered, 7, 6, 5, 5);
+        recovered.disableJournal();
+        assertEquals(fen(recovered), fen(recover(file)));
+    }
+
+    // Test 3: Verify that a torn last record is dropped and the next records follow the good ones
+    @Test
+    void testTornRecord(@TempDir Path dir) throws IOException {
+        String file = dir.resolve("jogo.dat").toString();
+        ChessGameManager game = new ChessGameManager();
+        game.enableJournal(file, MoveJournal.SyncMode.NONE);
+        play(game, 6, 4, 4, 4, 1, 4, 3, 4);
+        game.disableJournal();
+        Files.write(Path.of(file + ".journal"), new byte[]{0x12}, StandardOpenOption.APPEND);
+
+        ChessGameManager recovered = recover(file);
+        assertEquals(fen(game), fen(recovered));
+        play(recovered, 7, 6, 5, 5);
+        recovered.disableJournal();
+        assertEquals(fen(recovered), fen(recover(file)));
+    }
+
+    // Test 4: Verify that castling, undo and redo are journaled and replayed
+    @Test
+    void testCastleUndoRedoReplay(@TempDir Path dir) {
+        String file = dir.resolve("jogo.dat").toString();
+        ChessGameManager game = new ChessGameManager();
+        game.enableJournal(file, MoveJournal.SyncMode.NONE);
+        play(game, 6, 4, 4, 4, 1, 4, 3, 4, 7, 6, 5, 5, 0, 1, 2, 2, 7, 5, 4, 2, 0, 5, 3, 2);
+        // roque pequeno: o rei vai para a casa da torre
+        assertTrue(game.movePiece(7, 4, 7, 7));
+        assertTrue(game.getLog().getEvents().stream().anyMatch(e -> e.getType() == LogEvent.Type.CASTLE));
+        game.undo();
+        game.redo();
+        game.undo();
+        game.disableJournal();
+
+        // a reposição passa pelos mesmos undo/redo que o jogo original
+        ChessGameManager recovered = recover(file);
+        assertEquals(fen(game), fen(recovered));
+        game.redo();
+        recovered.redo();
+        assertEquals(fen(game), fen(recovered));
+    }
+
+    private static long castles(ChessGameManager game) {
+        return game.getLog().getEvents().stream().filter(e -> e.getType() == LogEvent.Type.CASTLE).count();
+    }
+
+    // Test 5: Verify that a castle played by the engine is logged and journaled once, like one played by the user
+    @Test
+    void testEngineCastle(@TempDir Path dir) throws IOException {
+        int[] opening = {6, 4, 4, 4, 1, 4, 3, 4, 7, 6, 5, 5, 0, 1, 2, 2, 7, 5, 4, 2, 0, 5, 3, 2};
+        String userFile = dir.resolve("utilizador.dat").toString();
+        ChessGameManager user = new ChessGameManager();
+        user.enableJournal(userFile, MoveJournal.SyncMode.NONE);
+        play(user, opening);
+        assertTrue(user.movePiece(7, 4, 7, 7));
+        user.disableJournal();
+
+        String engineFile = dir.resolve("motor.dat").toString();
+        ChessGameManager engine = new ChessGameManager();
+        engine.enableJournal(engineFile, MoveJournal.SyncMode.NONE);
+        play(engine, opening);
+        long before = Files.size(Path.of(engineFile + ".journal"));
+        // O-O das brancas: e1 (4) para g1 (6)
+        int castle = Move.of(4, 6, Move.CASTLE);
+        assertTrue(engine.playEngineResult(new SearchResult(castle, 0, 1, 1, 0, new int[]{castle})));
+        assertEquals(fen(user), fen(engine));
+        assertEquals(1, castles(engine));
+        assertEquals(castles(user), castles(engine));
+        assertTrue(Files.size(Path.of(engineFile + ".journal")) > before);
+        engine.disableJournal();
+        assertEquals(Files.size(Path.of(userFile + ".journal")), Files.size(Path.of(engineFile + ".journal")));
+
+        ChessGameManager recovered = recover(engineFile);
+        assertEquals(fen(engine), fen(recovered));
+        // depois de desfazer o roque, a reposição chega ao mesmo jogo
+        recovered.undo();
+        recovered.disableJournal();
+        assertEquals(fen(recovered), fen(recover(engineFile)));
+    }
+}
@@ -0,0 +1,105 @@
+package pt.isec.pa.chess.model.data;
+
+import org.junit.jupiter.api.Test;
+import pt.isec.pa.chess.model.engine.Move;
+import pt.isec.pa.chess.model.engine.Position;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveListCodecTest {
+
+    // joga lances legais ao acaso até ao fim do jogo ou ao número de meios-lances pedido
+    private static int[] randomGame(Random random, int maxPlies) {
+        Position p = Position.startPosition();
+        int[] buffer = new int[Position.MAX_MOVES];
+        int[] game = new int[maxPlies];
+        int plies = 0;
+        while (plies < maxPlies) {
+            int n = p.generateLegalMoves(buffer);
+            if (n == 0) break;
+            game[plies] = buffer[random.nextInt(n)];
+            p.makeMove(game[plies++]);
+        }
+        return Arrays.copyOf(game, plies);
+    }
+
+    // Test 1: Verify that a game is decoded and replayed as it was played
+    @Test
+    void testSingleGame() {
+        Random random = new Random(7);
+        Position start = Position.startPosition();
+        for (int i = 0; i < 20; i++) {
+            int[] game = randomGame(random, 200);
+            byte[] data = MoveListCodec.encode(start, game, game.length);
+            assertArrayEquals(game, MoveListCodec.decode(start, data));
+
+            Position end = start.copy();
+            for (int move : game) end.makeMove(move);
+            Position replayed = start.copy();
+            assertEquals(game.length, MoveListCodec.replay(replayed, data));
+            assertEquals(end.toFen(), replayed.toFen());
+        }
+        assertEquals(start.toFen(), Position.startPosition().toFen());
+
+        // o número de meios-lances e um byte por cada um
+        int[] opening = {start.parseUciMove("e2e4")};
+        assertEquals(2, MoveListCodec.encode(start, opening, 1).length);
+        assertArrayEquals(new int[0], MoveListCodec.decode(start, MoveListCodec.encode(start, opening, 0)));
+        assertThrows(IllegalArgumentException.class,
+                () -> MoveListCodec.encode(start, new int[]{Move.of(Move.parseSquare("e2"), Move.parseSquare("e5"))}, 1));
+    }
+
+    // Test 2: Verify that a batch of games is decoded in order
+    @Test
+    void testGames() {
+        Random random = new Random(11);
+        List<int[]> games = new ArrayList<>();
+        for (int i = 0; i < 50; i++)
+            games.add(randomGame(random, random.nextInt(150)));
+        games.add(new int[0]);
+        Position start = Position.startPosition();
+        List<int[]> decoded = MoveListCodec.decodeGames(start, MoveListCodec.encodeGames(start, games));
+        assertEquals(games.size(), decoded.size());
+        for (int i = 0; i < games.size(); i++)
+            assertArrayEquals(games.get(i), decoded.get(i));
+        assertTrue(MoveListCodec.decodeGames(start, MoveListCodec.encodeGames(start, List.of())).isEmpty());
+    }
+
+    // Test 3: Verify that truncated, extended or foreign data is refused
+    @Test
+    void testInvalidData() {
+        Random random = new Random(3);
+        Position start = Position.startPosition();
+        int[] game = randomGame(random, 60);
+        byte[] data = MoveListCodec.encode(start, game, game.length);
+        for (int length = 0; length < data.length; length++) {
+            byte[] truncated = Arrays.copyOf(data, length);
+            assertThrows(IllegalArgumentException.class, () -> MoveListCodec.decode(start, truncated));
+        }
+        assertThrows(IllegalArgumentException.class, () -> MoveListCodec.decode(start, Arrays.copyOf(data, data.length + 1)));
+
+        byte[] batch = MoveListCodec.encodeGames(start, List.of(game, game));
+        assertThrows(IllegalArgumentException.class,
+                () -> MoveListCodec.decodeGames(start, Arrays.copyOf(batch, batch.length - 1)));
+        // índice 25 no início: só há 20 lances legais
+        assertThrows(IllegalArgumentException.class, () -> MoveListCodec.decode(start, new byte[]{1, 25}));
+
+        // contagens negativas ou maiores do que os bytes que faltam são recusadas antes de alocar
+        byte[] negative = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F};
+        byte[] huge = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+        for (byte[] count : List.of(negative, huge)) {
+            assertThrows(IllegalArgumentException.class, () -> MoveListCodec.decode(start, count));
+            assertThrows(IllegalArgumentException.class, () -> MoveListCodec.decodeGames(start, count));
+            assertThrows(IllegalArgumentException.class, () -> MoveListCodec.replay(start.copy(), count));
+        }
+        byte[] corruptGames = batch.clone();
+        corruptGames[0] = (byte) 0xFF; // o número de jogos passa a continuar nos bytes seguintes
+        assertThrows(IllegalArgumentException.class, () -> MoveListCodec.decodeGames(start, corruptGames));
+        assertThrows(IllegalArgumentException.class, () -> MoveListCodec.decode(start, new byte[]{5, 0}));
+    }
+}
@@ -0,0 +1,63 @@
+package pt.isec.pa.chess.model.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EvaluationTest {
+
+    // compara os termos incrementais com os de uma posição montada de raiz, em toda a árvore
+    private static int walk(Position p, int depth) {
+        Position scratch = Position.fromFen(p.toFen());
+        assertEquals(scratch.mgScore, p.mgScore, p.toFen());
+        assertEquals(scratch.egScore, p.egScore, p.toFen());
+        assertEquals(scratch.phase, p.phase, p.toFen());
+        assertEquals(Evaluation.evaluateFull(scratch), Evaluation.evaluateFull(p));
+        if (depth == 0) return 1;
+        int[] moves = new int[Position.MAX_MOVES];
+        int n = p.generateLegalMoves(moves);
+        int nodes = 1;
+        for (int i = 0; i < n; i++) {
+            int mg = p.mgScore, eg = p.egScore, phase = p.phase;
+            p.makeMove(moves[i]);
+            nodes += walk(p, depth - 1);
+            p.unmakeMove();
+            assertEquals(mg, p.mgScore);
+            assertEquals(eg, p.egScore);
+            assertEquals(phase, p.phase);
+        }
+        return nodes;
+    }
+
+    // Test 1: Verify that the incremental terms equal a from-scratch evaluation after every make and unmake
+    @Test
+    void testIncrementalMatchesScratch() {
+        String[] fens = {
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                // promoções com e sem captura, para os dois lados
+                "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1"};
+        for (String fen : fens)
+            assertTrue(walk(Position.fromFen(fen), 3) > 1000);
+    }
+
+    // Test 2: Verify that the evaluation is symmetric and blends the middlegame and the endgame by phase
+    @Test
+    void testSymmetryAndPhase() {
+        Position start = Position.startPosition();
+        assertEquals(24, start.phase);
+        assertEquals(0, Evaluation.evaluateFull(start));
+        // a mesma posição com as cores trocadas vale o mesmo para quem joga
+        Position white = Position.fromFen("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3");
+        Position black = Position.fromFen("rnbqkb1r/pppp1ppp/5n2/4p3/4P3/2N5/PPPP1PPP/R1BQKBNR b KQkq - 2 3");
+        assertEquals(Evaluation.evaluateFull(white), Evaluation.evaluateFull(black));
+        assertEquals(-Evaluation.evaluate(white), Evaluation.evaluate(Position.fromFen(
+                "r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R b KQkq - 2 3")));
+
+        // num final de peões só conta a tabela do final
+        Position pawns = Position.fromFen("4k3/8/8/8/8/8/4P3/4K3 w - - 0 1");
+        assertEquals(0, pawns.phase);
+        assertEquals(pawns.egScore, Evaluation.evaluate(pawns));
+        assertTrue(Evaluation.evaluate(pawns) > 0);
+    }
+}
@@ -0,0 +1,83 @@
+package pt.isec.pa.chess.model.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovePickerTest {
+    private static final String[] FENS = {
+            Position.startPosition().toFen(),
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1",
+            "rnbqkb1r/pp1p1ppp/5n2/2pPp3/4P3/8/PPP2PPP/RNBQKBNR w KQkq e6 0 4"};
+
+    private static List<Integer> pick(MovePicker picker) {
+        List<Integer> picked = new ArrayList<>();
+        for (int move = picker.next(); move != Move.NONE; move = picker.next())
+            picked.add(move);
+        return picked;
+    }
+
+    private static Set<Integer> legalMoves(Position p) {
+        int[] moves = new int[Position.MAX_MOVES];
+        int n = p.generateLegalMoves(moves);
+        Set<Integer> legal = new HashSet<>();
+        for (int i = 0; i < n; i++) legal.add(moves[i]);
+        return legal;
+    }
+
+    // Test 1: Verify that every legal move is given exactly once, whatever the hash move and killers
+    @Test
+    void testEveryMoveOnce() {
+        Random random = new Random(5);
+        int[] history = new int[64 * 64];
+        MovePicker picker = new MovePicker(new int[StaticExchange.BUFFER_SIZE]);
+        for (String fen : FENS) {
+            Position p = Position.fromFen(fen);
+            Set<Integer> legal = legalMoves(p);
+            List<Integer> all = new ArrayList<>(legal);
+            for (int round = 0; round < 50; round++) {
+                for (int i = 0; i < history.length; i++) history[i] = random.nextInt(1000);
+                // lances da tabela e killers ao acaso, às vezes de outra posição ou repetidos
+                int hash = round % 5 == 0 ? Move.NONE : all.get(random.nextInt(all.size()));
+                int killer1 = round % 3 == 0 ? Move.of(random.nextInt(64), random.nextInt(64)) : all.get(random.nextInt(all.size()));
+                int killer2 = round % 7 == 0 ? killer1 : all.get(random.nextInt(all.size()));
+                picker.init(p, hash, killer1, killer2, history);
+                List<Integer> picked = pick(picker);
+                assertEquals(picked.size(), new HashSet<>(picked).size(), fen);
+                Set<Integer> pickedLegal = new HashSet<>(picked);
+                pickedLegal.retainAll(legal);
+                assertEquals(legal, pickedLegal, fen);
+                if (hash != Move.NONE) assertEquals(hash, (int) picked.getFirst());
+            }
+        }
+    }
+
+    // Test 2: Verify the order of the stages: hash, good captures, killers, quiet moves, losing captures
+    @Test
+    void testStageOrder() {
+        // a dama pode tomar o peão de d6, defendido por c7, e o cavalo de f3 o de g5, sem defesa
+        Position p = Position.fromFen("4k3/2p5/3p4/6n1/8/5N2/8/3QK3 w - - 0 1");
+        int hash = p.parseUciMove("e1f2"), killer = p.parseUciMove("d1d4");
+        int good = p.parseUciMove("f3g5"), bad = p.parseUciMove("d1d6");
+        MovePicker picker = new MovePicker(new int[StaticExchange.BUFFER_SIZE]);
+        picker.init(p, hash, killer, Move.NONE, new int[64 * 64]);
+        List<Integer> picked = pick(picker);
+        assertEquals(hash, (int) picked.get(0));
+        assertEquals(good, (int) picked.get(1));
+        assertEquals(killer, (int) picked.get(2));
+        assertEquals(bad, (int) picked.getLast());
+        assertEquals(legalMoves(p).size(), picked.size());
+
+        // na quiescência só as capturas que não perdem material
+        picker.initQuiescence(p);
+        assertEquals(List.of(good), pick(picker));
+    }
+}
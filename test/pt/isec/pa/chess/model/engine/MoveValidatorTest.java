@@ -0,0 +1,110 @@
+package pt.isec.pa.chess.model.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveValidatorTest {
+
+    private static int uci(String move) {
+        int promo = move.length() > 4 ? "pnbrqk".indexOf(move.charAt(4)) : 0;
+        return Move.promotion(Move.parseSquare(move), Move.parseSquare(move.substring(2)), promo);
+    }
+
+    // Test 1: Verify that an encoded position decodes to the same position
+    @Test
+    void testEncodingRoundTrip() {
+        for (String fen : new String[]{Position.START_FEN,
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3"}) {
+            Position p = Position.fromFen(fen);
+            Position decoded = MoveValidator.decode(MoveValidator.encode(p), 0);
+            assertEquals(fen, decoded.toFen());
+            assertEquals(p.key(), decoded.key());
+        }
+        long[] noKing = MoveValidator.encode(Position.fromFen("8/8/8/8/8/8/8/K7 w - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> MoveValidator.decode(noKing, 0));
+    }
+
+    // Test 2: Verify legal and illegal moves, including the special ones given without their flag
+    @Test
+    void testLegality() {
+        MoveValidator validator = new MoveValidator(2);
+        long[] start = MoveValidator.encode(Position.startPosition());
+        long[] ep = MoveValidator.encode(Position.fromFen("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3"));
+        long[] castle = MoveValidator.encode(Position.fromFen("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1"));
+        long[] pinned = MoveValidator.encode(Position.fromFen("4k3/4r3/8/8/8/8/4N3/4K3 w - - 0 1"));
+        long[] promotion = MoveValidator.encode(Position.fromFen("8/P6k/8/8/8/8/8/K7 w - - 0 1"));
+
+        assertTrue(validator.isLegal(start, uci("e2e4")));
+        assertTrue(validator.isLegal(start, uci("g1f3")));
+        assertFalse(validator.isLegal(start, uci("e2e5")));
+        assertFalse(validator.isLegal(start, uci("e7e5")));
+        assertTrue(validator.isLegal(ep, uci("e5f6")));
+        assertFalse(validator.isLegal(ep, uci("e5d6")));
+        assertTrue(validator.isLegal(castle, uci("e1g1")));
+        assertTrue(validator.isLegal(castle, uci("e1c1")));
+        assertFalse(validator.isLegal(pinned, uci("e2c3")));
+        assertTrue(validator.isLegal(promotion, uci("a7a8q")));
+        assertFalse(validator.isLegal(promotion, uci("a7a8")));
+
+        MoveValidator.Result result = validator.validate(
+                concat(start, ep, castle), new int[]{uci("e2e4"), uci("e5f6"), uci("e1b1")});
+        assertTrue(result.isLegal(0));
+        assertTrue(result.isLegal(1));
+        assertFalse(result.isLegal(2));
+        assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1", result.position(0).toFen());
+        assertEquals("rnbqkbnr/ppp1p1pp/5P2/3p4/8/8/PPPP1PPP/RNBQKBNR b KQkq - 0 3", result.position(1).toFen());
+        assertEquals("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1", result.position(2).toFen());
+        validator.shutdown();
+    }
+
+    // Test 3: Verify that a large parallel batch agrees with playing each move on its own position
+    @Test
+    void testParallelBatch() {
+        Random random = new Random(7);
+        int count = 20_000;
+        long[] positions = new long[count * MoveValidator.WORDS];
+        int[] moves = new int[count];
+        Position p = Position.startPosition();
+        int[] buffer = new int[Position.MAX_MOVES];
+        for (int i = 0; i < count; i++) {
+            int n = p.generateLegalMoves(buffer);
+            if (n == 0 || p.historySize() > 80) {
+                p = Position.startPosition();
+                n = p.generateLegalMoves(buffer);
+            }
+            MoveValidator.encode(p, positions, i * MoveValidator.WORDS);
+            // metade lances legais, metade origem e destino ao acaso
+            moves[i] = random.nextBoolean() ? buffer[random.nextInt(n)] & 0x7FFF
+                    : Move.of(random.nextInt(64), random.nextInt(64));
+            p.makeMove(buffer[random.nextInt(n)]);
+        }
+
+        MoveValidator validator = new MoveValidator(4);
+        MoveValidator.Result result = validator.validate(positions, moves);
+        validator.shutdown();
+        int legal = 0;
+        for (int i = 0; i < count; i++) {
+            Position q = MoveValidator.decode(positions, i * MoveValidator.WORDS);
+            int move = q.findMove(Move.from(moves[i]), Move.to(moves[i]), Move.promotion(moves[i]));
+            assertEquals(move != Move.NONE, result.isLegal(i), "lance " + i);
+            if (move != Move.NONE) {
+                q.makeMove(move);
+                legal++;
+            }
+            assertEquals(q.toFen(), result.position(i).toFen());
+        }
+        assertEquals(legal, result.legalCount());
+        assertTrue(legal > count / 2);
+    }
+
+    private static long[] concat(long[]... positions) {
+        long[] all = new long[positions.length * MoveValidator.WORDS];
+        for (int i = 0; i < positions.length; i++)
+            System.arraycopy(positions[i], 0, all, i * MoveValidator.WORDS, MoveValidator.WORDS);
+        return all;
+    }
+}
@@ -0,0 +1,58 @@
+package pt.isec.pa.chess.model.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelSearchTest {
+
+    private static boolean isLegal(Position p, int move) {
+        int[] moves = new int[Position.MAX_MOVES];
+        int count = p.generateLegalMoves(moves);
+        for (int i = 0; i < count; i++)
+            if (moves[i] == move) return true;
+        return false;
+    }
+
+    // Test 1: Verify that several threads return a legal best move and count the nodes of all of them
+    @Test
+    void testLegalBestMove() {
+        ParallelSearch search = new ParallelSearch(4);
+        try {
+            Position root = Position.fromFen("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3");
+            SearchResult r = search.search(root, SearchLimits.depth(6));
+            assertTrue(isLegal(root, r.getBestMove()));
+            assertEquals(6, r.getDepth());
+            assertEquals(4, search.getThreads());
+
+            SearchResult mate = search.search(Position.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1"), SearchLimits.depth(5));
+            assertEquals("a1a8", Move.toUci(mate.getBestMove()));
+        } finally {
+            search.shutdown();
+        }
+    }
+
+    // Test 2: Verify that a stop ends the main search and the helpers of an infinite search
+    @Test
+    void testStop() throws Exception {
+        ParallelSearch search = new ParallelSearch(4);
+        try {
+            Position root = Position.startPosition();
+            for (int round = 0; round < 3; round++) {
+                CompletableFuture<SearchResult> running = CompletableFuture.supplyAsync(() -> search.search(root, SearchLimits.infinite()));
+                Thread.sleep(100);
+                assertFalse(running.isDone());
+                search.stop();
+                // a pesquisa só devolve depois de todos os ajudantes pararem
+                SearchResult r = running.get(5, TimeUnit.SECONDS);
+                assertTrue(isLegal(root, r.getBestMove()));
+                assertTrue(r.getNodes() > 0);
+            }
+        } finally {
+            search.shutdown();
+        }
+    }
+}
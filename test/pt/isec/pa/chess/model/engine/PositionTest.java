@@ -0,0 +1,62 @@
+package pt.isec.pa.chess.model.engine;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionTest {
+
+    private static long perft(Position p, int depth) {
+        int[] moves = new int[Position.MAX_MOVES];
+        int n = p.generateLegalMoves(moves);
+        if (depth == 1) return n;
+        long nodes = 0;
+        for (int i = 0; i < n; i++) {
+            p.makeMove(moves[i]);
+            nodes += perft(p, depth - 1);
+            p.unmakeMove();
+        }
+        return nodes;
+    }
+
+    // Test 1: Verify move generation from the initial position
+    @Test
+    void testPerftStartPosition() {
+        Position p = Position.startPosition();
+        assertEquals(20, perft(p, 1));
+        assertEquals(400, perft(p, 2));
+        assertEquals(8902, perft(p, 3));
+        assertEquals(197281, perft(p, 4));
+    }
+
+    // Test 2: Verify castling, en passant and promotions
+    @Test
+    void testPerftSpecialMoves() {
+        Position kiwipete = Position.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        assertEquals(48, perft(kiwipete, 1));
+        assertEquals(2039, perft(kiwipete, 2));
+        assertEquals(97862, perft(kiwipete, 3));
+
+        Position endgame = Position.fromFen("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1");
+        assertEquals(43238, perft(endgame, 4));
+    }
+
+    // Test 3: Verify that make/unmake restores the position, its key and its evaluation
+    @Test
+    void testMakeUnmakeRestoresState() {
+        Position p = Position.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        String fen = p.toFen();
+        long key = p.key();
+        int eval = Evaluation.evaluate(p);
+        int[] moves = new int[Position.MAX_MOVES];
+        int n = p.generateLegalMoves(moves);
+        for (int i = 0; i < n; i++) {
+            p.makeMove(moves[i]);
+            assertEquals(p.computeKey(), p.key());
+            assertEquals(Evaluation.evaluate(Position.fromFen(p.toFen())), Evaluation.evaluate(p));
+            p.unmakeMove();
+            assertEquals(fen, p.toFen());
+            assertEquals(key, p.key());
+            assertEquals(eval, Evaluation.evaluate(p));
+        }
+    }
+}
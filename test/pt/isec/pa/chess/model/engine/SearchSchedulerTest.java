@@ -0,0 +1,84 @@
+package pt.isec.pa.chess.model.engine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchSchedulerTest {
+    private final SearchScheduler scheduler = new SearchScheduler(new ParallelSearch(2));
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+        scheduler.getSearch().shutdown();
+    }
+
+    // Test 1: Verify that a cancelled or replaced search never delivers its result
+    @Test
+    void testCancelSuppressesResult() throws InterruptedException {
+        List<String> delivered = new CopyOnWriteArrayList<>();
+        scheduler.start(Position.startPosition(), SearchLimits.infinite(), null, r -> delivered.add("cancelada"));
+        Thread.sleep(50);
+        scheduler.cancel();
+
+        scheduler.start(Position.startPosition(), SearchLimits.infinite(), null, r -> delivered.add("substituída"));
+        Thread.sleep(50);
+        CountDownLatch done = new CountDownLatch(1);
+        scheduler.start(Position.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1"), SearchLimits.depth(4), null, r -> {
+            delivered.add(Move.toUci(r.getBestMove()));
+            done.countDown();
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(List.of("a1a8"), delivered);
+    }
+
+    // Test 2: Verify that a ponder search holds its result until the ponder hit and then continues with the clock
+    @Test
+    void testPonderHit() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        scheduler.ponder(Position.startPosition(), SearchLimits.time(100), null, r -> done.countDown());
+        assertTrue(scheduler.isPondering());
+        // enquanto pondera o tempo não conta
+        assertFalse(done.await(400, TimeUnit.MILLISECONDS));
+        assertTrue(scheduler.ponderHit());
+        assertFalse(scheduler.isPondering());
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        assertFalse(scheduler.ponderHit());
+
+        // uma pesquisa que acaba antes do ponder hit é entregue só depois dele
+        CountDownLatch held = new CountDownLatch(1);
+        scheduler.ponder(Position.startPosition(), SearchLimits.depth(2), null, r -> held.countDown());
+        assertFalse(held.await(300, TimeUnit.MILLISECONDS));
+        scheduler.ponderHit();
+        assertTrue(held.await(2, TimeUnit.SECONDS));
+    }
+
+    // Test 3: Verify that a missed ponder is cancelled and that stop delivers the best move so far
+    @Test
+    void testPonderMissAndStop() throws InterruptedException {
+        List<SearchResult> delivered = new CopyOnWriteArrayList<>();
+        scheduler.ponder(Position.startPosition(), SearchLimits.depth(3), null, delivered::add);
+        Thread.sleep(100);
+        scheduler.cancel();
+        assertFalse(scheduler.isPondering());
+
+        CountDownLatch done = new CountDownLatch(1);
+        scheduler.start(Position.startPosition(), SearchLimits.infinite(), null, r -> {
+            delivered.add(r);
+            done.countDown();
+        });
+        Thread.sleep(100);
+        scheduler.stop();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(1, delivered.size());
+        assertNotEquals(Move.NONE, delivered.getFirst().getBestMove());
+    }
+}
@@ -0,0 +1,63 @@
+package pt.isec.pa.chess.model.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchTest {
+
+    // Test 1: Verify that a mate in one is found
+    @Test
+    void testFindsMateInOne() {
+        SearchResult r = new Search().search(Position.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1"), SearchLimits.depth(4));
+        assertEquals("a1a8", Move.toUci(r.getBestMove()));
+        assertTrue(r.isMate());
+        assertEquals(1, r.getMateIn());
+    }
+
+    // Test 2: Verify that a multi-PV search gives distinct lines, best first
+    @Test
+    void testMultiPvLines() {
+        Search search = new Search();
+        search.setMultiPv(3);
+        SearchResult r = search.search(Position.startPosition(), SearchLimits.depth(4));
+        List<SearchResult> lines = r.getLines();
+        assertEquals(3, lines.size());
+        assertEquals(r.getBestMove(), lines.getFirst().getBestMove());
+        Set<Integer> moves = new HashSet<>();
+        for (int i = 0; i < lines.size(); i++) {
+            assertTrue(moves.add(lines.get(i).getBestMove()));
+            if (i > 0) assertTrue(lines.get(i - 1).getScore() >= lines.get(i).getScore());
+        }
+    }
+
+    // Test 3: Verify that the number of lines is limited by the legal moves
+    @Test
+    void testMultiPvWithFewMoves() {
+        Search search = new Search();
+        search.setMultiPv(5);
+        SearchResult r = search.search(Position.fromFen("7k/8/8/8/8/8/8/K7 w - - 0 1"), SearchLimits.depth(3));
+        assertEquals(3, r.getLines().size());
+    }
+
+    // Test 4: Verify that a stop ends even the first iteration, while the node limit lets it finish
+    @Test
+    void testStopDuringFirstIteration() {
+        // a primeira iteração desta posição passa dos 256 nós, o intervalo entre verificações
+        Position position = Position.fromFen("r2qk2r/ppp2ppp/2npbn2/2b1p3/2B1P3/2NPBN2/PPP2PPP/R2QK2R w KQkq - 0 1");
+        Search stopped = new Search();
+        stopped.stop();
+        SearchResult r = stopped.run(position, SearchLimits.depth(5), true);
+        assertEquals(0, r.getDepth());
+        assertTrue(r.getNodes() <= 256);
+        assertNotEquals(Move.NONE, r.getBestMove());
+
+        SearchResult limited = new Search().search(position, SearchLimits.nodes(1));
+        assertEquals(1, limited.getDepth());
+        assertTrue(limited.getNodes() > 256);
+    }
+}
@@ -0,0 +1,61 @@
+package pt.isec.pa.chess.model.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StaticExchangeTest {
+
+    private static int see(String fen, String uci) {
+        Position p = Position.fromFen(fen);
+        int move = p.parseUciMove(uci);
+        assertNotEquals(Move.NONE, move);
+        return StaticExchange.evaluate(p, move);
+    }
+
+    // Test 1: Verify free, even and losing captures
+    @Test
+    void testCaptures() {
+        assertEquals(320, see("4k3/8/8/4n3/3P4/8/8/4K3 w - - 0 1", "d4e5"));
+        assertEquals(0, see("4k3/4r3/8/8/8/8/4R3/4K3 w - - 0 1", "e2e7"));
+        // a dama ganha um peão e perde-se para o peão que o defende
+        assertEquals(100 - 900, see("4k3/8/3p4/4p3/8/8/8/4Q1K1 w - - 0 1", "e1e5"));
+        // cavalo por torre defendida: ganha a qualidade
+        assertEquals(500 - 320, see("3rk3/8/8/3r4/8/4N3/8/4K3 w - - 0 1", "e3d5"));
+    }
+
+    // Test 2: Verify that the pieces behind the capturing sliders join the exchange
+    @Test
+    void testXRay() {
+        // torres dobradas: a segunda recaptura depois de a primeira ser tomada
+        assertEquals(100, see("4r1k1/8/8/4p3/8/8/4R3/4R1K1 w - - 0 1", "e2e5"));
+        // só uma torre branca contra duas pretas
+        assertEquals(100 - 500, see("4r1k1/4r3/8/4p3/8/8/4R3/6K1 w - - 0 1", "e2e5"));
+        // dama atrás do bispo na mesma diagonal: peão e cavalo pelo bispo
+        assertEquals(100 - 330 + 320, see("6k1/3n4/8/4p3/3B4/2Q5/8/6K1 w - - 0 1", "d4e5"));
+    }
+
+    // Test 3: Verify that the buffer given by the search gives the same results and can be reused
+    @Test
+    void testScratchBuffer() {
+        int[] gain = new int[StaticExchange.BUFFER_SIZE];
+        String[][] cases = {{"4r1k1/8/8/4p3/8/8/4R3/4R1K1 w - - 0 1", "e2e5"},
+                {"4k3/8/3p4/4p3/8/8/8/4Q1K1 w - - 0 1", "e1e5"}, {"4k3/8/8/4n3/3P4/8/8/4K3 w - - 0 1", "d4e5"}};
+        for (int round = 0; round < 2; round++)
+            for (String[] c : cases) {
+                Position p = Position.fromFen(c[0]);
+                int move = p.parseUciMove(c[1]);
+                assertEquals(StaticExchange.evaluate(p, move), StaticExchange.evaluate(p, move, gain));
+            }
+    }
+
+    // Test 4: Verify that the quiescence search sees the recapture after the last ply
+    @Test
+    void testQuiescence() {
+        SearchResult defended = new Search().search(Position.fromFen("4k3/8/3p4/4p3/8/8/8/4Q1K1 w - - 0 1"), SearchLimits.depth(1));
+        assertNotEquals("e1e5", Move.toUci(defended.getBestMove()));
+        assertTrue(defended.getScore() > 500);
+        SearchResult free = new Search().search(Position.fromFen("4k3/8/8/4n3/8/8/8/4Q1K1 w - - 0 1"), SearchLimits.depth(1));
+        assertEquals("e1e5", Move.toUci(free.getBestMove()));
+    }
+}
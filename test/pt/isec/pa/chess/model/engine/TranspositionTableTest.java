@@ -0,0 +1,102 @@
+package pt.isec.pa.chess.model.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranspositionTableTest {
+
+    // Test 1: Verify that a stored entry is found with its move, score, depth and bound
+    @Test
+    void testStoreProbeRoundTrip() {
+        TranspositionTable tt = new TranspositionTable(1);
+        long key = 0x9E3779B97F4A7C15L;
+        int move = Move.promotion(52, 60, Position.QUEEN);
+        assertEquals(0, tt.probe(key));
+        tt.store(key, move, -1234, 7, TranspositionTable.BOUND_LOWER);
+
+        long data = tt.probe(key);
+        assertEquals(move, TranspositionTable.move(data));
+        assertEquals(-1234, TranspositionTable.score(data));
+        assertEquals(7, TranspositionTable.depth(data));
+        assertEquals(TranspositionTable.BOUND_LOWER, TranspositionTable.bound(data));
+        assertEquals(0, tt.probe(key ^ 1L << 40));
+
+        // a mesma posição sem lance mantém o lance anterior
+        tt.store(key, Move.NONE, 50, 9, TranspositionTable.BOUND_EXACT);
+        data = tt.probe(key);
+        assertEquals(move, TranspositionTable.move(data));
+        assertEquals(50, TranspositionTable.score(data));
+        assertEquals(2, tt.getHits());
+        assertEquals(4, tt.getProbes());
+    }
+
+    // Test 2: Verify that the shallowest and oldest entry of a bucket is the one replaced
+    @Test
+    void testReplacement() {
+        TranspositionTable tt = new TranspositionTable(1);
+        // chaves com os mesmos bits baixos caem no mesmo balde
+        long a = 5, b = 5 | 1L << 40, c = 5 | 2L << 40, d = 5 | 3L << 40, e = 5 | 4L << 40;
+        tt.store(a, Move.NONE, 0, 10, TranspositionTable.BOUND_EXACT);
+        tt.store(b, Move.NONE, 0, 2, TranspositionTable.BOUND_EXACT);
+        tt.store(c, Move.NONE, 0, 5, TranspositionTable.BOUND_EXACT);
+        assertNotEquals(0, tt.probe(a));
+        assertEquals(0, tt.probe(b));
+        assertNotEquals(0, tt.probe(c));
+
+        tt.newSearch();
+        tt.newSearch();
+        tt.store(d, Move.NONE, 0, 1, TranspositionTable.BOUND_EXACT);
+        assertNotEquals(0, tt.probe(a));
+        assertEquals(0, tt.probe(c));
+        // a entrada profunda de há duas pesquisas vale menos do que uma nova
+        tt.store(e, Move.NONE, 0, 1, TranspositionTable.BOUND_EXACT);
+        assertEquals(0, tt.probe(a));
+        assertNotEquals(0, tt.probe(d));
+        assertNotEquals(0, tt.probe(e));
+    }
+
+    // Test 3: Verify that mate scores are stored as distances from the node and read back from another ply
+    @Test
+    void testMateScoreAdjustment() {
+        int mateIn5 = Search.MATE - 5;
+        assertEquals(Search.MATE - 2, TranspositionTable.scoreToTable(mateIn5, 3));
+        assertEquals(Search.MATE - 9, TranspositionTable.scoreFromTable(Search.MATE - 2, 7));
+        assertEquals(-Search.MATE + 2, TranspositionTable.scoreToTable(-mateIn5, 3));
+        assertEquals(-Search.MATE + 9, TranspositionTable.scoreFromTable(-Search.MATE + 2, 7));
+        assertEquals(150, TranspositionTable.scoreToTable(150, 20));
+        assertEquals(-150, TranspositionTable.scoreFromTable(-150, 20));
+
+        TranspositionTable tt = new TranspositionTable(1);
+        tt.store(42, Move.NONE, TranspositionTable.scoreToTable(mateIn5, 3), 4, TranspositionTable.BOUND_EXACT);
+        assertEquals(Search.MATE - 6, TranspositionTable.scoreFromTable(TranspositionTable.score(tt.probe(42)), 4));
+    }
+
+    // Test 4: Verify that the table can be resized while other threads probe and store
+    @Test
+    void testResizeDuringSearch() throws InterruptedException {
+        TranspositionTable tt = new TranspositionTable(16);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread search = new Thread(() -> {
+            try {
+                long key = 1;
+                while (!Thread.currentThread().isInterrupted()) {
+                    key = key * 6364136223846793005L + 1442695040888963407L;
+                    tt.store(key, Move.NONE, 0, 1, TranspositionTable.BOUND_EXACT);
+                    tt.probe(key);
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        search.start();
+        for (int i = 0; i < 200; i++)
+            tt.resize(i % 2 == 0 ? 1 : 16);
+        search.interrupt();
+        search.join();
+        assertNull(failure.get());
+        assertEquals(16, tt.getSizeMegabytes());
+    }
+}
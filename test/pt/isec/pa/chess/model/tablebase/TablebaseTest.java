@@ -0,0 +1,75 @@
+package pt.isec.pa.chess.model.tablebase;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pt.isec.pa.chess.model.engine.Move;
+import pt.isec.pa.chess.model.engine.Position;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TablebaseTest {
+
+    private static int longestMate(byte[] table) {
+        int longest = 0;
+        for (byte value : table)
+            if (Tablebase.isWin(value)) longest = Math.max(longest, value);
+        return longest;
+    }
+
+    // Test 1: Verify the longest mates of KQK and KRK, 10 and 16 moves
+    @Test
+    void testLongestMates(@TempDir Path dir) throws IOException {
+        TablebaseGenerator generator = new TablebaseGenerator(dir.toString(), 4);
+        try {
+            assertEquals(10, longestMate(generator.generate("KQK")));
+            assertEquals(16, longestMate(generator.generate("KRK")));
+        } finally {
+            generator.shutdown();
+        }
+    }
+
+    // Test 2: Verify the values probed in a few positions, from either side and with colours swapped
+    @Test
+    void testProbe(@TempDir Path dir) throws IOException {
+        TablebaseGenerator generator = new TablebaseGenerator(dir.toString(), 4);
+        try {
+            generator.generate("KQK");
+            generator.generate("KRK");
+        } finally {
+            generator.shutdown();
+        }
+        TablebaseProber prober = new TablebaseProber(dir.toString());
+        Position queen = Position.fromFen("7k/8/6K1/8/8/8/8/1Q6 w - - 0 1");
+        assertEquals(1, prober.probe(queen));
+        assertEquals("b1b8", Move.toUci(prober.bestMove(queen)));
+        assertEquals(1, prober.probe(Position.fromFen("7k/8/6K1/8/8/8/8/1R6 w - - 0 1")));
+        // as pretas com a dama: a tabela KQK é lida com as cores trocadas e o tabuleiro espelhado
+        assertEquals(1, prober.probe(Position.fromFen("1q6/8/8/8/8/6k1/8/7K b - - 0 1")));
+        // uma posição que não pode acontecer: o rei de quem não joga está em xeque
+        assertEquals(Tablebase.INVALID, prober.probe(Position.fromFen("7k/8/6K1/8/8/8/8/Q7 w - - 0 1")));
+        assertEquals(Tablebase.DRAW, prober.probe(Position.fromFen("7k/8/8/8/8/8/8/K7 w - - 0 1")));
+        assertEquals(TablebaseProber.NOT_FOUND, prober.probe(Position.fromFen("7k/8/8/8/8/8/8/KB5N w - - 0 1")));
+        assertEquals(TablebaseProber.NOT_FOUND, prober.probe(Position.startPosition()));
+    }
+
+    // Test 3: Verify that the side to move is mated or stalemated when it has no moves
+    @Test
+    void testNoMoves(@TempDir Path dir) throws IOException {
+        TablebaseGenerator generator = new TablebaseGenerator(dir.toString(), 2);
+        try {
+            generator.generate("KQK");
+        } finally {
+            generator.shutdown();
+        }
+        TablebaseProber prober = new TablebaseProber(dir.toString());
+        int mated = prober.probe(Position.fromFen("Q6k/8/6K1/8/8/8/8/8 b - - 0 1"));
+        assertEquals(-1, mated);
+        assertTrue(Tablebase.isLoss(mated));
+        assertEquals(0, Tablebase.plies(mated));
+        assertEquals(Tablebase.DRAW, prober.probe(Position.fromFen("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1")));
+        assertEquals(Move.NONE, prober.bestMove(Position.fromFen("Q6k/8/6K1/8/8/8/8/8 b - - 0 1")));
+    }
+}
@@ -0,0 +1,159 @@
+package pt.isec.pa.chess.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pt.isec.pa.chess.model.ChessGame;
+import pt.isec.pa.chess.model.ChessGameManager;
+import pt.isec.pa.chess.model.GameSnapshot;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChessServerTest {
+    private GameSessionManager sessions;
+    private ChessServer server;
+    private InetSocketAddress address;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        sessions = new GameSessionManager();
+        server = new ChessServer(sessions);
+        server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+        sessions.shutdown();
+    }
+
+    // Test 1: Verify that two clients play a game over loopback and both follow the server
+    @Test
+    void testGameOverLoopback() throws IOException {
+        ChessGameManager whiteGame = new ChessGameManager(), blackGame = new ChessGameManager();
+        try (ChessClient white = ChessClient.create(address, "Ana", "Rui", whiteGame, Runnable::run);
+             ChessClient black = ChessClient.join(address, white.getSessionId(), blackGame, Runnable::run)) {
+            assertTrue(white.isWhite());
+            assertFalse(black.isWhite());
+
+            // mate do pastor
+            play(white, whiteGame, blackGame, 6, 4, 4, 4);
+            play(black, whiteGame, blackGame, 1, 4, 3, 4);
+            play(white, whiteGame, blackGame, 7, 5, 4, 2);
+            play(black, whiteGame, blackGame, 0, 1, 2, 2);
+            play(white, whiteGame, blackGame, 7, 3, 3, 7);
+            play(black, whiteGame, blackGame, 0, 6, 2, 5);
+            play(white, whiteGame, blackGame, 3, 7, 1, 5);
+
+            GameSnapshot server = sessions.getSession(white.getSessionId()).getSnapshot();
+            assertEquals(server.toFen(), whiteGame.getSnapshot().toFen());
+            assertEquals(server.toFen(), blackGame.getSnapshot().toFen());
+            assertEquals("Rui", blackGame.getNomeJogadorPretas());
+            assertEquals(ChessGame.acontecimentoMovimento.CHECKMATE, blackGame.getSnapshot().getStatus());
+        }
+    }
+
+    // Test 2: Verify that moves out of turn are refused and that a missing session cannot be joined
+    @Test
+    void testMovesOutOfTurnAreRejected() throws IOException {
+        ChessGameManager whiteGame = new ChessGameManager(), blackGame = new ChessGameManager();
+        try (ChessClient white = ChessClient.create(address, "Ana", "Rui", whiteGame, Runnable::run);
+             ChessClient black = ChessClient.join(address, white.getSessionId(), blackGame, Runnable::run)) {
+            await(() -> blackGame.getSnapshot().getPiece(6, 4) == 'P');
+            String start = blackGame.getSnapshot().toFen();
+
+            black.sendMove(1, 4, 3, 4);
+            await(() -> blackGame.getLog().getLogs().stream().anyMatch(l -> l.contains("recusado")));
+            white.sendMove(1, 3, 3, 3);
+            await(() -> whiteGame.getLog().getLogs().stream().anyMatch(l -> l.contains("recusado")));
+
+            assertEquals(start, blackGame.getSnapshot().toFen());
+            assertEquals(start, sessions.getSession(white.getSessionId()).getSnapshot().toFen());
+        }
+        assertThrows(IOException.class, () -> ChessClient.join(address, 12345, new ChessGameManager(), Runnable::run));
+    }
+
+    // Test 3: Verify that idle connections are held without delaying a game
+    @Test
+    void testIdleConnections() throws IOException {
+        List<SocketChannel> idle = new ArrayList<>();
+        try {
+            for (int i = 0; i < 300; i++)
+                idle.add(SocketChannel.open(address));
+            await(() -> server.getConnectionCount() == 300);
+
+            ChessGameManager whiteGame = new ChessGameManager(), blackGame = new ChessGameManager();
+            try (ChessClient white = ChessClient.create(address, "Ana", "Rui", whiteGame, Runnable::run);
+                 ChessClient black = ChessClient.join(address, white.getSessionId(), blackGame, Runnable::run)) {
+                play(white, whiteGame, blackGame, 6, 3, 4, 3);
+                play(black, whiteGame, blackGame, 1, 3, 3, 3);
+                assertEquals(302, server.getConnectionCount());
+            }
+        } finally {
+            for (SocketChannel channel : idle)
+                channel.close();
+        }
+        await(() -> server.getConnectionCount() == 0);
+        assertEquals(0, sessions.getSessionCount());
+    }
+
+    // Test 4: Verify that a spectator receives the position after every move
+    @Test
+    void testSpectator() throws IOException {
+        ChessGameManager whiteGame = new ChessGameManager(), blackGame = new ChessGameManager();
+        try (ChessClient white = ChessClient.create(address, "Ana", "Rui", whiteGame, Runnable::run);
+             ChessClient black = ChessClient.join(address, white.getSessionId(), blackGame, Runnable::run);
+             SocketChannel spectator = SocketChannel.open(address)) {
+            spectator.write(Protocol.watch(white.getSessionId()));
+            play(white, whiteGame, blackGame, 6, 4, 4, 4);
+            play(black, whiteGame, blackGame, 1, 4, 3, 4);
+
+            GameSnapshot expected = sessions.getSession(white.getSessionId()).getSnapshot();
+            ByteBuffer frame = ByteBuffer.allocate(43);
+            Protocol.BoardState state;
+            do {
+                frame.clear();
+                while (frame.hasRemaining())
+                    assertTrue(spectator.read(frame) >= 0);
+                frame.flip();
+                assertEquals(42, frame.get());
+                assertEquals(Protocol.POSITION, frame.get());
+                state = Protocol.readPosition(frame);
+            } while (state.version() < expected.getVersion());
+            assertArrayEquals(expected.getPieces(), state.pieces());
+            assertEquals(1, sessions.getSession(white.getSessionId()).getBroadcast().getSubscriberCount());
+        }
+    }
+
+    private static void play(ChessClient client, ChessGameManager a, ChessGameManager b,
+                             int line, int col, int newLine, int newCol) throws IOException {
+        boolean player = client.isWhite();
+        client.sendMove(line, col, newLine, newCol);
+        await(() -> moved(a, player, line, col) && moved(b, player, line, col));
+    }
+
+    private static boolean moved(ChessGameManager game, boolean player, int line, int col) {
+        GameSnapshot snapshot = game.getSnapshot();
+        return snapshot.getPiece(line, col) == ' ' && snapshot.getCurrentPlayer() != player;
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline)
+                fail("A condição não se verificou a tempo");
+            Thread.onSpinWait();
+            Thread.yield();
+        }
+    }
+}
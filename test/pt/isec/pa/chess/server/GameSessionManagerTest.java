@@ -0,0 +1,101 @@
+package pt.isec.pa.chess.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pt.isec.pa.chess.model.ChessGameManager;
+import pt.isec.pa.chess.model.GameSimulator;
+import pt.isec.pa.chess.model.GameSnapshot;
+import pt.isec.pa.chess.model.clock.TimeControl;
+import pt.isec.pa.chess.model.data.MoveJournal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameSessionManagerTest {
+    private final GameSessionManager sessions = new GameSessionManager();
+
+    @AfterEach
+    void tearDown() {
+        sessions.shutdown();
+    }
+
+    private boolean move(GameSession session, int line, int col, int newLine, int newCol) {
+        return sessions.move(session.getId(), line, col, newLine, newCol).join();
+    }
+
+    // Test 1: Verify that castling and promotions are played whole through move
+    @Test
+    void testCastleAndPromotion(@TempDir Path dir) throws IOException {
+        GameSession session = sessions.createSession("Ana", "Rui");
+        int[][] moves = {{6, 4, 4, 4}, {1, 4, 3, 4}, {7, 6, 5, 5}, {0, 1, 2, 2}, {7, 5, 4, 2}, {0, 5, 3, 2}};
+        for (int[] m : moves)
+            assertTrue(move(session, m[0], m[1], m[2], m[3]));
+        assertTrue(move(session, 7, 4, 7, 7));
+        GameSnapshot castled = session.getSnapshot();
+        assertEquals('K', castled.getPiece(7, 6));
+        assertEquals('R', castled.getPiece(7, 5));
+        assertFalse(castled.getCurrentPlayer());
+
+        Path file = dir.resolve("promocao.txt");
+        Files.writeString(file, "WHITE,Ka1,Pb7,kh8");
+        GameSession promotion = sessions.createSession("Ana", "Rui");
+        sessions.execute(promotion.getId(), game -> {
+            game.importGame(file.toString(), "Ana", "Rui");
+            return null;
+        }).join();
+        assertTrue(sessions.move(promotion.getId(), 1, 1, 0, 1, GameSimulator.KNIGHT).join());
+        assertFalse(sessions.execute(promotion.getId(), ChessGameManager::getPromotionState).join());
+        assertEquals('N', promotion.getSnapshot().getPiece(0, 1));
+        assertFalse(promotion.getSnapshot().getCurrentPlayer());
+    }
+
+    // Test 2: Verify that hosted games print nothing on the console
+    @Test
+    void testSessionsAreQuiet() {
+        PrintStream out = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(printed));
+        try {
+            GameSession session = sessions.createSession("Ana", "Rui");
+            assertTrue(move(session, 6, 4, 4, 4));
+            assertTrue(move(session, 1, 4, 3, 4));
+            sessions.execute(session.getId(), game -> {
+                game.undo();
+                game.redo();
+                game.novoGame("Rui", "Ana");
+                return null;
+            }).join();
+            assertTrue(move(session, 6, 3, 4, 3));
+        } finally {
+            System.setOut(out);
+        }
+        assertEquals("", printed.toString());
+    }
+
+    // Test 3: Verify that closing a session stops its clock and closes its journal
+    @Test
+    void testCloseReleasesGame(@TempDir Path dir) throws InterruptedException {
+        GameSession session = sessions.createSession("Ana", "Rui");
+        ChessGameManager game = sessions.execute(session.getId(), g -> {
+            g.startClock(TimeControl.increment(60_000, 0), Runnable::run);
+            g.enableJournal(dir.resolve("jogo.dat").toString(), MoveJournal.SyncMode.GROUP);
+            return g;
+        }).join();
+        assertTrue(game.getClock().isRunning());
+        assertTrue(sessions.closeSession(session.getId()));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (game.isJournalEnabled() || game.getClock().isRunning()) {
+            assertTrue(System.currentTimeMillis() < deadline, "a sessão não libertou o jogo");
+            Thread.sleep(1);
+        }
+        assertTrue(session.submit(g -> null).isCompletedExceptionally());
+        assertTrue(sessions.getStatistics().getHeapUsed() > 0);
+    }
+}
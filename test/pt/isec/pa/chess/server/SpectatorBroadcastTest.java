@@ -0,0 +1,106 @@
+package pt.isec.pa.chess.server;
+
+import org.junit.jupiter.api.Test;
+import pt.isec.pa.chess.model.ChessGameManager;
+import pt.isec.pa.chess.model.GameSnapshot;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpectatorBroadcastTest {
+
+    // Test 1: Verify that each change is encoded once and every spectator gets the same bytes
+    @Test
+    void testSameFramesForEverySpectator() throws Exception {
+        ChessGameManager game = new ChessGameManager();
+        SpectatorBroadcast broadcast = new SpectatorBroadcast(game);
+        List<TestChannel> channels = new ArrayList<>();
+        List<SpectatorBroadcast.Subscriber> subscribers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            TestChannel channel = new TestChannel();
+            channels.add(channel);
+            subscribers.add(broadcast.subscribe(channel, () -> {}));
+        }
+
+        game.movePiece(6, 4, 4, 4);
+        for (SpectatorBroadcast.Subscriber subscriber : subscribers)
+            assertTrue(subscriber.write());
+        game.movePiece(1, 4, 3, 4);
+        for (SpectatorBroadcast.Subscriber subscriber : subscribers)
+            assertTrue(subscriber.write());
+
+        assertEquals(3, broadcast.getFramesEncoded());
+        for (TestChannel channel : channels)
+            assertArrayEquals(channels.getFirst().bytes(), channel.bytes());
+        Protocol.BoardState last = lastFrame(channels.getFirst().bytes());
+        GameSnapshot snapshot = game.getSnapshot();
+        assertEquals(snapshot.getVersion(), last.version());
+        assertArrayEquals(snapshot.getPieces(), last.pieces());
+        assertTrue(last.currentPlayer());
+    }
+
+    // Test 2: Verify that a slow spectator skips to the newest state instead of queuing frames
+    @Test
+    void testSlowSpectatorSkipsToLatest() throws Exception {
+        ChessGameManager game = new ChessGameManager();
+        SpectatorBroadcast broadcast = new SpectatorBroadcast(game);
+        TestChannel channel = new TestChannel();
+        int[] ready = new int[1];
+        SpectatorBroadcast.Subscriber subscriber = broadcast.subscribe(channel, () -> ready[0]++);
+
+        channel.full = true;
+        assertFalse(subscriber.write());
+        game.movePiece(6, 4, 4, 4);
+        game.movePiece(1, 4, 3, 4);
+        game.movePiece(6, 3, 4, 3);
+        game.movePiece(1, 3, 3, 3);
+        // enquanto o canal está cheio não há mais avisos
+        assertEquals(1, ready[0]);
+
+        channel.full = false;
+        assertTrue(subscriber.write());
+        assertEquals(3, broadcast.getFramesSkipped());
+        byte[] bytes = channel.bytes();
+        assertEquals(2 * 43, bytes.length);
+        assertEquals(game.getSnapshot().getVersion(), lastFrame(bytes).version());
+    }
+
+    private static Protocol.BoardState lastFrame(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, bytes.length - 43, 43);
+        assertEquals(42, buffer.get());
+        assertEquals(Protocol.POSITION, buffer.get());
+        return Protocol.readPosition(buffer);
+    }
+
+    private static final class TestChannel implements WritableByteChannel {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private boolean full;
+
+        @Override
+        public int write(ByteBuffer src) {
+            if (full) return 0;
+            int n = src.remaining();
+            while (src.hasRemaining())
+                out.write(src.get());
+            return n;
+        }
+
+        byte[] bytes() {
+            return out.toByteArray();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
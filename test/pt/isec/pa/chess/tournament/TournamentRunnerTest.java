@@ -0,0 +1,67 @@
+package pt.isec.pa.chess.tournament;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TournamentRunnerTest {
+
+    // Test 1: Verify that every game is played and counted once, with the colours swapped
+    @Test
+    void testEveryGameIsCounted() throws IOException {
+        TournamentRunner runner = new TournamentRunner(2);
+        runner.addPlayer("a", Strategy.random());
+        runner.addPlayer("b", Strategy.random());
+        runner.addPlayer("c", Strategy.greedy());
+        runner.setSeed(1);
+        TournamentResult result = runner.run(3);
+
+        assertEquals(3 * 4, result.getGames().size());
+        assertEquals(3, result.getMatches().size());
+        for (MatchResult match : result.getMatches())
+            assertEquals(4, match.getGames());
+        long whiteA = result.getGames().stream().filter(g -> g.white() == 0).count();
+        assertEquals(4, whiteA);
+        assertTrue(result.getPlies() > 0);
+    }
+
+    // Test 2: Verify that the archive gives back the same games
+    @Test
+    void testArchiveRoundTrip(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("torneio.arq");
+        TournamentRunner runner = new TournamentRunner(2);
+        runner.addPlayer("aleatório", Strategy.random());
+        runner.addPlayer("guloso", Strategy.greedy());
+        runner.setSeed(7);
+        runner.setArchive(file);
+        TournamentResult result = runner.run(6);
+
+        GameArchive.Contents contents = GameArchive.read(file);
+        assertEquals(List.of("aleatório", "guloso"), contents.players());
+        assertEquals(result.getGames().size(), contents.games().size());
+        for (int i = 0; i < contents.games().size(); i++) {
+            GameArchive.Game expected = result.getGames().get(i), actual = contents.games().get(i);
+            assertEquals(expected.white(), actual.white());
+            assertEquals(expected.outcome(), actual.outcome());
+            assertArrayEquals(expected.moves(), actual.moves());
+        }
+    }
+
+    // Test 3: Verify the Elo difference and its error bars
+    @Test
+    void testElo() {
+        MatchResult even = new MatchResult("a", "b", 10, 0, 10);
+        assertEquals(0, even.getEloDifference(), 1e-9);
+        assertTrue(even.getEloError() > 0);
+
+        MatchResult better = new MatchResult("a", "b", 30, 40, 10);
+        assertEquals(0.625, better.getScore(), 1e-9);
+        assertEquals(88.7, better.getEloDifference(), 0.1);
+        assertTrue(better.getEloError() < new MatchResult("a", "b", 3, 4, 1).getEloError());
+    }
+}
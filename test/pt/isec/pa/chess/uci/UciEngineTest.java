@@ -0,0 +1,45 @@
+package pt.isec.pa.chess.uci;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UciEngineTest {
+
+    private static String run(String commands) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+        new UciEngine(new ByteArrayInputStream(commands.getBytes(StandardCharsets.UTF_8)), out).run();
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    // Test 1: Verify the handshake
+    @Test
+    void testHandshake() {
+        String output = run("uci\nisready\nquit\n");
+        assertTrue(output.contains("id name " + UciEngine.NAME));
+        assertTrue(output.contains("option name Hash"));
+        assertTrue(output.contains("uciok"));
+        assertTrue(output.contains("readyok"));
+    }
+
+    // Test 2: Verify that the engine finds a mate in one after the moves of the position command
+    @Test
+    void testGoFindsMate() {
+        String output = run("position startpos moves f2f3 e7e5 g2g4\ngo depth 3\n");
+        assertTrue(output.contains("info depth 1"));
+        assertTrue(output.contains("bestmove d8h4"));
+    }
+
+    // Test 3: Verify that stop ends an infinite search with a move
+    @Test
+    void testStopEndsInfiniteSearch() {
+        String output = run("position fen 6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1\ngo infinite\nstop\n");
+        assertTrue(output.contains("bestmove a1a8"));
+    }
+}